@@ -22,8 +22,11 @@ public class SVMParser extends Parser {
 	public static final int
 		PUSH=1, POP=2, ADD=3, SUB=4, MULT=5, DIV=6, STOREW=7, LOADW=8, BRANCH=9, 
 		BRANCHEQ=10, BRANCHLESSEQ=11, JS=12, LOADRA=13, STORERA=14, LOADTM=15, 
-		STORETM=16, LOADFP=17, STOREFP=18, COPYFP=19, LOADHP=20, STOREHP=21, PRINT=22, 
-		HALT=23, COL=24, LABEL=25, INTEGER=26, COMMENT=27, WHITESP=28, ERR=29;
+		STORETM=16, LOADFP=17, STOREFP=18, COPYFP=19, LOADHP=20, STOREHP=21, CALL=22, 
+		CALLM=23, BRANCHMETHOD=24, ENTER=25, RET=26, MEMO=27, MEMORET=28, LOADLOCAL=29, 
+		LOADOUTER=30, LOADFIELD=31, STORELOCAL=32, ALLOC=33, NEW=34, WORD=35, 
+		PRINT=36, HALT=37, COL=38, LABEL=39, INTEGER=40, COMMENT=41, WHITESP=42, 
+		ERR=43;
 	public static final int
 		RULE_assembly = 0, RULE_instruction = 1;
 	private static String[] makeRuleNames() {
@@ -37,8 +40,9 @@ public class SVMParser extends Parser {
 		return new String[] {
 			null, "'push'", "'pop'", "'add'", "'sub'", "'mult'", "'div'", "'sw'", 
 			"'lw'", "'b'", "'beq'", "'bleq'", "'js'", "'lra'", "'sra'", "'ltm'", 
-			"'stm'", "'lfp'", "'sfp'", "'cfp'", "'lhp'", "'shp'", "'print'", "'halt'", 
-			"':'"
+			"'stm'", "'lfp'", "'sfp'", "'cfp'", "'lhp'", "'shp'", "'call'", "'callm'", 
+			"'bm'", "'enter'", "'ret'", "'memo'", "'mret'", "'lloc'", "'lout'", "'lfield'", 
+			"'sloc'", "'alloc'", "'new'", "'word'", "'print'", "'halt'", "':'"
 		};
 	}
 	private static final String[] _LITERAL_NAMES = makeLiteralNames();
@@ -46,7 +50,9 @@ public class SVMParser extends Parser {
 		return new String[] {
 			null, "PUSH", "POP", "ADD", "SUB", "MULT", "DIV", "STOREW", "LOADW", 
 			"BRANCH", "BRANCHEQ", "BRANCHLESSEQ", "JS", "LOADRA", "STORERA", "LOADTM", 
-			"STORETM", "LOADFP", "STOREFP", "COPYFP", "LOADHP", "STOREHP", "PRINT", 
+			"STORETM", "LOADFP", "STOREFP", "COPYFP", "LOADHP", "STOREHP", "CALL", 
+			"CALLM", "BRANCHMETHOD", "ENTER", "RET", "MEMO", "MEMORET", "LOADLOCAL", 
+			"LOADOUTER", "LOADFIELD", "STORELOCAL", "ALLOC", "NEW", "WORD", "PRINT", 
 			"HALT", "COL", "LABEL", "INTEGER", "COMMENT", "WHITESP", "ERR"
 		};
 	}
@@ -101,6 +107,9 @@ public class SVMParser extends Parser {
 	private int i = 0;
 	private Map<String,Integer> labelDef = new HashMap<>();
 	private Map<Integer,String> labelRef = new HashMap<>();
+	public int[] data = new int[ExecuteVM.MEMSIZE]; // segmento dati, caricato in memoria a partire dall'indirizzo 0
+	public int dataSize = 0;
+	private Map<Integer,String> dataRef = new HashMap<>();
 
 	public SVMParser(TokenStream input) {
 		super(input);
@@ -145,7 +154,7 @@ public class SVMParser extends Parser {
 			setState(7);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
-			while ((((_la) & ~0x3f) == 0 && ((1L << _la) & 50331646L) != 0)) {
+			while ((((_la) & ~0x3f) == 0 && ((1L << _la) & 824633720830L) != 0)) {
 				{
 				{
 				setState(4);
@@ -160,6 +169,8 @@ public class SVMParser extends Parser {
 			match(EOF);
 			 for (Integer j: labelRef.keySet()) 
 											code[j]=labelDef.get(labelRef.get(j)); 
+										  for (Integer j: dataRef.keySet()) 
+											data[j]=labelDef.get(dataRef.get(j)); 
 										
 			}
 		}
@@ -178,8 +189,14 @@ public class SVMParser extends Parser {
 	public static class InstructionContext extends ParserRuleContext {
 		public Token n;
 		public Token l;
+		public Token d;
+		public Token o;
+		public Token k;
 		public TerminalNode PUSH() { return getToken(SVMParser.PUSH, 0); }
-		public TerminalNode INTEGER() { return getToken(SVMParser.INTEGER, 0); }
+		public List<TerminalNode> INTEGER() { return getTokens(SVMParser.INTEGER); }
+		public TerminalNode INTEGER(int i) {
+			return getToken(SVMParser.INTEGER, i);
+		}
 		public TerminalNode LABEL() { return getToken(SVMParser.LABEL, 0); }
 		public TerminalNode POP() { return getToken(SVMParser.POP, 0); }
 		public TerminalNode ADD() { return getToken(SVMParser.ADD, 0); }
@@ -202,6 +219,20 @@ public class SVMParser extends Parser {
 		public TerminalNode COPYFP() { return getToken(SVMParser.COPYFP, 0); }
 		public TerminalNode LOADHP() { return getToken(SVMParser.LOADHP, 0); }
 		public TerminalNode STOREHP() { return getToken(SVMParser.STOREHP, 0); }
+		public TerminalNode CALL() { return getToken(SVMParser.CALL, 0); }
+		public TerminalNode CALLM() { return getToken(SVMParser.CALLM, 0); }
+		public TerminalNode BRANCHMETHOD() { return getToken(SVMParser.BRANCHMETHOD, 0); }
+		public TerminalNode ENTER() { return getToken(SVMParser.ENTER, 0); }
+		public TerminalNode RET() { return getToken(SVMParser.RET, 0); }
+		public TerminalNode MEMO() { return getToken(SVMParser.MEMO, 0); }
+		public TerminalNode MEMORET() { return getToken(SVMParser.MEMORET, 0); }
+		public TerminalNode LOADLOCAL() { return getToken(SVMParser.LOADLOCAL, 0); }
+		public TerminalNode LOADOUTER() { return getToken(SVMParser.LOADOUTER, 0); }
+		public TerminalNode LOADFIELD() { return getToken(SVMParser.LOADFIELD, 0); }
+		public TerminalNode STORELOCAL() { return getToken(SVMParser.STORELOCAL, 0); }
+		public TerminalNode ALLOC() { return getToken(SVMParser.ALLOC, 0); }
+		public TerminalNode NEW() { return getToken(SVMParser.NEW, 0); }
+		public TerminalNode WORD() { return getToken(SVMParser.WORD, 0); }
 		public TerminalNode PRINT() { return getToken(SVMParser.PRINT, 0); }
 		public TerminalNode HALT() { return getToken(SVMParser.HALT, 0); }
 		public InstructionContext(ParserRuleContext parent, int invokingState) {
@@ -227,7 +258,7 @@ public class SVMParser extends Parser {
 		InstructionContext _localctx = new InstructionContext(_ctx, getState());
 		enterRule(_localctx, 2, RULE_instruction);
 		try {
-			setState(69);
+			setState(117);
 			_errHandler.sync(this);
 			switch ( getInterpreter().adaptivePredict(_input,1,_ctx) ) {
 			case 1:
@@ -435,14 +466,186 @@ public class SVMParser extends Parser {
 				enterOuterAlt(_localctx, 24);
 				{
 				setState(65);
-				match(PRINT);
-				code[i++] = PRINT;
+				match(CALL);
+				setState(66);
+				((InstructionContext)_localctx).d = match(INTEGER);
+				setState(67);
+				((InstructionContext)_localctx).o = match(INTEGER);
+				code[i++] = CALL;
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).d!=null?((InstructionContext)_localctx).d.getText():null));
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).o!=null?((InstructionContext)_localctx).o.getText():null));
 				}
 				break;
 			case 25:
 				enterOuterAlt(_localctx, 25);
 				{
-				setState(67);
+				setState(69);
+				match(CALLM);
+				setState(70);
+				((InstructionContext)_localctx).o = match(INTEGER);
+				code[i++] = CALLM;
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).o!=null?((InstructionContext)_localctx).o.getText():null));
+				}
+				break;
+			case 26:
+				enterOuterAlt(_localctx, 26);
+				{
+				setState(72);
+				match(BRANCHMETHOD);
+				setState(73);
+				((InstructionContext)_localctx).o = match(INTEGER);
+				code[i++] = BRANCHMETHOD;
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).o!=null?((InstructionContext)_localctx).o.getText():null));
+				}
+				break;
+			case 27:
+				enterOuterAlt(_localctx, 27);
+				{
+				setState(75);
+				match(ENTER);
+				code[i++] = ENTER;
+				}
+				break;
+			case 28:
+				enterOuterAlt(_localctx, 28);
+				{
+				setState(77);
+				match(RET);
+				setState(78);
+				((InstructionContext)_localctx).n = match(INTEGER);
+				code[i++] = RET;
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).n!=null?((InstructionContext)_localctx).n.getText():null));
+				}
+				break;
+			case 29:
+				enterOuterAlt(_localctx, 29);
+				{
+				setState(80);
+				match(MEMO);
+				setState(81);
+				((InstructionContext)_localctx).k = match(INTEGER);
+				setState(82);
+				((InstructionContext)_localctx).n = match(INTEGER);
+				code[i++] = MEMO;
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).k!=null?((InstructionContext)_localctx).k.getText():null));
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).n!=null?((InstructionContext)_localctx).n.getText():null));
+				}
+				break;
+			case 30:
+				enterOuterAlt(_localctx, 30);
+				{
+				setState(84);
+				match(MEMORET);
+				setState(85);
+				((InstructionContext)_localctx).k = match(INTEGER);
+				setState(86);
+				((InstructionContext)_localctx).n = match(INTEGER);
+				code[i++] = MEMORET;
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).k!=null?((InstructionContext)_localctx).k.getText():null));
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).n!=null?((InstructionContext)_localctx).n.getText():null));
+				}
+				break;
+			case 31:
+				enterOuterAlt(_localctx, 31);
+				{
+				setState(88);
+				match(LOADLOCAL);
+				setState(89);
+				((InstructionContext)_localctx).o = match(INTEGER);
+				code[i++] = LOADLOCAL;
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).o!=null?((InstructionContext)_localctx).o.getText():null));
+				}
+				break;
+			case 32:
+				enterOuterAlt(_localctx, 32);
+				{
+				setState(91);
+				match(LOADOUTER);
+				setState(92);
+				((InstructionContext)_localctx).d = match(INTEGER);
+				setState(93);
+				((InstructionContext)_localctx).o = match(INTEGER);
+				code[i++] = LOADOUTER;
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).d!=null?((InstructionContext)_localctx).d.getText():null));
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).o!=null?((InstructionContext)_localctx).o.getText():null));
+				}
+				break;
+			case 33:
+				enterOuterAlt(_localctx, 33);
+				{
+				setState(95);
+				match(LOADFIELD);
+				setState(96);
+				((InstructionContext)_localctx).o = match(INTEGER);
+				code[i++] = LOADFIELD;
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).o!=null?((InstructionContext)_localctx).o.getText():null));
+				}
+				break;
+			case 34:
+				enterOuterAlt(_localctx, 34);
+				{
+				setState(98);
+				match(STORELOCAL);
+				setState(99);
+				((InstructionContext)_localctx).o = match(INTEGER);
+				code[i++] = STORELOCAL;
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).o!=null?((InstructionContext)_localctx).o.getText():null));
+				}
+				break;
+			case 35:
+				enterOuterAlt(_localctx, 35);
+				{
+				setState(101);
+				match(ALLOC);
+				setState(102);
+				((InstructionContext)_localctx).n = match(INTEGER);
+				code[i++] = ALLOC;
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).n!=null?((InstructionContext)_localctx).n.getText():null));
+				}
+				break;
+			case 36:
+				enterOuterAlt(_localctx, 36);
+				{
+				setState(104);
+				match(NEW);
+				setState(105);
+				((InstructionContext)_localctx).n = match(INTEGER);
+				code[i++] = NEW;
+				                       code[i++] = Integer.parseInt((((InstructionContext)_localctx).n!=null?((InstructionContext)_localctx).n.getText():null));
+				}
+				break;
+			case 37:
+				enterOuterAlt(_localctx, 37);
+				{
+				setState(107);
+				match(WORD);
+				setState(108);
+				((InstructionContext)_localctx).n = match(INTEGER);
+				data[dataSize++] = Integer.parseInt((((InstructionContext)_localctx).n!=null?((InstructionContext)_localctx).n.getText():null));
+				}
+				break;
+			case 38:
+				enterOuterAlt(_localctx, 38);
+				{
+				setState(110);
+				match(WORD);
+				setState(111);
+				((InstructionContext)_localctx).l = match(LABEL);
+				dataRef.put(dataSize++,(((InstructionContext)_localctx).l!=null?((InstructionContext)_localctx).l.getText():null));
+				}
+				break;
+			case 39:
+				enterOuterAlt(_localctx, 39);
+				{
+				setState(113);
+				match(PRINT);
+				code[i++] = PRINT;
+				}
+				break;
+			case 40:
+				enterOuterAlt(_localctx, 40);
+				{
+				setState(115);
 				match(HALT);
 				code[i++] = HALT;
 				}
@@ -461,9 +664,17 @@ public class SVMParser extends Parser {
 	}
 
 	public static final String _serializedATN =
-		"\u0004\u0001\u001dH\u0002\u0000\u0007\u0000\u0002\u0001\u0007\u0001\u0001"+
-		"\u0000\u0005\u0000\u0006\b\u0000\n\u0000\f\u0000\t\t\u0000\u0001\u0000"+
-		"\u0001\u0000\u0001\u0000\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
+		"\u0004\u0001+x\u0002\u0000\u0007\u0000\u0002\u0001\u0007\u0001\u0001\u0000"+
+		"\u0005\u0000\u0006\b\u0000\n\u0000\f\u0000\t\t\u0000\u0001\u0000\u0001"+
+		"\u0000\u0001\u0000\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
+		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
+		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
+		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
+		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
+		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
+		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
+		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
+		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
 		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
 		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
 		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
@@ -472,48 +683,70 @@ public class SVMParser extends Parser {
 		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
 		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
 		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001"+
-		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0003\u0001F\b\u0001"+
-		"\u0001\u0001\u0000\u0000\u0002\u0000\u0002\u0000\u0000^\u0000\u0007\u0001"+
-		"\u0000\u0000\u0000\u0002E\u0001\u0000\u0000\u0000\u0004\u0006\u0003\u0002"+
+		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0003\u0001v\b\u0001\u0001"+
+		"\u0001\u0000\u0000\u0002\u0000\u0002\u0000\u0000\u009d\u0000\u0007\u0001"+
+		"\u0000\u0000\u0000\u0002u\u0001\u0000\u0000\u0000\u0004\u0006\u0003\u0002"+
 		"\u0001\u0000\u0005\u0004\u0001\u0000\u0000\u0000\u0006\t\u0001\u0000\u0000"+
 		"\u0000\u0007\u0005\u0001\u0000\u0000\u0000\u0007\b\u0001\u0000\u0000\u0000"+
 		"\b\n\u0001\u0000\u0000\u0000\t\u0007\u0001\u0000\u0000\u0000\n\u000b\u0005"+
 		"\u0000\u0000\u0001\u000b\f\u0006\u0000\uffff\uffff\u0000\f\u0001\u0001"+
-		"\u0000\u0000\u0000\r\u000e\u0005\u0001\u0000\u0000\u000e\u000f\u0005\u001a"+
-		"\u0000\u0000\u000fF\u0006\u0001\uffff\uffff\u0000\u0010\u0011\u0005\u0001"+
-		"\u0000\u0000\u0011\u0012\u0005\u0019\u0000\u0000\u0012F\u0006\u0001\uffff"+
-		"\uffff\u0000\u0013\u0014\u0005\u0002\u0000\u0000\u0014F\u0006\u0001\uffff"+
-		"\uffff\u0000\u0015\u0016\u0005\u0003\u0000\u0000\u0016F\u0006\u0001\uffff"+
-		"\uffff\u0000\u0017\u0018\u0005\u0004\u0000\u0000\u0018F\u0006\u0001\uffff"+
-		"\uffff\u0000\u0019\u001a\u0005\u0005\u0000\u0000\u001aF\u0006\u0001\uffff"+
-		"\uffff\u0000\u001b\u001c\u0005\u0006\u0000\u0000\u001cF\u0006\u0001\uffff"+
-		"\uffff\u0000\u001d\u001e\u0005\u0007\u0000\u0000\u001eF\u0006\u0001\uffff"+
-		"\uffff\u0000\u001f \u0005\b\u0000\u0000 F\u0006\u0001\uffff\uffff\u0000"+
-		"!\"\u0005\u0019\u0000\u0000\"#\u0005\u0018\u0000\u0000#F\u0006\u0001\uffff"+
-		"\uffff\u0000$%\u0005\t\u0000\u0000%&\u0005\u0019\u0000\u0000&F\u0006\u0001"+
-		"\uffff\uffff\u0000\'(\u0005\n\u0000\u0000()\u0005\u0019\u0000\u0000)F"+
-		"\u0006\u0001\uffff\uffff\u0000*+\u0005\u000b\u0000\u0000+,\u0005\u0019"+
-		"\u0000\u0000,F\u0006\u0001\uffff\uffff\u0000-.\u0005\f\u0000\u0000.F\u0006"+
-		"\u0001\uffff\uffff\u0000/0\u0005\r\u0000\u00000F\u0006\u0001\uffff\uffff"+
-		"\u000012\u0005\u000e\u0000\u00002F\u0006\u0001\uffff\uffff\u000034\u0005"+
-		"\u000f\u0000\u00004F\u0006\u0001\uffff\uffff\u000056\u0005\u0010\u0000"+
-		"\u00006F\u0006\u0001\uffff\uffff\u000078\u0005\u0011\u0000\u00008F\u0006"+
-		"\u0001\uffff\uffff\u00009:\u0005\u0012\u0000\u0000:F\u0006\u0001\uffff"+
-		"\uffff\u0000;<\u0005\u0013\u0000\u0000<F\u0006\u0001\uffff\uffff\u0000"+
-		"=>\u0005\u0014\u0000\u0000>F\u0006\u0001\uffff\uffff\u0000?@\u0005\u0015"+
-		"\u0000\u0000@F\u0006\u0001\uffff\uffff\u0000AB\u0005\u0016\u0000\u0000"+
-		"BF\u0006\u0001\uffff\uffff\u0000CD\u0005\u0017\u0000\u0000DF\u0006\u0001"+
-		"\uffff\uffff\u0000E\r\u0001\u0000\u0000\u0000E\u0010\u0001\u0000\u0000"+
-		"\u0000E\u0013\u0001\u0000\u0000\u0000E\u0015\u0001\u0000\u0000\u0000E"+
-		"\u0017\u0001\u0000\u0000\u0000E\u0019\u0001\u0000\u0000\u0000E\u001b\u0001"+
-		"\u0000\u0000\u0000E\u001d\u0001\u0000\u0000\u0000E\u001f\u0001\u0000\u0000"+
-		"\u0000E!\u0001\u0000\u0000\u0000E$\u0001\u0000\u0000\u0000E\'\u0001\u0000"+
-		"\u0000\u0000E*\u0001\u0000\u0000\u0000E-\u0001\u0000\u0000\u0000E/\u0001"+
-		"\u0000\u0000\u0000E1\u0001\u0000\u0000\u0000E3\u0001\u0000\u0000\u0000"+
-		"E5\u0001\u0000\u0000\u0000E7\u0001\u0000\u0000\u0000E9\u0001\u0000\u0000"+
-		"\u0000E;\u0001\u0000\u0000\u0000E=\u0001\u0000\u0000\u0000E?\u0001\u0000"+
-		"\u0000\u0000EA\u0001\u0000\u0000\u0000EC\u0001\u0000\u0000\u0000F\u0003"+
-		"\u0001\u0000\u0000\u0000\u0002\u0007E";
+		"\u0000\u0000\u0000\r\u000e\u0005\u0001\u0000\u0000\u000e\u000f\u0005("+
+		"\u0000\u0000\u000fv\u0006\u0001\uffff\uffff\u0000\u0010\u0011\u0005\u0001"+
+		"\u0000\u0000\u0011\u0012\u0005\'\u0000\u0000\u0012v\u0006\u0001\uffff"+
+		"\uffff\u0000\u0013\u0014\u0005\u0002\u0000\u0000\u0014v\u0006\u0001\uffff"+
+		"\uffff\u0000\u0015\u0016\u0005\u0003\u0000\u0000\u0016v\u0006\u0001\uffff"+
+		"\uffff\u0000\u0017\u0018\u0005\u0004\u0000\u0000\u0018v\u0006\u0001\uffff"+
+		"\uffff\u0000\u0019\u001a\u0005\u0005\u0000\u0000\u001av\u0006\u0001\uffff"+
+		"\uffff\u0000\u001b\u001c\u0005\u0006\u0000\u0000\u001cv\u0006\u0001\uffff"+
+		"\uffff\u0000\u001d\u001e\u0005\u0007\u0000\u0000\u001ev\u0006\u0001\uffff"+
+		"\uffff\u0000\u001f \u0005\b\u0000\u0000 v\u0006\u0001\uffff\uffff\u0000"+
+		"!\"\u0005\'\u0000\u0000\"#\u0005&\u0000\u0000#v\u0006\u0001\uffff\uffff"+
+		"\u0000$%\u0005\t\u0000\u0000%&\u0005\'\u0000\u0000&v\u0006\u0001\uffff"+
+		"\uffff\u0000\'(\u0005\n\u0000\u0000()\u0005\'\u0000\u0000)v\u0006\u0001"+
+		"\uffff\uffff\u0000*+\u0005\u000b\u0000\u0000+,\u0005\'\u0000\u0000,v\u0006"+
+		"\u0001\uffff\uffff\u0000-.\u0005\f\u0000\u0000.v\u0006\u0001\uffff\uffff"+
+		"\u0000/0\u0005\r\u0000\u00000v\u0006\u0001\uffff\uffff\u000012\u0005\u000e"+
+		"\u0000\u00002v\u0006\u0001\uffff\uffff\u000034\u0005\u000f\u0000\u0000"+
+		"4v\u0006\u0001\uffff\uffff\u000056\u0005\u0010\u0000\u00006v\u0006\u0001"+
+		"\uffff\uffff\u000078\u0005\u0011\u0000\u00008v\u0006\u0001\uffff\uffff"+
+		"\u00009:\u0005\u0012\u0000\u0000:v\u0006\u0001\uffff\uffff\u0000;<\u0005"+
+		"\u0013\u0000\u0000<v\u0006\u0001\uffff\uffff\u0000=>\u0005\u0014\u0000"+
+		"\u0000>v\u0006\u0001\uffff\uffff\u0000?@\u0005\u0015\u0000\u0000@v\u0006"+
+		"\u0001\uffff\uffff\u0000AB\u0005\u0016\u0000\u0000BC\u0005(\u0000\u0000"+
+		"CD\u0005(\u0000\u0000Dv\u0006\u0001\uffff\uffff\u0000EF\u0005\u0017\u0000"+
+		"\u0000FG\u0005(\u0000\u0000Gv\u0006\u0001\uffff\uffff\u0000HI\u0005\u0018"+
+		"\u0000\u0000IJ\u0005(\u0000\u0000Jv\u0006\u0001\uffff\uffff\u0000KL\u0005"+
+		"\u0019\u0000\u0000Lv\u0006\u0001\uffff\uffff\u0000MN\u0005\u001a\u0000"+
+		"\u0000NO\u0005(\u0000\u0000Ov\u0006\u0001\uffff\uffff\u0000PQ\u0005\u001b"+
+		"\u0000\u0000QR\u0005(\u0000\u0000RS\u0005(\u0000\u0000Sv\u0006\u0001\uffff"+
+		"\uffff\u0000TU\u0005\u001c\u0000\u0000UV\u0005(\u0000\u0000VW\u0005(\u0000"+
+		"\u0000Wv\u0006\u0001\uffff\uffff\u0000XY\u0005\u001d\u0000\u0000YZ\u0005"+
+		"(\u0000\u0000Zv\u0006\u0001\uffff\uffff\u0000[\\\u0005\u001e\u0000\u0000"+
+		"\\]\u0005(\u0000\u0000]^\u0005(\u0000\u0000^v\u0006\u0001\uffff\uffff"+
+		"\u0000_`\u0005\u001f\u0000\u0000`a\u0005(\u0000\u0000av\u0006\u0001\uffff"+
+		"\uffff\u0000bc\u0005 \u0000\u0000cd\u0005(\u0000\u0000dv\u0006\u0001\uffff"+
+		"\uffff\u0000ef\u0005!\u0000\u0000fg\u0005(\u0000\u0000gv\u0006\u0001\uffff"+
+		"\uffff\u0000hi\u0005\"\u0000\u0000ij\u0005(\u0000\u0000jv\u0006\u0001"+
+		"\uffff\uffff\u0000kl\u0005#\u0000\u0000lm\u0005(\u0000\u0000mv\u0006\u0001"+
+		"\uffff\uffff\u0000no\u0005#\u0000\u0000op\u0005\'\u0000\u0000pv\u0006"+
+		"\u0001\uffff\uffff\u0000qr\u0005$\u0000\u0000rv\u0006\u0001\uffff\uffff"+
+		"\u0000st\u0005%\u0000\u0000tv\u0006\u0001\uffff\uffff\u0000u\r\u0001\u0000"+
+		"\u0000\u0000u\u0010\u0001\u0000\u0000\u0000u\u0013\u0001\u0000\u0000\u0000"+
+		"u\u0015\u0001\u0000\u0000\u0000u\u0017\u0001\u0000\u0000\u0000u\u0019"+
+		"\u0001\u0000\u0000\u0000u\u001b\u0001\u0000\u0000\u0000u\u001d\u0001\u0000"+
+		"\u0000\u0000u\u001f\u0001\u0000\u0000\u0000u!\u0001\u0000\u0000\u0000"+
+		"u$\u0001\u0000\u0000\u0000u\'\u0001\u0000\u0000\u0000u*\u0001\u0000\u0000"+
+		"\u0000u-\u0001\u0000\u0000\u0000u/\u0001\u0000\u0000\u0000u1\u0001\u0000"+
+		"\u0000\u0000u3\u0001\u0000\u0000\u0000u5\u0001\u0000\u0000\u0000u7\u0001"+
+		"\u0000\u0000\u0000u9\u0001\u0000\u0000\u0000u;\u0001\u0000\u0000\u0000"+
+		"u=\u0001\u0000\u0000\u0000u?\u0001\u0000\u0000\u0000uA\u0001\u0000\u0000"+
+		"\u0000uE\u0001\u0000\u0000\u0000uH\u0001\u0000\u0000\u0000uK\u0001\u0000"+
+		"\u0000\u0000uM\u0001\u0000\u0000\u0000uP\u0001\u0000\u0000\u0000uT\u0001"+
+		"\u0000\u0000\u0000uX\u0001\u0000\u0000\u0000u[\u0001\u0000\u0000\u0000"+
+		"u_\u0001\u0000\u0000\u0000ub\u0001\u0000\u0000\u0000ue\u0001\u0000\u0000"+
+		"\u0000uh\u0001\u0000\u0000\u0000uk\u0001\u0000\u0000\u0000un\u0001\u0000"+
+		"\u0000\u0000uq\u0001\u0000\u0000\u0000us\u0001\u0000\u0000\u0000v\u0003"+
+		"\u0001\u0000\u0000\u0000\u0002\u0007u";
 	public static final ATN _ATN =
 		new ATNDeserializer().deserialize(_serializedATN.toCharArray());
 	static {
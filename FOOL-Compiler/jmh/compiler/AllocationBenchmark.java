@@ -0,0 +1,31 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// istruzioni eseguite allocando gli oggetti una parola alla volta o con new/alloc
+//   java -cp jmhout:out:antlr.jar compiler.AllocationBenchmark
+public class AllocationBenchmark {
+
+	// allocazione nello heap: programmi che costruiscono liste
+	public static void main(String[] args) {
+		Map<String, String> programs = new LinkedHashMap<>();
+		programs.put("list 500", listProgram(500));
+		programs.put("quicksort 50", quicksortProgram(50));
+		programs.put("quicksort 100", quicksortProgram(100));
+		programs.put("methods", methodsProgram());
+		System.out.println(String.format("%-16s %16s %16s %10s", "", "word by word", "new/alloc", "removed"));
+		for (Map.Entry<String, String> p : programs.entrySet()) {
+			long[] executed = new long[2];
+			for (int mode = 0; mode < 2; mode++) {
+				CompilationContext ctx = new CompilationContext();
+				ctx.allocInstructions = mode == 1;
+				Execution e = execute(new CodeGenerationASTVisitor(ctx).generate(frontEnd(p.getValue())));
+				executed[mode] = e.executed();
+			}
+			System.out.println(String.format("%-16s %16d %16d %9.1f%%", p.getKey(), executed[0], executed[1],
+					100.0 * (executed[0] - executed[1]) / executed[0]));
+		}
+	}
+}
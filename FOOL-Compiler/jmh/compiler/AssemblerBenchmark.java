@@ -0,0 +1,46 @@
+package compiler;
+
+import java.io.*;
+import java.nio.file.*;
+import org.antlr.v4.runtime.*;
+import compiler.lib.*;
+import svm.*;
+import static compiler.Benchmarks.*;
+
+// assemblaggio via file .asm e SVMParser oppure in memoria
+//   java -cp jmhout:out:antlr.jar compiler.AssemblerBenchmark
+public class AssemblerBenchmark {
+
+	// tempo dalla fine della generazione del codice al vettore code pronto per ExecuteVM
+	public static void main(String[] args) {
+		System.out.println(String.format("%10s %16s %16s", "functions", "via .asm ms", "in memory ms"));
+		for (int funs = 8; funs <= 64; funs *= 2) { // il codice deve stare in ExecuteVM.CODESIZE
+			CodeBuffer code = new CodeGenerationASTVisitor(new CompilationContext()).generate(generateFunctions(funs));
+			long viaFile = Long.MAX_VALUE, inMemory = Long.MAX_VALUE;
+			for (int run = 0; run < 50; run++) {
+				long start = System.nanoTime();
+				assembleViaFile(code);
+				viaFile = Math.min(viaFile, System.nanoTime() - start);
+				start = System.nanoTime();
+				new Assembler(code.lines());
+				inMemory = Math.min(inMemory, System.nanoTime() - start);
+			}
+			System.out.println(String.format("%10d %16.2f %16.2f", funs, viaFile / 1e6, inMemory / 1e6));
+		}
+	}
+
+	private static int[] assembleViaFile(CodeBuffer code) {
+		try {
+			Path asm = Files.createTempFile("bench", ".asm");
+			try (Writer out = Files.newBufferedWriter(asm)) {
+				code.writeTo(out);
+			}
+			SVMParser parserASM = new SVMParser(new CommonTokenStream(new SVMLexer(CharStreams.fromPath(asm))));
+			parserASM.assembly();
+			Files.delete(asm);
+			return parserASM.code;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
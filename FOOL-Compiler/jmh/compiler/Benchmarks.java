@@ -0,0 +1,195 @@
+package compiler;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Supplier;
+import org.antlr.v4.runtime.*;
+import compiler.lib.*;
+import svm.*;
+
+// parti comuni dei benchmark di questa cartella, una classe con il suo main per ogni ottimizzazione
+// o macchina: programmi FOOL generati, front end ed esecuzione sulla SVM. Sono solo misure: che le
+// ottimizzazioni non cambino il comportamento dei programmi lo verificano i test in test/compiler.
+// Si compilano insieme a InterpreterBenchmark (vedi il suo commento) e si eseguono dalla cartella
+// FOOL-Compiler, perche' leggono quicksort.fool, test.fool e tailcalls.fool, ad esempio
+//   java -cp jmhout:out:antlr.jar compiler.TailCallBenchmark
+final class Benchmarks {
+
+	record Execution(int instructions, int words, long executed, String output, int maxStack) {}
+
+	// assembla ed esegue il codice sulla SVM (interprete scelto con -Dsvm.interpreter), catturando le stampe del programma
+	static Execution execute(CodeBuffer code) {
+		int instructions = 0;
+		for (String line : code.lines())
+			if (!line.isBlank() && !line.trim().endsWith(":")) instructions++;
+		Assembler assembler = new Assembler(code.lines());
+		if (assembler.errors > 0) throw new IllegalStateException("Generated code does not assemble");
+		Interpreter vm = Interpreter.create(assembler.code, assembler.data, assembler.dataSize);
+		PrintStream stdout = System.out;
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(output));
+		try {
+			vm.cpu();
+		} finally { System.setOut(stdout); }
+		return new Execution(instructions, assembler.size(), vm.executedInstructions(), output.toString(), vm.maxStackDepth());
+	}
+
+	// tempo medio di esecuzione sulla SVM, dopo alcune esecuzioni di riscaldamento
+	static double executionTime(CodeBuffer code) {
+		Assembler assembler = new Assembler(code.lines());
+		PrintStream stdout = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		try {
+			for (int i = 0; i < 200; i++) Interpreter.create(assembler.code, assembler.data, assembler.dataSize).cpu();
+			int runs = 300;
+			long start = System.nanoTime();
+			for (int i = 0; i < runs; i++) Interpreter.create(assembler.code, assembler.data, assembler.dataSize).cpu();
+			return (System.nanoTime() - start) / 1e6 / runs;
+		} finally { System.setOut(stdout); }
+	}
+
+	// esegue il codice senza stamparne l'output e restituisce l'interprete, con le sue statistiche
+	static Interpreter run(CodeBuffer code) {
+		Assembler assembler = new Assembler(code.lines());
+		Interpreter vm = Interpreter.create(assembler.code, assembler.data, assembler.dataSize);
+		PrintStream stdout = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		try {
+			vm.cpu();
+		} finally { System.setOut(stdout); }
+		return vm;
+	}
+
+	// codice di "ast" con le opzioni di -O per la generazione del codice e l'ottimizzatore peephole
+	static CodeBuffer optimizedCode(Node ast) {
+		CompilationContext ctx = new CompilationContext();
+		ctx.jumpingCode = ctx.tailCalls = ctx.devirtualize = ctx.inlineGetters = true;
+		ctx.callInstructions = ctx.loadInstructions = ctx.allocInstructions = ctx.staticData = true;
+		return new PeepholeOptimizer().optimize(new CodeGenerationASTVisitor(ctx).generate(ast));
+	}
+
+	// esegue "run" con l'interprete "engine" (proprieta' svm.interpreter), poi ripristina quello precedente
+	static <T> T withInterpreter(String engine, Supplier<T> run) {
+		return withProperty("svm.interpreter", engine, run);
+	}
+
+	// esegue "run" con la proprieta' di sistema "key" uguale a "value", poi ripristina il valore precedente
+	static <T> T withProperty(String key, String value, Supplier<T> run) {
+		String previous = System.getProperty(key);
+		System.setProperty(key, value);
+		try {
+			return run.get();
+		} finally {
+			if (previous == null) System.clearProperty(key);
+			else System.setProperty(key, previous);
+		}
+	}
+
+	static String readSource(String file) {
+		try {
+			return Files.readString(Paths.get(file));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// i file di esempio, per nome
+	static Map<String, String> sources(String... files) {
+		Map<String, String> programs = new LinkedHashMap<>();
+		for (String file : files) programs.put(file, readSource(file));
+		return programs;
+	}
+
+	// lexer, parser, generazione dell'AST, symbol table e type checking
+	static Node frontEnd(String source) {
+		FOOLLexer lexer = new FOOLLexer(CharStreams.fromString(source));
+		FOOLParser parser = new FOOLParser(new CommonTokenStream(lexer));
+		Node ast = new ASTGenerationSTVisitor().visit(parser.prog());
+		CompilationContext ctx = new CompilationContext();
+		new SymbolTableASTVisitor(ctx).visit(ast);
+		try {
+			new TypeCheckEASTVisitor(ctx).visit(ast);
+		} catch (Exception e) {
+			throw new IllegalStateException("Generated program does not type check", e);
+		}
+		if (ctx.stErrors + ctx.typeErrors > 0)
+			throw new IllegalStateException("Generated program has front-end errors");
+		return ast;
+	}
+
+	// programma con "funs" funzioni, ognuna con una funzione annidata, che si richiamano a catena
+	static Node generateFunctions(int funs) {
+		StringBuilder prog = new StringBuilder("let\n");
+		for (int i = 0; i < funs; i++) {
+			prog.append("  fun f").append(i).append(":int (x:int)\n")
+				.append("    let fun g:int (y:int) if (y <= x) then {y * 2} else {x + y - 1}; in\n")
+				.append("    if (x <= 0) then {g(1)} else {")
+				.append(i == 0 ? "g(x)" : "f" + (i - 1) + "(x - 1)").append("};\n");
+		}
+		prog.append("in print(f").append(funs - 1).append("(10));\n");
+		return frontEnd(prog.toString());
+	}
+
+	// quicksort.fool con una lista di n interi pseudo-casuali al posto di quella del file
+	static String quicksortProgram(int n) {
+		String source = readSource("quicksort.fool");
+		int start = source.indexOf("var l:List"), end = source.indexOf("in printList");
+		Random random = new Random(n);
+		StringBuilder list = new StringBuilder("null");
+		for (int i = 0; i < n; i++) list.insert(0, "new List(" + random.nextInt(1000) + ", ").append(")");
+		return source.substring(0, start) + "var l:List = " + list + ";\n\n" + source.substring(end);
+	}
+
+	// fib ricorsiva (due chiamate per livello) e una funzione annidata che usa la catena statica
+	static String recursionProgram() {
+		return "let\n"
+			+ "  fun fib:int (n:int) if (n <= 1) then {n} else {fib(n - 1) + fib(n - 2)};\n"
+			+ "  fun depth:int (n:int)\n"
+			+ "    let fun down:int (k:int) if (k <= 0) then {n} else {down(k - 1) + 0};\n"
+			+ "    in down(n);\n"
+			+ "in print(fib(18) + depth(200));\n";
+	}
+
+	// costruisce una lista di n elementi e ne stampa la somma
+	static String listProgram(int n) {
+		return "let\n"
+			+ "  class List (f:int, r:List) {\n"
+			+ "    fun first:int () f;\n"
+			+ "    fun rest:List () r;\n"
+			+ "  }\n"
+			+ "  fun build:List (n:int, l:List) if (n <= 0) then {l} else {build(n - 1, new List(n, l))};\n"
+			+ "  fun sum:int (l:List) if (l == null) then {0} else {l.first() + sum(l.rest())};\n"
+			+ "in print(sum(build(" + n + ", null)));\n";
+	}
+
+	// un oggetto accumulatore usato solo tramite metodi
+	static String methodsProgram() {
+		return "let\n"
+			+ "  class Acc (v:int, step:int) {\n"
+			+ "    fun get:int () v;\n"
+			+ "    fun next:Acc () new Acc(v + step, step);\n"
+			+ "    fun scaled:int (k:int) v * k;\n"
+			+ "  }\n"
+			+ "  fun loop:int (a:Acc, n:int, sum:int)\n"
+			+ "    if (n <= 0) then {sum} else {loop(a.next(), n - 1, sum + a.scaled(2) - a.get())};\n"
+			+ "  var start:Acc = new Acc(0, 1);\n"
+			+ "in print(loop(start, 500, 0));\n";
+	}
+
+	// "classes" classi con "methods" metodi ciascuna, tutte istanziate e con tutti i metodi chiamati
+	static String classesProgram(int classes, int methods) {
+		StringBuilder program = new StringBuilder("let\n");
+		for (int c = 0; c < classes; c++) {
+			program.append("  class C").append(c).append(" (v:int) {\n");
+			for (int m = 0; m < methods; m++) program.append("    fun m").append(m).append(":int () v + ").append(m).append(";\n");
+			program.append("  }\n");
+		}
+		StringBuilder calls = new StringBuilder("0");
+		for (int c = 0; c < classes; c++) {
+			program.append("  var o").append(c).append(":C").append(c).append(" = new C").append(c).append("(").append(c).append(");\n");
+			for (int m = 0; m < methods; m++) calls.append(" + o").append(c).append(".m").append(m).append("()");
+		}
+		return program.append("in print(").append(calls).append(");\n").toString();
+	}
+}
@@ -0,0 +1,34 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// istruzioni eseguite e tempo con sequenze di chiamata classiche o istruzioni call/enter/ret
+//   java -cp jmhout:out:antlr.jar compiler.CallInstructionsBenchmark
+public class CallInstructionsBenchmark {
+
+	// costo del protocollo di chiamata: istruzioni eseguite e tempo di esecuzione di programmi
+	// fatti quasi solo di chiamate, con le sequenze classiche o con call/callm/enter/ret
+	public static void main(String[] args) {
+		Map<String, String> programs = new LinkedHashMap<>();
+		programs.put("recursion", recursionProgram());
+		programs.put("methods", methodsProgram());
+		programs.putAll(sources("quicksort.fool", "test.fool"));
+		System.out.println(String.format("%-16s %14s %14s %9s %12s %12s", "", "classic", "call/ret", "removed", "classic ms", "call/ret ms"));
+		for (Map.Entry<String, String> p : programs.entrySet()) {
+			long[] executed = new long[2];
+			double[] millis = new double[2];
+			for (int mode = 0; mode < 2; mode++) {
+				CompilationContext ctx = new CompilationContext();
+				ctx.callInstructions = mode == 1;
+				CodeBuffer code = new CodeGenerationASTVisitor(ctx).generate(frontEnd(p.getValue()));
+				Execution e = execute(code);
+				executed[mode] = e.executed();
+				millis[mode] = executionTime(code);
+			}
+			System.out.println(String.format("%-16s %14d %14d %8.1f%% %12.3f %12.3f", p.getKey(), executed[0], executed[1],
+					100.0 * (executed[0] - executed[1]) / executed[0], millis[0], millis[1]));
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package compiler;
+
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// tempo della generazione del codice con 2500..40000 funzioni
+//   java -cp jmhout:out:antlr.jar compiler.CodeGenerationBenchmark
+public class CodeGenerationBenchmark {
+
+	// il tempo per funzione deve restare costante al crescere del programma
+	public static void main(String[] args) {
+		for (int warmup = 0; warmup < 3; warmup++) timeCodeGeneration(generateFunctions(5000));
+		System.out.println(String.format("%10s %10s %12s %14s", "functions", "asm lines", "codegen ms", "ns/asm line"));
+		for (int funs = 2500; funs <= 40000; funs *= 2) {
+			Node ast = generateFunctions(funs);
+			long best = Long.MAX_VALUE;
+			int lines = 0;
+			for (int run = 0; run < 5; run++) {
+				long start = System.nanoTime();
+				lines = timeCodeGeneration(ast);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			System.out.println(String.format("%10d %10d %12.1f %14.1f", funs, lines, best / 1e6, (double) best / lines));
+		}
+	}
+
+	private static int timeCodeGeneration(Node ast) {
+		return new CodeGenerationASTVisitor(new CompilationContext()).generate(ast).size();
+	}
+}
@@ -0,0 +1,48 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// istruzioni eseguite dal codice generato dall'IR con e senza eliminazione delle sottoespressioni comuni
+//   java -cp jmhout:out:antlr.jar compiler.CommonSubexpressionBenchmark
+public class CommonSubexpressionBenchmark {
+
+	// eliminazione delle sottoespressioni comuni sull'IR (CSEOptimizer, con le funzioni pure trovate da
+	// PurityASTVisitor): istruzioni eseguite senza e con l'eliminazione
+	public static void main(String[] args) {
+		Map<String, String> programs = sources("quicksort.fool", "test.fool");
+		programs.put("quicksort 100", quicksortProgram(100));
+		programs.put("list 500", listProgram(500));
+		programs.put("methods", methodsProgram());
+		programs.put("arithmetic 100", arithmeticProgram(100)); // quasi sempre il ramo else
+		programs.put("arithmetic 10^5", arithmeticProgram(100000)); // soprattutto il ramo then
+		System.out.println(String.format("%-16s %6s %7s %11s %12s %12s %9s", "", "pure", "calls", "arithmetic",
+				"exec", "cse exec", "removed"));
+		for (Map.Entry<String, String> p : programs.entrySet()) {
+			CompilationContext ctx = new CompilationContext();
+			Execution plain = execute(new IRCodeGenerator(ctx).generate(new IRGenerationASTVisitor(ctx).generate(frontEnd(p.getValue()))));
+			Node ast = frontEnd(p.getValue());
+			PurityASTVisitor purity = new PurityASTVisitor();
+			purity.visit(ast);
+			CompilationContext cseCtx = new CompilationContext();
+			CSEOptimizer cse = new CSEOptimizer();
+			IR.Program program = cse.optimize(new IRGenerationASTVisitor(cseCtx).generate(ast));
+			Execution optimized = execute(new IRCodeGenerator(cseCtx).generate(program));
+			System.out.println(String.format("%-16s %6d %7d %11d %12d %12d %8.1f%%", p.getKey(), purity.pure.size(),
+					cse.calls, cse.arithmetic, plain.executed(), optimized.executed(),
+					100.0 * (plain.executed() - optimized.executed()) / plain.executed()));
+		}
+	}
+
+	// espressioni aritmetiche ripetute e chiamate ripetute di una funzione pura:
+	// f riusa norm(x, y) e x * y + 1 solo se norm(x, y) <= limit
+	static String arithmeticProgram(int limit) {
+		return "let\n"
+			+ "  fun norm:int (x:int, y:int) x * x + y * y;\n"
+			+ "  fun f:int (x:int, y:int)\n"
+			+ "    if (norm(x, y) <= " + limit + ") then {(x * y + 1) * (x * y + 1) - norm(x, y)} else {x * y - (x * y + 1) / 2};\n"
+			+ "  fun loop:int (n:int, acc:int) if (n <= 0) then {acc} else {loop(n - 1, acc + f(n, n - 3) + f(n - 1, 2))};\n"
+			+ "in print(loop(300, 0));\n";
+	}
+}
@@ -0,0 +1,41 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// istruzioni (statiche ed eseguite) rimosse dal constant folding sull'AST
+//   java -cp jmhout:out:antlr.jar compiler.ConstantFoldingBenchmark
+public class ConstantFoldingBenchmark {
+
+	// confronta il codice generato senza e con ConstantFoldingASTVisitor
+	public static void main(String[] args) {
+		Map<String, String> programs = sources("quicksort.fool", "test.fool");
+		programs.put("constants", constantsProgram(20));
+		System.out.println(String.format("%-16s %8s %14s %14s %16s", "", "folded", "instructions", "executed", "removed"));
+		for (Map.Entry<String, String> p : programs.entrySet()) {
+			Execution before = execute(new CodeGenerationASTVisitor(new CompilationContext()).generate(frontEnd(p.getValue())));
+			Node ast = frontEnd(p.getValue());
+			ConstantFoldingASTVisitor folding = new ConstantFoldingASTVisitor();
+			ast = folding.visit(ast);
+			Execution after = execute(new CodeGenerationASTVisitor(new CompilationContext()).generate(ast));
+			System.out.println(String.format("%-16s %8d %6d -> %-5d %6d -> %-5d %7.1f%% %6.1f%%", p.getKey(), folding.folded,
+					before.instructions(), after.instructions(), before.executed(), after.executed(),
+					100.0 * (before.instructions() - after.instructions()) / before.instructions(),
+					100.0 * (before.executed() - after.executed()) / before.executed()));
+		}
+	}
+
+	// funzioni con espressioni costanti, identita' algebriche e if con condizione costante
+	static String constantsProgram(int funs) {
+		StringBuilder prog = new StringBuilder("let\n");
+		for (int i = 0; i < funs; i++) {
+			prog.append("  fun f").append(i).append(":int (x:int)\n")
+				.append("    if (!!(x <= 0) || false) then {x * (2 + 3) - 0 + (10 / 2) * 1}\n")
+				.append("    else {if (1 <= 2 && true) then {").append(i == 0 ? "x" : "f" + (i - 1) + "(x - 1 + 0)")
+				.append(" + 0 * 7} else {x / 0}};\n");
+		}
+		prog.append("in print(f").append(funs - 1).append("(").append(funs + 1).append("));\n");
+		return prog.toString();
+	}
+}
@@ -0,0 +1,46 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// istruzioni eseguite risalendo la catena statica o con il display, al variare dell'annidamento
+//   java -cp jmhout:out:antlr.jar compiler.DisplayBenchmark
+public class DisplayBenchmark {
+
+	// accesso ai frame esterni: catena statica o display, con funzioni annidate sempre piu' in profondita'
+	// (i programmi esistenti servono a controllare che le stampe non cambino)
+	public static void main(String[] args) {
+		Map<String, String> programs = new LinkedHashMap<>();
+		for (int depth : new int[] {1, 2, 4, 6, 8}) programs.put("nesting " + depth, nestedProgram(depth));
+		programs.put("recursion", recursionProgram());
+		programs.put("methods", methodsProgram());
+		programs.putAll(sources("quicksort.fool", "test.fool"));
+		System.out.println(String.format("%-16s %16s %16s %10s", "", "static chain", "display", "removed"));
+		for (Map.Entry<String, String> p : programs.entrySet()) {
+			long[] executed = new long[2];
+			for (int mode = 0; mode < 2; mode++) {
+				CompilationContext ctx = new CompilationContext();
+				ctx.display = mode == 1;
+				Execution e = execute(new CodeGenerationASTVisitor(ctx).generate(frontEnd(p.getValue())));
+				executed[mode] = e.executed();
+			}
+			System.out.println(String.format("%-16s %16d %16d %9.1f%%", p.getKey(), executed[0], executed[1],
+					100.0 * (executed[0] - executed[1]) / executed[0]));
+		}
+	}
+
+	// "depth" funzioni annidate; la funzione ricorsiva piu' interna somma ad ogni passo
+	// i parametri di tutte le funzioni che la contengono e una variabile globale
+	static String nestedProgram(int depth) {
+		StringBuilder sum = new StringBuilder("acc + g");
+		for (int k = 1; k <= depth; k++) sum.append(" + x").append(k);
+		String body = "let fun loop:int (n:int, acc:int) if (n <= 0) then {acc} else {loop(n - 1, " + sum + ")};\n"
+			+ "in loop(200, 0)";
+		for (int k = depth; k >= 1; k--) {
+			body = "fun f" + k + ":int (x" + k + ":int)\n" + body + ";\n";
+			if (k > 1) body = "let " + body + "in f" + k + "(" + k + ")";
+		}
+		return "let\n  var g:int = 1;\n" + body + "in print(f1(1));\n";
+	}
+}
@@ -0,0 +1,47 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// heap usato, stack e istruzioni eseguite allocando nel frame gli oggetti che non sfuggono
+//   java -cp jmhout:out:antlr.jar compiler.EscapeBenchmark
+public class EscapeBenchmark {
+
+	// oggetti che non sfuggono allocati nel frame (EscapeASTVisitor) nel codice ottimizzato come con -O:
+	// parole di heap allocate, profondita' massima dello stack e istruzioni eseguite senza e con
+	// l'analisi
+	public static void main(String[] args) {
+		Map<String, String> programs = sources("quicksort.fool", "test.fool", "tailcalls.fool");
+		programs.put("list 500", listProgram(500));
+		programs.put("methods", methodsProgram());
+		programs.put("temporaries 1000", temporariesProgram(1000));
+		System.out.println(String.format("%-16s %8s %10s %11s %8s %11s %12s %12s", "", "objects", "heap", "frame heap",
+				"stack", "frame stack", "exec", "frame exec"));
+		for (Map.Entry<String, String> p : programs.entrySet()) {
+			CodeBuffer heap = optimizedCode(frontEnd(p.getValue()));
+			Node ast = frontEnd(p.getValue());
+			EscapeASTVisitor escape = new EscapeASTVisitor();
+			escape.visit(ast);
+			CodeBuffer frame = optimizedCode(ast);
+			Execution plain = execute(heap);
+			Execution optimized = execute(frame);
+			System.out.println(String.format("%-16s %8d %10d %11d %8d %11d %12d %12d", p.getKey(), escape.allocated.size(),
+					run(heap).heapSize(), run(frame).heapSize(), plain.maxStack(), optimized.maxStack(),
+					plain.executed(), optimized.executed()));
+		}
+	}
+
+	// un punto temporaneo per ogni iterazione, usato solo per chiamarne i metodi
+	static String temporariesProgram(int n) {
+		return "let\n"
+			+ "  class Point (x:int, y:int) {\n"
+			+ "    fun norm:int () x * x + y * y;\n"
+			+ "    fun dot:int (px:int, py:int) x * px + y * py;\n"
+			+ "  }\n"
+			+ "  fun loop:int (n:int, acc:int)\n"
+			+ "    let var p:Point = new Point(n, n + 1);\n"
+			+ "    in if (n <= 0) then {acc} else {loop(n - 1, acc + p.norm() - p.dot(2, 1))};\n"
+			+ "in print(loop(" + n + ", 0));\n";
+	}
+}
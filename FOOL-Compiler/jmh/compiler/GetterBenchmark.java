@@ -0,0 +1,29 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// istruzioni eseguite con chiamate ai getter o lettura diretta dei campi
+//   java -cp jmhout:out:antlr.jar compiler.GetterBenchmark
+public class GetterBenchmark {
+
+	// chiamate ai getter (metodi che ritornano un campo) e lettura diretta del campo
+	public static void main(String[] args) {
+		Map<String, String> programs = sources("quicksort.fool", "test.fool");
+		programs.put("methods", methodsProgram());
+		System.out.println(String.format("%-16s %16s %16s %10s", "", "getter calls", "field loads", "removed"));
+		for (Map.Entry<String, String> p : programs.entrySet()) {
+			long[] executed = new long[2];
+			for (int mode = 0; mode < 2; mode++) {
+				CompilationContext ctx = new CompilationContext();
+				ctx.devirtualize = true; // confronto con le chiamate gia' dirette
+				ctx.inlineGetters = mode == 1;
+				Execution e = execute(new CodeGenerationASTVisitor(ctx).generate(frontEnd(p.getValue())));
+				executed[mode] = e.executed();
+			}
+			System.out.println(String.format("%-16s %16d %16d %9.1f%%", p.getKey(), executed[0], executed[1],
+					100.0 * (executed[0] - executed[1]) / executed[0]));
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// istruzioni (statiche ed eseguite) con l'inlining delle funzioni piccole
+//   java -cp jmhout:out:antlr.jar compiler.InliningBenchmark
+public class InliningBenchmark {
+
+	// confronta il codice generato senza e con InliningASTVisitor (seguito da ReachabilityASTVisitor,
+	// che elimina le funzioni non piu' chiamate)
+	public static void main(String[] args) {
+		System.out.println(String.format("%-16s %8s %14s %16s %10s", "", "inlined", "instructions", "executed", "removed"));
+		for (String file : List.of("quicksort.fool", "test.fool")) {
+			Execution before = execute(new CodeGenerationASTVisitor(new CompilationContext()).generate(frontEnd(readSource(file))));
+			InliningASTVisitor inliner = new InliningASTVisitor();
+			Node ast = inliner.visit(frontEnd(readSource(file)));
+			new ReachabilityASTVisitor().visit(ast);
+			Execution after = execute(new CodeGenerationASTVisitor(new CompilationContext()).generate(ast));
+			System.out.println(String.format("%-16s %8d %6d -> %-5d %7d -> %-6d %9.1f%%   %s", file, inliner.inlined,
+					before.instructions(), after.instructions(), before.executed(), after.executed(),
+					100.0 * (before.executed() - after.executed()) / before.executed(), inliner.functions));
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// codice generato direttamente dall'AST o passando per la rappresentazione intermedia
+//   java -cp jmhout:out:antlr.jar compiler.IntermediateRepresentationBenchmark
+public class IntermediateRepresentationBenchmark {
+
+	// codice generato da IRCodeGenerator confrontato con quello generato direttamente con le stesse
+	// istruzioni della SVM (call/ret, lloc/lout, new/alloc, condizioni in salti), tailcalls.fool escluso
+	// (senza chiamate in coda esaurisce lo stack); temps sono i temporanei dell'IR, cells le celle del
+	// frame in cui ne finiscono alcuni
+	public static void main(String[] args) {
+		Map<String, String> programs = sources("quicksort.fool", "test.fool");
+		programs.put("quicksort 100", quicksortProgram(100));
+		programs.put("recursion", recursionProgram());
+		programs.put("list 500", listProgram(500));
+		programs.put("methods", methodsProgram());
+		programs.put("classes 4x4", classesProgram(4, 4));
+		System.out.println(String.format("%-16s %10s %10s %12s %12s %10s %10s %8s %8s", "", "ast instr", "ir instr",
+				"ast exec", "ir exec", "ast stack", "ir stack", "temps", "cells"));
+		for (Map.Entry<String, String> p : programs.entrySet()) {
+			CompilationContext ctx = new CompilationContext();
+			ctx.jumpingCode = ctx.callInstructions = ctx.loadInstructions = ctx.allocInstructions = true;
+			Execution direct = execute(new CodeGenerationASTVisitor(ctx).generate(frontEnd(p.getValue())));
+			CompilationContext irCtx = new CompilationContext();
+			IR.Program program = new IRGenerationASTVisitor(irCtx).generate(frontEnd(p.getValue()));
+			IRCodeGenerator generator = new IRCodeGenerator(irCtx);
+			Execution ir = execute(generator.generate(program));
+			int temps = 0, cells = 0; // temporanei e celle del frame che restano dopo lo stack e la liveness
+			for (IR.Function f : program.functions) {
+				temps += f.temps.size();
+				cells += generator.frameSlots(f);
+			}
+			System.out.println(String.format("%-16s %10d %10d %12d %12d %10d %10d %8d %8d", p.getKey(), direct.instructions(),
+					ir.instructions(), direct.executed(), ir.executed(), direct.maxStack(), ir.maxStack(), temps, cells));
+		}
+	}
+}
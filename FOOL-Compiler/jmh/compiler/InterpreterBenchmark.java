@@ -0,0 +1,76 @@
+package compiler;
+
+import java.io.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+import compiler.lib.*;
+import svm.*;
+
+// confronto JMH degli interpreti della SVM sui programmi generati di Benchmarks, con il codice
+// classico e con quello di -O. "run" misura costruzione (decodifica o traduzione del codice) ed
+// esecuzione; "decode" solo la costruzione.
+// Il progetto non ha un build system: si compila, insieme agli altri benchmark della cartella, con
+// il processore di annotazioni di JMH e si esegue dalla cartella FOOL-Compiler (i programmi
+// leggono quicksort.fool), ad esempio
+//   javac -cp out:antlr.jar:jmh-core.jar:jmh-generator-annprocess.jar -d jmhout jmh/compiler/*.java
+//   java -cp jmhout:out:antlr.jar:jmh-core.jar:jopt-simple.jar:commons-math3.jar org.openjdk.jmh.Main InterpreterBenchmark
+// dove out contiene le classi di src e gen (JMH 1.37: jmh-core, jmh-generator-annprocess,
+// jopt-simple 5.0.4, commons-math3 3.6.1).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class InterpreterBenchmark {
+
+	@Param({"quicksort 100", "recursion", "list 500", "methods"})
+	public String program;
+
+	@Param({"classic", "-O"})
+	public String code;
+
+	@Param({"switch", "decoded", "jit", "register"})
+	public String engine;
+
+	private Assembler assembler;
+	private PrintStream stdout;
+
+	@Setup
+	public void setup() {
+		String source = switch (program) {
+			case "quicksort 100" -> Benchmarks.quicksortProgram(100);
+			case "recursion" -> Benchmarks.recursionProgram();
+			case "list 500" -> Benchmarks.listProgram(500);
+			case "methods" -> Benchmarks.methodsProgram();
+			default -> throw new IllegalArgumentException(program);
+		};
+		boolean optimize = code.equals("-O");
+		CompilationContext ctx = new CompilationContext();
+		ctx.jumpingCode = ctx.tailCalls = ctx.devirtualize = ctx.inlineGetters = optimize;
+		ctx.callInstructions = ctx.loadInstructions = ctx.allocInstructions = ctx.staticData = optimize;
+		CodeBuffer generated = new CodeGenerationASTVisitor(ctx).generate(Benchmarks.frontEnd(source));
+		if (optimize) generated = new PeepholeOptimizer().optimize(generated);
+		assembler = new Assembler(generated.lines());
+		System.setProperty("svm.interpreter", engine);
+		stdout = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream())); // stampe dei programmi
+	}
+
+	@TearDown
+	public void tearDown() {
+		System.setOut(stdout);
+	}
+
+	@Benchmark
+	public long run() {
+		Interpreter vm = Interpreter.create(assembler.code, assembler.data, assembler.dataSize);
+		vm.cpu();
+		return vm.executedInstructions();
+	}
+
+	@Benchmark
+	public Interpreter decode() {
+		return Interpreter.create(assembler.code, assembler.data, assembler.dataSize);
+	}
+}
@@ -0,0 +1,38 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// istruzioni eseguite con condizioni materializzate 0/1 o compilate in salti
+//   java -cp jmhout:out:antlr.jar compiler.JumpingCodeBenchmark
+public class JumpingCodeBenchmark {
+
+	// istruzioni eseguite con e senza jumping code, prima e dopo l'ottimizzatore peephole
+	public static void main(String[] args) {
+		Map<String, String> programs = sources("quicksort.fool", "test.fool");
+		programs.put("conditions", conditionsProgram());
+		System.out.println(String.format("%-16s %12s %12s %18s %18s", "", "0/1 values", "jumping", "0/1 + peephole", "jumping + peephole"));
+		for (Map.Entry<String, String> p : programs.entrySet()) {
+			long[] executed = new long[4];
+			for (int mode = 0; mode < 4; mode++) {
+				CompilationContext ctx = new CompilationContext();
+				ctx.jumpingCode = mode % 2 == 1;
+				CodeBuffer code = new CodeGenerationASTVisitor(ctx).generate(frontEnd(p.getValue()));
+				if (mode >= 2) code = new PeepholeOptimizer().optimize(code);
+				Execution e = execute(code);
+				executed[mode] = e.executed();
+			}
+			System.out.println(String.format("%-16s %12d %12d %18d %18d", p.getKey(), executed[0], executed[1], executed[2], executed[3]));
+		}
+	}
+
+	// ricorsione con condizioni composte da confronti, not, && e ||
+	static String conditionsProgram() {
+		return "let\n"
+			+ "  fun count:int (x:int, n:int)\n"
+			+ "    if (x <= 0) then {n}\n"
+			+ "    else {if ((x == 7 || x >= 500) && !(x <= 3)) then {count(x - 1, n + 1)} else {count(x - 1, n)}};\n"
+			+ "in print(count(1000, 0));\n";
+	}
+}
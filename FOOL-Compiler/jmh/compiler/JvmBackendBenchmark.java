@@ -0,0 +1,79 @@
+package compiler;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.util.*;
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// tempo di esecuzione sulla SVM (switch e JIT) o compilando per la JVM
+//   java -cp jmhout:out:antlr.jar compiler.JvmBackendBenchmark
+public class JvmBackendBenchmark {
+
+	// tempo degli stessi programmi sulla SVM (codice ottimizzato, interprete a switch e JIT) e compilati
+	// per la JVM da JVMCodeGenerationASTVisitor
+	public static void main(String[] args) {
+		Map<String, String> programs = new LinkedHashMap<>();
+		programs.put("quicksort 100", quicksortProgram(100));
+		programs.put("recursion", recursionProgram());
+		programs.put("list 500", listProgram(500));
+		programs.put("methods", methodsProgram());
+		System.out.println(String.format("%-16s %12s %12s %12s", "", "switch ms", "jit ms", "jvm ms"));
+		for (Map.Entry<String, String> p : programs.entrySet()) {
+			Node ast = frontEnd(p.getValue());
+			Method main = jvmMain(new JVMCodeGenerationASTVisitor().generate(ast, "Bench"), "Bench");
+			CompilationContext ctx = new CompilationContext();
+			ctx.jumpingCode = ctx.tailCalls = ctx.devirtualize = ctx.inlineGetters = true;
+			ctx.callInstructions = ctx.loadInstructions = ctx.allocInstructions = ctx.staticData = true;
+			CodeBuffer code = new PeepholeOptimizer().optimize(new CodeGenerationASTVisitor(ctx).generate(ast));
+			double[] time = new double[3];
+			String engine = System.getProperty("svm.interpreter");
+			try {
+				System.setProperty("svm.interpreter", "switch");
+				time[0] = executionTime(code);
+				System.setProperty("svm.interpreter", "jit");
+				time[1] = executionTime(code);
+			} finally {
+				if (engine == null) System.clearProperty("svm.interpreter");
+				else System.setProperty("svm.interpreter", engine);
+			}
+			time[2] = jvmExecutionTime(main);
+			System.out.println(String.format("%-16s %12.3f %12.3f %12.3f", p.getKey(), time[0], time[1], time[2]));
+		}
+	}
+
+	// carica le classi generate in un class loader dedicato e restituisce il metodo main
+	private static Method jvmMain(Map<String, byte[]> classes, String name) {
+		ClassLoader loader = new ClassLoader(JvmBackendBenchmark.class.getClassLoader()) {
+			@Override
+			protected Class<?> findClass(String className) throws ClassNotFoundException {
+				byte[] bytes = classes.get(className.replace('.', '/'));
+				if (bytes == null) throw new ClassNotFoundException(className);
+				return defineClass(className, bytes, 0, bytes.length);
+			}
+		};
+		try {
+			return loader.loadClass(name).getMethod("main", String[].class);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Generated classes do not load", e);
+		}
+	}
+
+	// tempo medio di run() del programma compilato per la JVM (senza il thread creato da main), dopo
+	// alcune esecuzioni di riscaldamento
+	private static double jvmExecutionTime(Method main) {
+		Runnable program;
+		try {
+			Class<?> mainClass = main.getDeclaringClass();
+			mainClass.getField("out$").set(null, new PrintStream(OutputStream.nullOutputStream()));
+			program = (Runnable) mainClass.getConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Generated classes do not load", e);
+		}
+		for (int i = 0; i < 200; i++) program.run();
+		int runs = 300;
+		long start = System.nanoTime();
+		for (int i = 0; i < runs; i++) program.run();
+		return (System.nanoTime() - start) / 1e6 / runs;
+	}
+}
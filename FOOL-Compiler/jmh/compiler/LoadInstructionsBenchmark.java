@@ -0,0 +1,29 @@
+package compiler;
+
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// istruzioni eseguite e tempo di quicksort con accesso alle variabili classico o con lloc/lout/lfield
+//   java -cp jmhout:out:antlr.jar compiler.LoadInstructionsBenchmark
+public class LoadInstructionsBenchmark {
+
+	// accesso a variabili e campi: quicksort.fool su liste generate sempre piu' lunghe
+	public static void main(String[] args) {
+		System.out.println(String.format("%-16s %14s %14s %9s %12s %12s", "", "classic", "lloc/lout", "removed", "classic ms", "lloc/lout ms"));
+		for (int n : new int[] {25, 50, 100}) {
+			String source = quicksortProgram(n);
+			long[] executed = new long[2];
+			double[] millis = new double[2];
+			for (int mode = 0; mode < 2; mode++) {
+				CompilationContext ctx = new CompilationContext();
+				ctx.loadInstructions = mode == 1;
+				CodeBuffer code = new CodeGenerationASTVisitor(ctx).generate(frontEnd(source));
+				Execution e = execute(code);
+				executed[mode] = e.executed();
+				millis[mode] = executionTime(code);
+			}
+			System.out.println(String.format("%-16s %14d %14d %8.1f%% %12.3f %12.3f", "quicksort " + n, executed[0], executed[1],
+					100.0 * (executed[0] - executed[1]) / executed[0], millis[0], millis[1]));
+		}
+	}
+}
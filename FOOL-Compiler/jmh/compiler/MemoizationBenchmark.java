@@ -0,0 +1,66 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+import svm.*;
+import static compiler.Benchmarks.*;
+
+// istruzioni eseguite con e senza memorizzazione delle funzioni pure ricorsive nella SVM
+//   java -cp jmhout:out:antlr.jar compiler.MemoizationBenchmark
+public class MemoizationBenchmark {
+
+	// memorizzazione delle funzioni pure ricorsive (PurityASTVisitor, istruzioni memo e mret) nel codice
+	// ottimizzato come con -O: istruzioni eseguite senza e con le tabelle della SVM, ricerche, successi e
+	// voci sostituite. Poi la stessa funzione con tabelle sempre piu' piccole (proprieta' svm.memo.size)
+	public static void main(String[] args) {
+		Map<String, String> programs = sources("quicksort.fool", "test.fool");
+		programs.put("recursion", recursionProgram());
+		programs.put("fib 24", memoProgram("fib(24)"));
+		programs.put("binomial 22 11", memoProgram("binomial(22, 11)"));
+		programs.put("paths 12x12", memoProgram("paths(12, 12)"));
+		System.out.println(String.format("%-16s %8s %12s %12s %9s %10s %7s %10s", "", "memoized", "exec", "memo exec",
+				"removed", "lookups", "hits", "evictions"));
+		for (Map.Entry<String, String> p : programs.entrySet()) {
+			Execution plain = execute(memoCode(p.getValue(), false));
+			CodeBuffer code = memoCode(p.getValue(), true);
+			Interpreter vm = run(code);
+			MemoTable memo = vm.memoTable();
+			System.out.println(String.format("%-16s %8d %12d %12d %8.1f%% %10d %6.1f%% %10d", p.getKey(),
+					code.lines().stream().filter(l -> l.startsWith("mret")).count(), plain.executed(),
+					vm.executedInstructions(), 100.0 * (plain.executed() - vm.executedInstructions()) / plain.executed(),
+					memo.lookups(), memo.lookups() == 0 ? 0.0 : 100.0 * memo.hits() / memo.lookups(), memo.evictions()));
+		}
+		System.out.println();
+		System.out.println(String.format("%-16s %8s %12s %10s %7s %10s", "paths 12x12", "entries", "memo exec",
+				"lookups", "hits", "evictions"));
+		CodeBuffer code = memoCode(memoProgram("paths(12, 12)"), true);
+		for (int size : new int[] {4096, 64, 16, 4}) {
+			Interpreter vm = withProperty("svm.memo.size", String.valueOf(size), () -> run(code));
+			MemoTable memo = vm.memoTable();
+			System.out.println(String.format("%-16s %8d %12d %10d %6.1f%% %10d", "", size, vm.executedInstructions(),
+					memo.lookups(), 100.0 * memo.hits() / memo.lookups(), memo.evictions()));
+		}
+	}
+
+	// codice di "source" con le opzioni di -O, con o senza le istruzioni memo e mret
+	private static CodeBuffer memoCode(String source, boolean memoize) {
+		Node ast = frontEnd(source);
+		new PurityASTVisitor().visit(ast);
+		CompilationContext ctx = new CompilationContext();
+		ctx.jumpingCode = ctx.tailCalls = ctx.devirtualize = ctx.inlineGetters = true;
+		ctx.callInstructions = ctx.loadInstructions = ctx.allocInstructions = ctx.staticData = true;
+		ctx.memoize = memoize;
+		return new PeepholeOptimizer().optimize(new CodeGenerationASTVisitor(ctx).generate(ast));
+	}
+
+	// funzioni ricorsive pure con due chiamate per livello (albero delle chiamate esponenziale)
+	static String memoProgram(String exp) {
+		return "let\n"
+			+ "  fun fib:int (n:int) if (n <= 1) then {n} else {fib(n - 1) + fib(n - 2)};\n"
+			+ "  fun binomial:int (n:int, k:int)\n"
+			+ "    if ((k == 0) || (k == n)) then {1} else {binomial(n - 1, k - 1) + binomial(n - 1, k)};\n"
+			+ "  fun paths:int (x:int, y:int)\n"
+			+ "    if ((x == 0) || (y == 0)) then {1} else {paths(x - 1, y) + paths(x, y - 1)};\n"
+			+ "in print(" + exp + ");\n";
+	}
+}
@@ -0,0 +1,28 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// istruzioni (statiche ed eseguite) rimosse dall'ottimizzatore peephole
+//   java -cp jmhout:out:antlr.jar compiler.PeepholeBenchmark
+public class PeepholeBenchmark {
+
+	// confronta il codice senza e con ottimizzatore peephole
+	public static void main(String[] args) {
+		for (String file : List.of("quicksort.fool", "test.fool")) {
+			CodeBuffer code = new CodeGenerationASTVisitor(new CompilationContext()).generate(frontEnd(readSource(file)));
+			PeepholeOptimizer optimizer = new PeepholeOptimizer();
+			CodeBuffer optimized = optimizer.optimize(code);
+			Execution before = execute(code), after = execute(optimized);
+			System.out.println(file + ": " + optimizer.applications());
+			System.out.println(String.format("  %-10s %12s %12s %14s", "", "instructions", "code words", "executed"));
+			System.out.println(String.format("  %-10s %12d %12d %14d", "original", before.instructions(), before.words(), before.executed()));
+			System.out.println(String.format("  %-10s %12d %12d %14d", "peephole", after.instructions(), after.words(), after.executed()));
+			System.out.println(String.format("  %-10s %11.1f%% %11.1f%% %13.1f%%", "removed",
+					100.0 * (before.instructions() - after.instructions()) / before.instructions(),
+					100.0 * (before.words() - after.words()) / before.words(),
+					100.0 * (before.executed() - after.executed()) / before.executed()));
+		}
+	}
+}
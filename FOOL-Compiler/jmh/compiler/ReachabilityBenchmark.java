@@ -0,0 +1,56 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+import svm.*;
+import static compiler.Benchmarks.*;
+
+// dimensione e tempo di assemblaggio del codice senza le dichiarazioni non raggiungibili
+//   java -cp jmhout:out:antlr.jar compiler.ReachabilityBenchmark
+public class ReachabilityBenchmark {
+
+	// programmi con un preludio di dichiarazioni in gran parte inutilizzate
+	public static void main(String[] args) {
+		Map<String, String> programs = sources("quicksort.fool", "test.fool");
+		programs.put("prelude", preludeProgram(12));
+		System.out.println(String.format("%-16s %8s %16s %16s %20s", "", "removed", "asm lines", "code words", "assembly ms"));
+		for (Map.Entry<String, String> p : programs.entrySet()) {
+			CodeBuffer before = new CodeGenerationASTVisitor(new CompilationContext()).generate(frontEnd(p.getValue()));
+			Node ast = frontEnd(p.getValue());
+			ReachabilityASTVisitor reachability = new ReachabilityASTVisitor();
+			reachability.visit(ast);
+			CodeBuffer after = new CodeGenerationASTVisitor(new CompilationContext()).generate(ast);
+			Execution b = execute(before), a = execute(after);
+			System.out.println(String.format("%-16s %8d %7d -> %-6d %7d -> %-6d %9.3f -> %-7.3f", p.getKey(), reachability.removed.size(),
+					before.size(), after.size(), b.words(), a.words(), assemblyTime(before), assemblyTime(after)));
+		}
+	}
+
+	private static double assemblyTime(CodeBuffer code) {
+		long best = Long.MAX_VALUE;
+		for (int run = 0; run < 2000; run++) {
+			long start = System.nanoTime();
+			new Assembler(code.lines());
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best / 1e6;
+	}
+
+	// preludio con "n" classi e "n" funzioni di libreria, di cui il programma usa solo le prime
+	static String preludeProgram(int n) {
+		StringBuilder prog = new StringBuilder("let\n");
+		for (int i = 0; i < n; i++)
+			prog.append("  class C").append(i).append(" (v:int) {\n")
+				.append("    fun get:int () v;\n")
+				.append("    fun twice:int () v + v;\n")
+				.append("    fun scaled:int (k:int) let fun mul:int (a:int) a * k; in mul(v);\n")
+				.append("  }\n");
+		for (int i = 0; i < n; i++)
+			prog.append("  fun lib").append(i).append(":int (x:int)\n")
+				.append("    let fun helper:int (y:int) if (y <= 0) then {0} else {y + helper(y - 1)}; in\n")
+				.append("    helper(x) + ").append(i == 0 ? "0" : "lib" + (i - 1) + "(x)").append(";\n");
+		prog.append("  var o:C0 = new C0(5);\n")
+			.append("in print(lib1(3) + o.get());\n");
+		return prog.toString();
+	}
+}
@@ -0,0 +1,49 @@
+package compiler;
+
+import java.io.*;
+import java.util.*;
+import compiler.lib.*;
+import svm.*;
+import static compiler.Benchmarks.*;
+
+// istruzioni eseguite e tempo con l'interprete a switch o con il codice tradotto a registri
+//   java -cp jmhout:out:antlr.jar compiler.RegisterBenchmark
+public class RegisterBenchmark {
+
+	// codice della SVM tradotto in istruzioni a registri (RegisterExecuteVM): istruzioni della SVM eseguite
+	// e istruzioni a registri dispatchate (tailcalls.fool solo con -O: senza ottimizzazione esaurisce lo
+	// stack); sui programmi generati anche il tempo di esecuzione
+	public static void main(String[] args) {
+		Map<String, String> programs = sources("quicksort.fool", "test.fool", "tailcalls.fool");
+		programs.put("quicksort 100", quicksortProgram(100));
+		programs.put("recursion", recursionProgram());
+		programs.put("list 500", listProgram(500));
+		programs.put("methods", methodsProgram());
+		System.out.println(String.format("%-16s %-8s %12s %12s %9s %12s %12s", "", "code", "stack", "register", "removed",
+				"switch ms", "register ms"));
+		for (Map.Entry<String, String> p : programs.entrySet()) {
+			boolean sample = p.getKey().endsWith(".fool");
+			for (boolean optimize : new boolean[] {false, true}) {
+				if (p.getKey().equals("tailcalls.fool") && !optimize) continue;
+				CompilationContext ctx = new CompilationContext();
+				ctx.jumpingCode = ctx.tailCalls = ctx.devirtualize = ctx.inlineGetters = optimize;
+				ctx.callInstructions = ctx.loadInstructions = ctx.allocInstructions = ctx.staticData = optimize;
+				CodeBuffer generated = new CodeGenerationASTVisitor(ctx).generate(frontEnd(p.getValue()));
+				CodeBuffer code = optimize ? new PeepholeOptimizer().optimize(generated) : generated;
+				Execution stack = withInterpreter("switch", () -> execute(code));
+				Assembler assembler = new Assembler(code.lines());
+				RegisterExecuteVM vm = new RegisterExecuteVM(assembler.code, assembler.data, assembler.dataSize);
+				PrintStream stdout = System.out;
+				System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+				try {
+					vm.cpu();
+				} finally { System.setOut(stdout); }
+				double removed = 100.0 * (stack.executed() - vm.dispatchedInstructions()) / stack.executed();
+				String times = sample ? String.format("%12s %12s", "-", "-") : String.format("%12.3f %12.3f",
+						withInterpreter("switch", () -> executionTime(code)), withInterpreter("register", () -> executionTime(code)));
+				System.out.println(String.format("%-16s %-8s %12d %12d %8.1f%% %s", p.getKey(), optimize ? "-O" : "classic",
+						stack.executed(), vm.dispatchedInstructions(), removed, times));
+			}
+		}
+	}
+}
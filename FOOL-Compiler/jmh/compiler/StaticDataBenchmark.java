@@ -0,0 +1,33 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// istruzioni eseguite costruendo le dispatch table a runtime o nel segmento dati
+//   java -cp jmhout:out:antlr.jar compiler.StaticDataBenchmark
+public class StaticDataBenchmark {
+
+	// dispatch table costruite all'avvio del programma oppure caricate dal loader nel segmento dati:
+	// si risparmiano la costruzione delle tabelle e la lettura dell'indirizzo della tabella a ogni new
+	public static void main(String[] args) {
+		Map<String, String> programs = new LinkedHashMap<>();
+		programs.put("classes 20x10", classesProgram(20, 10));
+		programs.put("list 500", listProgram(500));
+		programs.put("methods", methodsProgram());
+		programs.putAll(sources("quicksort.fool", "test.fool"));
+		System.out.println(String.format("%-16s %16s %16s %10s", "", "runtime tables", "data segment", "removed"));
+		for (Map.Entry<String, String> p : programs.entrySet()) {
+			long[] executed = new long[2];
+			for (int mode = 0; mode < 2; mode++) {
+				CompilationContext ctx = new CompilationContext();
+				ctx.allocInstructions = true; // confronto con la costruzione gia' in blocco
+				ctx.staticData = mode == 1;
+				Execution e = execute(new CodeGenerationASTVisitor(ctx).generate(frontEnd(p.getValue())));
+				executed[mode] = e.executed();
+			}
+			System.out.println(String.format("%-16s %16d %16d %9.1f%%", p.getKey(), executed[0], executed[1],
+					100.0 * (executed[0] - executed[1]) / executed[0]));
+		}
+	}
+}
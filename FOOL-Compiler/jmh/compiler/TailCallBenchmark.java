@@ -0,0 +1,30 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+import static compiler.Benchmarks.*;
+
+// uso dello stack e istruzioni eseguite con e senza ottimizzazione delle chiamate in coda
+//   java -cp jmhout:out:antlr.jar compiler.TailCallBenchmark
+public class TailCallBenchmark {
+
+	// tailcalls.fool esegue cicli di un milione di iterazioni: senza l'ottimizzazione lo stack
+	// (ExecuteVM.MEMSIZE celle condivise con lo heap) si esaurisce
+	public static void main(String[] args) {
+		System.out.println(String.format("%-16s %-10s %12s %12s %s", "", "", "max stack", "executed", "output"));
+		for (String file : List.of("quicksort.fool", "test.fool", "tailcalls.fool"))
+			for (boolean tco : new boolean[] {false, true}) {
+				CompilationContext ctx = new CompilationContext();
+				ctx.tailCalls = tco;
+				CodeBuffer code = new CodeGenerationASTVisitor(ctx).generate(frontEnd(readSource(file)));
+				String mode = tco ? "tail calls" : "calls";
+				try {
+					Execution e = execute(code);
+					System.out.println(String.format("%-16s %-10s %12d %12d %s", file, mode, e.maxStack(), e.executed(),
+							e.output().trim().replace(System.lineSeparator(), " ")));
+				} catch (ArrayIndexOutOfBoundsException e) {
+					System.out.println(String.format("%-16s %-10s %12s", file, mode, "overflow"));
+				}
+			}
+	}
+}
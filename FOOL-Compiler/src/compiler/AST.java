@@ -7,7 +7,7 @@ public class AST {
 	
 	public static class ProgLetInNode extends Node {
 		final List<DecNode> declist;
-		final Node exp;
+		Node exp; // riscritta dalle ottimizzazioni sull'AST
 		ProgLetInNode(List<DecNode> d, Node e) {
 			declist = Collections.unmodifiableList(d); 
 			exp = e;
@@ -18,7 +18,7 @@ public class AST {
 	}
 
 	public static class ProgNode extends Node {
-		final Node exp;
+		Node exp; // riscritta dalle ottimizzazioni sull'AST
 		ProgNode(Node e) {exp = e;}
 
 		@Override
@@ -30,7 +30,12 @@ public class AST {
 		final TypeNode retType;
 		final List<ParNode> parlist;
 		final List<DecNode> declist; 
-		final Node exp;
+		Node exp; // riscritta dalle ottimizzazioni sull'AST
+		String label; // assegnata durante la generazione del codice
+		boolean reachable = true; // false se mai chiamata (ReachabilityASTVisitor)
+		boolean pure = false; // true se non stampa, non alloca e chiama solo funzioni pure (PurityASTVisitor)
+		boolean memoized = false; // risultati memorizzati dalla SVM per argomenti (PurityASTVisitor, istruzioni memo e mret)
+		int frameObjects = 0; // celle del frame occupate dagli oggetti che non sfuggono (EscapeASTVisitor)
 		FunNode(String i, TypeNode rt, List<ParNode> pl, List<DecNode> dl, Node e) {
 	    	id=i; 
 	    	retType=rt; 
@@ -55,7 +60,7 @@ public class AST {
 	
 	public static class VarNode extends DecNode {
 		final String id;
-		final Node exp;
+		Node exp; // riscritta dalle ottimizzazioni sull'AST
 		VarNode(String i, TypeNode t, Node v) {id = i; type = t; exp = v;}
 
 		@Override
@@ -240,6 +245,7 @@ public class AST {
 		final String superClassId; //Non utilizzato nell'implementazione senza ereditarietà
 		final List<FieldNode> fields;
 		final List<MethodNode> methods;
+		boolean reachable = true; // false se mai istanziata (ReachabilityASTVisitor)
 
 		ClassNode(String i, String si, List<FieldNode> pl, List<MethodNode> fl) {
 			id = i;
@@ -266,12 +272,10 @@ public class AST {
 	}
 
 	public static class MethodNode extends FunNode {
-		String label;
 		int offset;
 
 		MethodNode(String i, TypeNode rt, List<ParNode> pl, List<DecNode> dl, Node e) {
 			super(i, rt, pl, dl, e);
-			label = null;
 			offset = 0;
 		}
 
@@ -286,6 +290,7 @@ public class AST {
 		int nl;
 		STentry entry;
 		STentry methodEntry;
+		boolean frameReceiver = false; // oggetto allocato nel frame del chiamante: niente chiamata in coda (EscapeASTVisitor)
 
 		ClassCallNode(String oi, String mi, List<Node> al) {
 			objectId = oi;
@@ -304,6 +309,7 @@ public class AST {
 		final String classId;
 		final List<Node> arglist;
 		STentry entry;
+		int frameOffset = 0; // se != 0 l'oggetto e' allocato nel frame, con il dispatch pointer a questo offset (EscapeASTVisitor)
 
 		NewNode(String ci, List<Node> al) {
 			classId = ci;
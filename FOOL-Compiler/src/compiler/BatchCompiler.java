@@ -0,0 +1,176 @@
+package compiler;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.jar.*;
+import java.util.stream.*;
+import org.antlr.v4.runtime.*;
+import compiler.lib.*;
+import compiler.exc.*;
+
+// compila in parallelo tutti i sorgenti .fool indicati (file o directory):
+//   java compiler.BatchCompiler [-j threads] [-O] [-escape] [-asm] [-jar] [-ir] <file o directory>...
+// ogni file ha il proprio CompilationContext, quindi i thread non condividono stato;
+// con -O ottimizza il codice generato (con -escape alloca anche nel frame gli oggetti che non
+// sfuggono, EscapeASTVisitor: non e' attivo con il solo -O perche' sui programmi di esempio
+// non trova oggetti e dove li trova risparmia heap ma esegue piu' istruzioni), con -asm lo scrive anche in <file>.asm, con -jar compila
+// anche per la JVM (JVMCodeGenerationASTVisitor) in <file senza .fool>.jar, eseguibile con java -jar;
+// con -ir genera il codice passando per la rappresentazione intermedia (IR), scritta in <file>.ir
+// (con -O anche dopo l'eliminazione delle sottoespressioni comuni, CSEOptimizer)
+// (chiamate in coda, devirtualizzazione, getter, segmento dati, memorizzazione delle funzioni
+// e oggetti allocati nel frame restano della generazione diretta)
+public class BatchCompiler {
+
+	// esito della compilazione di un file
+	record Result(Path file, int lexicalErrors, int syntaxErrors, int stErrors, int typeErrors,
+				  CodeBuffer code, long nanos) {
+
+		int errors() {
+			return lexicalErrors + syntaxErrors + stErrors + typeErrors;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean optimize = false;
+		boolean writeAsm = false;
+		boolean writeJar = false;
+		boolean ir = false;
+		boolean escape = false;
+		List<Path> sources = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "-j" -> threads = Integer.parseInt(args[++i]);
+				case "-O" -> optimize = true;
+				case "-escape" -> escape = true;
+				case "-asm" -> writeAsm = true;
+				case "-jar" -> writeJar = true;
+				case "-ir" -> ir = true;
+				default -> sources.addAll(foolFiles(Paths.get(args[i])));
+			}
+		}
+		if (sources.isEmpty()) {
+			System.out.println("Usage: java compiler.BatchCompiler [-j threads] [-O] [-escape] [-asm] [-jar] [-ir] <file or directory>...");
+			System.exit(1);
+		}
+
+		List<Result> results = compileAll(sources, threads, optimize, escape, writeAsm, writeJar, ir);
+
+		long failed = results.stream().filter(r -> r.errors() > 0).count();
+		System.exit(failed > 0 ? 1 : 0);
+	}
+
+	static List<Result> compileAll(List<Path> sources, int threads, boolean optimize, boolean escape, boolean writeAsm, boolean writeJar, boolean ir) throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		long start = System.nanoTime();
+		List<Future<Result>> futures = new ArrayList<>();
+		for (Path source : sources)
+			futures.add(pool.submit(() -> compile(source, optimize, escape, writeAsm, writeJar, ir)));
+		List<Result> results = new ArrayList<>();
+		for (Future<Result> f : futures) {
+			try {
+				results.add(f.get());
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Compiler crashed", e.getCause());
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		pool.shutdown();
+
+		long lines = 0;
+		int failed = 0;
+		for (Result r : results) {
+			if (r.errors() > 0) {
+				failed++;
+				System.out.println(String.format("FAIL %s: %d lexical, %d syntax, %d symbol table, %d type checking errors",
+						r.file(), r.lexicalErrors(), r.syntaxErrors(), r.stErrors(), r.typeErrors()));
+			} else {
+				lines += r.code().size();
+				System.out.println(String.format("OK   %s: %d asm lines in %.2f ms", r.file(), r.code().size(), r.nanos() / 1e6));
+			}
+		}
+		double seconds = elapsed / 1e9;
+		System.out.println(String.format("%nCompiled %d files (%d failed) with %d threads in %.3f s: %.1f files/s, %.0f asm lines/s",
+				results.size(), failed, threads, seconds, results.size() / seconds, lines / seconds));
+		return results;
+	}
+
+	// lexer, parser, generazione dell'AST, symbol table, type checking, generazione del codice
+	// e (se richiesto) ottimizzazione
+	static Result compile(Path file, boolean optimize, boolean escape, boolean writeAsm, boolean writeJar, boolean ir) throws IOException {
+		long start = System.nanoTime();
+		CompilationContext ctx = new CompilationContext();
+		FOOLLexer lexer = new FOOLLexer(CharStreams.fromPath(file));
+		FOOLParser parser = new FOOLParser(new CommonTokenStream(lexer));
+		Node ast = new ASTGenerationSTVisitor().visit(parser.prog());
+		new SymbolTableASTVisitor(ctx).visit(ast);
+		try {
+			new TypeCheckEASTVisitor(ctx).visit(ast);
+		} catch (IncomplException e) {
+		} catch (TypeException e) {
+			ctx.typeErrors++;
+			System.out.println(file + ": type checking error in main program expression: " + e.text);
+		}
+		CodeBuffer code = null;
+		if (lexer.lexicalErrors + parser.getNumberOfSyntaxErrors() + ctx.stErrors + ctx.typeErrors == 0) {
+			if (writeJar) writeJar(file, ast); // AST non ottimizzato: inlining e costanti sono lasciati alla JVM
+			if (optimize) {
+				ast = new InliningASTVisitor().visit(ast);
+				ast = new ConstantFoldingASTVisitor().visit(ast);
+				new ReachabilityASTVisitor().visit(ast);
+				new PurityASTVisitor().visit(ast);
+				if (escape && !ir) new EscapeASTVisitor().visit(ast); // riscrive gli offset delle STentry
+			}
+			ctx.jumpingCode = optimize;
+			ctx.tailCalls = optimize;
+			ctx.devirtualize = optimize;
+			ctx.inlineGetters = optimize;
+			ctx.callInstructions = optimize;
+			ctx.loadInstructions = optimize;
+			ctx.allocInstructions = optimize;
+			ctx.staticData = optimize;
+			ctx.memoize = optimize;
+			if (ir) {
+				IR.Program program = new IRGenerationASTVisitor(ctx).generate(ast);
+				if (optimize) program = new CSEOptimizer().optimize(program);
+				try (Writer out = Files.newBufferedWriter(Paths.get(file + ".ir"))) {
+					out.write(program.toString());
+				}
+				code = new IRCodeGenerator(ctx).generate(program);
+			} else code = new CodeGenerationASTVisitor(ctx).generate(ast);
+			if (optimize) code = new PeepholeOptimizer().optimize(code);
+			if (writeAsm)
+				try (Writer out = Files.newBufferedWriter(Paths.get(file + ".asm"))) {
+					code.writeTo(out);
+				}
+		}
+		return new Result(file, lexer.lexicalErrors, parser.getNumberOfSyntaxErrors(), ctx.stErrors, ctx.typeErrors,
+				code, System.nanoTime() - start);
+	}
+
+	// classi generate per la JVM in un jar con Main-Class nel manifest
+	private static void writeJar(Path file, Node ast) throws IOException {
+		String name = file.getFileName().toString().replaceFirst("\\.fool$", "");
+		String main = JVMCodeGenerationASTVisitor.mainClassName(name);
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, main);
+		Map<String, byte[]> classes = new JVMCodeGenerationASTVisitor().generate(ast, main);
+		try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(file.resolveSibling(name + ".jar")), manifest)) {
+			for (Map.Entry<String, byte[]> c : classes.entrySet()) {
+				jar.putNextEntry(new JarEntry(c.getKey() + ".class"));
+				jar.write(c.getValue());
+				jar.closeEntry();
+			}
+		}
+	}
+
+	private static List<Path> foolFiles(Path path) throws IOException {
+		if (!Files.isDirectory(path)) return List.of(path);
+		try (Stream<Path> files = Files.walk(path)) {
+			return files.filter(f -> f.toString().endsWith(".fool")).sorted().collect(Collectors.toList());
+		}
+	}
+}
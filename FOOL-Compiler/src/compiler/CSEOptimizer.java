@@ -0,0 +1,198 @@
+package compiler;
+
+import java.util.*;
+import compiler.AST.*;
+import compiler.IR.*;
+
+// eliminazione delle sottoespressioni comuni sulla rappresentazione intermedia, funzione per
+// funzione: un'operazione aritmetica o di confronto, o una chiamata di una funzione (o metodo)
+// pura (PurityASTVisitor), che ripete con gli stessi operandi una gia' calcolata in un blocco
+// dominante diventa una copia del risultato della prima, che resta in una cella del frame
+// (IRCodeGenerator legge la cella dove la copia viene usata; le operazioni brevi sono solo
+// riconosciute come uguali, per trovare quelle che le contengono). La cella si paga ogni volta
+// che la prima viene calcolata, quindi una ripetizione viene riusata solo se e' su tutti i
+// cammini dalla prima e se ricalcolarla costa piu' di REUSE istruzioni.
+// Variabili e campi non cambiano dopo l'inizializzazione:
+// due letture della stessa cella danno lo stesso valore, quindi ad esempio due l.first() sulla
+// stessa variabile l sono la stessa chiamata. Infine toglie le istruzioni senza effetti il cui
+// risultato non e' piu' usato (le letture che servivano alle istruzioni eliminate).
+// I temporanei con piu' definizioni (risultati di if) non partecipano.
+public class CSEOptimizer {
+
+	int calls = 0; // chiamate eliminate
+	int arithmetic = 0; // operazioni aritmetiche e confronti eliminati
+
+	private final Map<FunNode, IR.Function> functions = new HashMap<>(); // codice dei chiamati
+	private final Map<IR.Function, Integer> bodyCosts = new HashMap<>();
+
+	IR.Program optimize(IR.Program p) {
+		for (IR.Function f : p.functions) if (f.source != null) functions.put(f.source, f);
+		for (IR.Function f : p.functions) optimize(f);
+		return p;
+	}
+
+	private void optimize(IR.Function f) {
+		Map<Temp, Integer> defs = new HashMap<>();
+		Map<Temp, Instr> definition = new HashMap<>();
+		Map<Temp, Block> block = new HashMap<>(); // blocco della definizione
+		Map<Block, List<Block>> preds = new HashMap<>();
+		for (Block b : f.blocks) {
+			for (Instr i : b.instrs)
+				if (i.dst != null) {
+					defs.merge(i.dst, 1, Integer::sum);
+					definition.put(i.dst, i);
+					block.put(i.dst, b);
+				}
+			for (Block s : b.end.successors()) preds.computeIfAbsent(s, x -> new ArrayList<>()).add(b);
+		}
+		Map<Block, Block> idom = dominators(f, preds);
+		Map<Block, Map<List<Object>, Temp>> available = new HashMap<>(); // espressioni all'uscita di ogni blocco
+		Map<Temp, Value> canonical = new HashMap<>(); // risultati ripetuti -> primo risultato (per le chiavi)
+		for (Block b : f.blocks) {
+			Block d = idom.get(b);
+			Map<List<Object>, Temp> table = new HashMap<>(d == null ? Map.of() : available.get(d));
+			for (ListIterator<Instr> it = b.instrs.listIterator(); it.hasNext(); ) {
+				Instr i = it.next();
+				if (i.dst == null || defs.get(i.dst) != 1) continue;
+				if (i instanceof Move m && m.src instanceof Const) { // costante da mettere sullo stack prima di altri operandi
+					canonical.put(i.dst, m.src);
+					continue;
+				}
+				List<Object> key = key(i, defs, canonical);
+				if (key == null) continue;
+				Temp first = table.putIfAbsent(key, i.dst);
+				if (first == null) continue;
+				canonical.put(i.dst, first);
+				// letture e operazioni brevi costano quanto rileggere il primo risultato dal frame
+				if (i instanceof Load || i instanceof IR.Frame) continue;
+				if (cost(i, definition) <= REUSE || !always(block.get(first), b)) continue;
+				Move copy = new Move(i.dst, first);
+				it.set(copy);
+				definition.put(i.dst, copy);
+				if (i instanceof Binary) arithmetic++;
+				else calls++;
+			}
+			available.put(b, table);
+		}
+		removeDead(f);
+	}
+
+	// istruzioni della SVM oltre le quali conviene riusare un'operazione: il primo risultato, che
+	// altrimenti resterebbe sullo stack, costa una cella del frame, una sloc e una lloc, ogni riuso
+	// una lloc: ricalcolare REUSE istruzioni o meno costa quanto la sloc e la lloc aggiunte, o poco piu'
+	private static final int REUSE = 4;
+
+	// istruzioni della SVM che ricalcolano "i" a partire da costanti e temporanei gia' calcolati:
+	// per una chiamata, i suoi operandi, call (o callm) e almeno il cammino piu' breve del chiamato
+	private int cost(Instr i, Map<Temp, Instr> definition) {
+		int c = 1;
+		for (Value v : i.operands())
+			c += v instanceof Temp t && definition.get(t) instanceof Binary operand ? cost(operand, definition) : 1;
+		if (i instanceof Call call) c += bodyCost(call.target);
+		else if (i instanceof MethodCall call) c += bodyCost(call.target);
+		return c;
+	}
+
+	// istruzioni IR del cammino piu' breve dall'ingresso a un ritorno del chiamato, con enter e ret
+	private int bodyCost(FunNode target) {
+		IR.Function f = functions.get(target);
+		if (f == null) return 0;
+		Integer known = bodyCosts.get(f);
+		if (known != null) return known;
+		bodyCosts.put(f, 0); // chiamate ricorsive
+		Map<Block, Integer> dist = new HashMap<>(); // i blocchi sono disposti dopo i loro predecessori
+		dist.put(f.blocks.get(0), 1);
+		int best = Integer.MAX_VALUE;
+		for (Block b : f.blocks) {
+			Integer d = dist.get(b);
+			if (d == null) continue;
+			int c = d + b.all().size();
+			for (Instr i : b.instrs)
+				if (i instanceof Call call) c += bodyCost(call.target);
+				else if (i instanceof MethodCall call) c += bodyCost(call.target);
+			if (b.end.successors().isEmpty()) best = Math.min(best, c);
+			for (Block s : b.end.successors()) dist.merge(s, c, Math::min);
+		}
+		int cost = best == Integer.MAX_VALUE ? 0 : best;
+		bodyCosts.put(f, cost);
+		return cost;
+	}
+
+	// ogni cammino da "from" all'uscita della funzione passa da "to"
+	private static boolean always(Block from, Block to) {
+		Deque<Block> work = new ArrayDeque<>(List.of(from));
+		Set<Block> seen = new HashSet<>(work);
+		while (!work.isEmpty()) {
+			Block b = work.pop();
+			if (b == to) continue;
+			if (b.end.successors().isEmpty()) return false;
+			for (Block s : b.end.successors()) if (seen.add(s)) work.push(s);
+		}
+		return true;
+	}
+
+	// chiave dell'espressione calcolata da "i" (null se non puo' essere riusata); gli operandi sono
+	// sostituiti dalle prime letture delle stesse celle
+	private static List<Object> key(Instr i, Map<Temp, Integer> defs, Map<Temp, Value> canonical) {
+		List<Object> key = new ArrayList<>();
+		if (i instanceof Binary b) key.addAll(List.of(b.op, b.left, b.right));
+		else if (i instanceof Load l) key.addAll(List.of("load", l.distance, l.offset));
+		else if (i instanceof IR.Frame fr) key.addAll(List.of("frame", fr.distance));
+		else if (i instanceof Call c && c.target.pure) {
+			key.addAll(List.of("call", c.target, c.distance));
+			key.addAll(c.args);
+		} else if (i instanceof MethodCall mc && mc.target.pure) {
+			key.addAll(List.of("callm", mc.target, mc.receiver));
+			key.addAll(mc.args);
+		} else return null;
+		for (int k = 0; k < key.size(); k++)
+			if (key.get(k) instanceof Temp t) {
+				if (defs.getOrDefault(t, 0) != 1) return null;
+				key.set(k, canonical.getOrDefault(t, t));
+			}
+		return key;
+	}
+
+	// dominatore immediato di ogni blocco: i blocchi sono disposti dopo i loro predecessori
+	private static Map<Block, Block> dominators(IR.Function f, Map<Block, List<Block>> preds) {
+		Map<Block, Block> idom = new HashMap<>();
+		Map<Block, Integer> depth = new HashMap<>();
+		for (Block b : f.blocks) {
+			Block d = null;
+			for (Block p : preds.getOrDefault(b, List.of())) {
+				if (!depth.containsKey(p)) continue; // non raggiungibile dall'ingresso
+				if (d == null) d = p;
+				else { // antenato comune nell'albero dei dominatori
+					Block q = p;
+					while (depth.get(d) > depth.get(q)) d = idom.get(d);
+					while (depth.get(q) > depth.get(d)) q = idom.get(q);
+					while (d != q) {
+						d = idom.get(d);
+						q = idom.get(q);
+					}
+				}
+			}
+			if (d == null && b != f.blocks.get(0)) continue;
+			idom.put(b, d);
+			depth.put(b, d == null ? 0 : depth.get(d)+1);
+		}
+		return idom;
+	}
+
+	// toglie le istruzioni senza effetti (se non la divisione per zero di un'espressione gia'
+	// calcolata) il cui risultato non e' usato
+	private static void removeDead(IR.Function f) {
+		boolean changed = true;
+		while (changed) {
+			Map<Temp, Integer> uses = new HashMap<>();
+			for (Block b : f.blocks)
+				for (Instr i : b.all())
+					for (Value v : i.operands())
+						if (v instanceof Temp t) uses.merge(t, 1, Integer::sum);
+			changed = false;
+			for (Block b : f.blocks)
+				changed |= b.instrs.removeIf(i -> (i instanceof Load || i instanceof IR.Frame || i instanceof Move
+					|| i instanceof Binary || i instanceof FunAddr) && !uses.containsKey(i.dst));
+		}
+	}
+}
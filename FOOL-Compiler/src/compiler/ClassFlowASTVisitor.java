@@ -0,0 +1,105 @@
+package compiler;
+
+import java.util.*;
+import compiler.AST.*;
+import compiler.lib.*;
+
+//analisi dei tipi classe sull'intero programma, dopo il type checking: TypeRels.isSubtype
+//accetta un oggetto di una classe qualsiasi dove e' atteso un altro tipo classe, quindi
+//una variabile di tipo A puo' riferire un oggetto di B e a.m() deve passare dalla dispatch
+//table. Per ogni punto in cui un valore finisce in una posizione con tipo dichiarato
+//(inizializzazione di una variabile, argomenti di chiamate e new, corpo di funzioni e
+//metodi rispetto al tipo di ritorno) il tipo statico dell'espressione viene confrontato
+//con quello dichiarato: se sono classi diverse, la classe dichiarata e' "widened".
+//
+//Un oggetto che ha tipo statico T senza essere della classe T ci arriva passando per
+//almeno uno di questi punti, quindi le classi mai widened sono esatte: un'espressione
+//del loro tipo e' null oppure un oggetto proprio di quella classe, e il metodo chiamato
+//e' noto staticamente (devirtualizzazione e getter in CodeGenerationASTVisitor).
+public class ClassFlowASTVisitor extends RewritingASTVisitor {
+
+	private final Set<String> widened = new HashSet<>(); // classi il cui tipo puo' riferire oggetti di altre classi
+
+	ClassFlowASTVisitor() {}
+	ClassFlowASTVisitor(boolean debug) { super(debug); } // enables print for debugging
+
+	// gli oggetti di tipo statico "classId" sono tutti della classe classId (o null)
+	boolean exact(String classId) {
+		return !widened.contains(classId);
+	}
+
+	// classi che l'espressione "exp" puo' avere come tipo statico (entrambi i rami di un if, il
+	// valore stampato da print); false se il tipo di "exp" non e' ricavabile
+	private static boolean classes(Node exp, Set<String> res) {
+		TypeNode t;
+		if (exp instanceof IdNode n) t = n.entry.type;
+		else if (exp instanceof CallNode n) t = ((ArrowTypeNode) n.entry.type).ret;
+		else if (exp instanceof ClassCallNode n) t = ((ArrowTypeNode) n.methodEntry.type).ret;
+		else if (exp instanceof NewNode n) { res.add(n.classId); return true; }
+		else if (exp instanceof IfNode n) return classes(n.th, res) & classes(n.el, res);
+		else if (exp instanceof PrintNode n) return classes(n.exp, res);
+		else return exp instanceof EmptyNode;
+		if (t instanceof RefTypeNode r) res.add(r.id);
+		return true;
+	}
+
+	// il valore di "exp" finisce in una posizione di tipo dichiarato "type": se non si sa da
+	// quali classi arriva, la classe dichiarata non e' esatta
+	private void flow(TypeNode type, Node exp) {
+		if (!(type instanceof RefTypeNode r)) return;
+		Set<String> sources = new HashSet<>();
+		if (!classes(exp, sources)) widened.add(r.id);
+		for (String c : sources)
+			if (!c.equals(r.id)) widened.add(r.id);
+	}
+
+	private void flow(List<ParNode> parlist, List<Node> arglist) {
+		for (int i = 0; i < arglist.size(); i++) flow(parlist.get(i).getType(), arglist.get(i));
+	}
+
+	@Override
+	public Node visitNode(FunNode n) {
+		super.visitNode(n);
+		flow(n.retType, n.exp);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(MethodNode n) {
+		super.visitNode(n);
+		flow(n.retType, n.exp);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(VarNode n) {
+		super.visitNode(n);
+		flow(n.getType(), n.exp);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(CallNode n) {
+		flow(((FunNode) n.entry.decl).parlist, n.arglist);
+		return super.visitNode(n);
+	}
+
+	@Override
+	public Node visitNode(ClassNode n) {
+		if (n.superClassId != null) widened.add(n.superClassId); // oggetti delle sottoclassi
+		return super.visitNode(n);
+	}
+
+	@Override
+	public Node visitNode(ClassCallNode n) {
+		flow(((MethodNode) n.methodEntry.decl).parlist, n.arglist);
+		return super.visitNode(n);
+	}
+
+	@Override
+	public Node visitNode(NewNode n) {
+		List<FieldNode> fields = ((ClassNode) n.entry.decl).fields;
+		for (int i = 0; i < n.arglist.size(); i++) flow(fields.get(i).getType(), n.arglist.get(i));
+		return super.visitNode(n);
+	}
+}
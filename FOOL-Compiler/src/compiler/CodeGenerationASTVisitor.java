@@ -6,109 +6,342 @@ import compiler.exc.*;
 import svm.ExecuteVM;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// ogni visitNode aggiunge le proprie istruzioni al buffer corrente "code"
+// (invece di restituire una stringa che il nodo padre deve ricopiare)
+public class CodeGenerationASTVisitor extends BaseASTVisitor<Void, VoidException> {
+
+	private final CompilationContext ctx;
+	private CodeBuffer code = new CodeBuffer(); // current instruction sink
+	private FunNode current; // funzione (o metodo) di cui si sta generando il corpo
+	private final Set<Node> tailCalls = new HashSet<>(); // chiamate in posizione di coda
+	private final ClassFlowASTVisitor classFlow = new ClassFlowASTVisitor(); // classi esatte (devirtualizzazione e getter)
+	private DisplayASTVisitor display; // accessi tramite display (null se ctx.display e' false)
+	private final CodeBuffer data = new CodeBuffer(); // segmento dati (ctx.staticData): display e dispatch table
+	private int dataSize = 0;
+	private final Map<ClassNode, Integer> dispatchTables = new HashMap<>(); // indirizzo nel segmento dati
+
+  CodeGenerationASTVisitor(CompilationContext c) {ctx = c;}
+  CodeGenerationASTVisitor(CompilationContext c, boolean debug) {super(false,debug); ctx = c;} //enables print for debugging
+
+	// generates code for the whole program
+	CodeBuffer generate(Node n) {
+		code = new CodeBuffer();
+		visit(n);
+		return code;
+	}
 
-import static compiler.lib.FOOLlib.*;
-
-public class CodeGenerationASTVisitor extends BaseASTVisitor<String, VoidException> {
+	private void emit(String... lines) {
+		code.emit(lines);
+	}
 
-  CodeGenerationASTVisitor() {}
-  CodeGenerationASTVisitor(boolean debug) {super(false,debug);} //enables print for debugging
+	// redirects emitted code to a fresh buffer while visiting "n"
+	private CodeBuffer visitInto(CodeBuffer target, Node n) {
+		CodeBuffer prev = code;
+		code = target;
+		try {
+			visit(n);
+		} finally { code = prev; }
+		return target;
+	}
 
 	@Override
-	public String visitNode(ProgLetInNode n) {
+	public Void visitNode(ProgLetInNode n) {
 		if (print) printNode(n);
-		String declCode = null;
-		for (Node dec : n.declist) declCode=nlJoin(declCode,visit(dec));
-		return nlJoin(
-			"push 0",	
-			declCode, // generate code for declarations (allocation)			
-			visit(n.exp),
-			"halt",
-			getCode()
-		);
+		if (ctx.devirtualize || ctx.inlineGetters) classFlow.visit(n);
+		if (ctx.display) {
+			display = new DisplayASTVisitor();
+			display.visit(n);
+			if (ctx.staticData) // celle del display all'inizio del segmento dati
+				for (; dataSize < display.size(); dataSize++) data.emit("word 0");
+			else if (display.size() > 0) emit("push "+display.size(), "shp"); // celle del display all'inizio dello heap
+		}
+		emit("push 0");
+		for (Node dec : n.declist) visit(dec); // generate code for declarations (allocation)
+		visit(n.exp);
+		emit("halt");
+		code.append(ctx.getCode());
+		if (dataSize > 0) code.emit("").append(data);
+		return null;
 	}
 
 	@Override
-	public String visitNode(ProgNode n) {
+	public Void visitNode(ProgNode n) {
 		if (print) printNode(n);
-		return nlJoin(
-			visit(n.exp),
-			"halt"
-		);
+		visit(n.exp);
+		emit("halt");
+		return null;
 	}
 
 	@Override
-	public String visitNode(FunNode n) {
+	public Void visitNode(FunNode n) {
 		if (print) printNode(n,n.id);
-		String declCode = null, popDecl = null, popParl = null;
-		for (Node dec : n.declist) {
-			declCode = nlJoin(declCode,visit(dec));
-			popDecl = nlJoin(popDecl,"pop");
+		if (!n.reachable) { // funzione mai chiamata: solo il posto nel frame, per non cambiare gli offset
+			emit("push 0");
+			return null;
 		}
-		for (int i=0;i<n.parlist.size();i++) popParl = nlJoin(popParl,"pop");
-		String funl = freshFunLabel();
-		putCode(
-			nlJoin(
-				funl+":",
-				"cfp", // set $fp to $sp value
-				"lra", // load $ra value
-				declCode, // generate code for local declarations (they use the new $fp!!!)
-				visit(n.exp), // generate code for function body expression
-				"stm", // set $tm to popped value (function result)
-				popDecl, // remove local declarations from stack
-				"sra", // set $ra to popped value
-				"pop", // remove Access Link from stack
-				popParl, // remove parameters from stack
-				"sfp", // set $fp to popped value (Control Link)
-				"ltm", // load $tm value (function result)
-				"lra", // load $ra value
-				"js"  // jump to to popped address
-			)
+		ctx.putCode(funCode(n));
+		emit("push "+n.label);
+		return null;
+	}
+
+	// generates the code of function (or method) "n" and stores its fresh label in n.label
+	private CodeBuffer funCode(FunNode n) {
+		FunNode prev = current;
+		current = n; // anche per le dichiarazioni: gli oggetti allocati nel frame sono relativi a $fp
+		CodeBuffer declCode = new CodeBuffer(); // nested functions get their labels before "n"
+		for (Node dec : n.declist) visitInto(declCode, dec);
+		label(n);
+		CodeBuffer funCode = new CodeBuffer();
+		if (ctx.callInstructions) funCode.emit(n.label+":", "enter"); // cfp, lra
+		else funCode.emit(
+			n.label+":",
+			"cfp", // set $fp to $sp value
+			"lra" // load $ra value
 		);
-		return "push "+funl;		
+		int memo = memoized(n) ? ctx.freshMemoTable() : -1; // tabella della SVM con i risultati di n
+		if (memo >= 0) funCode.emit("memo "+memo+" "+n.parlist.size()); // ritorna subito se gli argomenti sono gia' noti
+		if (displays(n)) funCode.emit("lfp", "push "+display.displayed.get(n), "sw"); // cella del display del livello di n
+		funCode.append(declCode); // generate code for local declarations (they use the new $fp!!!)
+		if (ctx.tailCalls) collectTailCalls(n.exp);
+		visitInto(funCode, n.exp); // generate code for function body expression
+		current = prev;
+		if (memo >= 0) return funCode.emit("mret "+memo+" "+n.parlist.size()); // memorizza il risultato e ritorna
+		if (ctx.callInstructions) return funCode.emit("ret "+n.parlist.size()); // rimuove il frame a partire da $fp
+		funCode.emit("stm"); // set $tm to popped value (function result)
+		for (int i=0;i<n.declist.size()+n.frameObjects;i++) funCode.emit("pop"); // remove local declarations (and objects) from stack
+		funCode.emit(
+			"sra", // set $ra to popped value
+			"pop" // remove Access Link from stack
+		);
+		for (int i=0;i<n.parlist.size();i++) funCode.emit("pop"); // remove parameters from stack
+		funCode.emit(
+			"sfp", // set $fp to popped value (Control Link)
+			"ltm", // load $tm value (function result)
+			"lra", // load $ra value
+			"js"  // jump to to popped address
+		);
+		return funCode;
+	}
+
+	// etichetta della funzione (o metodo) "f", assegnata alla prima richiesta: le chiamate
+	// in coda saltano direttamente all'etichetta, anche prima di generarne il codice
+	private String label(FunNode f) {
+		if (f.label == null) f.label = ctx.freshFunLabel();
+		return f.label;
+	}
+
+	// le chiamate il cui risultato e' il risultato della funzione: il corpo stesso o i rami di un if in coda
+	private void collectTailCalls(Node exp) {
+		if (exp instanceof IfNode) {
+			collectTailCalls(((IfNode) exp).th);
+			collectTailCalls(((IfNode) exp).el);
+		} else if (exp instanceof CallNode || exp instanceof ClassCallNode) tailCalls.add(exp);
+	}
+
+	// una chiamata in coda riusa il frame corrente se il chiamato non lo usa come Access Link
+	// (d >= 1: dichiarato fuori dalla funzione corrente) e se i suoi m argomenti, spostati
+	// verso l'alto di nf+nd+2 celle, non sovrascrivono valori ancora da copiare
+	// (un chiamato che aggiorna il display non puo' essere chiamato in coda: nessuno ripristinerebbe la sua cella)
+	private boolean isTailCall(Node n, int d, int m) {
+		return tailCalls.contains(n) && d >= 1 && m <= current.parlist.size() + current.declist.size() + current.frameObjects + 1
+			&& !displays(callee(n));
+	}
+
+	private boolean memoized(FunNode f) {
+		return ctx.memoize && ctx.callInstructions && f.memoized;
+	}
+
+	private boolean displays(FunNode f) {
+		return display != null && display.displayed.containsKey(f);
+	}
+
+	// funzione (o metodo) chiamata da una CallNode o ClassCallNode; una chiamata che passa dalla
+	// dispatch table puo' eseguire il metodo allo stesso offset di un'altra classe: conta quello
+	// che aggiorna il display, se c'e' (il corpo dei metodi e' sempre allo stesso nesting level)
+	private FunNode callee(Node n) {
+		if (n instanceof CallNode c) return c.entry.decl instanceof FunNode f ? f : null;
+		ClassCallNode c = (ClassCallNode) n;
+		MethodNode m = (MethodNode) c.methodEntry.decl;
+		if (display != null && !isDirectCall(c))
+			for (FunNode f : display.displayed.keySet())
+				if (f instanceof MethodNode other && other.offset == m.offset) return other;
+		return m;
+	}
+
+	// una chiamata a una funzione che aggiorna il display salva prima la cella del suo livello
+	private void saveDisplay(Node n) {
+		if (displays(callee(n))) emit("push "+display.displayed.get(callee(n)), "lw");
+	}
+
+	// e la ripristina al ritorno, sotto al risultato della chiamata
+	private void restoreDisplay(Node n) {
+		if (displays(callee(n))) emit("stm", "push "+display.displayed.get(callee(n)), "sw", "ltm");
+	}
+
+	// indirizzo del frame di livello "level", raggiunto da "n" risalendo "d" passi della catena statica
+	private void frame(Node n, int d, int level) {
+		if (display != null && display.accesses.contains(n)) {
+			if (level == 0) emit("push "+ExecuteVM.MEMSIZE); // frame globale
+			else emit("push "+level, "lw");
+			return;
+		}
+		emit("lfp");
+		for (int i = 0;i<d;i++) emit("lw");
+	}
+
+	// chiamata in coda: argomenti e Access Link sono sulla cima dello stack; vengono copiati
+	// al posto di Access Link e parametri della funzione corrente, sotto al suo Control Link,
+	// e si salta al chiamato con il Return Address della funzione corrente: il chiamato
+	// ritorna direttamente al chiamante della funzione corrente, con uso costante dello stack;
+	// "jump" e' il salto al chiamato (b o, per i metodi, bm tramite la dispatch table).
+	// Solo i valori con stored[i] (0: Access Link, i: argomento i-1) sono sulla pila: gli altri
+	// sono gia' nella cella giusta (inPlace). Rispetto a una chiamata normale si risparmia
+	// l'uscita dalla funzione corrente ma si paga la copia: con le sequenze di chiamata le
+	// istruzioni eseguite diminuiscono, con call e ret (tre istruzioni) possono aumentare di
+	// poco; il guadagno certo e' lo stack costante
+	private void tailJump(String jump, boolean[] stored) {
+		int m = stored.length - 1;
+		int nf = current.parlist.size(), nd = current.declist.size() + current.frameObjects; // con gli oggetti nel frame
+		if (m > nf) { // gli argomenti coprono anche la cella del Return Address: va letto prima
+			load(null, 0, -1, -1);
+			emit("sra");
+		}
+		for (int i = 0; i <= m; i++) // Access Link e argomenti
+			if (!stored[i]) continue;
+			else if (ctx.loadInstructions) emit("sloc "+(nf-m+i));
+			else if (nf-m+i == 0) emit("lfp", "sw");
+			else emit("lfp", "push "+(nf-m+i), "add", "sw");
+		if (m > nf) for (int i = 0; i < nd+1+nf-m; i++) emit("pop"); // $sp sull'Access Link del chiamato
+		else {
+			for (int i = 0; i < nd; i++) emit("pop"); // dichiarazioni locali
+			emit("sra"); // il Return Address della funzione corrente, ora in cima, diventa quello del chiamato
+			for (int i = 0; i < nf-m; i++) emit("pop"); // $sp sull'Access Link del chiamato
+		}
+		emit(jump);
+	}
+
+	// argomenti di una chiamata in coda (dall'ultimo al primo, come in una chiamata normale)
+	// tranne quelli gia' nella cella in cui vanno copiati; ritorna stored per tailJump
+	private boolean[] tailArguments(List<Node> args) {
+		int m = args.size(), nf = current.parlist.size();
+		boolean[] stored = new boolean[m + 1];
+		stored[0] = true;
+		for (int i = m - 1; i >= 0; i--)
+			if (!inPlace(args.get(i), nf-m+i+1)) {
+				visit(args.get(i));
+				stored[i + 1] = true;
+			}
+		return stored;
+	}
+
+	// "arg" e' il parametro della funzione corrente che sta gia' nella cella "offset" (>= 1) del frame
+	private static boolean inPlace(Node arg, int offset) {
+		return arg instanceof IdNode id && id.nl == id.entry.nl && id.entry.offset == offset;
 	}
 
 	@Override
-	public String visitNode(VarNode n) {
+	public Void visitNode(VarNode n) {
 		if (print) printNode(n,n.id);
-		return visit(n.exp);
+		visit(n.exp);
+		return null;
 	}
 
 	@Override
-	public String visitNode(PrintNode n) {
+	public Void visitNode(PrintNode n) {
 		if (print) printNode(n);
-		return nlJoin(
-			visit(n.exp),
-			"print"
-		);
+		visit(n.exp);
+		emit("print");
+		return null;
 	}
 
 	@Override
-	public String visitNode(IfNode n) {
+	public Void visitNode(IfNode n) {
 		if (print) printNode(n);
-	 	String l1 = freshLabel();
-	 	String l2 = freshLabel();		
-		return nlJoin(
-			visit(n.cond),
-			"push 1",
-			"beq "+l1,
-			visit(n.el),
+	 	String l1 = ctx.freshLabel();
+	 	String l2 = ctx.freshLabel();
+		if (ctx.jumpingCode) branch(n.cond, true, l1);
+		else {
+			visit(n.cond);
+			emit(
+				"push 1",
+				"beq "+l1
+			);
+		}
+		visit(n.el);
+		emit(
 			"b "+l2,
-			l1+":",
-			visit(n.th),
-			l2+":"
+			l1+":"
 		);
+		visit(n.th);
+		emit(l2+":");
+		return null;
+	}
+
+	// jumping code: salta a "target" se la condizione "c" vale "when", altrimenti prosegue
+	// con l'istruzione successiva, senza materializzare il valore 0/1 della condizione;
+	// not scambia il caso del salto, && e || valutano il secondo operando solo se serve
+	private void branch(Node c, boolean when, String target) {
+		if (c instanceof NotNode) branch(((NotNode) c).right, !when, target);
+		else if (c instanceof AndNode || c instanceof OrNode) {
+			boolean and = c instanceof AndNode;
+			Node left = and ? ((AndNode) c).left : ((OrNode) c).left;
+			Node right = and ? ((AndNode) c).right : ((OrNode) c).right;
+			if (when != and) { // "a && b" falso oppure "a || b" vero: basta uno dei due operandi
+				branch(left, when, target);
+				branch(right, when, target);
+			} else { // servono entrambi gli operandi: il primo puo' solo far saltare oltre il secondo
+				String skip = ctx.freshLabel();
+				branch(left, !when, skip);
+				branch(right, when, target);
+				emit(skip+":");
+			}
+		} else if (c instanceof EqualNode || c instanceof LessEqualNode || c instanceof GreaterEqualNode) {
+			String bcc = "bleq ";
+			if (c instanceof EqualNode) {
+				visit(((EqualNode) c).left);
+				visit(((EqualNode) c).right);
+				bcc = "beq ";
+			} else if (c instanceof LessEqualNode) {
+				visit(((LessEqualNode) c).left);
+				visit(((LessEqualNode) c).right);
+			} else {
+				visit(((GreaterEqualNode) c).right);
+				visit(((GreaterEqualNode) c).left);
+			}
+			if (when) emit(bcc+target);
+			else { // la SVM non ha salti sulla condizione negata
+				String skip = ctx.freshLabel();
+				emit(
+					bcc+skip,
+					"b "+target,
+					skip+":"
+				);
+			}
+		} else if (c instanceof BoolNode) {
+			if (((BoolNode) c).val == when) emit("b "+target);
+		} else { // valore 0/1 calcolato a runtime (variabili, chiamate, ...)
+			visit(c);
+			emit(
+				"push "+(when?1:0),
+				"beq "+target
+			);
+		}
 	}
 
 	@Override
-	public String visitNode(EqualNode n) {
+	public Void visitNode(EqualNode n) {
 		if (print) printNode(n);
-	 	String l1 = freshLabel();
-	 	String l2 = freshLabel();
-		return nlJoin(
-			visit(n.left),
-			visit(n.right),
+	 	String l1 = ctx.freshLabel();
+	 	String l2 = ctx.freshLabel();
+		visit(n.left);
+		visit(n.right);
+		emit(
 			"beq "+l1,
 			"push 0",
 			"b "+l2,
@@ -116,40 +349,58 @@ public class CodeGenerationASTVisitor extends BaseASTVisitor<String, VoidExcepti
 			"push 1",
 			l2+":"
 		);
+		return null;
 	}
 
 	@Override
-	public String visitNode(TimesNode n) {
+	public Void visitNode(TimesNode n) {
 		if (print) printNode(n);
-		return nlJoin(
-			visit(n.left),
-			visit(n.right),
-			"mult"
-		);	
+		visit(n.left);
+		visit(n.right);
+		emit("mult");
+		return null;
 	}
 
 	@Override
-	public String visitNode(PlusNode n) {
+	public Void visitNode(PlusNode n) {
 		if (print) printNode(n);
-		return nlJoin(
-			visit(n.left),
-			visit(n.right),
-			"add"				
-		);
+		visit(n.left);
+		visit(n.right);
+		emit("add");
+		return null;
 	}
 
 	@Override
-	public String visitNode(CallNode n) {
+	public Void visitNode(CallNode n) {
 		if (print) printNode(n,n.id);
+		if (isTailCall(n, n.nl-n.entry.nl, n.arglist.size())) {
+			boolean[] stored = tailArguments(n.arglist);
+			// Access Link, come in una chiamata normale; non cambia se il chiamato e' dichiarato nello
+			// stesso scope della funzione corrente e va nella stessa cella
+			if (n.nl-n.entry.nl == 1 && n.arglist.size() == current.parlist.size()) stored[0] = false;
+			else frame(n, n.nl-n.entry.nl, n.entry.nl);
+			tailJump("b "+label((FunNode) n.entry.decl), stored);
+			return null;
+		}
+		saveDisplay(n);
+		call(n);
+		restoreDisplay(n);
+		return null;
+	}
 
-		String argCode = null, getAR = null;
-		for (int i=n.arglist.size()-1;i>=0;i--) argCode=nlJoin(argCode,visit(n.arglist.get(i)));
-		for (int i = 0;i<n.nl-n.entry.nl;i++) getAR=nlJoin(getAR,"lw");
-		return nlJoin(
-			"lfp", // load Control Link (pointer to frame of function "id" caller)
-			argCode, // generate code for argument expressions in reversed order
-			"lfp", getAR, // retrieve address of frame containing "id" declaration
-                          // by following the static chain (of Access Links)
+	private void call(CallNode n) {
+		emit("lfp"); // load Control Link (pointer to frame of function "id" caller)
+		for (int i=n.arglist.size()-1;i>=0;i--) visit(n.arglist.get(i)); // generate code for argument expressions in reversed order
+		if (ctx.callInstructions) {
+			if (n.entry.offset >= 0) { // metodo della classe: l'Access Link e' l'oggetto
+				emit("lfp");
+				for (int i = 0;i<n.nl-n.entry.nl;i++) emit("lw");
+				emit("callm "+n.entry.offset);
+			} else emit("call "+(n.nl-n.entry.nl)+" "+n.entry.offset);
+			return;
+		}
+		frame(n, n.nl-n.entry.nl, n.entry.nl); // retrieve address of frame containing "id" declaration
+		emit(
             "stm", // set $tm to popped value (with the aim of duplicating top of stack)
             "ltm", // load Access Link (pointer to frame of function "id" declaration)
             "ltm", // duplicate top of stack
@@ -161,40 +412,57 @@ public class CodeGenerationASTVisitor extends BaseASTVisitor<String, VoidExcepti
 	}
 
 	@Override
-	public String visitNode(IdNode n) {
+	public Void visitNode(IdNode n) {
 		if (print) printNode(n,n.id);
-		String getAR = null;
-		for (int i = 0;i<n.nl-n.entry.nl;i++) getAR=nlJoin(getAR,"lw");
-		return nlJoin(
-			"lfp", getAR, // retrieve address of frame containing "id" declaration
-			              // by following the static chain (of Access Links)
-			"push "+n.entry.offset, "add", // compute address of "id" declaration
+		load(n, n.nl-n.entry.nl, n.entry.nl, n.entry.offset);
+		return null;
+	}
+
+	// carica il valore all'offset "offset" del frame di livello "level", raggiunto da "n" risalendo
+	// "d" passi della catena statica (un campo se il frame raggiunto e' un oggetto, cioe' l'Access
+	// Link di un metodo); con il display il frame viene letto dalla sua cella e il valore con lfield
+	private void load(Node n, int d, int level, int offset) {
+		boolean displayed = display != null && display.accesses.contains(n);
+		if (ctx.loadInstructions && !displayed) {
+			emit(d == 0 ? "lloc "+offset : "lout "+d+" "+offset);
+			return;
+		}
+		if (level == 0 && displayed) {
+			emit("push "+(ExecuteVM.MEMSIZE+offset), "lw"); // variabile globale: indirizzo fisso
+			return;
+		}
+		frame(n, d, level); // retrieve address of frame containing "id" declaration
+		if (ctx.loadInstructions) emit("lfield "+offset);
+		else emit(
+			"push "+offset, "add", // compute address of "id" declaration
 			"lw" // load value of "id" variable
 		);
 	}
 
 	@Override
-	public String visitNode(BoolNode n) {
+	public Void visitNode(BoolNode n) {
 		if (print) printNode(n,n.val.toString());
-		return "push "+(n.val?1:0);
+		emit("push "+(n.val?1:0));
+		return null;
 	}
 
 	@Override
-	public String visitNode(IntNode n) {
+	public Void visitNode(IntNode n) {
 		if (print) printNode(n,n.val.toString());
-		return "push "+n.val;
+		emit("push "+n.val);
+		return null;
 	}
 
 	// OPERATOR EXTENSION
 
 	@Override
-	public String visitNode(GreaterEqualNode n) {
+	public Void visitNode(GreaterEqualNode n) {
 		if (print) printNode(n);
-		String l1 = freshLabel();
-		String l2 = freshLabel();
-		return nlJoin(
-				visit(n.right),
-				visit(n.left),
+		String l1 = ctx.freshLabel();
+		String l2 = ctx.freshLabel();
+		visit(n.right);
+		visit(n.left);
+		emit(
 				"bleq " + l1,
 				"push 0",
 				"b " + l2,
@@ -202,16 +470,17 @@ public class CodeGenerationASTVisitor extends BaseASTVisitor<String, VoidExcepti
 				"push 1",
 				l2 + ":"
 		);
+		return null;
 	}
 
 	@Override
-	public String visitNode(LessEqualNode n) {
+	public Void visitNode(LessEqualNode n) {
 		if (print) printNode(n);
-		String l1 = freshLabel();
-		String l2 = freshLabel();
-		return nlJoin(
-				visit(n.left),
-				visit(n.right),
+		String l1 = ctx.freshLabel();
+		String l2 = ctx.freshLabel();
+		visit(n.left);
+		visit(n.right);
+		emit(
 				"bleq " + l1,
 				"push 0",
 				"b " + l2,
@@ -219,15 +488,16 @@ public class CodeGenerationASTVisitor extends BaseASTVisitor<String, VoidExcepti
 				"push 1",
 				l2 + ":"
 		);
+		return null;
 	}
 
 	@Override
-	public String visitNode(NotNode n) {
+	public Void visitNode(NotNode n) {
 		if (print) printNode(n);
-		String l1 = freshLabel();
-		String l2 = freshLabel();
-		return nlJoin(
-			visit(n.right),
+		String l1 = ctx.freshLabel();
+		String l2 = ctx.freshLabel();
+		visit(n.right);
+		emit(
 			"push 0",
 			"beq " + l1, // Se exp è 0, allora not(exp) = 1
 			"push 0", // Altrimenti è 0
@@ -236,29 +506,31 @@ public class CodeGenerationASTVisitor extends BaseASTVisitor<String, VoidExcepti
 			"push 1",
 			l2 + ":"
 		);
+		return null;
 	}
 
 	@Override
-	public String visitNode(MinusNode n) {
+	public Void visitNode(MinusNode n) {
 		if (print) printNode(n);
-		return nlJoin(
-				visit(n.left),
-				visit(n.right),
-				"sub"
-		);
+		visit(n.left);
+		visit(n.right);
+		emit("sub");
+		return null;
 	}
 
 	@Override
-	public String visitNode(OrNode n) {
+	public Void visitNode(OrNode n) {
 		if (print) printNode(n);
-		String l1 = freshLabel();
-		String l2 = freshLabel();
+		String l1 = ctx.freshLabel();
+		String l2 = ctx.freshLabel();
 
-		return nlJoin(
-				visit(n.left),
+		visit(n.left);
+		emit(
 				"push 1",
-				"beq " + l1,
-				visit(n.right),
+				"beq " + l1
+		);
+		visit(n.right);
+		emit(
 				"push 1",
 				"beq " + l1,
 				"push 0",
@@ -267,30 +539,32 @@ public class CodeGenerationASTVisitor extends BaseASTVisitor<String, VoidExcepti
 				"push 1",
 				l2 + ":"
 		);
+		return null;
 	}
 
 
 	@Override
-	public String visitNode(DivNode n) {
+	public Void visitNode(DivNode n) {
 		if (print) printNode(n);
-		return nlJoin(
-				visit(n.left),
-				visit(n.right),
-				"div"
-		);
+		visit(n.left);
+		visit(n.right);
+		emit("div");
+		return null;
 	}
 
 	@Override
-	public String visitNode(AndNode n) {
+	public Void visitNode(AndNode n) {
 		if (print) printNode(n);
-		String l1 = freshLabel();
-		String l2 = freshLabel();
+		String l1 = ctx.freshLabel();
+		String l2 = ctx.freshLabel();
 
-		return nlJoin(
-				visit(n.left),
+		visit(n.left);
+		emit(
 				"push 0",
-				"beq " + l1,
-				visit(n.right),
+				"beq " + l1
+		);
+		visit(n.right);
+		emit(
 				"push 0",
 				"beq " + l1,
 				"push 1",
@@ -299,56 +573,50 @@ public class CodeGenerationASTVisitor extends BaseASTVisitor<String, VoidExcepti
 				"push 0",
 				l2 + ":"
 		);
+		return null;
 	}
 
 	// OBJECT-ORIENTED EXTENSION
 
 	@Override
-	public String visitNode(MethodNode n) {
+	public Void visitNode(MethodNode n) {
 		if (print) printNode(n,n.id);
-		String declCode = null, popDecl = null, popParl = null;
-		for (Node dec : n.declist) {
-			declCode = nlJoin(declCode,visit(dec));
-			popDecl = nlJoin(popDecl,"pop");
-		}
-		for (int i=0;i<n.parlist.size();i++) popParl = nlJoin(popParl,"pop");
-		String methodLabel = freshFunLabel();
-		n.label = methodLabel;
-		putCode(
-				nlJoin(
-						methodLabel+":",
-						"cfp", // set $fp to $sp value
-						"lra", // load $ra value
-						declCode, // generate code for local declarations (they use the new $fp!!!)
-						visit(n.exp), // generate code for function body expression
-						"stm", // set $tm to popped value (function result)
-						popDecl, // remove local declarations from stack
-						"sra", // set $ra to popped value
-						"pop", // remove Access Link from stack
-						popParl, // remove parameters from stack
-						"sfp", // set $fp to popped value (Control Link)
-						"ltm", // load $tm value (function result)
-						"lra", // load $ra value
-						"js"  // jump to to popped address
-				)
-		);
+		if (n.reachable) ctx.putCode(funCode(n));
 		return null;
 	}
 
 	@Override
-	public String visitNode(ClassNode n) {
+	public Void visitNode(ClassNode n) {
 		if (print) printNode(n,n.id);
+		if (!n.reachable) { // classe mai istanziata: nessuna dispatch table
+			emit("push 0");
+			return null;
+		}
 		List<String> dispatchTable = new ArrayList<>();
 		n.methods.forEach(m -> {
 				visit(m);
 				dispatchTable.add(m.offset, m.label);
 		});
 
-		String assemblyCode = "";
+		if (ctx.staticData) { // dispatch table costruita dal loader: il frame globale ne riceve l'indirizzo costante
+			dispatchTables.put(n, dataSize);
+			emit("push " + dataSize);
+			for (String methodLabel : dispatchTable) data.emit("word " + (methodLabel != null ? methodLabel : 0));
+			dataSize += dispatchTable.size();
+			return null;
+		}
+		if (ctx.allocInstructions) { // etichette sullo stack, copiate nello heap da una sola istruzione
+			for (String methodLabel : dispatchTable) emit("push " + (methodLabel != null ? methodLabel : 0));
+			emit("alloc " + dispatchTable.size()); // lascia sullo stack l'indirizzo della dispatch table
+			return null;
+		}
+		emit(
+				"lhp", //Caricamento nello stack del hp
+				"" //Caricamento della dispatch table
+		);
 		for (String methodLabel : dispatchTable){
-			assemblyCode = nlJoin(
-					assemblyCode,
-					"push " + methodLabel, //caricamento della label del metodo
+			emit(
+					"push " + (methodLabel != null ? methodLabel : 0), //caricamento della label del metodo (0 se mai chiamato)
 					"lhp",//load dello heap pointer
 					"sw",//Salvataggio dell'etichetta a indirizzo hp
 					"lhp",//load dello heap pointer
@@ -357,32 +625,71 @@ public class CodeGenerationASTVisitor extends BaseASTVisitor<String, VoidExcepti
 					"shp" //Salva il valore incrementato di hp
 			);
 		}
-
-		return nlJoin(
-				"lhp", //Caricamento nello stack del hp
-				assemblyCode //Caricamento della dispatch table
-		);
+		return null;
 	}
 
 	@Override
-	public String visitNode(EmptyNode n) {
+	public Void visitNode(EmptyNode n) {
 		if (print) printNode(n);
-		return "push -1";
+		emit("push -1");
+		return null;
 	}
 
 	@Override
-	public String visitNode(ClassCallNode n) {
+	public Void visitNode(ClassCallNode n) {
 		if (print) printNode(n,n.methodId);
-		String argCode = null, getAR = null;
-		for (int i=n.arglist.size()-1;i>=0;i--) argCode=nlJoin(argCode,visit(n.arglist.get(i)));
-		for (int i = 0;i<n.nl-n.entry.nl;i++) getAR=nlJoin(getAR,"lw");
-		return nlJoin(
-				"lfp", // load Control Link (pointer to frame of function "id" caller)
-					argCode, // generate code for argument expressions in reversed order
-				"lfp", getAR, // retrieve address of frame containing "id" declaration
-				// by following the static chain (of Access Links)
-				"push "+n.entry.offset, "add", // compute address of object
-				"lw" ,// load value of "id" variable
+		// l'Access Link e' l'oggetto, mai il frame corrente; un metodo non raggiungibile non ha codice
+		STentry field = getterField(n);
+		if (field != null) { // lettura diretta del campo: con oggetto null legge fuori dalla memoria come la chiamata
+			load(n, n.nl-n.entry.nl, n.entry.nl, n.entry.offset); // indirizzo dell'oggetto
+			if (ctx.loadInstructions) emit("lfield "+field.offset);
+			else emit(
+				"push "+field.offset, "add",
+				"lw" // valore del campo
+			);
+			return null;
+		}
+		if (isTailCall(n, 1, n.arglist.size()) && !n.frameReceiver) { // un oggetto nel frame sparirebbe col frame
+			boolean[] stored = tailArguments(n.arglist);
+			load(n, n.nl-n.entry.nl, n.entry.nl, n.entry.offset); // Access Link: l'oggetto
+			if (isDirectCall(n) && !ctx.callInstructions) { // classe esatta: salto all'etichetta del metodo
+				nullCheck();
+				tailJump("b "+label((MethodNode) n.methodEntry.decl), stored);
+			} else tailJump("bm "+n.methodEntry.offset, stored); // metodo della classe dell'oggetto
+			return null;
+		}
+		saveDisplay(n);
+		methodCall(n);
+		restoreDisplay(n);
+		return null;
+	}
+
+	// legge la dispatch table dell'oggetto in cima allo stack: con oggetto null fallisce come la
+	// chiamata tramite dispatch table
+	private void nullCheck() {
+		emit("stm", "ltm", "ltm", "lw", "pop");
+	}
+
+	private void methodCall(ClassCallNode n) {
+		if (isDirectCall(n) && !ctx.callInstructions) { // callm (e bm) costano meno del salto diretto con nullCheck
+			emit("lfp"); // load Control Link (pointer to frame of function "id" caller)
+			for (int i=n.arglist.size()-1;i>=0;i--) visit(n.arglist.get(i));
+			load(n, n.nl-n.entry.nl, n.entry.nl, n.entry.offset); // Access Link: l'oggetto
+			nullCheck();
+			emit(
+				"push "+label((MethodNode) n.methodEntry.decl), // indirizzo del metodo noto staticamente
+				"js"
+			);
+			return;
+		}
+		emit("lfp"); // load Control Link (pointer to frame of function "id" caller)
+		for (int i=n.arglist.size()-1;i>=0;i--) visit(n.arglist.get(i)); // generate code for argument expressions in reversed order
+		load(n, n.nl-n.entry.nl, n.entry.nl, n.entry.offset); // load object (Access Link of the method)
+		if (ctx.callInstructions) {
+			emit("callm "+n.methodEntry.offset);
+			return;
+		}
+		emit(
 				"stm", // set $tm to popped value (with the aim of duplicating top of stack)
 				"ltm", // load Access Link (pointer to frame of function "id" declaration)
 				"ltm", // duplicate top of stack
@@ -393,15 +700,43 @@ public class CodeGenerationASTVisitor extends BaseASTVisitor<String, VoidExcepti
 		);
 	}
 
+	// l'oggetto e' della classe del suo tipo statico (ClassFlowASTVisitor), quindi il metodo chiamato
+	// e' noto staticamente: niente indirizzo letto dalla dispatch table; il metodo deve essere
+	// raggiungibile, altrimenti non ha codice
+	private boolean isDirectCall(ClassCallNode n) {
+		return ctx.devirtualize && classFlow.exact(((RefTypeNode) n.entry.type).id)
+			&& ((MethodNode) n.methodEntry.decl).reachable;
+	}
+
+	// il metodo chiamato e' un getter (nessun parametro ne' dichiarazione, corpo formato solo da
+	// un campo della classe) e l'oggetto e' della classe del suo tipo statico (ClassFlowASTVisitor),
+	// quindi nessun'altra classe lo ridefinisce: ritorna la STentry del campo, null altrimenti
+	private STentry getterField(ClassCallNode n) {
+		if (!ctx.inlineGetters || !classFlow.exact(((RefTypeNode) n.entry.type).id)) return null;
+		MethodNode m = (MethodNode) n.methodEntry.decl;
+		if (!m.parlist.isEmpty() || !m.declist.isEmpty() || !(m.exp instanceof IdNode id)) return null;
+		return id.entry.nl == id.nl - 1 && id.entry.offset < 0 ? id.entry : null; // campi: livello della classe, offset negativi
+	}
+
 	@Override
-	public String visitNode(NewNode n) {
+	public Void visitNode(NewNode n) {
 		if (print) printNode(n,n.classId);
-		String argCode = null, getAR = null;
-		String argAssembly = "";
-		for (Node arg : n.arglist){
-			argCode = nlJoin(argCode, visit(arg));
-
-			argAssembly = nlJoin(argAssembly,
+		if (n.frameOffset != 0) { // oggetto che non sfugge (EscapeASTVisitor): celle in cima al frame, al posto della variabile
+			dispatchPointer(n);
+			for (Node arg : n.arglist) visit(arg); // campo i a frameOffset-i, come nello heap
+			if (current == null) emit("push "+(ExecuteVM.MEMSIZE+n.frameOffset)); // object pointer: il frame globale ha indirizzo fisso
+			else emit("lfp", "push "+n.frameOffset, "add"); // object pointer: indirizzo del dispatch pointer
+			return null;
+		}
+		for (Node arg : n.arglist) visit(arg);
+		if (ctx.allocInstructions) {
+			dispatchPointer(n);
+			emit("new " + n.arglist.size()); // campi e dispatch pointer nello heap, lascia l'object pointer
+			return null;
+		}
+		emit("");
+		for (int i = 0; i < n.arglist.size(); i++) {
+			emit(
 					"lhp",
 					"sw",
 					"lhp",//load dello heap pointer
@@ -411,18 +746,27 @@ public class CodeGenerationASTVisitor extends BaseASTVisitor<String, VoidExcepti
 			);
 		}
 
-		return nlJoin(
-				argCode,
-				argAssembly,
-				"push " + (ExecuteVM.MEMSIZE + n.entry.offset),
-				"lw",
+		dispatchPointer(n);
+		emit(
 				"lhp",
 				"sw",
 				"lhp",
 				"lhp",
 				"push 1",
 				"add",
-				"shp" 
+				"shp"
+		);
+		return null;
+	}
+
+	// indirizzo della dispatch table della classe istanziata: costante se e' nel segmento dati,
+	// altrimenti letto dalla dichiarazione della classe nel frame globale
+	private void dispatchPointer(NewNode n) {
+		Integer address = dispatchTables.get((ClassNode) n.entry.decl);
+		if (address != null) emit("push " + address);
+		else emit(
+				"push " + (ExecuteVM.MEMSIZE + n.entry.offset),
+				"lw"
 		);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,187 @@
+package compiler;
+
+import compiler.AST.*;
+import compiler.lib.*;
+
+//visitNode(n) ottimizza un Node n dopo il type checking e ritorna:
+//- per una espressione, l'espressione semplificata (n stesso se non cambia)
+//- per una dichiarazione, n stesso, dopo aver sostituito le espressioni al suo interno
+//
+//semplificazioni: valutazione delle operazioni con operandi costanti, identita'
+//algebriche (x+0, x-0, x*1, x/1, x*0, !!b, true&&b, false||b, ...) ed eliminazione
+//del ramo non eseguito di un if con condizione costante.
+//Un'operazione non viene mai eliminata se puo' avere effetti (chiamate, print,
+//divisioni che possono fallire); la divisione per la costante 0 non viene valutata.
+public class ConstantFoldingASTVisitor extends RewritingASTVisitor {
+
+	int folded = 0; // numero di semplificazioni effettuate
+
+	ConstantFoldingASTVisitor() {}
+	ConstantFoldingASTVisitor(boolean debug) { super(debug); } // enables print for debugging
+
+	// il nuovo nodo prende la linea del nodo che sostituisce
+	private Node replace(Node old, Node n) {
+		folded++;
+		if (n.getLine() < 0) n.setLine(old.getLine());
+		return n;
+	}
+
+	private static Integer intValue(Node n) {
+		if (n instanceof IntNode) return ((IntNode) n).val;
+		if (n instanceof BoolNode) return ((BoolNode) n).val ? 1 : 0;
+		return null;
+	}
+
+	private static boolean isInt(Node n, int v) {
+		return n instanceof IntNode && ((IntNode) n).val == v;
+	}
+
+	private static boolean isBool(Node n, boolean v) {
+		return n instanceof BoolNode && ((BoolNode) n).val == v;
+	}
+
+	// l'espressione puo' essere eliminata senza cambiare il comportamento del programma:
+	// nessuna chiamata, print, allocazione o divisione per un valore non costante (o nullo)
+	static boolean isPure(Node n) {
+		if (n instanceof IntNode || n instanceof BoolNode || n instanceof IdNode || n instanceof EmptyNode) return true;
+		if (n instanceof DivNode d) {
+			Integer v = intValue(d.right);
+			return v != null && v != 0 && isPure(d.left);
+		}
+		if (n instanceof PlusNode b) return isPure(b.left) && isPure(b.right);
+		if (n instanceof MinusNode b) return isPure(b.left) && isPure(b.right);
+		if (n instanceof TimesNode b) return isPure(b.left) && isPure(b.right);
+		if (n instanceof EqualNode b) return isPure(b.left) && isPure(b.right);
+		if (n instanceof LessEqualNode b) return isPure(b.left) && isPure(b.right);
+		if (n instanceof GreaterEqualNode b) return isPure(b.left) && isPure(b.right);
+		if (n instanceof AndNode b) return isPure(b.left) && isPure(b.right);
+		if (n instanceof OrNode b) return isPure(b.left) && isPure(b.right);
+		if (n instanceof NotNode u) return isPure(u.right);
+		if (n instanceof IfNode i) return isPure(i.cond) && isPure(i.th) && isPure(i.el);
+		return false;
+	}
+
+	@Override
+	public Node visitNode(IfNode n) {
+		if (print) printNode(n);
+		Node c = visit(n.cond);
+		Node t = visit(n.th);
+		Node e = visit(n.el);
+		if (c instanceof BoolNode) return replace(n, ((BoolNode) c).val ? t : e);
+		if (c instanceof NotNode) return replace(n, new IfNode(((NotNode) c).right, e, t));
+		return c == n.cond && t == n.th && e == n.el ? n : rebuilt(n, new IfNode(c, t, e));
+	}
+
+	@Override
+	public Node visitNode(EqualNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		Integer lv = intValue(l), rv = intValue(r);
+		if (lv != null && rv != null) return replace(n, new BoolNode(lv.equals(rv)));
+		if (l instanceof EmptyNode && r instanceof EmptyNode) return replace(n, new BoolNode(true));
+		return l == n.left && r == n.right ? n : rebuilt(n, new EqualNode(l, r));
+	}
+
+	@Override
+	public Node visitNode(TimesNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		Integer lv = intValue(l), rv = intValue(r);
+		if (lv != null && rv != null) return replace(n, new IntNode(lv * rv));
+		if (isInt(r, 1)) return replace(n, l);
+		if (isInt(l, 1)) return replace(n, r);
+		if ((isInt(r, 0) && isPure(l)) || (isInt(l, 0) && isPure(r))) return replace(n, new IntNode(0));
+		return l == n.left && r == n.right ? n : rebuilt(n, new TimesNode(l, r));
+	}
+
+	@Override
+	public Node visitNode(PlusNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		Integer lv = intValue(l), rv = intValue(r);
+		if (lv != null && rv != null) return replace(n, new IntNode(lv + rv));
+		if (isInt(r, 0)) return replace(n, l);
+		if (isInt(l, 0)) return replace(n, r);
+		return l == n.left && r == n.right ? n : rebuilt(n, new PlusNode(l, r));
+	}
+
+	// OPERATOR EXTENSION
+
+	@Override
+	public Node visitNode(GreaterEqualNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		Integer lv = intValue(l), rv = intValue(r);
+		if (lv != null && rv != null) return replace(n, new BoolNode(lv >= rv));
+		return l == n.left && r == n.right ? n : rebuilt(n, new GreaterEqualNode(l, r));
+	}
+
+	@Override
+	public Node visitNode(LessEqualNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		Integer lv = intValue(l), rv = intValue(r);
+		if (lv != null && rv != null) return replace(n, new BoolNode(lv <= rv));
+		return l == n.left && r == n.right ? n : rebuilt(n, new LessEqualNode(l, r));
+	}
+
+	@Override
+	public Node visitNode(NotNode n) {
+		if (print) printNode(n);
+		Node r = visit(n.right);
+		if (r instanceof BoolNode) return replace(n, new BoolNode(!((BoolNode) r).val));
+		if (r instanceof NotNode) return replace(n, ((NotNode) r).right);
+		return r == n.right ? n : rebuilt(n, new NotNode(r));
+	}
+
+	@Override
+	public Node visitNode(MinusNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		Integer lv = intValue(l), rv = intValue(r);
+		if (lv != null && rv != null) return replace(n, new IntNode(lv - rv));
+		if (isInt(r, 0)) return replace(n, l);
+		return l == n.left && r == n.right ? n : rebuilt(n, new MinusNode(l, r));
+	}
+
+	@Override
+	public Node visitNode(OrNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		if (isBool(l, true)) return replace(n, l); // il secondo operando non viene valutato
+		if (isBool(l, false)) return replace(n, r);
+		if (isBool(r, false)) return replace(n, l);
+		if (isBool(r, true) && isPure(l)) return replace(n, r);
+		return l == n.left && r == n.right ? n : rebuilt(n, new OrNode(l, r));
+	}
+
+	@Override
+	public Node visitNode(DivNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		Integer lv = intValue(l), rv = intValue(r);
+		if (lv != null && rv != null && rv != 0) return replace(n, new IntNode(lv / rv));
+		if (isInt(r, 1)) return replace(n, l);
+		return l == n.left && r == n.right ? n : rebuilt(n, new DivNode(l, r));
+	}
+
+	@Override
+	public Node visitNode(AndNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		if (isBool(l, false)) return replace(n, l); // il secondo operando non viene valutato
+		if (isBool(l, true)) return replace(n, r);
+		if (isBool(r, true)) return replace(n, l);
+		if (isBool(r, false) && isPure(l)) return replace(n, r);
+		return l == n.left && r == n.right ? n : rebuilt(n, new AndNode(l, r));
+	}
+}
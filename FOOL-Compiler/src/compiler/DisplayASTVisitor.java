@@ -0,0 +1,83 @@
+package compiler;
+
+import java.util.*;
+import compiler.AST.*;
+import compiler.lib.*;
+
+//analisi per la generazione del codice con display, dopo il type checking: invece di
+//risalire d >= 2 Access Link, l'indirizzo del frame di livello k viene letto dalla cella
+//k del display, riservata all'inizio dello heap; le variabili globali hanno indirizzo
+//fisso (il frame globale non cambia mai $fp) e non usano il display.
+//
+//Solo le funzioni il cui frame viene raggiunto tramite display (displayed) lo aggiornano:
+//all'ingresso scrivono $fp nella cella del proprio livello e chi le chiama salva il valore
+//precedente prima della chiamata e lo ripristina al ritorno.
+//I livelli delle classi (Access Link dei metodi = oggetto) restano sulla catena statica.
+public class DisplayASTVisitor extends RewritingASTVisitor {
+
+	final Map<FunNode, Integer> displayed = new HashMap<>(); // funzione -> cella del display (nesting level del corpo)
+	final Set<Node> accesses = new HashSet<>(); // IdNode, CallNode e ClassCallNode che non usano la catena statica
+
+	// enclosing.get(l): funzione il cui corpo e' al nesting level l (null per il livello globale e per le classi)
+	private final List<FunNode> enclosing = new ArrayList<>();
+
+	DisplayASTVisitor() { enclosing.add(null); }
+	DisplayASTVisitor(boolean debug) { super(debug); enclosing.add(null); } // enables print for debugging
+
+	// celle del display da riservare all'inizio dello heap
+	int size() {
+		return displayed.values().stream().max(Integer::compare).map(k -> k + 1).orElse(0);
+	}
+
+	// "n" usa la dichiarazione "entry" dal nesting level "nl"
+	private void access(Node n, int nl, STentry entry) {
+		int d = nl - entry.nl, k = entry.nl;
+		if (k == 0 && d >= 1) accesses.add(n);
+		else if (k > 0 && d >= 2 && enclosing.get(k) != null) {
+			accesses.add(n);
+			displayed.put(enclosing.get(k), k);
+		}
+	}
+
+	@Override
+	public Node visitNode(FunNode n) {
+		enclosing.add(n);
+		super.visitNode(n);
+		enclosing.remove(enclosing.size() - 1);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(MethodNode n) {
+		enclosing.add(n);
+		super.visitNode(n);
+		enclosing.remove(enclosing.size() - 1);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(ClassNode n) {
+		enclosing.add(null);
+		super.visitNode(n);
+		enclosing.remove(enclosing.size() - 1);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(IdNode n) {
+		access(n, n.nl, n.entry);
+		return super.visitNode(n);
+	}
+
+	@Override
+	public Node visitNode(CallNode n) {
+		access(n, n.nl, n.entry);
+		return super.visitNode(n);
+	}
+
+	@Override
+	public Node visitNode(ClassCallNode n) {
+		access(n, n.nl, n.entry); // lettura dell'oggetto
+		return super.visitNode(n);
+	}
+}
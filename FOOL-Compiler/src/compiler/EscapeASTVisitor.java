@@ -0,0 +1,147 @@
+package compiler;
+
+import java.util.*;
+import compiler.AST.*;
+import compiler.lib.*;
+
+//analisi di fuga (escape analysis) sull'AST ottimizzato, prima della generazione diretta
+//del codice: l'oggetto creato da una dichiarazione "var x:C = new C(...)" di una funzione,
+//di un metodo o del programma principale non sfugge se x e' usata solo per chiamarne i
+//metodi o nei confronti con ==. Un metodo non puo' restituire ne' salvare l'oggetto su cui
+//e' chiamato (non esiste this), quindi nessun riferimento all'oggetto sopravvive al frame
+//che lo crea: dispatch pointer e campi vengono allocati nel frame stesso, subito prima della
+//cella di x e con la stessa disposizione dello heap (NewNode.frameOffset), e spariscono al
+//ritorno invece di occupare lo heap, che non viene mai liberato.
+//
+//Le celle degli oggetti spostano le dichiarazioni successive: gli offset delle loro STentry
+//vengono riscritti e FunNode.frameObjects conta le celle da togliere al ritorno (e nelle
+//chiamate in coda). Un metodo chiamato in coda sull'oggetto troverebbe il frame gia' riusato:
+//la chiamata viene marcata (ClassCallNode.frameReceiver) e generata come chiamata normale.
+public class EscapeASTVisitor extends RewritingASTVisitor {
+
+	// corpo al nesting level nl: STentry del suo frame usate nel sottoalbero
+	private static class Frame {
+		final int nl;
+		final Set<STentry> entries = Collections.newSetFromMap(new IdentityHashMap<>());
+		final Set<Integer> escaping = new HashSet<>(); // offset delle variabili usate fuori da chiamate e confronti
+		final Set<Node> tailReceivers = new HashSet<>(); // chiamate di metodi in posizione di coda
+		final Map<ClassCallNode, Integer> tailCalls = new HashMap<>(); // quelle sulle variabili del frame -> offset
+
+		Frame(int nl) { this.nl = nl; }
+	}
+
+	private final List<Frame> frames = new ArrayList<>(); // corpi che racchiudono il nodo visitato
+
+	final List<String> allocated = new ArrayList<>(); // variabili con l'oggetto nel frame, per le statistiche
+
+	EscapeASTVisitor() {}
+	EscapeASTVisitor(boolean debug) { super(debug); } // enables print for debugging
+
+	// frame della dichiarazione "entry" (null per campi, metodi e parametri)
+	private Frame frame(STentry entry) {
+		if (entry.offset > -2) return null;
+		for (int i = frames.size() - 1; i >= 0; i--)
+			if (frames.get(i).nl == entry.nl) return frames.get(i);
+		return null;
+	}
+
+	// "entry" e' usata nel corpo che si sta visitando; se escapes il valore puo' uscire dal frame
+	private void use(STentry entry, boolean escapes) {
+		Frame f = frame(entry);
+		if (f == null) return;
+		f.entries.add(entry);
+		if (escapes) f.escaping.add(entry.offset);
+	}
+
+	// le chiamate di metodi il cui risultato e' il risultato della funzione, come in CodeGenerationASTVisitor
+	private static void collectTailReceivers(Node exp, Set<Node> calls) {
+		if (exp instanceof IfNode i) {
+			collectTailReceivers(i.th, calls);
+			collectTailReceivers(i.el, calls);
+		} else if (exp instanceof ClassCallNode) calls.add(exp);
+	}
+
+	// visita un corpo al nesting level nl (di una funzione o un metodo se function e' true, del
+	// programma principale altrimenti) e alloca nel frame gli oggetti che non sfuggono;
+	// ritorna le celle aggiunte al frame
+	private int body(int nl, List<DecNode> declist, Node exp, String owner, boolean function) {
+		Frame f = new Frame(nl);
+		if (function) collectTailReceivers(exp, f.tailReceivers);
+		frames.add(f);
+		for (Node dec : declist) visit(dec);
+		visit(exp);
+		frames.remove(frames.size() - 1);
+		int[] cells = new int[declist.size()]; // celle di oggetti fino alla dichiarazione j compresa
+		int objects = 0;
+		for (int j = 0; j < declist.size(); j++) {
+			if (declist.get(j) instanceof VarNode v && v.exp instanceof NewNode o && !f.escaping.contains(-2 - j)) {
+				o.frameOffset = -2 - j - objects; // primo posto libero: la cella che avrebbe avuto x
+				objects += o.arglist.size() + 1;
+				allocated.add(owner + "." + v.id);
+			}
+			cells[j] = objects;
+		}
+		for (Map.Entry<ClassCallNode, Integer> c : f.tailCalls.entrySet())
+			if (declist.get(-2 - c.getValue()) instanceof VarNode v && v.exp instanceof NewNode o && o.frameOffset != 0)
+				c.getKey().frameReceiver = true;
+		for (STentry e : f.entries) e.offset -= cells[-2 - e.offset];
+		return objects;
+	}
+
+	@Override
+	public Node visitNode(ProgLetInNode n) {
+		if (print) printNode(n);
+		body(0, n.declist, n.exp, "main", false);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(FunNode n) {
+		if (print) printNode(n,n.id);
+		n.frameObjects = body(frames.get(frames.size() - 1).nl + 1, n.declist, n.exp, n.id, true);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(MethodNode n) {
+		if (print) printNode(n,n.id);
+		n.frameObjects = body(frames.get(frames.size() - 1).nl + 2, n.declist, n.exp, n.id, true); // livello della classe + 1
+		return n;
+	}
+
+	@Override
+	public Node visitNode(IdNode n) {
+		if (print) printNode(n,n.id);
+		use(n.entry, true);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(EqualNode n) {
+		if (print) printNode(n);
+		for (Node operand : List.of(n.left, n.right))
+			if (operand instanceof IdNode id) use(id.entry, false); // confronta solo l'indirizzo
+			else visit(operand);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(CallNode n) {
+		use(n.entry, false);
+		return super.visitNode(n);
+	}
+
+	@Override
+	public Node visitNode(ClassCallNode n) {
+		Frame top = frames.get(frames.size() - 1);
+		if (frame(n.entry) == top && top.tailReceivers.contains(n)) top.tailCalls.put(n, n.entry.offset);
+		use(n.entry, false);
+		return super.visitNode(n);
+	}
+
+	@Override
+	public Node visitNode(NewNode n) {
+		use(n.entry, false); // dichiarazione della classe (dispatch table)
+		return super.visitNode(n);
+	}
+}
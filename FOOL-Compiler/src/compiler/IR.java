@@ -0,0 +1,419 @@
+package compiler;
+
+import java.util.*;
+import compiler.AST.*;
+
+// rappresentazione intermedia fra l'AST arricchito e il codice della SVM: ogni funzione (o metodo)
+// e' una lista di blocchi base di istruzioni a tre indirizzi su temporanei tipati, chiusi da un
+// salto, un salto condizionato, un ritorno o halt. Chiamate e allocazioni restano istruzioni
+// esplicite con la dichiarazione chiamata (e la sua STentry) gia' risolta.
+// I temporanei non sono in forma SSA: il risultato di un if e' assegnato in entrambi i rami.
+// Costruita da IRGenerationASTVisitor, tradotta in codice SVM da IRCodeGenerator;
+// toString() produce il dump testuale (opzione -ir di BatchCompiler).
+public class IR {
+
+	enum Type {
+		INT, BOOL, REF, // valori del linguaggio (REF: oggetti e null)
+		ADDR // indirizzi di frame e di codice
+	}
+
+	// operando di un'istruzione: un temporaneo o una costante
+	interface Value {
+		Type type();
+	}
+
+	static final class Temp implements Value {
+		final int id;
+		final Type type;
+		Temp(int i, Type t) {id = i; type = t;}
+
+		public Type type() {return type;}
+
+		@Override
+		public String toString() {return "t"+id;}
+	}
+
+	static final class Const implements Value {
+		final int value;
+		final Type type;
+		Const(int v, Type t) {value = v; type = t;}
+
+		public Type type() {return type;}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Const c && c.value == value && c.type == type;
+		}
+
+		@Override
+		public int hashCode() {return value;}
+
+		@Override
+		public String toString() {
+			if (type == Type.BOOL) return value == 1 ? "true" : "false";
+			if (type == Type.REF) return "null";
+			return Integer.toString(value);
+		}
+	}
+
+	static final Const NULL = new Const(-1, Type.REF);
+
+	static Const intConst(int v) {return new Const(v, Type.INT);}
+
+	static Const boolConst(boolean b) {return new Const(b ? 1 : 0, Type.BOOL);}
+
+	// ISTRUZIONI
+
+	abstract static class Instr {
+		Temp dst; // null se l'istruzione non produce un valore
+
+		// operandi nell'ordine in cui la SVM li vuole sullo stack (il primo e' il piu' in basso)
+		abstract List<Value> operands();
+
+		// sostituisce un operando (propagazione delle copie, CSE)
+		abstract void replace(Value from, Value to);
+
+		String assign() {return dst == null ? "" : dst+" = ";}
+	}
+
+	enum Op {
+		ADD("+", Type.INT), SUB("-", Type.INT), MUL("*", Type.INT), DIV("/", Type.INT),
+		EQ("==", Type.BOOL), LE("<=", Type.BOOL);
+
+		final String symbol;
+		final Type result;
+		Op(String s, Type r) {symbol = s; result = r;}
+	}
+
+	// dst = src
+	static final class Move extends Instr {
+		Value src;
+		Move(Temp d, Value s) {dst = d; src = s;}
+
+		List<Value> operands() {return List.of(src);}
+
+		void replace(Value from, Value to) {if (src.equals(from)) src = to;}
+
+		@Override
+		public String toString() {return assign()+src;}
+	}
+
+	// dst = left op right
+	static final class Binary extends Instr {
+		final Op op;
+		Value left, right;
+		Binary(Temp d, Op o, Value l, Value r) {dst = d; op = o; left = l; right = r;}
+
+		List<Value> operands() {return List.of(left, right);}
+
+		void replace(Value from, Value to) {
+			if (left.equals(from)) left = to;
+			if (right.equals(from)) right = to;
+		}
+
+		@Override
+		public String toString() {return assign()+left+" "+op.symbol+" "+right;}
+	}
+
+	// dst = cella "offset" del frame raggiunto risalendo "distance" passi della catena statica
+	// (un campo se il frame raggiunto e' un oggetto); "entry" e' la dichiarazione letta
+	static final class Load extends Instr {
+		final int distance;
+		final int offset;
+		final STentry entry;
+		Load(Temp d, int dist, int o, STentry e) {dst = d; distance = dist; offset = o; entry = e;}
+
+		List<Value> operands() {return List.of();}
+
+		void replace(Value from, Value to) {}
+
+		@Override
+		public String toString() {return assign()+"["+distance+":"+offset+"]";}
+	}
+
+	// cella "offset" del frame corrente = src (inizializzazione delle dichiarazioni locali)
+	static final class Store extends Instr {
+		final int offset;
+		Value src;
+		Store(int o, Value s) {offset = o; src = s;}
+
+		List<Value> operands() {return List.of(src);}
+
+		void replace(Value from, Value to) {if (src.equals(from)) src = to;}
+
+		@Override
+		public String toString() {return "[0:"+offset+"] = "+src;}
+	}
+
+	// dst = indirizzo del frame raggiunto risalendo "distance" passi della catena statica
+	// (0: frame corrente, usato come Control Link delle chiamate)
+	static final class Frame extends Instr {
+		final int distance;
+		Frame(Temp d, int dist) {dst = d; distance = dist;}
+
+		List<Value> operands() {return List.of();}
+
+		void replace(Value from, Value to) {}
+
+		@Override
+		public String toString() {return assign()+"frame "+distance;}
+	}
+
+	// dst = indirizzo del codice della funzione (valore della sua dichiarazione)
+	static final class FunAddr extends Instr {
+		final Function function;
+		FunAddr(Temp d, Function f) {dst = d; function = f;}
+
+		List<Value> operands() {return List.of();}
+
+		void replace(Value from, Value to) {}
+
+		@Override
+		public String toString() {return assign()+"&"+function.label;}
+	}
+
+	// dst = dispatch table della classe, allocata nello heap (null: metodo mai chiamato)
+	static final class DispatchTable extends Instr {
+		final ClassNode source;
+		final List<Function> methods; // in ordine di offset
+		DispatchTable(Temp d, ClassNode c, List<Function> m) {dst = d; source = c; methods = m;}
+
+		List<Value> operands() {return List.of();}
+
+		void replace(Value from, Value to) {}
+
+		@Override
+		public String toString() {
+			StringJoiner s = new StringJoiner(", ", assign()+"table "+source.id+" [", "]");
+			for (Function m : methods) s.add(m == null ? "0" : m.label);
+			return s.toString();
+		}
+	}
+
+	// dst = chiamata della funzione dichiarata "distance" passi piu' in alto nella catena statica;
+	// "link" e' il Control Link (frame del chiamante), valutato prima degli argomenti
+	static final class Call extends Instr {
+		final FunNode target;
+		final STentry entry;
+		final int distance;
+		Value link;
+		final List<Value> args;
+		Call(Temp d, FunNode t, STentry e, int dist, Value l, List<Value> a) {
+			dst = d; target = t; entry = e; distance = dist; link = l; args = a;
+		}
+
+		// Control Link e argomenti in ordine inverso, come nella generazione diretta del codice
+		List<Value> operands() {
+			List<Value> ops = new ArrayList<>();
+			ops.add(link);
+			for (int i = args.size()-1; i >= 0; i--) ops.add(args.get(i));
+			return ops;
+		}
+
+		void replace(Value from, Value to) {
+			if (link.equals(from)) link = to;
+			args.replaceAll(a -> a.equals(from) ? to : a);
+		}
+
+		@Override
+		public String toString() {
+			return assign()+"call "+target.id+"@"+distance+":"+entry.offset+args(args)+" link "+link;
+		}
+	}
+
+	// dst = chiamata del metodo all'offset "entry.offset" della dispatch table di "receiver"
+	static final class MethodCall extends Instr {
+		final MethodNode target;
+		final STentry entry;
+		Value link;
+		final List<Value> args;
+		Value receiver;
+		MethodCall(Temp d, MethodNode t, STentry e, Value l, List<Value> a, Value r) {
+			dst = d; target = t; entry = e; link = l; args = a; receiver = r;
+		}
+
+		// Control Link, argomenti in ordine inverso e infine l'oggetto (Access Link del metodo)
+		List<Value> operands() {
+			List<Value> ops = new ArrayList<>();
+			ops.add(link);
+			for (int i = args.size()-1; i >= 0; i--) ops.add(args.get(i));
+			ops.add(receiver);
+			return ops;
+		}
+
+		void replace(Value from, Value to) {
+			if (link.equals(from)) link = to;
+			args.replaceAll(a -> a.equals(from) ? to : a);
+			if (receiver.equals(from)) receiver = to;
+		}
+
+		@Override
+		public String toString() {
+			return assign()+receiver+"."+target.id+"#"+entry.offset+args(args)+" link "+link;
+		}
+	}
+
+	// dst = nuovo oggetto della classe con i campi inizializzati da "args"
+	static final class New extends Instr {
+		final ClassNode target;
+		final STentry entry; // dichiarazione della classe nel frame globale (la sua dispatch table)
+		final List<Value> args;
+		New(Temp d, ClassNode t, STentry e, List<Value> a) {dst = d; target = t; entry = e; args = a;}
+
+		List<Value> operands() {return args;}
+
+		void replace(Value from, Value to) {args.replaceAll(a -> a.equals(from) ? to : a);}
+
+		@Override
+		public String toString() {return assign()+"new "+target.id+args(args);}
+	}
+
+	// dst = src, dopo averlo stampato
+	static final class Print extends Instr {
+		Value src;
+		Print(Temp d, Value s) {dst = d; src = s;}
+
+		List<Value> operands() {return List.of(src);}
+
+		void replace(Value from, Value to) {if (src.equals(from)) src = to;}
+
+		@Override
+		public String toString() {return assign()+"print "+src;}
+	}
+
+	private static String args(List<Value> args) {
+		StringJoiner s = new StringJoiner(", ", "(", ")");
+		for (Value a : args) s.add(a.toString());
+		return s.toString();
+	}
+
+	// TERMINATORI
+
+	abstract static class Terminator extends Instr {
+		abstract List<Block> successors();
+	}
+
+	static final class Jump extends Terminator {
+		final Block target;
+		Jump(Block t) {target = t;}
+
+		List<Value> operands() {return List.of();}
+
+		void replace(Value from, Value to) {}
+
+		List<Block> successors() {return List.of(target);}
+
+		@Override
+		public String toString() {return "goto "+target.label;}
+	}
+
+	// salta a "ifTrue" se "left op right" (op: EQ o LE), altrimenti a "ifFalse"
+	static final class Branch extends Terminator {
+		final Op op;
+		Value left, right;
+		final Block ifTrue, ifFalse;
+		Branch(Op o, Value l, Value r, Block t, Block f) {op = o; left = l; right = r; ifTrue = t; ifFalse = f;}
+
+		List<Value> operands() {return List.of(left, right);}
+
+		void replace(Value from, Value to) {
+			if (left.equals(from)) left = to;
+			if (right.equals(from)) right = to;
+		}
+
+		List<Block> successors() {return List.of(ifTrue, ifFalse);}
+
+		@Override
+		public String toString() {
+			return "if "+left+" "+op.symbol+" "+right+" goto "+ifTrue.label+" else "+ifFalse.label;
+		}
+	}
+
+	// ritorno dalla funzione con risultato "src"
+	static final class Return extends Terminator {
+		Value src;
+		Return(Value s) {src = s;}
+
+		List<Value> operands() {return List.of(src);}
+
+		void replace(Value from, Value to) {if (src.equals(from)) src = to;}
+
+		List<Block> successors() {return List.of();}
+
+		@Override
+		public String toString() {return "return "+src;}
+	}
+
+	// fine del programma principale con risultato "src"
+	static final class Halt extends Terminator {
+		Value src;
+		Halt(Value s) {src = s;}
+
+		List<Value> operands() {return List.of(src);}
+
+		void replace(Value from, Value to) {if (src.equals(from)) src = to;}
+
+		List<Block> successors() {return List.of();}
+
+		@Override
+		public String toString() {return "halt "+src;}
+	}
+
+	// BLOCCHI, FUNZIONI E PROGRAMMA
+
+	static final class Block {
+		final String label;
+		final List<Instr> instrs = new ArrayList<>();
+		Terminator end; // null finche' il blocco e' in costruzione
+		Block(String l) {label = l;}
+
+		// istruzioni seguite dal terminatore
+		List<Instr> all() {
+			List<Instr> all = new ArrayList<>(instrs);
+			all.add(end);
+			return all;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder s = new StringBuilder(label+":\n");
+			for (Instr i : all()) s.append("    ").append(i).append('\n');
+			return s.toString();
+		}
+	}
+
+	static final class Function {
+		final FunNode source; // null per il programma principale
+		final String label;
+		final int params;
+		final int declarations; // celle del frame alle offset -2, -3, ... (come nella symbol table)
+		final List<Block> blocks = new ArrayList<>(); // il primo e' quello d'ingresso
+		final List<Temp> temps = new ArrayList<>();
+		Function(FunNode s, String l, int p, int d) {source = s; label = l; params = p; declarations = d;}
+
+		Temp newTemp(Type t) {
+			Temp temp = new Temp(temps.size(), t);
+			temps.add(temp);
+			return temp;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder s = new StringBuilder(label+(source == null ? " main" : " "+source.id)
+				+" ("+params+" params, "+declarations+" declarations, "+temps.size()+" temps)\n");
+			for (Block b : blocks) s.append("  ").append(b.toString().replace("\n    ", "\n      "));
+			return s.toString();
+		}
+	}
+
+	static final class Program {
+		final List<Function> functions = new ArrayList<>(); // la prima e' il programma principale
+
+		@Override
+		public String toString() {
+			StringJoiner s = new StringJoiner("\n");
+			for (Function f : functions) s.add(f.toString());
+			return s.toString();
+		}
+	}
+}
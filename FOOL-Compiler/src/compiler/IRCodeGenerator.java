@@ -0,0 +1,377 @@
+package compiler;
+
+import java.util.*;
+import compiler.IR.*;
+import compiler.lib.*;
+import svm.ExecuteVM;
+
+// genera il codice della SVM dalla rappresentazione intermedia. Un temporaneo usato una sola
+// volta quando e' in cima allo stack resta sullo stack come nella generazione diretta del codice,
+// anche attraverso i blocchi (ad esempio il risultato di un if); letture di variabili, indirizzi
+// di frame o di funzioni e copie usati una sola volta sono eseguiti al momento dell'uso, come le costanti;
+// gli altri temporanei vivono in celle del frame sotto alle dichiarazioni (lloc/sloc), condivise fra temporanei che non sono mai vivi insieme.
+// Una cella e' creata dalla prima definizione del suo temporaneo, che lascia il valore sullo stack,
+// se le celle precedenti esistono gia' su tutti i cammini; le altre sono riservate all'ingresso
+// della funzione, oppure dopo l'ultima dichiarazione se le dichiarazioni sono tutte nel blocco
+// d'ingresso e nessun temporaneo in una cella e' usato prima.
+public class IRCodeGenerator {
+
+	private final CompilationContext ctx;
+	private CodeBuffer code;
+
+	// stato della funzione corrente
+	private IR.Function function;
+	private final Map<Temp, Integer> uses = new HashMap<>();
+	private final Set<Temp> onStack = new HashSet<>(); // temporanei lasciati sullo stack
+	private final Map<Temp, Instr> deferred = new HashMap<>(); // calcolati solo al momento dell'uso
+	private final Map<Temp, Integer> slots = new HashMap<>(); // offset delle celle del frame
+	private int frameSlots; // celle dei temporanei
+	private int reservedSlots; // celle riservate all'ingresso, le altre sono create dalla prima definizione
+	private final Set<Instr> creates = new HashSet<>(); // definizioni che lasciano il valore sullo stack come cella
+
+	IRCodeGenerator(CompilationContext c) {ctx = c;}
+
+	CodeBuffer generate(IR.Program p) {
+		CodeBuffer main = null;
+		CodeBuffer functions = new CodeBuffer();
+		for (IR.Function f : p.functions) {
+			code = new CodeBuffer();
+			function(f);
+			if (main == null) main = code;
+			else functions.emit("").append(code);
+		}
+		return main.append(functions);
+	}
+
+	private void emit(String... lines) {
+		code.emit(lines);
+	}
+
+	// celle del frame occupate dai temporanei (per le statistiche di IntermediateRepresentationBenchmark)
+	int frameSlots(IR.Function f) {
+		analyze(f);
+		return frameSlots;
+	}
+
+	private void analyze(IR.Function f) {
+		function = f;
+		uses.clear();
+		for (Block b : f.blocks)
+			for (Instr i : b.all())
+				for (Value v : i.operands())
+					if (v instanceof Temp t) uses.merge(t, 1, Integer::sum);
+		Map<Temp, Integer> defs = new HashMap<>();
+		for (Block b : f.blocks)
+			for (Instr i : b.instrs)
+				if (i.dst != null) defs.merge(i.dst, 1, Integer::sum);
+		deferred.clear();
+		for (Block b : f.blocks)
+			for (Instr i : b.instrs)
+				if ((i instanceof Load || i instanceof IR.Frame || i instanceof FunAddr || copy(i, defs))
+					&& uses.getOrDefault(i.dst, 0) == 1)
+					deferred.put(i.dst, i);
+		residents();
+		assignSlots();
+		reservedSlots = 0;
+		while (!placeCells()) ;
+	}
+
+	// copia di una costante o di un temporaneo usato piu' volte (quindi in una cella del frame)
+	private boolean copy(Instr i, Map<Temp, Integer> defs) {
+		return i instanceof Move m && defs.get(m.dst) == 1
+			&& (m.src instanceof Const || uses.getOrDefault((Temp) m.src, 0) > 1);
+	}
+
+	private boolean inFrame(Temp t) {
+		return !onStack.contains(t) && !deferred.containsKey(t) && uses.getOrDefault(t, 0) > 0;
+	}
+
+	// candidati: temporanei usati una sola volta. Lo stack e' simulato blocco per blocco, nell'ordine
+	// in cui sono disposti (i predecessori vengono prima, non ci sono cicli), partendo dallo stack
+	// lasciato dai predecessori, che devono lasciarne tutti lo stesso: sono esclusi i temporanei che
+	// al momento dell'uso non sono in cima o su cui i predecessori di un blocco non concordano
+	private void residents() {
+		onStack.clear();
+		for (Map.Entry<Temp, Integer> u : uses.entrySet())
+			if (u.getValue() == 1 && !deferred.containsKey(u.getKey())) onStack.add(u.getKey());
+		while (!simulate()) ;
+	}
+
+	// false se ha dovuto escludere qualche temporaneo da quelli lasciati sullo stack
+	private boolean simulate() {
+		Map<Block, List<Temp>> entry = new HashMap<>(); // stack all'ingresso dei blocchi, cima in fondo
+		for (Block b : function.blocks) {
+			List<Temp> stack = new ArrayList<>(entry.getOrDefault(b, List.of()));
+			for (Instr i : b.all()) {
+				List<Value> ops = i.operands();
+				int k = 0; // operandi iniziali gia' sullo stack
+				while (k < ops.size() && ops.get(k) instanceof Temp t && onStack.contains(t)) k++;
+				for (int j = k; j < ops.size(); j++)
+					if (ops.get(j) instanceof Temp t && onStack.contains(t)) { // dopo un operando caricato al momento dell'uso
+						if (ops.get(k) instanceof Temp d && deferred.remove(d) != null) onStack.add(d); // calcolato prima
+						else onStack.remove(t); // non sarebbe in cima
+						return false;
+					}
+				if (k > stack.size() || !stack.subList(stack.size()-k, stack.size()).equals(ops.subList(0, k))) {
+					for (int j = 0; j < k; j++) onStack.remove((Temp) ops.get(j));
+					return false;
+				}
+				stack.subList(stack.size()-k, stack.size()).clear();
+				if (i.dst != null && onStack.contains(i.dst)) stack.add(i.dst);
+			}
+			for (Block s : b.end.successors()) {
+				List<Temp> other = entry.putIfAbsent(s, stack);
+				if (other != null && !other.equals(stack)) {
+					onStack.removeAll(other);
+					onStack.removeAll(stack);
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	// liveness dei temporanei nelle celle del frame e colorazione greedy del grafo di interferenza
+	private void assignSlots() {
+		Map<Block, Set<Temp>> liveIn = new HashMap<>();
+		for (Block b : function.blocks) liveIn.put(b, new HashSet<>());
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int k = function.blocks.size()-1; k >= 0; k--) {
+				Block b = function.blocks.get(k);
+				Set<Temp> live = liveOut(b, liveIn);
+				List<Instr> all = b.all();
+				for (int j = all.size()-1; j >= 0; j--) transfer(all.get(j), live);
+				if (!live.equals(liveIn.get(b))) {
+					liveIn.put(b, live);
+					changed = true;
+				}
+			}
+		}
+		Map<Temp, Set<Temp>> interference = new HashMap<>();
+		for (Block b : function.blocks) {
+			Set<Temp> live = liveOut(b, liveIn);
+			List<Instr> all = b.all();
+			for (int j = all.size()-1; j >= 0; j--) {
+				Temp d = all.get(j).dst;
+				if (d != null && inFrame(d))
+					for (Temp t : live)
+						if (t != d) {
+							interference.computeIfAbsent(d, x -> new HashSet<>()).add(t);
+							interference.computeIfAbsent(t, x -> new HashSet<>()).add(d);
+						}
+				transfer(all.get(j), live);
+			}
+		}
+		slots.clear();
+		frameSlots = 0;
+		for (Temp t : function.temps) {
+			if (!inFrame(t)) continue;
+			Set<Integer> taken = new HashSet<>();
+			for (Temp n : interference.getOrDefault(t, Set.of()))
+				if (slots.containsKey(n)) taken.add(slots.get(n));
+			int slot = 0;
+			while (taken.contains(slot)) slot++;
+			slots.put(t, slot);
+			frameSlots = Math.max(frameSlots, slot+1);
+		}
+	}
+
+	private Set<Temp> liveOut(Block b, Map<Block, Set<Temp>> liveIn) {
+		Set<Temp> live = new HashSet<>();
+		for (Block s : b.end.successors()) live.addAll(liveIn.get(s));
+		return live;
+	}
+
+	private void transfer(Instr i, Set<Temp> live) {
+		if (i.dst != null) live.remove(i.dst);
+		for (Value v : i.operands())
+			if (v instanceof Temp t && inFrame(t)) live.add(t);
+	}
+
+	// una cella viene creata dalla definizione del suo temporaneo se in quel punto lo stack contiene
+	// solo le dichiarazioni e le celle precedenti. Se i predecessori di un blocco ne hanno create un
+	// numero diverso, nel blocco (e dopo) esistono solo le comuni: quelle in piu' restano sotto lo
+	// stack fino alla ret e non se ne possono creare altre. False se ha dovuto riservarne altre
+	// all'ingresso della funzione
+	private boolean placeCells() {
+		creates.clear();
+		Map<Block, Integer> cells = new HashMap<>(); // celle esistenti all'ingresso dei blocchi
+		Map<Block, Integer> stacked = new HashMap<>(); // temporanei sullo stack all'ingresso dei blocchi
+		Set<Block> uneven = new HashSet<>(); // blocchi in cui l'altezza dello stack dipende dal cammino
+		for (Block b : function.blocks) {
+			int h = cells.getOrDefault(b, reservedSlots), stack = stacked.getOrDefault(b, 0);
+			boolean fixed = uneven.contains(b);
+			for (Instr i : b.all()) {
+				for (Value v : i.operands())
+					for (Temp t : framed(v))
+						if (slots.get(t) >= h) return reserve(slots.get(t));
+				List<Value> ops = i.operands();
+				int k = 0;
+				while (k < ops.size() && ops.get(k) instanceof Temp t && onStack.contains(t)) k++;
+				stack -= k;
+				if (i.dst != null && inFrame(i.dst)) {
+					int slot = slots.get(i.dst);
+					if (slot == h && stack == 0 && !fixed) {
+						creates.add(i);
+						h++;
+					} else if (slot >= h) return reserve(slot);
+				}
+				if (i.dst != null && onStack.contains(i.dst)) stack++;
+			}
+			for (Block s : b.end.successors()) {
+				Integer other = cells.putIfAbsent(s, h);
+				if (fixed || other != null && other != h) uneven.add(s);
+				if (other != null && other < h) cells.put(s, other);
+				stacked.put(s, stack);
+			}
+		}
+		return true;
+	}
+
+	private boolean reserve(int slot) {
+		reservedSlots = Math.max(reservedSlots, slot+1);
+		return false;
+	}
+
+	// temporanei letti dal frame per mettere "v" sullo stack
+	private List<Temp> framed(Value v) {
+		if (!(v instanceof Temp t)) return List.of();
+		if (deferred.containsKey(t)) {
+			List<Temp> read = new ArrayList<>();
+			for (Value o : deferred.get(t).operands()) read.addAll(framed(o));
+			return read;
+		}
+		return inFrame(t) ? List.of(t) : List.of();
+	}
+
+	private int offset(Temp t) {
+		return -2-function.declarations-slots.get(t);
+	}
+
+	// true se le dichiarazioni possono essere lasciate sullo stack nell'ordine delle loro offset
+	// (restano sotto alle celle dei temporanei, riservate dopo l'ultima)
+	private boolean pushedDeclarations() {
+		List<Instr> entry = function.blocks.get(0).instrs;
+		int stores = 0;
+		for (Instr i : entry) {
+			if (stores == function.declarations) break;
+			if (i instanceof Store s) {
+				if (s.offset != -2-stores) return false;
+				stores++;
+			} else if (i.dst != null && inFrame(i.dst)) return false;
+			for (Value v : i.operands())
+				if (v instanceof Temp t && inFrame(t)) return false;
+		}
+		return stores == function.declarations;
+	}
+
+	private void function(IR.Function f) {
+		analyze(f);
+		if (f.source == null) emit("push 0"); // Return Address fittizio del frame globale
+		else emit(f.label+":", "enter");
+		boolean pushed = pushedDeclarations();
+		int reserved = reservedSlots + (pushed ? 0 : f.declarations);
+		if (!pushed || f.declarations == 0) pushZeros(reserved);
+		int stored = 0;
+		for (int k = 0; k < f.blocks.size(); k++) {
+			Block b = f.blocks.get(k);
+			Block next = k+1 < f.blocks.size() ? f.blocks.get(k+1) : null;
+			emit(b.label+":");
+			for (Instr i : b.instrs)
+				if (i.dst != null && deferred.containsKey(i.dst)) continue;
+				else if (pushed && i instanceof Store s) {
+					push(s.src); // resta sullo stack come cella della dichiarazione
+					if (++stored == f.declarations) pushZeros(reservedSlots);
+				} else instr(i);
+			terminator(b.end, next);
+		}
+	}
+
+	private void pushZeros(int cells) {
+		for (int i = 0; i < cells; i++) emit("push 0");
+	}
+
+	private void push(Value v) {
+		if (v instanceof Const c) emit("push "+c.value);
+		else if (deferred.containsKey(v)) {
+			pushAll(deferred.get(v));
+			operation(deferred.get(v));
+		}
+		else if (inFrame((Temp) v)) emit("lloc "+offset((Temp) v));
+		// altrimenti e' gia' in cima allo stack
+	}
+
+	private void pushAll(Instr i) {
+		for (Value v : i.operands()) push(v);
+	}
+
+	// destinazione del valore in cima allo stack
+	private void result(Instr i) {
+		if (i.dst == null || onStack.contains(i.dst) || creates.contains(i)) return;
+		if (uses.getOrDefault(i.dst, 0) == 0) emit("pop");
+		else emit("sloc "+offset(i.dst));
+	}
+
+	private void instr(Instr i) {
+		pushAll(i);
+		operation(i);
+		result(i);
+	}
+
+	// codice dell'istruzione, con gli operandi gia' sullo stack
+	private void operation(Instr i) {
+		if (i instanceof Binary b) {
+			switch (b.op) {
+				case ADD -> emit("add");
+				case SUB -> emit("sub");
+				case MUL -> emit("mult");
+				case DIV -> emit("div");
+				default -> {
+					String l1 = ctx.freshLabel();
+					String l2 = ctx.freshLabel();
+					emit(
+						(b.op == Op.EQ ? "beq " : "bleq ")+l1,
+						"push 0",
+						"b "+l2,
+						l1+":",
+						"push 1",
+						l2+":"
+					);
+				}
+			}
+		} else if (i instanceof Load l) emit(l.distance == 0 ? "lloc "+l.offset : "lout "+l.distance+" "+l.offset);
+		else if (i instanceof Store s) emit("sloc "+s.offset);
+		else if (i instanceof IR.Frame fr) {
+			emit("lfp");
+			for (int k = 0; k < fr.distance; k++) emit("lw");
+		} else if (i instanceof FunAddr fa) emit("push "+fa.function.label);
+		else if (i instanceof DispatchTable dt) {
+			for (IR.Function m : dt.methods) emit("push "+(m != null ? m.label : 0));
+			emit("alloc "+dt.methods.size());
+		} else if (i instanceof Call c) emit("call "+c.distance+" "+c.entry.offset);
+		else if (i instanceof MethodCall mc) emit("callm "+mc.entry.offset);
+		else if (i instanceof New n) emit(
+			"push "+(ExecuteVM.MEMSIZE+n.entry.offset), "lw", // dispatch table dal frame globale
+			"new "+n.args.size()
+		);
+		else if (i instanceof Print) emit("print");
+		// Move: il valore e' gia' sullo stack
+	}
+
+	private void terminator(Terminator t, Block next) {
+		pushAll(t);
+		if (t instanceof Jump j) {
+			if (j.target != next) emit("b "+j.target.label);
+		} else if (t instanceof Branch b) {
+			String bcc = b.op == Op.EQ ? "beq " : "bleq ";
+			if (b.ifFalse == next) emit(bcc+b.ifTrue.label);
+			else if (b.ifTrue == next) { // la SVM non ha salti sulla condizione negata
+				String skip = ctx.freshLabel();
+				emit(bcc+skip, "b "+b.ifFalse.label, skip+":");
+			} else emit(bcc+b.ifTrue.label, "b "+b.ifFalse.label);
+		} else if (t instanceof Return) emit("ret "+function.params);
+		else emit("halt");
+	}
+}
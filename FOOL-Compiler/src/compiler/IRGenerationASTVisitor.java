@@ -0,0 +1,309 @@
+package compiler;
+
+import java.util.*;
+import compiler.AST.*;
+import compiler.IR.*;
+import compiler.lib.*;
+import compiler.exc.*;
+
+// traduce l'AST arricchito nella rappresentazione intermedia: ogni visitNode di un'espressione
+// aggiunge le proprie istruzioni al blocco corrente e ritorna il valore calcolato.
+// Gli operandi sono valutati nello stesso ordine della generazione diretta del codice
+// (argomenti in ordine inverso, >= dall'operando destro), quindi IRCodeGenerator puo' lasciare
+// sullo stack i temporanei usati subito; le condizioni di if, && e || diventano salti fra blocchi.
+public class IRGenerationASTVisitor extends BaseASTVisitor<Value, VoidException> {
+
+	private final CompilationContext ctx;
+	private final IR.Program program = new IR.Program();
+	private IR.Function function; // funzione di cui si stanno generando i blocchi
+	private Block block; // blocco corrente (null dopo un terminatore)
+
+	IRGenerationASTVisitor(CompilationContext c) {ctx = c;}
+
+	// traduce l'intero programma
+	IR.Program generate(Node n) {
+		visit(n);
+		return program;
+	}
+
+	private Temp temp(IR.Type t) {
+		return function.newTemp(t);
+	}
+
+	private <I extends Instr> I add(I i) {
+		block.instrs.add(i);
+		return i;
+	}
+
+	private Block newBlock() {
+		return new Block(ctx.freshLabel());
+	}
+
+	// i blocchi sono disposti nell'ordine in cui vengono iniziati
+	private void start(Block b) {
+		function.blocks.add(b);
+		block = b;
+	}
+
+	private void end(Terminator t) {
+		block.end = t;
+		block = null;
+	}
+
+	private static IR.Type type(TypeNode t) {
+		if (t instanceof IntTypeNode) return IR.Type.INT;
+		if (t instanceof BoolTypeNode) return IR.Type.BOOL;
+		if (t instanceof ArrowTypeNode a) return type(a.ret);
+		return IR.Type.REF;
+	}
+
+	// corpo della funzione (o del programma principale): dichiarazioni alle offset -2, -3, ...
+	// seguite dall'espressione, il cui valore e' passato al terminatore
+	private IR.Function function(FunNode source, String label, List<? extends Node> parlist,
+								 List<DecNode> declist, Node exp) {
+		IR.Function f = new IR.Function(source, label, parlist.size(), declist.size());
+		program.functions.add(f);
+		IR.Function prevFunction = function;
+		Block prevBlock = block;
+		function = f;
+		start(newBlock());
+		int offset = -2;
+		for (DecNode dec : declist) add(new Store(offset--, declaration(dec)));
+		Value v = visit(exp);
+		end(source == null ? new Halt(v) : new Return(v));
+		function = prevFunction;
+		block = prevBlock;
+		return f;
+	}
+
+	// valore con cui la dichiarazione inizializza la propria cella del frame
+	private Value declaration(DecNode dec) {
+		if (dec instanceof VarNode v) return visit(v.exp);
+		if (dec instanceof FunNode f) {
+			if (!f.reachable) return new Const(0, IR.Type.ADDR); // solo il posto nel frame
+			IR.Function code = fun(f);
+			return add(new FunAddr(temp(IR.Type.ADDR), code)).dst;
+		}
+		ClassNode c = (ClassNode) dec;
+		if (!c.reachable) return new Const(0, IR.Type.ADDR);
+		List<IR.Function> methods = new ArrayList<>();
+		for (MethodNode m : c.methods) methods.add(m.offset, m.reachable ? fun(m) : null);
+		return add(new DispatchTable(temp(IR.Type.ADDR), c, methods)).dst;
+	}
+
+	private IR.Function fun(FunNode n) {
+		if (n.label == null) n.label = ctx.freshFunLabel();
+		return function(n, n.label, n.parlist, n.declist, n.exp);
+	}
+
+	@Override
+	public Value visitNode(ProgLetInNode n) {
+		function(null, "main", List.of(), n.declist, n.exp);
+		return null;
+	}
+
+	@Override
+	public Value visitNode(ProgNode n) {
+		function(null, "main", List.of(), List.of(), n.exp);
+		return null;
+	}
+
+	// salta a "ifTrue" se la condizione "c" vale true, a "ifFalse" altrimenti
+	private void condition(Node c, Block ifTrue, Block ifFalse) {
+		if (c instanceof NotNode not) condition(not.right, ifFalse, ifTrue);
+		else if (c instanceof AndNode and) {
+			Block right = newBlock();
+			condition(and.left, right, ifFalse);
+			start(right);
+			condition(and.right, ifTrue, ifFalse);
+		} else if (c instanceof OrNode or) {
+			Block right = newBlock();
+			condition(or.left, ifTrue, right);
+			start(right);
+			condition(or.right, ifTrue, ifFalse);
+		} else if (c instanceof EqualNode eq) {
+			List<Value> v = evaluate(List.of(eq.left, eq.right));
+			end(new Branch(Op.EQ, v.get(0), v.get(1), ifTrue, ifFalse));
+		} else if (c instanceof LessEqualNode le) {
+			List<Value> v = evaluate(List.of(le.left, le.right));
+			end(new Branch(Op.LE, v.get(0), v.get(1), ifTrue, ifFalse));
+		} else if (c instanceof GreaterEqualNode ge) {
+			List<Value> v = evaluate(List.of(ge.right, ge.left));
+			end(new Branch(Op.LE, v.get(0), v.get(1), ifTrue, ifFalse));
+		} else if (c instanceof BoolNode b) end(new Jump(b.val ? ifTrue : ifFalse));
+		else end(new Branch(Op.EQ, visit(c), IR.boolConst(true), ifTrue, ifFalse));
+	}
+
+	// valore 0/1 di una condizione tradotta in salti
+	private Value bool(Node c) {
+		Block ifTrue = newBlock(), ifFalse = newBlock(), join = newBlock();
+		Temp r = temp(IR.Type.BOOL);
+		condition(c, ifTrue, ifFalse);
+		start(ifFalse);
+		add(new Move(r, IR.boolConst(false)));
+		end(new Jump(join));
+		start(ifTrue);
+		add(new Move(r, IR.boolConst(true)));
+		end(new Jump(join));
+		start(join);
+		return r;
+	}
+
+	private Value binary(Op op, Node left, Node right) {
+		List<Value> v = evaluate(List.of(left, right));
+		return add(new Binary(temp(op.result), op, v.get(0), v.get(1))).dst;
+	}
+
+	// valuta i nodi nell'ordine dato; una costante seguita da operandi da calcolare e' copiata in un
+	// temporaneo, cosi' che sia sullo stack prima di loro come nella generazione diretta del codice
+	private List<Value> evaluate(List<Node> nodes) {
+		List<Value> values = new ArrayList<>();
+		for (int i = 0; i < nodes.size(); i++) {
+			Value v = visit(nodes.get(i));
+			if (v instanceof Const c && !constants(nodes.subList(i+1, nodes.size())))
+				v = add(new Move(temp(c.type), c)).dst;
+			values.add(v);
+		}
+		return values;
+	}
+
+	private static boolean constants(List<Node> nodes) {
+		for (Node n : nodes)
+			if (!(n instanceof IntNode || n instanceof BoolNode || n instanceof EmptyNode)) return false;
+		return true;
+	}
+
+	@Override
+	public Value visitNode(IfNode n) {
+		Block th = newBlock(), el = newBlock(), join = newBlock();
+		condition(n.cond, th, el);
+		start(el); // come nella generazione diretta: il ramo else salta oltre il ramo then
+		Value e = visit(n.el);
+		Temp r = temp(e.type());
+		add(new Move(r, e));
+		end(new Jump(join));
+		start(th);
+		add(new Move(r, visit(n.th)));
+		end(new Jump(join));
+		start(join);
+		return r;
+	}
+
+	@Override
+	public Value visitNode(PrintNode n) {
+		Value v = visit(n.exp);
+		return add(new Print(temp(v.type()), v)).dst;
+	}
+
+	@Override
+	public Value visitNode(EqualNode n) {
+		return binary(Op.EQ, n.left, n.right);
+	}
+
+	@Override
+	public Value visitNode(LessEqualNode n) {
+		return binary(Op.LE, n.left, n.right);
+	}
+
+	@Override
+	public Value visitNode(GreaterEqualNode n) {
+		return binary(Op.LE, n.right, n.left);
+	}
+
+	@Override
+	public Value visitNode(NotNode n) {
+		Value v = visit(n.right);
+		return add(new Binary(temp(IR.Type.BOOL), Op.EQ, v, IR.boolConst(false))).dst;
+	}
+
+	@Override
+	public Value visitNode(AndNode n) {
+		return bool(n);
+	}
+
+	@Override
+	public Value visitNode(OrNode n) {
+		return bool(n);
+	}
+
+	@Override
+	public Value visitNode(PlusNode n) {
+		return binary(Op.ADD, n.left, n.right);
+	}
+
+	@Override
+	public Value visitNode(MinusNode n) {
+		return binary(Op.SUB, n.left, n.right);
+	}
+
+	@Override
+	public Value visitNode(TimesNode n) {
+		return binary(Op.MUL, n.left, n.right);
+	}
+
+	@Override
+	public Value visitNode(DivNode n) {
+		return binary(Op.DIV, n.left, n.right);
+	}
+
+	@Override
+	public Value visitNode(IdNode n) {
+		return add(new Load(temp(type(n.entry.type)), n.nl-n.entry.nl, n.entry.offset, n.entry)).dst;
+	}
+
+	@Override
+	public Value visitNode(BoolNode n) {
+		return IR.boolConst(n.val);
+	}
+
+	@Override
+	public Value visitNode(IntNode n) {
+		return IR.intConst(n.val);
+	}
+
+	@Override
+	public Value visitNode(EmptyNode n) {
+		return IR.NULL;
+	}
+
+	// Control Link, poi gli argomenti in ordine inverso
+	private Value link() {
+		return add(new Frame(temp(IR.Type.ADDR), 0)).dst;
+	}
+
+	private List<Value> args(List<Node> arglist) {
+		List<Node> reversed = new ArrayList<>(arglist);
+		Collections.reverse(reversed);
+		List<Value> args = evaluate(reversed);
+		Collections.reverse(args);
+		return args;
+	}
+
+	@Override
+	public Value visitNode(CallNode n) {
+		Value link = link();
+		List<Value> args = args(n.arglist);
+		Temp r = temp(type(n.entry.type));
+		int d = n.nl-n.entry.nl;
+		if (n.entry.offset >= 0) { // metodo della classe: l'Access Link e' l'oggetto
+			Value object = add(new Frame(temp(IR.Type.REF), d)).dst;
+			return add(new MethodCall(r, (MethodNode) n.entry.decl, n.entry, link, args, object)).dst;
+		}
+		return add(new Call(r, (FunNode) n.entry.decl, n.entry, d, link, args)).dst;
+	}
+
+	@Override
+	public Value visitNode(ClassCallNode n) {
+		Value link = link();
+		List<Value> args = args(n.arglist);
+		Value object = add(new Load(temp(IR.Type.REF), n.nl-n.entry.nl, n.entry.offset, n.entry)).dst;
+		Temp r = temp(type(n.methodEntry.type));
+		return add(new MethodCall(r, (MethodNode) n.methodEntry.decl, n.methodEntry, link, args, object)).dst;
+	}
+
+	@Override
+	public Value visitNode(NewNode n) {
+		List<Value> args = new ArrayList<>(evaluate(n.arglist));
+		return add(new New(temp(IR.Type.REF), (ClassNode) n.entry.decl, n.entry, args)).dst;
+	}
+}
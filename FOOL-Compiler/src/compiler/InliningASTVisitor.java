@@ -0,0 +1,216 @@
+package compiler;
+
+import java.util.*;
+import compiler.AST.*;
+import compiler.lib.*;
+
+//inlining delle funzioni piccole, dopo il type checking: una CallNode a una funzione
+//(non un metodo) senza dichiarazioni locali, non ricorsiva e con corpo di al piu'
+//MAX_SIZE nodi viene sostituita da una copia del corpo in cui
+//- i parametri sono sostituiti dagli argomenti della chiamata
+//- gli identificatori e le chiamate rimasti prendono il nesting level del punto di
+//  chiamata: le loro dichiarazioni sono esterne alla funzione, quindi sono raggiungibili
+//  anche da li' seguendo la catena statica (gli offset non cambiano)
+//
+//Un argomento costante o identificatore (FOOL non ha assegnamenti) puo' essere copiato
+//liberamente; ogni altro argomento deve essere valutato esattamente una volta su ogni
+//percorso del corpo, nello stesso ordine della chiamata (da destra a sinistra) e prima
+//di ogni effetto del corpo (chiamate, print, divisioni che possono fallire).
+//Un oggetto passato a un parametro di un'altra classe (TypeRels lo accetta) non viene
+//sostituito: nella copia le chiamate dei suoi metodi avrebbero la STentry del metodo della
+//classe del parametro, mentre la classe dell'oggetto e' quella dell'argomento.
+//Le funzioni dichiarate prima dei punti di chiamata vengono visitate prima, quindi il
+//corpo copiato e' gia' ottimizzato; la copia non viene piu' visitata.
+public class InliningASTVisitor extends RewritingASTVisitor {
+
+	static final int MAX_SIZE = 12; // numero massimo di nodi nel corpo di una funzione da espandere
+
+	int inlined = 0; // numero di chiamate espanse
+	final Set<String> functions = new TreeSet<>(); // funzioni espanse almeno una volta
+
+	private final Map<FunNode, Boolean> candidates = new HashMap<>();
+
+	InliningASTVisitor() {}
+	InliningASTVisitor(boolean debug) { super(debug); } // enables print for debugging
+
+	@Override
+	public Node visitNode(CallNode n) {
+		Node call = super.visitNode(n); // argomenti
+		if (!(call instanceof CallNode c) || !(c.entry.decl instanceof FunNode f) || f instanceof MethodNode
+				|| !candidates.computeIfAbsent(f, InliningASTVisitor::isCandidate) || !sameClasses(f, c.arglist)) return call;
+		int level = c.entry.nl + 1; // nesting level del corpo di f
+		List<Integer> ordered = new ArrayList<>(); // argomenti da valutare una volta, in ordine di valutazione
+		for (int i = c.arglist.size() - 1; i >= 0; i--)
+			if (!isCopyable(c.arglist.get(i))) ordered.add(i);
+		if (new EvaluationOrder(level, ordered).walk(f.exp, 0) != ordered.size()) return call;
+		inlined++;
+		functions.add(f.id);
+		return new Substitution(level, c.arglist, c.nl).visit(f.exp);
+	}
+
+	// indice del parametro a cui si riferisce "entry" nel corpo (al nesting level "level")
+	// di una funzione senza dichiarazioni locali, -1 se non e' un parametro
+	private static int param(STentry entry, int level) {
+		return entry.nl == level && entry.offset >= 1 ? entry.offset - 1 : -1;
+	}
+
+	// funzione senza dichiarazioni locali, piccola e che non richiama se stessa
+	private static boolean isCandidate(FunNode f) {
+		if (!f.declist.isEmpty()) return false;
+		int[] size = {0};
+		boolean[] recursive = {false};
+		new RewritingASTVisitor() {
+			@Override
+			public Node visit(Visitable v, String mark) {
+				size[0]++;
+				return super.visit(v, mark);
+			}
+
+			@Override
+			public Node visitNode(CallNode n) {
+				if (n.entry.decl == f) recursive[0] = true;
+				return super.visitNode(n);
+			}
+		}.visit(f.exp);
+		return size[0] <= MAX_SIZE && !recursive[0];
+	}
+
+	// ogni identificatore passato a un parametro di tipo classe e' dichiarato della stessa classe
+	private static boolean sameClasses(FunNode f, List<Node> args) {
+		for (int i = 0; i < args.size(); i++)
+			if (f.parlist.get(i).getType() instanceof RefTypeNode p && args.get(i) instanceof IdNode a
+					&& a.entry.type instanceof RefTypeNode r && !r.id.equals(p.id)) return false;
+		return true;
+	}
+
+	private static boolean isCopyable(Node arg) {
+		return arg instanceof IntNode || arg instanceof BoolNode || arg instanceof IdNode;
+	}
+
+	// controlla che gli argomenti da non copiare vengano valutati nel corpo come nella chiamata:
+	// walk(n, k) ritorna il numero di tali argomenti gia' valutati dopo "n", se prima ne erano
+	// stati valutati k, oppure -1 se l'espansione cambierebbe il comportamento
+	private static class EvaluationOrder {
+		private final int level;
+		private final List<Integer> ordered;
+
+		EvaluationOrder(int l, List<Integer> o) {
+			level = l;
+			ordered = o;
+		}
+
+		// effetto del corpo: tutti gli argomenti devono essere gia' stati valutati
+		private int effect(int k) {
+			return k == ordered.size() ? k : -1;
+		}
+
+		private int seq(int k, Node... nodes) {
+			for (Node n : nodes) if (k >= 0) k = walk(n, k);
+			return k;
+		}
+
+		int walk(Node n, int k) {
+			if (k < 0) return k;
+			if (n instanceof IdNode id) {
+				int p = param(id.entry, level);
+				if (p < 0 || !ordered.contains(p)) return k;
+				return k < ordered.size() && ordered.get(k) == p ? k + 1 : -1;
+			}
+			if (n instanceof IfNode i) {
+				k = walk(i.cond, k);
+				int t = walk(i.th, k);
+				return t == walk(i.el, k) ? t : -1;
+			}
+			if (n instanceof AndNode a) { // il secondo operando e' valutato solo a volte
+				k = walk(a.left, k);
+				return walk(a.right, k) == k ? k : -1;
+			}
+			if (n instanceof OrNode o) {
+				k = walk(o.left, k);
+				return walk(o.right, k) == k ? k : -1;
+			}
+			if (n instanceof CallNode c) {
+				for (int i = c.arglist.size() - 1; i >= 0; i--) k = walk(c.arglist.get(i), k);
+				return effect(k);
+			}
+			if (n instanceof ClassCallNode c) {
+				for (int i = c.arglist.size() - 1; i >= 0; i--) k = walk(c.arglist.get(i), k);
+				// l'oggetto deve restare un identificatore: il parametro deve avere un argomento copiabile
+				int p = param(c.entry, level);
+				if (p >= 0 && ordered.contains(p)) return -1;
+				return effect(k);
+			}
+			if (n instanceof NewNode nn) return seq(k, nn.arglist.toArray(new Node[0]));
+			if (n instanceof PrintNode p) return effect(seq(k, p.exp));
+			if (n instanceof DivNode d) {
+				k = seq(k, d.left, d.right);
+				return ConstantFoldingASTVisitor.isPure(d) ? k : effect(k);
+			}
+			if (n instanceof GreaterEqualNode g) return seq(k, g.right, g.left); // ordine della generazione del codice
+			if (n instanceof PlusNode b) return seq(k, b.left, b.right);
+			if (n instanceof MinusNode b) return seq(k, b.left, b.right);
+			if (n instanceof TimesNode b) return seq(k, b.left, b.right);
+			if (n instanceof EqualNode b) return seq(k, b.left, b.right);
+			if (n instanceof LessEqualNode b) return seq(k, b.left, b.right);
+			if (n instanceof NotNode u) return seq(k, u.right);
+			return k; // costanti
+		}
+	}
+
+	// copia del corpo nel punto di chiamata; identificatori, chiamate e new sono sempre nodi nuovi,
+	// perche' le analisi successive li modificano (EscapeASTVisitor alloca un NewNode nel frame di
+	// chi lo crea) e la copia non deve condividerli con il corpo della funzione
+	private static class Substitution extends RewritingASTVisitor {
+		private final int level;
+		private final List<Node> args;
+		private final int nl;
+
+		Substitution(int l, List<Node> a, int n) {
+			level = l;
+			args = a;
+			nl = n;
+		}
+
+		// identificatore valutato nel punto di chiamata
+		private IdNode id(String id, STentry entry, int nl) {
+			IdNode n = new IdNode(id);
+			n.entry = entry;
+			n.nl = nl;
+			return n;
+		}
+
+		@Override
+		public Node visitNode(IdNode n) {
+			int p = param(n.entry, level);
+			if (p < 0) return rebuilt(n, id(n.id, n.entry, nl));
+			Node arg = args.get(p);
+			return arg instanceof IdNode a ? rebuilt(a, id(a.id, a.entry, a.nl)) : arg;
+		}
+
+		@Override
+		public Node visitNode(CallNode n) {
+			CallNode c = new CallNode(n.id, visitList(n.arglist));
+			c.entry = n.entry;
+			c.nl = nl;
+			return rebuilt(n, c);
+		}
+
+		@Override
+		public Node visitNode(ClassCallNode n) {
+			int p = param(n.entry, level);
+			IdNode object = p < 0 ? id(n.objectId, n.entry, nl) : (IdNode) args.get(p);
+			ClassCallNode c = new ClassCallNode(object.id, n.methodId, visitList(n.arglist));
+			c.entry = object.entry;
+			c.methodEntry = n.methodEntry;
+			c.nl = object.nl;
+			return rebuilt(n, c);
+		}
+
+		@Override
+		public Node visitNode(NewNode n) {
+			NewNode c = new NewNode(n.classId, visitList(n.arglist));
+			c.entry = n.entry;
+			return rebuilt(n, c);
+		}
+	}
+}
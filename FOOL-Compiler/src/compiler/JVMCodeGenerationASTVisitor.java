@@ -0,0 +1,631 @@
+package compiler;
+
+import compiler.AST.*;
+import compiler.lib.*;
+import compiler.exc.*;
+import svm.ClassFile;
+import svm.ClassFile.Label;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static svm.ClassFile.*;
+
+// backend alternativo a CodeGenerationASTVisitor: compila l'AST arricchito in class file JVM
+//   - la classe principale ha un campo statico per ogni variabile globale, un metodo statico per ogni
+//     funzione (anche annidata) e main(String[]), che esegue il programma e svuota il buffer delle stampe
+//   - ogni classe FOOL diventa <principale>$<id>, con i campi, un costruttore che li riceve tutti e
+//     un metodo virtuale per ogni metodo; il type checker accetta un oggetto di qualunque classe al
+//     posto di un'altra, quindi (come la dispatch table della SVM) il metodo chiamato e' quello
+//     all'offset del metodo dichiarato: i metodi si chiamano m<offset> e le classi estendono
+//     <principale>$Object, che ha un metodo m<offset> per ogni offset e descrittore (AbstractMethodError)
+//   - una funzione (o metodo) con funzioni annidate crea un ambiente <principale>$Env<k> con i propri
+//     parametri e variabili e il campo up$ verso l'ambiente (o l'oggetto) del livello esterno; le funzioni
+//     annidate lo ricevono come primo argomento e risalgono con up$ fino al livello della variabile
+// Interi e booleani sono int, oggetti e null sono Object (con checkcast prima di campi e metodi). Come sulla
+// SVM gli argomenti delle chiamate sono valutati dall'ultimo al primo, quindi le stampe hanno lo stesso ordine;
+// print di un oggetto stampa -1 per null e l'identityHashCode (non l'indirizzo nello heap) negli altri casi.
+// Un'eccezione nel thread del programma viene risollevata da main, che termina con exit code diverso da 0.
+public class JVMCodeGenerationASTVisitor extends BaseASTVisitor<Void, VoidException> {
+
+	private static final String OBJECT = "Ljava/lang/Object;";
+	private static final String PRINT_STREAM = "Ljava/io/PrintStream;";
+	private static final String THROWABLE = "Ljava/lang/Throwable;";
+
+	// metodo di cui si sta generando il codice, con le sue variabili locali
+	private static class Frame {
+		final ClassFile.Method code;
+		final int level; // nesting level del corpo
+		final Map<String, Integer> locals = new HashMap<>(); // parametri e variabili del livello "level"
+		int nextLocal;
+		int env = -1; // variabile locale con l'ambiente (-1 se il metodo non ne crea uno)
+
+		Frame(ClassFile.Method c, int l, int firstLocal) {code = c; level = l; nextLocal = firstLocal;}
+	}
+
+	private String main; // nome della classe principale
+	private ClassFile mainClass;
+	private ClassFile currentClass; // classe FOOL di cui si generano i metodi
+	private final Map<String, byte[]> classes = new LinkedHashMap<>();
+	private final List<ClassFile> pending = new ArrayList<>(); // classi non ancora serializzate
+	private final List<Node> scopes = new ArrayList<>(); // FunNode o ClassNode di ogni nesting level (null per il globale)
+	private final Map<FunNode, String> names = new HashMap<>(); // metodi statici delle funzioni
+	private final Map<FunNode, String> envs = new HashMap<>(); // classi degli ambienti
+	private Frame frame;
+	private ClassFile.Method code; // frame.code
+
+	JVMCodeGenerationASTVisitor() {}
+	JVMCodeGenerationASTVisitor(boolean debug) {super(false,debug);} //enables print for debugging
+
+	// nome di classe Java valido ricavato dal nome del file sorgente (senza .fool)
+	static String mainClassName(String fileName) {
+		StringBuilder name = new StringBuilder();
+		for (char c : fileName.toCharArray()) name.append(Character.isJavaIdentifierPart(c) ? c : '_');
+		if (name.length() == 0 || !Character.isJavaIdentifierStart(name.charAt(0))) name.insert(0, '_');
+		return name.toString();
+	}
+
+	// genera le classi dell'intero programma: nome interno -> class file; "mainName" ha il metodo main
+	Map<String, byte[]> generate(Node n, String mainName) {
+		main = mainName;
+		mainClass = newClass(main, "java/lang/Runnable");
+		mainClass.field(PUBLIC | STATIC, "out$", PRINT_STREAM);
+		mainClass.field(PUBLIC | STATIC, "failure$", THROWABLE); // eccezione sollevata dal programma
+		mainMethod();
+		printMethods();
+		scopes.add(null);
+		enter(new Frame(mainClass.method(PUBLIC, "run", "()V", 1), 0, 1));
+		Label start = new Label(), end = new Label(), handler = new Label();
+		code.place(start);
+		visit(n);
+		code.op(POP);
+		code.place(end);
+		flush();
+		code.op(RETURN);
+		code.handler(start, end, handler); // svuota il buffer anche se il programma fallisce e passa l'eccezione a main
+		code.place(handler);
+		code.astore(1);
+		flush();
+		code.aload(1);
+		code.field(PUTSTATIC, main, "failure$", THROWABLE);
+		code.op(RETURN);
+		for (ClassFile c : pending) classes.put(c.name(), c.toBytes());
+		return classes;
+	}
+
+	private ClassFile newClass(String name, String... interfaces) {
+		ClassFile c = new ClassFile(name, "java/lang/Object", interfaces);
+		c.defaultConstructor();
+		pending.add(c);
+		return c;
+	}
+
+	// main(String[]): crea il PrintStream bufferizzato ed esegue run() in un thread con uno stack
+	// di 1 GB, perche' in FOOL i cicli sono chiamate ricorsive; risolleva l'eccezione del programma
+	private void mainMethod() {
+		ClassFile.Method m = mainClass.method(PUBLIC | STATIC, "main", "([Ljava/lang/String;)V", 1);
+		m.type(NEW, "java/io/PrintStream");
+		m.op(DUP);
+		m.type(NEW, "java/io/BufferedOutputStream");
+		m.op(DUP);
+		m.field(GETSTATIC, "java/lang/System", "out", PRINT_STREAM);
+		m.iconst(1 << 16);
+		m.invoke(INVOKESPECIAL, "java/io/BufferedOutputStream", "<init>", "(Ljava/io/OutputStream;I)V");
+		m.invoke(INVOKESPECIAL, "java/io/PrintStream", "<init>", "(Ljava/io/OutputStream;)V");
+		m.field(PUTSTATIC, main, "out$", PRINT_STREAM);
+		m.type(NEW, "java/lang/Thread");
+		m.op(DUP);
+		m.op(ACONST_NULL);
+		m.type(NEW, main);
+		m.op(DUP);
+		m.invoke(INVOKESPECIAL, main, "<init>", "()V");
+		m.ldc("main");
+		m.iconst(1 << 30);
+		m.op(I2L);
+		m.invoke(INVOKESPECIAL, "java/lang/Thread", "<init>", "(Ljava/lang/ThreadGroup;Ljava/lang/Runnable;Ljava/lang/String;J)V");
+		m.op(DUP);
+		m.invoke(INVOKEVIRTUAL, "java/lang/Thread", "start", "()V");
+		m.invoke(INVOKEVIRTUAL, "java/lang/Thread", "join", "()V");
+		Label ok = new Label();
+		m.field(GETSTATIC, main, "failure$", THROWABLE);
+		m.op(DUP);
+		m.jump(IFNULL, ok);
+		m.op(ATHROW);
+		m.place(ok);
+		m.op(POP);
+		m.op(RETURN);
+	}
+
+	// print(int) e print(Object): stampano il valore e lo restituiscono, come l'istruzione print della SVM
+	private void printMethods() {
+		ClassFile.Method p = mainClass.method(PUBLIC | STATIC, "print", "(I)I", 1);
+		p.field(GETSTATIC, main, "out$", PRINT_STREAM);
+		p.iload(0);
+		p.invoke(INVOKEVIRTUAL, "java/io/PrintStream", "println", "(I)V");
+		p.iload(0);
+		p.op(IRETURN);
+		p = mainClass.method(PUBLIC | STATIC, "print", "(" + OBJECT + ")" + OBJECT, 1);
+		Label isNull = new Label(), println = new Label();
+		p.field(GETSTATIC, main, "out$", PRINT_STREAM);
+		p.aload(0);
+		p.op(ACONST_NULL);
+		p.jump(IF_ACMPEQ, isNull);
+		p.aload(0);
+		p.invokestatic("java/lang/System", "identityHashCode", "(" + OBJECT + ")I");
+		p.jump(GOTO, println);
+		p.place(isNull);
+		p.iconst(-1); // null vale -1 anche sulla SVM
+		p.place(println);
+		p.invoke(INVOKEVIRTUAL, "java/io/PrintStream", "println", "(I)V");
+		p.aload(0);
+		p.op(ARETURN);
+	}
+
+	private void flush() {
+		code.field(GETSTATIC, main, "out$", PRINT_STREAM);
+		code.invoke(INVOKEVIRTUAL, "java/io/PrintStream", "flush", "()V");
+	}
+
+	private Frame enter(Frame f) {
+		Frame prev = frame;
+		frame = f;
+		code = f == null ? null : f.code;
+		return prev;
+	}
+
+	private static boolean isInt(TypeNode t) {
+		return t instanceof IntTypeNode || t instanceof BoolTypeNode;
+	}
+
+	private static String descriptor(TypeNode t) {
+		return isInt(t) ? "I" : OBJECT;
+	}
+
+	// le funzioni annidate ricevono come primo argomento l'ambiente del livello che le contiene
+	private static String descriptor(FunNode f, boolean link) {
+		StringBuilder d = new StringBuilder("(");
+		if (link) d.append(OBJECT);
+		for (ParNode p : f.parlist) d.append(descriptor(p.getType()));
+		return d.append(")").append(descriptor(f.retType)).toString();
+	}
+
+	private String name(FunNode f) {
+		return names.computeIfAbsent(f, g -> g.id + "$" + names.size());
+	}
+
+	private String className(String id) {
+		return main + "$" + id;
+	}
+
+	private String baseClass() {
+		return main + "$Object";
+	}
+
+	// nome del metodo: quello dell'offset nella dispatch table
+	private static String slot(MethodNode m) {
+		return "m" + m.offset;
+	}
+
+	// <principale>$Object: superclasse delle classi FOOL, con un metodo per ogni offset e descrittore
+	// dei metodi; quelli non ridefiniti dalla classe dell'oggetto sollevano AbstractMethodError
+	private void baseClass(List<DecNode> declist) {
+		if (declist.stream().noneMatch(d -> d instanceof ClassNode)) return;
+		ClassFile base = newClass(baseClass());
+		Set<String> slots = new HashSet<>(); // nome e descrittore
+		for (DecNode dec : declist)
+			if (dec instanceof ClassNode c)
+				for (MethodNode m : c.methods) {
+					String descriptor = descriptor(m, false);
+					if (!slots.add(slot(m) + descriptor)) continue;
+					ClassFile.Method stub = base.method(PUBLIC, slot(m), descriptor, 1 + m.parlist.size());
+					stub.type(NEW, "java/lang/AbstractMethodError");
+					stub.op(DUP);
+					stub.invoke(INVOKESPECIAL, "java/lang/AbstractMethodError", "<init>", "()V");
+					stub.op(ATHROW);
+				}
+	}
+
+	// classe dei valori del livello "l": l'oggetto per una classe, l'ambiente per una funzione
+	private String owner(int l) {
+		return scopes.get(l) instanceof ClassNode c ? className(c.id) : envs.get((FunNode) scopes.get(l));
+	}
+
+	// valore di tipo oggetto per il tipo statico dell'espressione
+	private static boolean isRef(Node n) {
+		if (n instanceof EmptyNode || n instanceof NewNode) return true;
+		if (n instanceof IdNode id) return !isInt(id.entry.type);
+		if (n instanceof CallNode c) return !isInt(((ArrowTypeNode) c.entry.type).ret);
+		if (n instanceof ClassCallNode c) return !isInt(((ArrowTypeNode) c.methodEntry.type).ret);
+		if (n instanceof IfNode i) return isRef(i.th) || isRef(i.el);
+		if (n instanceof PrintNode p) return isRef(p.exp);
+		return false;
+	}
+
+	private void load(int local, boolean ref) {
+		if (ref) code.aload(local);
+		else code.iload(local);
+	}
+
+	private void store(int local, boolean ref) {
+		if (ref) code.astore(local);
+		else code.istore(local);
+	}
+
+	// carica l'ambiente (o l'oggetto) del nesting level "l", risalendo da quello corrente
+	private void scopeRef(int l) {
+		if (l == frame.level) {
+			code.aload(frame.env);
+			return;
+		}
+		code.aload(0); // Access Link (o this): il livello frame.level-1
+		for (int j = frame.level - 1; j > l; j--) {
+			code.type(CHECKCAST, owner(j));
+			code.field(GETFIELD, owner(j), "up$", OBJECT);
+		}
+	}
+
+	// carica la variabile, il parametro o il campo "id" dichiarato in "entry"
+	private void loadVariable(String id, STentry entry) {
+		if (entry.nl == 0) code.field(GETSTATIC, main, id, descriptor(entry.type));
+		else if (entry.nl == frame.level) load(frame.locals.get(id), !isInt(entry.type));
+		else {
+			scopeRef(entry.nl);
+			code.type(CHECKCAST, owner(entry.nl));
+			code.field(GETFIELD, owner(entry.nl), id, descriptor(entry.type));
+		}
+	}
+
+	// argomenti valutati dall'ultimo al primo (come sulla SVM) e poi caricati in ordine; se nessuno
+	// puo' stampare basta valutarli in ordine
+	private void arguments(List<Node> args) {
+		if (args.size() < 2 || args.stream().allMatch(a -> a instanceof IdNode || a instanceof IntNode
+				|| a instanceof BoolNode || a instanceof EmptyNode)) {
+			for (Node arg : args) visit(arg);
+			return;
+		}
+		int[] locals = new int[args.size()];
+		for (int i = args.size() - 1; i >= 0; i--) {
+			visit(args.get(i));
+			locals[i] = frame.nextLocal++;
+			store(locals[i], isRef(args.get(i)));
+		}
+		for (int i = 0; i < args.size(); i++) load(locals[i], isRef(args.get(i)));
+	}
+
+	// 1 se il confronto "opcode" sui valori in cima allo stack e' vero, 0 altrimenti
+	private void condition(int opcode) {
+		Label isTrue = new Label(), end = new Label();
+		code.jump(opcode, isTrue);
+		code.iconst(0);
+		code.jump(GOTO, end);
+		code.place(isTrue);
+		code.iconst(1);
+		code.place(end);
+	}
+
+	@Override
+	public Void visitNode(ProgLetInNode n) {
+		if (print) printNode(n);
+		baseClass(n.declist);
+		for (Node dec : n.declist) visit(dec);
+		visit(n.exp);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(ProgNode n) {
+		if (print) printNode(n);
+		visit(n.exp);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(FunNode n) {
+		if (print) printNode(n,n.id);
+		int level = scopes.size();
+		boolean link = level > 1; // funzione annidata
+		int args = (link ? 1 : 0) + n.parlist.size(); // anche gli argomenti mai letti
+		Frame prev = enter(new Frame(mainClass.method(PUBLIC | STATIC, name(n), descriptor(n, link), args), level, link ? 1 : 0));
+		for (ParNode par : n.parlist) frame.locals.put(par.id, frame.nextLocal++);
+		body(n, link ? 0 : -1);
+		enter(prev);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(MethodNode n) {
+		if (print) printNode(n,n.id);
+		int args = 1 + n.parlist.size(); // this e argomenti, anche quelli mai letti
+		Frame prev = enter(new Frame(currentClass.method(PUBLIC, slot(n), descriptor(n, false), args), scopes.size(), 1));
+		for (ParNode par : n.parlist) frame.locals.put(par.id, frame.nextLocal++);
+		body(n, 0);
+		enter(prev);
+		return null;
+	}
+
+	// corpo della funzione (o metodo) "n"; "up" e' la variabile locale con l'Access Link (-1 se non c'e')
+	private void body(FunNode n, int up) {
+		scopes.add(n);
+		if (n.declist.stream().anyMatch(d -> d instanceof FunNode)) { // ambiente per le funzioni annidate
+			String env = main + "$Env" + (envs.size() + 1);
+			envs.put(n, env);
+			ClassFile envClass = newClass(env);
+			envClass.field(PUBLIC, "up$", OBJECT);
+			for (ParNode par : n.parlist) envClass.field(PUBLIC, par.id, descriptor(par.getType()));
+			for (DecNode dec : n.declist)
+				if (dec instanceof VarNode v) envClass.field(PUBLIC, v.id, descriptor(v.getType()));
+			code.type(NEW, env);
+			code.op(DUP);
+			code.invoke(INVOKESPECIAL, env, "<init>", "()V");
+			frame.env = frame.nextLocal++;
+			code.astore(frame.env);
+			if (up >= 0) {
+				code.aload(frame.env);
+				code.aload(up);
+				code.field(PUTFIELD, env, "up$", OBJECT);
+			}
+			for (ParNode par : n.parlist) {
+				code.aload(frame.env);
+				load(frame.locals.get(par.id), !isInt(par.getType()));
+				code.field(PUTFIELD, env, par.id, descriptor(par.getType()));
+			}
+		}
+		for (Node dec : n.declist) visit(dec);
+		visit(n.exp);
+		code.op(isInt(n.retType) ? IRETURN : ARETURN);
+		scopes.remove(scopes.size() - 1);
+	}
+
+	@Override
+	public Void visitNode(VarNode n) {
+		if (print) printNode(n,n.id);
+		visit(n.exp);
+		boolean ref = !isInt(n.getType());
+		if (frame.level == 0) { // variabile globale
+			mainClass.field(PUBLIC | STATIC, n.id, descriptor(n.getType()));
+			code.field(PUTSTATIC, main, n.id, descriptor(n.getType()));
+			return null;
+		}
+		int local = frame.nextLocal++;
+		frame.locals.put(n.id, local);
+		store(local, ref);
+		if (frame.env >= 0) { // visibile anche alle funzioni annidate
+			code.aload(frame.env);
+			load(local, ref);
+			code.field(PUTFIELD, envs.get((FunNode) scopes.get(frame.level)), n.id, descriptor(n.getType()));
+		}
+		return null;
+	}
+
+	@Override
+	public Void visitNode(PrintNode n) {
+		if (print) printNode(n);
+		visit(n.exp);
+		if (isRef(n.exp)) code.invokestatic(main, "print", "(" + OBJECT + ")" + OBJECT);
+		else code.invokestatic(main, "print", "(I)I");
+		return null;
+	}
+
+	@Override
+	public Void visitNode(IfNode n) {
+		if (print) printNode(n);
+		Label otherwise = new Label(), end = new Label();
+		visit(n.cond);
+		code.jump(IFEQ, otherwise);
+		visit(n.th);
+		code.jump(GOTO, end);
+		code.place(otherwise);
+		visit(n.el);
+		code.place(end);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(EqualNode n) {
+		if (print) printNode(n);
+		visit(n.left);
+		visit(n.right);
+		condition(isRef(n.left) || isRef(n.right) ? IF_ACMPEQ : IF_ICMPEQ);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(TimesNode n) {
+		if (print) printNode(n);
+		visit(n.left);
+		visit(n.right);
+		code.op(IMUL);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(PlusNode n) {
+		if (print) printNode(n);
+		visit(n.left);
+		visit(n.right);
+		code.op(IADD);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(CallNode n) {
+		if (print) printNode(n,n.id);
+		if (n.entry.decl instanceof MethodNode m) { // metodo chiamato da un altro metodo della stessa classe
+			String owner = owner(n.entry.nl);
+			scopeRef(n.entry.nl);
+			code.type(CHECKCAST, owner);
+			arguments(n.arglist);
+			code.invoke(INVOKEVIRTUAL, owner, slot(m), descriptor(m, false));
+			return null;
+		}
+		FunNode f = (FunNode) n.entry.decl;
+		if (n.entry.nl > 0) scopeRef(n.entry.nl); // Access Link: ambiente in cui e' dichiarata
+		arguments(n.arglist);
+		code.invokestatic(main, name(f), descriptor(f, n.entry.nl > 0));
+		return null;
+	}
+
+	@Override
+	public Void visitNode(IdNode n) {
+		if (print) printNode(n,n.id);
+		loadVariable(n.id, n.entry);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(BoolNode n) {
+		if (print) printNode(n,n.val.toString());
+		code.iconst(n.val ? 1 : 0);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(IntNode n) {
+		if (print) printNode(n,n.val.toString());
+		code.iconst(n.val);
+		return null;
+	}
+
+	// OPERATOR EXTENSION
+
+	@Override
+	public Void visitNode(GreaterEqualNode n) {
+		if (print) printNode(n);
+		visit(n.right); // stesso ordine di valutazione della SVM
+		visit(n.left);
+		condition(IF_ICMPLE);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(LessEqualNode n) {
+		if (print) printNode(n);
+		visit(n.left);
+		visit(n.right);
+		condition(IF_ICMPLE);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(NotNode n) {
+		if (print) printNode(n);
+		visit(n.right);
+		code.iconst(1);
+		code.op(IXOR);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(MinusNode n) {
+		if (print) printNode(n);
+		visit(n.left);
+		visit(n.right);
+		code.op(ISUB);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(OrNode n) {
+		if (print) printNode(n);
+		Label isTrue = new Label(), end = new Label();
+		visit(n.left);
+		code.jump(IFNE, isTrue);
+		visit(n.right);
+		code.jump(GOTO, end);
+		code.place(isTrue);
+		code.iconst(1);
+		code.place(end);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(DivNode n) {
+		if (print) printNode(n);
+		visit(n.left);
+		visit(n.right);
+		code.op(IDIV);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(AndNode n) {
+		if (print) printNode(n);
+		Label isFalse = new Label(), end = new Label();
+		visit(n.left);
+		code.jump(IFEQ, isFalse);
+		visit(n.right);
+		code.jump(GOTO, end);
+		code.place(isFalse);
+		code.iconst(0);
+		code.place(end);
+		return null;
+	}
+
+	// OBJECT-ORIENTED EXTENSION
+
+	@Override
+	public Void visitNode(ClassNode n) {
+		if (print) printNode(n,n.id);
+		String name = className(n.id);
+		ClassFile prevClass = currentClass;
+		currentClass = new ClassFile(name, baseClass());
+		pending.add(currentClass);
+		StringBuilder d = new StringBuilder("(");
+		for (FieldNode field : n.fields) {
+			currentClass.field(PUBLIC, field.id, descriptor(field.getType()));
+			d.append(descriptor(field.getType()));
+		}
+		ClassFile.Method init = currentClass.method(PUBLIC, "<init>", d.append(")V").toString(), n.fields.size() + 1);
+		init.aload(0);
+		init.invoke(INVOKESPECIAL, baseClass(), "<init>", "()V");
+		for (int i = 0; i < n.fields.size(); i++) {
+			FieldNode field = n.fields.get(i);
+			init.aload(0);
+			if (isInt(field.getType())) init.iload(i + 1);
+			else init.aload(i + 1);
+			init.field(PUTFIELD, name, field.id, descriptor(field.getType()));
+		}
+		init.op(RETURN);
+		scopes.add(n);
+		for (MethodNode method : n.methods) visit(method);
+		scopes.remove(scopes.size() - 1);
+		currentClass = prevClass;
+		return null;
+	}
+
+	@Override
+	public Void visitNode(EmptyNode n) {
+		if (print) printNode(n);
+		code.op(ACONST_NULL);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(ClassCallNode n) {
+		if (print) printNode(n,n.objectId+"."+n.methodId);
+		MethodNode m = (MethodNode) n.methodEntry.decl;
+		loadVariable(n.objectId, n.entry);
+		code.type(CHECKCAST, baseClass()); // l'oggetto puo' essere di una classe diversa da quella dichiarata
+		arguments(n.arglist);
+		code.invoke(INVOKEVIRTUAL, baseClass(), slot(m), descriptor(m, false));
+		return null;
+	}
+
+	@Override
+	public Void visitNode(NewNode n) {
+		if (print) printNode(n,n.classId);
+		ClassNode c = (ClassNode) n.entry.decl;
+		StringBuilder d = new StringBuilder("(");
+		for (FieldNode field : c.fields) d.append(descriptor(field.getType()));
+		code.type(NEW, className(c.id));
+		code.op(DUP);
+		for (Node arg : n.arglist) visit(arg); // in ordine, come sulla SVM
+		code.invoke(INVOKESPECIAL, className(c.id), "<init>", d.append(")V").toString());
+		return null;
+	}
+}
@@ -0,0 +1,329 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+
+// ottimizzatore peephole: riscrive sequenze ridondanti del codice SVM generato,
+// tra la generazione del codice e l'assemblaggio; lavora su una lista di istruzioni
+// (etichetta, linea vuota oppure opcode con argomento) e non sul testo.
+// Le regole sono nella tabella RULES e possono essere abilitate singolarmente;
+// vengono applicate a passate successive fino a quando il codice non cambia piu'.
+public class PeepholeOptimizer {
+
+	// linea di codice SVM
+	static final class Instr {
+		final String label; // non null per la definizione di un'etichetta
+		final String op;    // null per etichette e linee vuote
+		final String arg;   // argomento (intero o etichetta), null se assente
+
+		private Instr(String l, String o, String a) { label = l; op = o; arg = a; }
+
+		static Instr label(String l) { return new Instr(l, null, null); }
+		static Instr op(String o) { return new Instr(null, o, null); }
+		static Instr op(String o, Object a) { return new Instr(null, o, a.toString()); }
+		static final Instr BLANK = new Instr(null, null, null);
+
+		static Instr parse(String line) {
+			line = line.trim();
+			if (line.isEmpty()) return BLANK;
+			if (line.endsWith(":")) return label(line.substring(0, line.length() - 1));
+			int space = line.indexOf(' ');
+			return space < 0 ? op(line) : op(line.substring(0, space), line.substring(space + 1).trim());
+		}
+
+		boolean isLabel() { return label != null; }
+		boolean is(String o) { return o.equals(op); }
+		boolean isBranch() { return is("b") || is("beq") || is("bleq"); }
+		boolean refersLabel() { return arg != null && Character.isLetter(arg.charAt(0)); }
+
+		// argomento intero di una "push", null altrimenti
+		Integer pushed() {
+			return is("push") && !refersLabel() ? Integer.valueOf(arg) : null;
+		}
+
+		Instr withArg(String a) { return new Instr(label, op, a); }
+
+		@Override
+		public String toString() {
+			if (label != null) return label + ":";
+			if (op == null) return "";
+			return arg == null ? op : op + " " + arg;
+		}
+	}
+
+	// una regola prova a riscrivere le istruzioni a partire dalla posizione i della passata:
+	// se ci riesce aggiunge il rimpiazzo all'output e ritorna il numero di istruzioni consumate,
+	// altrimenti ritorna 0
+	interface Rule {
+		int apply(Pass p, int i);
+	}
+
+	static final Map<String, Rule> RULES = new LinkedHashMap<>();
+	static {
+		RULES.put("bool-test", PeepholeOptimizer::boolTest);
+		RULES.put("jump-thread", PeepholeOptimizer::jumpThread);
+		RULES.put("jump-next", PeepholeOptimizer::jumpNext);
+		RULES.put("dead-code", PeepholeOptimizer::deadCode);
+		RULES.put("unused-label", PeepholeOptimizer::unusedLabel);
+		RULES.put("const-fold", PeepholeOptimizer::constFold);
+		RULES.put("add-zero", PeepholeOptimizer::addZero);
+		RULES.put("add-chain", PeepholeOptimizer::addChain);
+		RULES.put("heap-bump", PeepholeOptimizer::heapBump);
+		RULES.put("dup-reload", PeepholeOptimizer::dupReload);
+	}
+
+	private final List<Rule> enabled = new ArrayList<>();
+	private final List<String> enabledNames = new ArrayList<>();
+	private final Map<String, Integer> applications = new LinkedHashMap<>();
+	private int labCount = 0;
+
+	public PeepholeOptimizer() {
+		this(RULES.keySet());
+	}
+
+	public PeepholeOptimizer(Collection<String> rules) {
+		for (String r : RULES.keySet())
+			if (rules.contains(r)) {
+				enabled.add(RULES.get(r));
+				enabledNames.add(r);
+				applications.put(r, 0);
+			}
+	}
+
+	// numero di applicazioni di ogni regola abilitata
+	public Map<String, Integer> applications() {
+		return Collections.unmodifiableMap(applications);
+	}
+
+	public CodeBuffer optimize(CodeBuffer code) {
+		List<String> lines = code.lines();
+		List<Instr> in = new ArrayList<>();
+		for (int i = 0; i < lines.size(); i++) {
+			Instr instr = Instr.parse(lines.get(i));
+			// le linee vuote restano solo come separatori prima delle etichette (codice delle funzioni)
+			if (instr != Instr.BLANK || (i + 1 < lines.size() && lines.get(i + 1).trim().endsWith(":")))
+				in.add(instr);
+		}
+		Pass p;
+		do {
+			p = new Pass(in);
+			for (int i = 0; i < in.size(); ) {
+				int consumed = 0;
+				for (int r = 0; r < enabled.size() && consumed == 0; r++) {
+					consumed = enabled.get(r).apply(p, i);
+					if (consumed > 0) applications.merge(enabledNames.get(r), 1, Integer::sum);
+				}
+				if (consumed == 0) {
+					p.out.add(in.get(i));
+					consumed = 1;
+				}
+				i += consumed;
+			}
+			in = p.result();
+		} while (p.changed);
+		CodeBuffer result = new CodeBuffer();
+		for (Instr instr : in) result.emit(instr.toString());
+		return result;
+	}
+
+	// una passata sul codice: le regole leggono "in" e scrivono "out"; i riferimenti a
+	// etichette rinominate dalle regole (alias) vengono aggiornati alla fine della passata
+	final class Pass {
+		final List<Instr> in;
+		final List<Instr> out = new ArrayList<>();
+		private final Map<String, Integer> uses = new HashMap<>();
+		private final Map<String, Integer> position = new HashMap<>();
+		private final Map<String, String> aliases = new HashMap<>();
+		private final Set<String> dirty = new HashSet<>(); // etichette con riferimenti cambiati in questa passata
+		boolean changed = false;
+
+		Pass(List<Instr> code) {
+			in = code;
+			for (int i = 0; i < in.size(); i++) {
+				Instr instr = in.get(i);
+				if (instr.isLabel()) position.put(instr.label, i);
+				else if (instr.refersLabel()) uses.merge(instr.arg, 1, Integer::sum);
+			}
+		}
+
+		Instr at(int i) {
+			return i < in.size() ? in.get(i) : Instr.BLANK;
+		}
+
+		boolean is(int i, String op) {
+			return at(i).is(op);
+		}
+
+		// push di un intero pari a v
+		boolean isPush(int i, int v) {
+			return Integer.valueOf(v).equals(at(i).pushed());
+		}
+
+		// numero di riferimenti all'etichetta, -1 se cambiato durante questa passata
+		int uses(String label) {
+			return dirty.contains(label) ? -1 : uses.getOrDefault(label, 0);
+		}
+
+		// prima istruzione eseguita dopo l'etichetta (saltando altre etichette)
+		Instr after(String label) {
+			Integer pos = position.get(label);
+			if (pos == null) return Instr.BLANK;
+			int i = pos + 1;
+			while (at(i).isLabel()) i++;
+			return at(i);
+		}
+
+		void emit(Instr... instrs) {
+			out.addAll(Arrays.asList(instrs));
+		}
+
+		// i riferimenti a "from" diventano riferimenti a "to"
+		void alias(String from, String to) {
+			aliases.put(from, to);
+			dirty.add(to);
+		}
+
+		String freshLabel() {
+			String l = "peephole" + (labCount++);
+			dirty.add(l);
+			return l;
+		}
+
+		int rewrote(int consumed) {
+			changed = true;
+			return consumed;
+		}
+
+		List<Instr> result() {
+			if (aliases.isEmpty()) return out;
+			List<Instr> res = new ArrayList<>(out.size());
+			for (Instr instr : out) {
+				if (instr.refersLabel()) {
+					String target = instr.arg;
+					while (aliases.containsKey(target)) target = aliases.get(target);
+					instr = instr.withArg(target);
+				}
+				res.add(instr);
+			}
+			return res;
+		}
+	}
+
+	// valore booleano 0/1 materializzato da un confronto e subito testato con una beq
+	// (if su =, <=, >=, not, and, or):
+	//   Bcc La / push X / b Lb / La: / push Y / Lb: / push K / beq Lt
+	// se Y==K il salto porta direttamente a Lt, altrimenti e' il caso "falso" a saltare a Lt
+	private static int boolTest(Pass p, int i) {
+		Instr cc = p.at(i);
+		if (!(cc.is("beq") || cc.is("bleq"))) return 0;
+		String la = cc.arg;
+		Integer x = p.at(i + 1).pushed(), y = p.at(i + 4).pushed(), k = p.at(i + 6).pushed();
+		if (x == null || y == null || k == null || !p.is(i + 2, "b") || !p.is(i + 7, "beq")) return 0;
+		String lb = p.at(i + 2).arg, lt = p.at(i + 7).arg;
+		if (!la.equals(p.at(i + 3).label) || !lb.equals(p.at(i + 5).label) || p.uses(lb) != 1) return 0;
+		if (x.equals(y) || !(x == 0 || x == 1) || !(y == 0 || y == 1) || !(k == 0 || k == 1)) return 0;
+		if (y.equals(k)) {
+			p.emit(Instr.op(cc.op, lt));
+			p.alias(la, lt);
+		} else {
+			String lc = p.freshLabel();
+			p.emit(Instr.op(cc.op, lc), Instr.op("b", lt), Instr.label(lc));
+			p.alias(la, lc);
+		}
+		return p.rewrote(8);
+	}
+
+	// salto a un'etichetta seguita da "b M": si salta direttamente a M
+	private static int jumpThread(Pass p, int i) {
+		Instr br = p.at(i);
+		if (!br.isBranch()) return 0;
+		Instr next = p.after(br.arg);
+		if (!next.is("b") || next.arg.equals(br.arg)) return 0;
+		p.emit(br.withArg(next.arg));
+		p.dirty.add(next.arg);
+		return p.rewrote(1);
+	}
+
+	// "b L" seguito (a meno di altre etichette) dalla definizione di L
+	private static int jumpNext(Pass p, int i) {
+		if (!p.is(i, "b")) return 0;
+		for (int j = i + 1; p.at(j).isLabel(); j++)
+			if (p.at(j).label.equals(p.at(i).arg)) return p.rewrote(1);
+		return 0;
+	}
+
+	// istruzioni dopo un salto incondizionato (b o bm), una ret (o mret) o una halt, fino alla prossima etichetta
+	// (o al segmento dati, che non viene eseguito)
+	private static int deadCode(Pass p, int i) {
+		if (!(p.is(i, "b") || p.is(i, "bm") || p.is(i, "ret") || p.is(i, "mret") || p.is(i, "halt"))) return 0;
+		int j = i + 1;
+		while (j < p.in.size() && p.at(j).op != null && !p.is(j, "word")) j++;
+		if (j == i + 1) return 0;
+		p.emit(p.at(i));
+		return p.rewrote(j - i);
+	}
+
+	private static int unusedLabel(Pass p, int i) {
+		Instr l = p.at(i);
+		if (!l.isLabel() || p.uses(l.label) != 0) return 0;
+		return p.rewrote(1);
+	}
+
+	// push a / push b / add|sub|mult
+	private static int constFold(Pass p, int i) {
+		Integer a = p.at(i).pushed(), b = p.at(i + 1).pushed();
+		if (a == null || b == null) return 0;
+		Instr op = p.at(i + 2);
+		if (op.is("add")) p.emit(Instr.op("push", a + b));
+		else if (op.is("sub")) p.emit(Instr.op("push", a - b));
+		else if (op.is("mult")) p.emit(Instr.op("push", a * b));
+		else return 0;
+		return p.rewrote(3);
+	}
+
+	// push 0 / add|sub
+	private static int addZero(Pass p, int i) {
+		if (!p.isPush(i, 0) || !(p.is(i + 1, "add") || p.is(i + 1, "sub"))) return 0;
+		return p.rewrote(2);
+	}
+
+	// push a / add / push b / add
+	private static int addChain(Pass p, int i) {
+		Integer a = p.at(i).pushed(), b = p.at(i + 2).pushed();
+		if (a == null || b == null || !p.is(i + 1, "add") || !p.is(i + 3, "add")) return 0;
+		p.emit(Instr.op("push", a + b), Instr.op("add"));
+		return p.rewrote(4);
+	}
+
+	// incremento di hp seguito dalla memorizzazione di un valore all'indirizzo hp e da un nuovo
+	// incremento (campi in NewNode, dispatch table in ClassNode):
+	//   lhp / push n / add / shp / [push V] / lhp / sw / lhp / push 1 / add / shp
+	// diventa: [push V] / lhp / push n / add / sw / lhp / push n+1 / add / shp
+	private static int heapBump(Pass p, int i) {
+		Integer n = p.at(i + 1).pushed();
+		if (n == null || !p.is(i, "lhp") || !p.is(i + 2, "add") || !p.is(i + 3, "shp")) return 0;
+		int j = i + 4;
+		Instr value = null;
+		if (p.is(j, "push")) value = p.at(j++);
+		if (!(p.is(j, "lhp") && p.is(j + 1, "sw") && p.is(j + 2, "lhp") && p.isPush(j + 3, 1)
+				&& p.is(j + 4, "add") && p.is(j + 5, "shp"))) return 0;
+		if (value != null) p.emit(value);
+		p.emit(Instr.op("lhp"), Instr.op("push", n), Instr.op("add"), Instr.op("sw"),
+				Instr.op("lhp"), Instr.op("push", n + 1), Instr.op("add"), Instr.op("shp"));
+		return p.rewrote(j + 6 - i);
+	}
+
+	// duplicazione tramite $tm di un valore piu' economico da ricalcolare (access link):
+	//   lfp / [lw] / stm / ltm / ltm  ->  lfp / [lw] / lfp / [lw]
+	// corretto perche' il codice generato usa $tm solo tra una stm e le ltm che la seguono
+	private static int dupReload(Pass p, int i) {
+		if (!p.is(i, "lfp")) return 0;
+		int len = p.is(i + 1, "lw") ? 2 : 1;
+		if (!(p.is(i + len, "stm") && p.is(i + len + 1, "ltm") && p.is(i + len + 2, "ltm"))) return 0;
+		for (int k = 0; k < 2; k++) {
+			p.emit(Instr.op("lfp"));
+			if (len == 2) p.emit(Instr.op("lw"));
+		}
+		return p.rewrote(len + 3);
+	}
+}
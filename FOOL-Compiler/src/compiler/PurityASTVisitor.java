@@ -0,0 +1,259 @@
+package compiler;
+
+import java.util.*;
+import compiler.AST.*;
+import compiler.exc.*;
+import compiler.lib.*;
+
+//analisi di purezza sull'intero programma, dopo il type checking: una funzione
+//(o metodo) e' pura (pure = true) se l'esecuzione del suo corpo e delle
+//inizializzazioni delle sue variabili non stampa, non crea oggetti e chiama solo
+//funzioni pure. Le variabili e i campi non cambiano mai dopo l'inizializzazione,
+//quindi due chiamate di una funzione pura con gli stessi argomenti (e lo stesso
+//oggetto, per un metodo) danno lo stesso risultato: CSEOptimizer riusa il primo.
+//Una chiamata di metodo passa dalla dispatch table e l'oggetto puo' essere di una classe
+//diversa dal suo tipo statico (TypeRels accetta qualunque classe): un metodo e' puro solo
+//se lo sono anche i metodi allo stesso offset di tutte le classi.
+//
+//Le funzioni ricorsive sono pure se lo e' il resto del corpo: si parte da tutte
+//pure e si tolgono quelle che non lo sono finche' non cambia piu' niente.
+//
+//Sono anche marcate da memorizzare (memoized = true, istruzioni memo e mret della SVM)
+//le funzioni pure dichiarate nel programma principale con parametri e risultato int o
+//bool che chiamano se stesse almeno due volte (albero delle chiamate potenzialmente
+//esponenziale, come fib): il risultato dipende solo dagli argomenti, perche' le
+//variabili globali non cambiano e il frame del programma principale (il loro Access
+//Link) esiste per tutta l'esecuzione. Quello di una funzione annidata no: il frame che
+//fa da Access Link viene riusato da altre chiamate allo stesso indirizzo.
+public class PurityASTVisitor extends BaseASTVisitor<Boolean,VoidException> {
+
+	private final List<FunNode> functions = new ArrayList<>();
+	private final List<ClassNode> classes = new ArrayList<>();
+	private FunNode current; // funzione di cui si sta visitando il corpo
+	private int selfCalls; // chiamate di current a se stessa
+
+	final List<String> pure = new ArrayList<>(); // funzioni e metodi puri, per le statistiche
+	final List<String> memoized = new ArrayList<>(); // funzioni da memorizzare, per le statistiche
+
+	PurityASTVisitor() {}
+	PurityASTVisitor(boolean debug) { super(false,debug); } // enables print for debugging
+
+	// raccoglie funzioni e metodi dichiarati in "decs" (anche annidati)
+	private void collect(List<? extends DecNode> decs) {
+		for (DecNode dec : decs) {
+			if (dec instanceof ClassNode c) {
+				classes.add(c);
+				collect(c.methods);
+			}
+			else if (dec instanceof FunNode f) {
+				functions.add(f);
+				collect(f.declist);
+			}
+		}
+	}
+
+	private boolean body(FunNode f) {
+		current = f;
+		selfCalls = 0;
+		boolean p = true;
+		for (Node dec : f.declist) p &= visit(dec);
+		return visit(f.exp) & p;
+	}
+
+	// i metodi che una chiamata di "f" puo' eseguire tramite la dispatch table sono puri
+	private boolean dispatched(FunNode f) {
+		if (!(f instanceof MethodNode m)) return true;
+		for (ClassNode c : classes)
+			for (MethodNode other : c.methods) if (other.offset == m.offset && !other.pure) return false;
+		return true;
+	}
+
+	private static boolean scalar(TypeNode t) {
+		return t instanceof IntTypeNode || t instanceof BoolTypeNode;
+	}
+
+	// funzione pura del programma principale, con parametri e risultato int o bool, che chiama se stessa almeno due volte
+	private boolean memoizable(FunNode f) {
+		if (!f.pure || f instanceof MethodNode || !scalar(f.retType)) return false;
+		for (ParNode p : f.parlist) if (!scalar(p.getType())) return false;
+		body(f);
+		return selfCalls >= 2;
+	}
+
+	private boolean all(List<Node> nodes) {
+		boolean p = true;
+		for (Node n : nodes) p &= visit(n);
+		return p;
+	}
+
+	@Override
+	public Boolean visitNode(ProgLetInNode n) {
+		if (print) printNode(n);
+		collect(n.declist);
+		for (FunNode f : functions) f.pure = true;
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (FunNode f : functions)
+				if (f.pure && !(body(f) && dispatched(f))) {
+					f.pure = false;
+					changed = true;
+				}
+		}
+		for (FunNode f : functions)
+			if (f.pure) pure.add((f instanceof MethodNode ? "method " : "function ") + f.id);
+		for (DecNode dec : n.declist)
+			if (dec instanceof FunNode f && memoizable(f)) {
+				f.memoized = true;
+				memoized.add(f.id);
+			}
+		return null;
+	}
+
+	@Override
+	public Boolean visitNode(ProgNode n) {
+		if (print) printNode(n);
+		return null;
+	}
+
+	// le dichiarazioni annidate di funzioni e classi non eseguono niente
+
+	@Override
+	public Boolean visitNode(FunNode n) {
+		if (print) printNode(n,n.id);
+		return true;
+	}
+
+	@Override
+	public Boolean visitNode(VarNode n) {
+		if (print) printNode(n,n.id);
+		return visit(n.exp);
+	}
+
+	@Override
+	public Boolean visitNode(PrintNode n) {
+		if (print) printNode(n);
+		visit(n.exp);
+		return false;
+	}
+
+	@Override
+	public Boolean visitNode(IfNode n) {
+		if (print) printNode(n);
+		return visit(n.cond) & visit(n.th) & visit(n.el);
+	}
+
+	@Override
+	public Boolean visitNode(EqualNode n) {
+		if (print) printNode(n);
+		return visit(n.left) & visit(n.right);
+	}
+
+	@Override
+	public Boolean visitNode(TimesNode n) {
+		if (print) printNode(n);
+		return visit(n.left) & visit(n.right);
+	}
+
+	@Override
+	public Boolean visitNode(PlusNode n) {
+		if (print) printNode(n);
+		return visit(n.left) & visit(n.right);
+	}
+
+	@Override
+	public Boolean visitNode(CallNode n) {
+		if (print) printNode(n,n.id);
+		if (n.entry.decl == current) selfCalls++;
+		return all(n.arglist) && ((FunNode) n.entry.decl).pure;
+	}
+
+	@Override
+	public Boolean visitNode(IdNode n) {
+		if (print) printNode(n,n.id);
+		return true;
+	}
+
+	@Override
+	public Boolean visitNode(BoolNode n) {
+		if (print) printNode(n,n.val.toString());
+		return true;
+	}
+
+	@Override
+	public Boolean visitNode(IntNode n) {
+		if (print) printNode(n,n.val.toString());
+		return true;
+	}
+
+	// OPERATOR EXTENSION
+
+	@Override
+	public Boolean visitNode(GreaterEqualNode n) {
+		if (print) printNode(n);
+		return visit(n.left) & visit(n.right);
+	}
+
+	@Override
+	public Boolean visitNode(LessEqualNode n) {
+		if (print) printNode(n);
+		return visit(n.left) & visit(n.right);
+	}
+
+	@Override
+	public Boolean visitNode(NotNode n) {
+		if (print) printNode(n);
+		return visit(n.right);
+	}
+
+	@Override
+	public Boolean visitNode(MinusNode n) {
+		if (print) printNode(n);
+		return visit(n.left) & visit(n.right);
+	}
+
+	@Override
+	public Boolean visitNode(OrNode n) {
+		if (print) printNode(n);
+		return visit(n.left) & visit(n.right);
+	}
+
+	@Override
+	public Boolean visitNode(DivNode n) {
+		if (print) printNode(n);
+		return visit(n.left) & visit(n.right);
+	}
+
+	@Override
+	public Boolean visitNode(AndNode n) {
+		if (print) printNode(n);
+		return visit(n.left) & visit(n.right);
+	}
+
+	// OBJECT-ORIENTED EXTENSION
+
+	@Override
+	public Boolean visitNode(ClassNode n) {
+		if (print) printNode(n,n.id);
+		return true;
+	}
+
+	@Override
+	public Boolean visitNode(ClassCallNode n) {
+		if (print) printNode(n,n.methodId);
+		return all(n.arglist) && ((MethodNode) n.methodEntry.decl).pure;
+	}
+
+	@Override
+	public Boolean visitNode(NewNode n) {
+		if (print) printNode(n,n.classId);
+		all(n.arglist);
+		return false; // ogni new crea un oggetto diverso (== confronta gli indirizzi)
+	}
+
+	@Override
+	public Boolean visitNode(EmptyNode n) {
+		if (print) printNode(n);
+		return true;
+	}
+}
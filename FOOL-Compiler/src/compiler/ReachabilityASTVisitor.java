@@ -0,0 +1,272 @@
+package compiler;
+
+import java.util.*;
+import compiler.AST.*;
+import compiler.exc.*;
+import compiler.lib.*;
+
+//analisi di raggiungibilita' sull'intero programma, dopo il type checking:
+//partendo dall'espressione principale (e dalle inizializzazioni delle variabili)
+//segue CallNode, ClassCallNode e NewNode e marca come non raggiungibili
+//(reachable = false) le funzioni mai chiamate, le classi mai istanziate e i
+//metodi mai chiamati di classi istanziate; la generazione del codice non
+//emette il loro codice ne' la loro dispatch table.
+//
+//Il corpo di un metodo e' raggiungibile solo se il metodo viene chiamato e la
+//sua classe viene istanziata: altrimenti l'oggetto e' sempre null.
+//Una chiamata o.m() passa dalla dispatch table dell'oggetto, che puo' essere di
+//una classe diversa dal tipo statico di o (TypeRels accetta qualunque classe al
+//posto di un'altra): se la classe non e' esatta (ClassFlowASTVisitor) la chiamata
+//raggiunge il metodo allo stesso offset di ogni classe, come farebbe callm.
+public class ReachabilityASTVisitor extends BaseASTVisitor<Void,VoidException> {
+
+	private final Set<FunNode> live = new HashSet<>();
+	private final Set<ClassNode> instantiated = new HashSet<>();
+	private final Set<MethodNode> called = new HashSet<>();
+	private final Map<MethodNode, ClassNode> methodClass = new HashMap<>();
+	private final List<DecNode> declarations = new ArrayList<>();
+	private final ClassFlowASTVisitor classFlow = new ClassFlowASTVisitor();
+
+	final List<String> removed = new ArrayList<>(); // descrizione delle dichiarazioni eliminate
+
+	ReachabilityASTVisitor() {}
+	ReachabilityASTVisitor(boolean debug) { super(false,debug); } // enables print for debugging
+
+	// raccoglie funzioni, metodi e classi dichiarati in "decs" (anche annidati)
+	private void collect(List<? extends DecNode> decs) {
+		for (DecNode dec : decs) {
+			if (dec instanceof ClassNode c) {
+				declarations.add(c);
+				for (MethodNode m : c.methods) methodClass.put(m, c);
+				collect(c.methods);
+			} else if (dec instanceof FunNode f) {
+				declarations.add(f);
+				collect(f.declist);
+			}
+		}
+	}
+
+	// il corpo di "f" viene eseguito: lo visita una sola volta
+	private void reach(FunNode f) {
+		if (!live.add(f)) return;
+		for (Node dec : f.declist) visit(dec);
+		visit(f.exp);
+	}
+
+	@Override
+	public Void visitNode(ProgLetInNode n) {
+		if (print) printNode(n);
+		collect(n.declist);
+		classFlow.visit(n);
+		for (Node dec : n.declist) visit(dec);
+		visit(n.exp);
+		for (DecNode dec : declarations) {
+			if (dec instanceof ClassNode c) {
+				c.reachable = instantiated.contains(c);
+				if (!c.reachable) removed.add("class " + c.id);
+			} else if (dec instanceof MethodNode m) {
+				m.reachable = live.contains(m);
+				if (!m.reachable && instantiated.contains(methodClass.get(m)))
+					removed.add("method " + methodClass.get(m).id + "." + m.id);
+			} else if (dec instanceof FunNode f) {
+				f.reachable = live.contains(f);
+				if (!f.reachable) removed.add("function " + f.id);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Void visitNode(ProgNode n) {
+		if (print) printNode(n);
+		visit(n.exp);
+		return null;
+	}
+
+	// le dichiarazioni di funzioni e classi diventano raggiungibili solo tramite chiamate e new
+
+	@Override
+	public Void visitNode(FunNode n) {
+		if (print) printNode(n,n.id);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(ParNode n) {
+		if (print) printNode(n,n.id);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(VarNode n) {
+		if (print) printNode(n,n.id);
+		visit(n.exp);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(PrintNode n) {
+		if (print) printNode(n);
+		visit(n.exp);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(IfNode n) {
+		if (print) printNode(n);
+		visit(n.cond);
+		visit(n.th);
+		visit(n.el);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(EqualNode n) {
+		if (print) printNode(n);
+		visit(n.left);
+		visit(n.right);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(TimesNode n) {
+		if (print) printNode(n);
+		visit(n.left);
+		visit(n.right);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(PlusNode n) {
+		if (print) printNode(n);
+		visit(n.left);
+		visit(n.right);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(CallNode n) {
+		if (print) printNode(n,n.id);
+		for (Node arg : n.arglist) visit(arg);
+		if (n.entry.decl instanceof MethodNode m) call(m); // chiamata di un metodo dall'interno della classe
+		else reach((FunNode) n.entry.decl);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(IdNode n) {
+		if (print) printNode(n,n.id);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(BoolNode n) {
+		if (print) printNode(n,n.val.toString());
+		return null;
+	}
+
+	@Override
+	public Void visitNode(IntNode n) {
+		if (print) printNode(n,n.val.toString());
+		return null;
+	}
+
+	// OPERATOR EXTENSION
+
+	@Override
+	public Void visitNode(GreaterEqualNode n) {
+		if (print) printNode(n);
+		visit(n.left);
+		visit(n.right);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(LessEqualNode n) {
+		if (print) printNode(n);
+		visit(n.left);
+		visit(n.right);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(NotNode n) {
+		if (print) printNode(n);
+		visit(n.right);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(MinusNode n) {
+		if (print) printNode(n);
+		visit(n.left);
+		visit(n.right);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(OrNode n) {
+		if (print) printNode(n);
+		visit(n.left);
+		visit(n.right);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(DivNode n) {
+		if (print) printNode(n);
+		visit(n.left);
+		visit(n.right);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(AndNode n) {
+		if (print) printNode(n);
+		visit(n.left);
+		visit(n.right);
+		return null;
+	}
+
+	// OBJECT-ORIENTED EXTENSION
+
+	@Override
+	public Void visitNode(ClassNode n) {
+		if (print) printNode(n,n.id);
+		return null;
+	}
+
+	private void call(MethodNode m) {
+		if (called.add(m) && instantiated.contains(methodClass.get(m))) reach(m);
+	}
+
+	@Override
+	public Void visitNode(ClassCallNode n) {
+		if (print) printNode(n,n.methodId);
+		for (Node arg : n.arglist) visit(arg);
+		MethodNode m = (MethodNode) n.methodEntry.decl;
+		if (classFlow.exact(((RefTypeNode) n.entry.type).id)) call(m);
+		else for (DecNode dec : declarations) // oggetti di altre classi: il metodo allo stesso offset
+			if (dec instanceof ClassNode c)
+				for (MethodNode other : c.methods)
+					if (other.offset == m.offset) call(other);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(NewNode n) {
+		if (print) printNode(n,n.classId);
+		for (Node arg : n.arglist) visit(arg);
+		ClassNode c = (ClassNode) n.entry.decl;
+		if (instantiated.add(c))
+			for (MethodNode m : c.methods)
+				if (called.contains(m)) reach(m);
+		return null;
+	}
+
+	@Override
+	public Void visitNode(EmptyNode n) {
+		if (print) printNode(n);
+		return null;
+	}
+}
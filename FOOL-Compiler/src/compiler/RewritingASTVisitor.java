@@ -0,0 +1,237 @@
+package compiler;
+
+import java.util.*;
+import compiler.AST.*;
+import compiler.exc.*;
+import compiler.lib.*;
+
+//base delle ottimizzazioni che riscrivono l'AST dopo il type checking:
+//visitNode(n) ritorna il nodo che sostituisce n (n stesso se non cambia).
+//Un'espressione viene ricostruita solo se cambia uno dei suoi figli, mantenendo
+//linea, entry e nesting level; in una dichiarazione viene sostituita "exp" e il
+//nodo resta lo stesso (le STentry continuano a riferirlo).
+//Le sottoclassi ridefiniscono solo i visitNode che riguardano la loro ottimizzazione.
+public class RewritingASTVisitor extends BaseASTVisitor<Node,VoidException> {
+
+	RewritingASTVisitor() {}
+	RewritingASTVisitor(boolean debug) { super(false,debug); } // enables print for debugging
+
+	// il nuovo nodo prende la linea del nodo che sostituisce
+	protected Node rebuilt(Node old, Node n) {
+		n.setLine(old.getLine());
+		return n;
+	}
+
+	protected List<Node> visitList(List<Node> l) {
+		List<Node> res = new ArrayList<>(l.size());
+		for (Node arg : l) res.add(visit(arg));
+		return res;
+	}
+
+	@Override
+	public Node visitNode(ProgLetInNode n) {
+		if (print) printNode(n);
+		for (Node dec : n.declist) visit(dec);
+		n.exp = visit(n.exp);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(ProgNode n) {
+		if (print) printNode(n);
+		n.exp = visit(n.exp);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(FunNode n) {
+		if (print) printNode(n,n.id);
+		for (Node dec : n.declist) visit(dec);
+		n.exp = visit(n.exp);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(ParNode n) {
+		if (print) printNode(n,n.id);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(VarNode n) {
+		if (print) printNode(n,n.id);
+		n.exp = visit(n.exp);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(PrintNode n) {
+		if (print) printNode(n);
+		Node e = visit(n.exp);
+		return e == n.exp ? n : rebuilt(n, new PrintNode(e));
+	}
+
+	@Override
+	public Node visitNode(IfNode n) {
+		if (print) printNode(n);
+		Node c = visit(n.cond);
+		Node t = visit(n.th);
+		Node e = visit(n.el);
+		return c == n.cond && t == n.th && e == n.el ? n : rebuilt(n, new IfNode(c, t, e));
+	}
+
+	@Override
+	public Node visitNode(EqualNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		return l == n.left && r == n.right ? n : rebuilt(n, new EqualNode(l, r));
+	}
+
+	@Override
+	public Node visitNode(TimesNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		return l == n.left && r == n.right ? n : rebuilt(n, new TimesNode(l, r));
+	}
+
+	@Override
+	public Node visitNode(PlusNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		return l == n.left && r == n.right ? n : rebuilt(n, new PlusNode(l, r));
+	}
+
+	@Override
+	public Node visitNode(CallNode n) {
+		if (print) printNode(n,n.id);
+		List<Node> args = visitList(n.arglist);
+		if (args.equals(n.arglist)) return n;
+		CallNode c = new CallNode(n.id, args);
+		c.entry = n.entry;
+		c.nl = n.nl;
+		return rebuilt(n, c);
+	}
+
+	@Override
+	public Node visitNode(IdNode n) {
+		if (print) printNode(n,n.id);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(BoolNode n) {
+		if (print) printNode(n,n.val.toString());
+		return n;
+	}
+
+	@Override
+	public Node visitNode(IntNode n) {
+		if (print) printNode(n,n.val.toString());
+		return n;
+	}
+
+	// OPERATOR EXTENSION
+
+	@Override
+	public Node visitNode(GreaterEqualNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		return l == n.left && r == n.right ? n : rebuilt(n, new GreaterEqualNode(l, r));
+	}
+
+	@Override
+	public Node visitNode(LessEqualNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		return l == n.left && r == n.right ? n : rebuilt(n, new LessEqualNode(l, r));
+	}
+
+	@Override
+	public Node visitNode(NotNode n) {
+		if (print) printNode(n);
+		Node r = visit(n.right);
+		return r == n.right ? n : rebuilt(n, new NotNode(r));
+	}
+
+	@Override
+	public Node visitNode(MinusNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		return l == n.left && r == n.right ? n : rebuilt(n, new MinusNode(l, r));
+	}
+
+	@Override
+	public Node visitNode(OrNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		return l == n.left && r == n.right ? n : rebuilt(n, new OrNode(l, r));
+	}
+
+	@Override
+	public Node visitNode(DivNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		return l == n.left && r == n.right ? n : rebuilt(n, new DivNode(l, r));
+	}
+
+	@Override
+	public Node visitNode(AndNode n) {
+		if (print) printNode(n);
+		Node l = visit(n.left);
+		Node r = visit(n.right);
+		return l == n.left && r == n.right ? n : rebuilt(n, new AndNode(l, r));
+	}
+
+	// OBJECT-ORIENTED EXTENSION
+
+	@Override
+	public Node visitNode(ClassNode n) {
+		if (print) printNode(n,n.id);
+		for (MethodNode m : n.methods) visit(m);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(MethodNode n) {
+		if (print) printNode(n,n.id);
+		for (Node dec : n.declist) visit(dec);
+		n.exp = visit(n.exp);
+		return n;
+	}
+
+	@Override
+	public Node visitNode(ClassCallNode n) {
+		if (print) printNode(n,n.methodId);
+		List<Node> args = visitList(n.arglist);
+		if (args.equals(n.arglist)) return n;
+		ClassCallNode c = new ClassCallNode(n.objectId, n.methodId, args);
+		c.entry = n.entry;
+		c.methodEntry = n.methodEntry;
+		c.nl = n.nl;
+		return rebuilt(n, c);
+	}
+
+	@Override
+	public Node visitNode(NewNode n) {
+		if (print) printNode(n,n.classId);
+		List<Node> args = visitList(n.arglist);
+		if (args.equals(n.arglist)) return n;
+		NewNode c = new NewNode(n.classId, args);
+		c.entry = n.entry;
+		return rebuilt(n, c);
+	}
+
+	@Override
+	public Node visitNode(EmptyNode n) {
+		if (print) printNode(n);
+		return n;
+	}
+}
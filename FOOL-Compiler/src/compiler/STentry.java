@@ -5,8 +5,10 @@ import compiler.lib.*;
 public class STentry implements Visitable {
 	final int nl;
 	final TypeNode type;
-	final int offset;
-	public STentry(int n, TypeNode t, int o) { nl = n; type = t; offset=o; }
+	int offset; // riscritto da EscapeASTVisitor se prima della dichiarazione ci sono oggetti allocati nel frame
+	final DecNode decl; // dichiarazione di funzioni, metodi e classi (null per variabili, parametri e campi)
+	public STentry(int n, TypeNode t, int o) { this(n, t, o, null); }
+	public STentry(int n, TypeNode t, int o, DecNode d) { nl = n; type = t; offset=o; decl = d; }
 
 	@Override
 	public <S,E extends Exception> S accept(BaseASTVisitor<S,E> visitor) throws E {
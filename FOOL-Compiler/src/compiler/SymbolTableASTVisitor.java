@@ -10,7 +10,7 @@ public class SymbolTableASTVisitor extends BaseASTVisitor<Void,VoidException> {
 	private List<Map<String, STentry>> symTable = new ArrayList<>();
 	private int nestingLevel=0; // current nesting level
 	private int decOffset=-2; // counter for offset of local declarations at current nesting level 
-	int stErrors=0;
+	private final CompilationContext ctx;
 
 	Map<String, Map<String, STentry>> classTable = new HashMap<>();
 
@@ -31,9 +31,9 @@ public class SymbolTableASTVisitor extends BaseASTVisitor<Void,VoidException> {
 
 
 
-	SymbolTableASTVisitor() {}
-	SymbolTableASTVisitor(boolean incomplExc) {super(incomplExc);} // enables print for debugging
-	SymbolTableASTVisitor(boolean incomplExc, boolean debug) {super(incomplExc, debug);}
+	SymbolTableASTVisitor(CompilationContext c) {ctx = c;}
+	SymbolTableASTVisitor(CompilationContext c, boolean incomplExc) {super(incomplExc); ctx = c;} // enables print for debugging
+	SymbolTableASTVisitor(CompilationContext c, boolean incomplExc, boolean debug) {super(incomplExc, debug); ctx = c;}
 
 	private STentry stLookup(String id) {
 		int j = nestingLevel;
@@ -67,11 +67,11 @@ public class SymbolTableASTVisitor extends BaseASTVisitor<Void,VoidException> {
 		Map<String, STentry> hm = symTable.get(nestingLevel);
 		List<TypeNode> parTypes = new ArrayList<>();  
 		for (ParNode par : n.parlist) parTypes.add(par.getType()); 
-		STentry entry = new STentry(nestingLevel, new ArrowTypeNode(parTypes,n.retType),decOffset--);
+		STentry entry = new STentry(nestingLevel, new ArrowTypeNode(parTypes,n.retType),decOffset--,n);
 		//inserimento di ID nella symtable
 		if (hm.put(n.id, entry) != null) {
 			System.out.println("Fun id " + n.id + " at line "+ n.getLine() +" already declared");
-			stErrors++;
+			ctx.stErrors++;
 		} 
 		//creare una nuova hashmap per la symTable
 		nestingLevel++;
@@ -84,7 +84,7 @@ public class SymbolTableASTVisitor extends BaseASTVisitor<Void,VoidException> {
 		for (ParNode par : n.parlist)
 			if (hmn.put(par.id, new STentry(nestingLevel,par.getType(),parOffset++)) != null) {
 				System.out.println("Par id " + par.id + " at line "+ n.getLine() +" already declared");
-				stErrors++;
+				ctx.stErrors++;
 			}
 		for (Node dec : n.declist) visit(dec);
 		visit(n.exp);
@@ -103,7 +103,7 @@ public class SymbolTableASTVisitor extends BaseASTVisitor<Void,VoidException> {
 		//inserimento di ID nella symtable
 		if (hm.put(n.id, entry) != null) {
 			System.out.println("Var id " + n.id + " at line "+ n.getLine() +" already declared");
-			stErrors++;
+			ctx.stErrors++;
 		}
 		return null;
 	}
@@ -154,7 +154,7 @@ public class SymbolTableASTVisitor extends BaseASTVisitor<Void,VoidException> {
 		STentry entry = stLookup(n.id);
 		if (entry == null) {
 			System.out.println("Fun id " + n.id + " at line "+ n.getLine() + " not declared");
-			stErrors++;
+			ctx.stErrors++;
 		} else {
 			n.entry = entry;
 			n.nl = nestingLevel;
@@ -169,7 +169,7 @@ public class SymbolTableASTVisitor extends BaseASTVisitor<Void,VoidException> {
 		STentry entry = stLookup(n.id);
 		if (entry == null) {
 			System.out.println("Var or Par id " + n.id + " at line "+ n.getLine() + " not declared");
-			stErrors++;
+			ctx.stErrors++;
 		} else {
 			n.entry = entry;
 			n.nl = nestingLevel;
@@ -259,11 +259,11 @@ public class SymbolTableASTVisitor extends BaseASTVisitor<Void,VoidException> {
 //		}
 
 		ClassTypeNode classType = new ClassTypeNode(new ArrayList<>(), new ArrayList<>());
-		STentry entry = new STentry(nestingLevel, classType, decOffset--);
+		STentry entry = new STentry(nestingLevel, classType, decOffset--, n);
 
 		if (symTable.get(nestingLevel).put(n.id, entry) != null) {
 			System.out.println("Class " + n.id + " already declared at line " + n.getLine());
-			stErrors++;
+			ctx.stErrors++;
 		}
 
 		nestingLevel++;
@@ -277,7 +277,7 @@ public class SymbolTableASTVisitor extends BaseASTVisitor<Void,VoidException> {
 		for (FieldNode f : n.fields) {
 			if (virtualTable.containsKey(f.id)) {
 				System.out.println("Errore: Campo " + n.id + " già dichiarato.");
-				stErrors++;
+				ctx.stErrors++;
 			}
 
 			STentry fieldEntry = new STentry(nestingLevel, f.getType(), fieldsOffset);
@@ -296,7 +296,7 @@ public class SymbolTableASTVisitor extends BaseASTVisitor<Void,VoidException> {
 		for (MethodNode m : n.methods) {
 			if (virtualTable.containsKey(m.id)) {
 				System.out.println("Errore: Identificatore " + n.id + " già utilizzato.");
-				stErrors++;
+				ctx.stErrors++;
 			}
 
 			visit(m);
@@ -329,7 +329,7 @@ public class SymbolTableASTVisitor extends BaseASTVisitor<Void,VoidException> {
 
 		List<TypeNode> paramTypes = n.parlist.stream().map(ParNode::getType).toList();
 
-		STentry methodEntry = new STentry(nestingLevel, new ArrowTypeNode(paramTypes, n.retType), decOffset);
+		STentry methodEntry = new STentry(nestingLevel, new ArrowTypeNode(paramTypes, n.retType), decOffset, n);
 		virtualTable.put(n.id, methodEntry);
 		n.offset = methodEntry.offset;
 
@@ -342,7 +342,7 @@ public class SymbolTableASTVisitor extends BaseASTVisitor<Void,VoidException> {
 			if (methodTable.put(par.id, new STentry(nestingLevel, par.getType(), paramOffset)) != null) {
 				paramOffset += PARAMETERS_OFFSET_DELTA;
 				System.out.println("Errore: Parametro " + par.id + " già dichiarato.");
-				stErrors++;
+				ctx.stErrors++;
 			}
 		}
 
@@ -365,7 +365,7 @@ public class SymbolTableASTVisitor extends BaseASTVisitor<Void,VoidException> {
 		STentry entry = stLookup(n.objectId);
 		if (entry == null) {
 			System.out.println("Class object with id " + n.objectId + " at line "+ n.getLine() + " not declared");
-			stErrors++;
+			ctx.stErrors++;
 		} else if (entry.type instanceof RefTypeNode) {
 			n.nl = nestingLevel;
 			n.entry = entry;
@@ -375,7 +375,7 @@ public class SymbolTableASTVisitor extends BaseASTVisitor<Void,VoidException> {
 			}
 			else {
 				System.out.println("Method id " + n.methodId + " at line "+ n.getLine() + " not declared");
-				stErrors++;
+				ctx.stErrors++;
 			}
 		}
 		n.arglist.forEach(this::visit);
@@ -387,7 +387,7 @@ public class SymbolTableASTVisitor extends BaseASTVisitor<Void,VoidException> {
 		if (print) printNode(n);
 		if(!classTable.containsKey(n.classId)) {
 			System.out.println("Class " + n.classId + " at line "+ n.getLine() + " not declared");
-			stErrors++;
+			ctx.stErrors++;
 		}
 		n.entry = symTable.getFirst().get(n.classId);
 		n.arglist.forEach(this::visit);
@@ -6,18 +6,29 @@ import org.antlr.v4.runtime.tree.*;
 import compiler.lib.*;
 import compiler.exc.*;
 
+import svm.Assembler;
+
 //SVM Classica
-//import svm.*;
+//import svm.ExecuteVM;
 
 //Virtual SVM
-import visualsvm.*;
-import java.nio.file.*;
+import visualsvm.ExecuteVM;
 
 public class Test {
     public static void main(String[] args) throws Exception {
 
     	String fileName = "quicksort.fool";
 		fileName = "test.fool";
+		boolean writeAsm = true; // scrive il codice generato in fileName+".asm" (solo per debug)
+		boolean inlining = true; // espansione delle chiamate a funzioni piccole
+		boolean constantFolding = true; // semplificazione delle espressioni costanti sull'AST
+		boolean deadCode = true; // eliminazione di funzioni, metodi e classi non raggiungibili
+		boolean memoization = true; // funzioni pure ricorsive memorizzate dalla SVM
+		boolean stackObjects = false; // oggetti che non sfuggono allocati nel frame invece che nello heap (piu' istruzioni eseguite)
+		boolean peephole = true; // ottimizzatore peephole tra generazione del codice e assemblaggio
+		boolean display = false; // display al posto della catena statica (con lloc/lout costa piu' istruzioni eseguite)
+
+    	CompilationContext ctx = new CompilationContext(); // stato di questa compilazione
 
     	CharStream chars = CharStreams.fromFileName(fileName);
     	FOOLLexer lexer = new FOOLLexer(chars);
@@ -35,9 +46,9 @@ public class Test {
     	System.out.println("");
 
     	System.out.println("Enriching AST via symbol table.");
-    	SymbolTableASTVisitor symtableVisitor = new SymbolTableASTVisitor();
+    	SymbolTableASTVisitor symtableVisitor = new SymbolTableASTVisitor(ctx);
     	symtableVisitor.visit(ast);
-    	System.out.println("You had "+symtableVisitor.stErrors+" symbol table errors.\n");
+    	System.out.println("You had "+ctx.stErrors+" symbol table errors.\n");
 
     	System.out.println("Visualizing Enriched AST.");
     	new PrintEASTVisitor().visit(ast);
@@ -45,50 +56,97 @@ public class Test {
 
     	System.out.println("Checking Types.");
     	try {
-    		TypeCheckEASTVisitor typeCheckVisitor = new TypeCheckEASTVisitor();
+    		TypeCheckEASTVisitor typeCheckVisitor = new TypeCheckEASTVisitor(ctx);
     		TypeNode mainType = typeCheckVisitor.visit(ast);
     		System.out.print("Type of main program expression is: ");
     		new PrintEASTVisitor().visit(mainType);
     	} catch (IncomplException e) {    		
     		System.out.println("Could not determine main program expression type due to errors detected before type checking.");
     	} catch (TypeException e) {
+    		ctx.typeErrors++;
     		System.out.println("Type checking error in main program expression: "+e.text); 
     	}       	
-    	System.out.println("You had "+FOOLlib.typeErrors+" type checking errors.\n");
+    	System.out.println("You had "+ctx.typeErrors+" type checking errors.\n");
 
-    	int frontEndErrors = lexer.lexicalErrors+parser.getNumberOfSyntaxErrors()+symtableVisitor.stErrors+FOOLlib.typeErrors;
+    	int frontEndErrors = lexer.lexicalErrors+parser.getNumberOfSyntaxErrors()+ctx.stErrors+ctx.typeErrors;
 		System.out.println("You had a total of "+frontEndErrors+" front-end errors.\n");
 		
 		if ( frontEndErrors > 0) System.exit(1);   
 
+    	if (inlining) {
+    		System.out.println("Inlining small functions.");
+    		InliningASTVisitor inliner = new InliningASTVisitor();
+    		ast = inliner.visit(ast);
+    		System.out.println("You had "+inliner.inlined+" inlined calls to "+inliner.functions+"\n");
+    	}
+
+    	if (constantFolding) {
+    		System.out.println("Folding constants.");
+    		ConstantFoldingASTVisitor folding = new ConstantFoldingASTVisitor();
+    		ast = folding.visit(ast);
+    		System.out.println("You had "+folding.folded+" simplified expressions.\n");
+    	}
+
+    	if (deadCode) {
+    		System.out.println("Removing unreachable declarations.");
+    		ReachabilityASTVisitor reachability = new ReachabilityASTVisitor();
+    		reachability.visit(ast);
+    		System.out.println("Removed "+reachability.removed.size()+" declarations: "+reachability.removed+"\n");
+    	}
+
+    	if (memoization) {
+    		System.out.println("Finding pure functions.");
+    		PurityASTVisitor purity = new PurityASTVisitor();
+    		purity.visit(ast);
+    		System.out.println("Pure: "+purity.pure+", memoized: "+purity.memoized+"\n");
+    	}
+
+    	if (stackObjects) {
+    		System.out.println("Finding non-escaping objects.");
+    		EscapeASTVisitor escape = new EscapeASTVisitor();
+    		escape.visit(ast);
+    		System.out.println("Allocated in the frame: "+escape.allocated+"\n");
+    	}
+
     	System.out.println("Generating code.");
-    	String code = new CodeGenerationASTVisitor().visit(ast);        
-    	BufferedWriter out = new BufferedWriter(new FileWriter(fileName+".asm")); 
-    	out.write(code);
-    	out.close(); 
+    	ctx.jumpingCode = true; // condizioni compilate come salti
+    	ctx.tailCalls = true; // chiamate in coda che riusano il frame
+    	ctx.devirtualize = true; // chiamate dirette ai metodi senza dispatch table
+    	ctx.inlineGetters = true; // lettura diretta dei campi al posto delle chiamate ai getter
+    	ctx.callInstructions = true; // istruzioni call/enter/ret al posto delle sequenze di chiamata
+    	ctx.loadInstructions = true; // una sola istruzione per leggere una variabile o un campo
+    	ctx.allocInstructions = true; // allocazione di oggetti e dispatch table in un solo passo
+    	ctx.staticData = true; // dispatch table nel segmento dati, nessuna costruzione a runtime
+    	ctx.display = display;
+    	ctx.memoize = memoization; // istruzioni memo/mret nelle funzioni marcate
+    	CodeBuffer code = new CodeGenerationASTVisitor(ctx).generate(ast);
+    	if (peephole) {
+    		PeepholeOptimizer optimizer = new PeepholeOptimizer();
+    		code = optimizer.optimize(code);
+    		System.out.println("Peephole rules applied: "+optimizer.applications());
+    	}
+    	if (writeAsm) {
+    		BufferedWriter out = new BufferedWriter(new FileWriter(fileName+".asm")); 
+    		code.writeTo(out);
+    		out.close(); 
+    	}
     	System.out.println("");
 
     	System.out.println("Assembling generated code.");
-    	CharStream charsASM = CharStreams.fromFileName(fileName+".asm");
-    	SVMLexer lexerASM = new SVMLexer(charsASM);
-    	CommonTokenStream tokensASM = new CommonTokenStream(lexerASM);
-    	SVMParser parserASM = new SVMParser(tokensASM);
-
-    	parserASM.assembly();
+    	Assembler assembler = new Assembler(code.lines()); // in memoria, senza rileggere il file .asm
 
     	// needed only for debug
-    	System.out.println("You had: "+lexerASM.lexicalErrors+" lexical errors and "+parserASM.getNumberOfSyntaxErrors()+" syntax errors.\n");
-    	if (lexerASM.lexicalErrors+parserASM.getNumberOfSyntaxErrors()>0) System.exit(1);
+    	System.out.println("You had: "+assembler.errors+" assembling errors.\n");
+    	if (assembler.errors>0) System.exit(1);
 
     	System.out.println("Running generated code via Stack Virtual Machine.");
 
 		//SVM classica
-//    	ExecuteVM vm = new ExecuteVM(parserASM.code);
+//    	ExecuteVM vm = new ExecuteVM(assembler.code,assembler.data,assembler.dataSize);
 
 		//Virtual SVM
-		ExecuteVM vm = new ExecuteVM(parserASM.code,parserASM.sourceMap,Files.readAllLines(Paths.get(fileName+".asm")));
+		ExecuteVM vm = new ExecuteVM(assembler.code,assembler.data,assembler.dataSize,assembler.sourceMap,code.lines());
 
     	vm.cpu();
     }
 }
-
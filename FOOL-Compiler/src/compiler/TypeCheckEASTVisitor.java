@@ -13,8 +13,16 @@ import static compiler.TypeRels.*;
 //visitSTentry(s) ritorna, per una STentry s, il tipo contenuto al suo interno
 public class TypeCheckEASTVisitor extends BaseEASTVisitor<TypeNode,TypeException> {
 
-	TypeCheckEASTVisitor() { super(true); } // enables incomplete tree exceptions 
-	TypeCheckEASTVisitor(boolean debug) { super(true,debug); } // enables print for debugging
+	private final CompilationContext ctx;
+
+	TypeCheckEASTVisitor(CompilationContext c) { super(true); ctx = c; } // enables incomplete tree exceptions 
+	TypeCheckEASTVisitor(CompilationContext c, boolean debug) { super(true,debug); ctx = c; } // enables print for debugging
+
+	//prints and counts a type error detected in a declaration
+	private void declarationError(TypeException e) {
+		System.out.println("Type checking error in a declaration: " + e.text);
+		ctx.typeErrors++;
+	}
 
 	//checks that a type object is visitable (not incomplete) 
 	private TypeNode ckvisit(TypeNode t) throws TypeException {
@@ -30,7 +38,7 @@ public class TypeCheckEASTVisitor extends BaseEASTVisitor<TypeNode,TypeException
 				visit(dec);
 			} catch (IncomplException e) { 
 			} catch (TypeException e) {
-				System.out.println("Type checking error in a declaration: " + e.text);
+				declarationError(e);
 			}
 		return visit(n.exp);
 	}
@@ -49,7 +57,7 @@ public class TypeCheckEASTVisitor extends BaseEASTVisitor<TypeNode,TypeException
 				visit(dec);
 			} catch (IncomplException e) { 
 			} catch (TypeException e) {
-				System.out.println("Type checking error in a declaration: " + e.text);
+				declarationError(e);
 			}
 		if ( !isSubtype(visit(n.exp),ckvisit(n.retType)) ) 
 			throw new TypeException("Wrong return type for function " + n.id,n.getLine());
@@ -225,7 +233,7 @@ public class TypeCheckEASTVisitor extends BaseEASTVisitor<TypeNode,TypeException
 			try {
 				visit(m);
 			} catch (TypeException e) {
-				System.out.println("Type checking error in a declaration: " + e.text);
+				declarationError(e);
 			}
 		});
 		return null;
@@ -239,7 +247,7 @@ public class TypeCheckEASTVisitor extends BaseEASTVisitor<TypeNode,TypeException
 				visit(dec);
 			} catch (IncomplException e) {
 			} catch (TypeException e) {
-				System.out.println("Type checking error in a declaration: " + e.text);
+				declarationError(e);
 			}
 		if ( !isSubtype(visit(n.exp),ckvisit(n.retType)) )
 			throw new TypeException("Wrong return type for function " + n.id,n.getLine());
@@ -0,0 +1,50 @@
+package compiler.lib;
+
+import java.io.*;
+import java.util.*;
+
+// sequenza di linee di codice assembly (istruzioni, etichette o linee vuote):
+// ogni linea viene aggiunta una sola volta in un buffer che cresce, evitando
+// la ricopiatura del codice dei sottoalberi ad ogni livello di annidamento
+public class CodeBuffer {
+
+	private final List<String> lines = new ArrayList<>();
+
+	// aggiunge le linee in ordine (argomenti null ignorati, come in nlJoin)
+	public CodeBuffer emit(String... ls) {
+		for (String l : ls)
+			if (l != null) lines.add(l);
+		return this;
+	}
+
+	// aggiunge in coda tutte le linee di un altro buffer
+	public CodeBuffer append(CodeBuffer c) {
+		lines.addAll(c.lines);
+		return this;
+	}
+
+	public List<String> lines() {
+		return Collections.unmodifiableList(lines);
+	}
+
+	public int size() {
+		return lines.size();
+	}
+
+	public boolean isEmpty() {
+		return lines.isEmpty();
+	}
+
+	// scrive le linee separate da "\n" (stesso formato prodotto da nlJoin)
+	public void writeTo(Writer out) throws IOException {
+		for (int i = 0; i < lines.size(); i++) {
+			if (i > 0) out.write('\n');
+			out.write(lines.get(i));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.join("\n", lines);
+	}
+}
@@ -0,0 +1,51 @@
+package compiler.lib;
+
+// stato di una singola compilazione (contatori delle etichette, codice delle
+// funzioni e numero di errori): ogni programma ha il proprio contesto, quindi
+// piu' programmi possono essere compilati anche in parallelo nella stessa JVM
+public class CompilationContext {
+
+	public int stErrors = 0;
+	public int typeErrors = 0;
+
+	// opzioni di generazione del codice
+	public boolean jumpingCode = false; // condizioni di if, && e || compilate direttamente in salti
+	public boolean tailCalls = false; // chiamate in coda compilate come salti che riusano il frame corrente
+	public boolean devirtualize = false; // chiamate dirette ai metodi di classi senza sottoclassi
+	public boolean inlineGetters = false; // chiamate ai getter sostituite dalla lettura del campo
+	public boolean callInstructions = false; // chiamate e ritorni con le istruzioni call, callm, enter e ret della SVM
+	public boolean loadInstructions = false; // accesso a variabili e campi con le istruzioni lloc, lout, lfield e sloc della SVM
+	public boolean allocInstructions = false; // oggetti e dispatch table allocati con le istruzioni new e alloc della SVM
+	public boolean staticData = false; // dispatch table (e display) nel segmento dati, preparate dal loader
+	public boolean display = false; // frame esterni raggiunti tramite display invece che risalendo la catena statica
+	public boolean memoize = false; // funzioni marcate memoized con le istruzioni memo e mret della SVM (con callInstructions)
+
+	private int labCount = 0;
+
+	public String freshLabel() {
+		return "label"+(labCount++);
+	}
+
+	private int funlabCount = 0;
+
+	public String freshFunLabel() {
+		return "function"+(funlabCount++);
+	}
+
+	private int memoCount = 0;
+
+	public int freshMemoTable() {
+		return memoCount++;
+	}
+
+	private final CodeBuffer funCode = new CodeBuffer();
+
+	public void putCode(CodeBuffer c) {
+		funCode.emit(""); //linea vuota di separazione prima di codice funzione
+		funCode.append(c);
+	}
+
+	public CodeBuffer getCode() {
+		return funCode;
+	}
+}
@@ -0,0 +1,93 @@
+package svm;
+
+import java.util.*;
+
+// assembla in memoria le linee di codice prodotte dal compilatore, senza
+// scriverle su file e senza rileggerle con SVMLexer/SVMParser: produce gli
+// stessi array "code", "sourceMap" e "data" delle azioni di SVM.g4.
+// Le linee di testo restano la rappresentazione del codice perche' sono condivise da
+// CodeGenerationASTVisitor, IRCodeGenerator, PeepholeOptimizer (che riscrive sequenze di
+// linee), dal file .asm e dal listato della visual SVM (sourceMap); l'assemblaggio e' un
+// solo passo lineare, senza ANTLR, e costa meno di un millisecondo anche con 64 funzioni
+public class Assembler {
+
+    // opcode di ogni istruzione, ricavati dai literal del vocabolario di SVMParser
+    private static final Map<String,Integer> OPCODES = new HashMap<>();
+    static {
+        for (int t = 1; t <= SVMParser.VOCABULARY.getMaxTokenType(); t++) {
+            String literal = SVMParser.VOCABULARY.getLiteralName(t);
+            if (literal != null && t != SVMParser.COL)
+                OPCODES.put(literal.substring(1, literal.length() - 1), t);
+        }
+    }
+
+    public int[] code = new int[ExecuteVM.CODESIZE];
+    public int[] sourceMap = new int[ExecuteVM.CODESIZE]; // linea sorgente di ogni cella di code
+    public int[] data = new int[ExecuteVM.MEMSIZE]; // segmento dati (direttive word), caricato dall'indirizzo 0
+    public int dataSize = 0;
+    public int errors = 0;
+
+    private int i = 0;
+    private Map<String,Integer> labelDef = new HashMap<>();
+    private Map<Integer,String> labelRef = new HashMap<>();
+    private Map<Integer,String> dataRef = new HashMap<>();
+
+    public Assembler(List<String> lines) {
+        for (int line = 0; line < lines.size(); line++)
+            instruction(lines.get(line).trim(), line);
+        for (Integer j : labelRef.keySet()) {
+            Integer address = labelDef.get(labelRef.get(j));
+            if (address == null) {
+                System.out.println("Undefined label " + labelRef.get(j));
+                errors++;
+            } else
+                code[j] = address;
+        }
+        for (Integer j : dataRef.keySet()) {
+            Integer address = labelDef.get(dataRef.get(j));
+            if (address == null) {
+                System.out.println("Undefined label " + dataRef.get(j));
+                errors++;
+            } else
+                data[j] = address;
+        }
+    }
+
+    // numero di celle di code occupate dal programma
+    public int size() {
+        return i;
+    }
+
+    private void instruction(String text, int line) {
+        if (text.isEmpty()) return;
+        if (text.endsWith(":")) {
+            labelDef.put(text.substring(0, text.length() - 1), i);
+            return;
+        }
+        String[] tokens = text.split(" ");
+        if (tokens[0].equals("word")) { // parola del segmento dati: intero o etichetta
+            if (Character.isLetter(tokens[1].charAt(0))) dataRef.put(dataSize++, tokens[1]);
+            else data[dataSize++] = Integer.parseInt(tokens[1]);
+            return;
+        }
+        Integer opcode = OPCODES.get(tokens[0]);
+        if (opcode == null) {
+            System.out.println("Invalid instruction: " + text + " at line " + (line + 1));
+            errors++;
+            return;
+        }
+        put(opcode, line);
+        for (int k = 1; k < tokens.length; k++) // argomenti: interi o etichette
+            if (Character.isLetter(tokens[k].charAt(0))) {
+                labelRef.put(i, tokens[k]);
+                put(0, line);
+            } else
+                put(Integer.parseInt(tokens[k]), line);
+    }
+
+    private void put(int word, int line) {
+        code[i] = word;
+        sourceMap[i] = line;
+        i++;
+    }
+}
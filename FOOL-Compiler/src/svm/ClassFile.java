@@ -0,0 +1,378 @@
+package svm;
+
+import java.io.*;
+import java.util.*;
+
+// scrittura minima di un class file, usata da JitCompiler e dal backend JVM del compilatore:
+// constant pool, campi e metodi il cui bytecode viene prodotto con Method. La versione 49 non
+// richiede la StackMapTable: il verificatore ricava da solo i tipi di stack e variabili locali.
+// La profondita' massima dello stack degli operandi di ogni metodo e' calcolata durante
+// l'emissione, seguendo l'effetto di ogni istruzione (anche attraverso le etichette).
+public class ClassFile {
+
+    public static final int ACONST_NULL = 0x01, ICONST_0 = 0x03, LCONST_0 = 0x09, BIPUSH = 0x10,
+            SIPUSH = 0x11, LDC_W = 0x13, ILOAD = 0x15, LLOAD = 0x16, ALOAD = 0x19, IALOAD = 0x2e,
+            LALOAD = 0x2f, ISTORE = 0x36, LSTORE = 0x37, ASTORE = 0x3a, IASTORE = 0x4f, LASTORE = 0x50,
+            POP = 0x57, DUP = 0x59, DUP2 = 0x5c, IADD = 0x60, LADD = 0x61, ISUB = 0x64, IMUL = 0x68,
+            IDIV = 0x6c, IXOR = 0x82, IINC = 0x84, I2L = 0x85, IFEQ = 0x99, IFNE = 0x9a, IF_ICMPEQ = 0x9f,
+            IF_ICMPLT = 0xa1, IF_ICMPGE = 0xa2, IF_ICMPLE = 0xa4, IF_ACMPEQ = 0xa5, GOTO = 0xa7,
+            LOOKUPSWITCH = 0xab, IRETURN = 0xac, ARETURN = 0xb0, RETURN = 0xb1, GETSTATIC = 0xb2,
+            PUTSTATIC = 0xb3, GETFIELD = 0xb4, PUTFIELD = 0xb5, INVOKEVIRTUAL = 0xb6,
+            INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8, NEW = 0xbb, ATHROW = 0xbf, CHECKCAST = 0xc0,
+            IFNULL = 0xc6;
+
+    public static final int PUBLIC = 0x0001, STATIC = 0x0008;
+
+    private final String name, superName;
+    private final String[] interfaces;
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private final Map<String,Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+    private final List<int[]> fields = new ArrayList<>(); // {accesso, nome, descrittore}
+    private final List<Method> methods = new ArrayList<>();
+
+    public ClassFile(String name, String superName, String... interfaces) {
+        this.name = name;
+        this.superName = superName;
+        this.interfaces = interfaces;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    // costruttore pubblico senza argomenti, che chiama solo quello della superclasse
+    public void defaultConstructor() {
+        Method init = method(PUBLIC, "<init>", "()V", 1);
+        init.aload(0);
+        init.invoke(INVOKESPECIAL, superName, "<init>", "()V");
+        init.op(RETURN);
+    }
+
+    public void field(int access, String fieldName, String descriptor) {
+        fields.add(new int[] {access, utf8(fieldName), utf8(descriptor)});
+    }
+
+    // maxLocals comprende this e i parametri; cresce da solo con le variabili locali usate dal bytecode
+    public Method method(int access, String methodName, String descriptor, int maxLocals) {
+        Method m = new Method(access, utf8(methodName), utf8(descriptor), maxLocals);
+        methods.add(m);
+        return m;
+    }
+
+    public byte[] toBytes() {
+        int thisClass = classRef(name), superClass = classRef(superName);
+        int[] interfaceRefs = new int[interfaces.length];
+        for (int i = 0; i < interfaces.length; i++) interfaceRefs[i] = classRef(interfaces[i]);
+        int codeName = utf8("Code");
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(49);
+            out.writeShort(poolCount);
+            pool.writeTo(out);
+            out.writeShort(0x0021); // public, super
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaceRefs.length);
+            for (int i : interfaceRefs) out.writeShort(i);
+            out.writeShort(fields.size());
+            for (int[] f : fields) {
+                out.writeShort(f[0]);
+                out.writeShort(f[1]);
+                out.writeShort(f[2]);
+                out.writeShort(0); // attributi
+            }
+            out.writeShort(methods.size());
+            for (Method m : methods) m.writeTo(out, codeName);
+            out.writeShort(0); // attributi
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int entry(String key, int tag, DataWriter writer) {
+        Integer index = poolIndex.get(key);
+        if (index != null) return index;
+        try {
+            poolOut.writeByte(tag);
+            writer.write(poolOut);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        poolIndex.put(key, poolCount);
+        return poolCount++;
+    }
+
+    private interface DataWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private int utf8(String s) {
+        return entry("U" + s, 1, out -> out.writeUTF(s));
+    }
+
+    private int integer(int v) {
+        return entry("I" + v, 3, out -> out.writeInt(v));
+    }
+
+    private int string(String s) {
+        int u = utf8(s);
+        return entry("S" + s, 8, out -> out.writeShort(u));
+    }
+
+    private int classRef(String className) {
+        int n = utf8(className);
+        return entry("C" + className, 7, out -> out.writeShort(n));
+    }
+
+    private int memberRef(int tag, String owner, String memberName, String descriptor) {
+        int c = classRef(owner), n = utf8(memberName), d = utf8(descriptor);
+        int nt = entry("N" + memberName + " " + descriptor, 12, out -> { out.writeShort(n); out.writeShort(d); });
+        return entry(tag + owner + "." + memberName + descriptor, tag, out -> { out.writeShort(c); out.writeShort(nt); });
+    }
+
+    // celle di stack occupate da un valore del descrittore (0 per void)
+    private static int size(String descriptor) {
+        char c = descriptor.charAt(0);
+        return c == 'V' ? 0 : c == 'J' || c == 'D' ? 2 : 1;
+    }
+
+    // celle di stack degli argomenti e del risultato di un descrittore di metodo
+    private static int[] sizes(String descriptor) {
+        int args = 0, i = 1;
+        while (descriptor.charAt(i) != ')') {
+            char c = descriptor.charAt(i);
+            args += c == 'J' || c == 'D' ? 2 : 1;
+            while (descriptor.charAt(i) == '[') i++;
+            i = descriptor.charAt(i) == 'L' ? descriptor.indexOf(';', i) + 1 : i + 1;
+        }
+        return new int[] {args, size(descriptor.substring(i + 1))};
+    }
+
+    // punto del bytecode, definito con Method.place() anche dopo i salti che lo usano;
+    // depth e' la profondita' dello stack in quel punto (-1 finche' non e' nota)
+    public static class Label {
+        int position = -1;
+        int depth = -1;
+    }
+
+    // bytecode di un metodo; gli offset dei salti sono risolti in writeTo()
+    public class Method {
+        private final int access, nameIndex, descriptorIndex;
+        private int maxLocals;
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        private final List<int[]> fixups = new ArrayList<>(); // {posizione dell'offset, istruzione, larghezza}
+        private final List<Label> fixupLabels = new ArrayList<>();
+        private final List<Label[]> handlers = new ArrayList<>(); // {inizio, fine, gestore}
+        private int depth = 0, maxStack = 0;
+
+        private Method(int access, int nameIndex, int descriptorIndex, int maxLocals) {
+            this.access = access;
+            this.nameIndex = nameIndex;
+            this.descriptorIndex = descriptorIndex;
+            this.maxLocals = maxLocals;
+        }
+
+        private void stack(int delta) {
+            depth += delta;
+            maxStack = Math.max(maxStack, depth);
+        }
+
+        // istruzioni senza operandi
+        public void op(int opcode) {
+            code.write(opcode);
+            switch (opcode) {
+                case ACONST_NULL: case DUP: case I2L:
+                    stack(1);
+                    break;
+                case LCONST_0: case DUP2:
+                    stack(2);
+                    break;
+                case IALOAD: case POP: case IADD: case ISUB: case IMUL: case IDIV: case IXOR: case IRETURN: case ARETURN:
+                case ATHROW:
+                    stack(-1);
+                    break;
+                case LADD:
+                    stack(-2);
+                    break;
+                case IASTORE:
+                    stack(-3);
+                    break;
+                case LASTORE:
+                    stack(-4);
+                    break;
+                default:
+                    if (opcode >= ICONST_0 - 1 && opcode <= ICONST_0 + 5) stack(1);
+            }
+        }
+
+        private void u1(int v) {
+            code.write(v);
+        }
+
+        private void u2(int v) {
+            code.write(v >> 8);
+            code.write(v);
+        }
+
+        private void u4(int v) {
+            u2(v >> 16);
+            u2(v);
+        }
+
+        public void iconst(int v) {
+            if (v >= -1 && v <= 5) op(ICONST_0 + v);
+            else if (v >= Byte.MIN_VALUE && v <= Byte.MAX_VALUE) { u1(BIPUSH); u1(v); stack(1); }
+            else if (v >= Short.MIN_VALUE && v <= Short.MAX_VALUE) { u1(SIPUSH); u2(v); stack(1); }
+            else { u1(LDC_W); u2(integer(v)); stack(1); }
+        }
+
+        public void ldc(String s) {
+            u1(LDC_W);
+            u2(string(s));
+            stack(1);
+        }
+
+        private void local(int opcode, int local, int delta) {
+            maxLocals = Math.max(maxLocals, local + (opcode == LLOAD || opcode == LSTORE ? 2 : 1));
+            u1(opcode);
+            u1(local);
+            stack(delta);
+        }
+
+        public void iload(int local) { local(ILOAD, local, 1); }
+
+        public void istore(int local) { local(ISTORE, local, -1); }
+
+        public void aload(int local) { local(ALOAD, local, 1); }
+
+        public void astore(int local) { local(ASTORE, local, -1); }
+
+        public void lload(int local) { local(LLOAD, local, 2); }
+
+        public void lstore(int local) { local(LSTORE, local, -2); }
+
+        public void iinc(int local, int delta) {
+            if (delta >= Byte.MIN_VALUE && delta <= Byte.MAX_VALUE) {
+                maxLocals = Math.max(maxLocals, local + 1);
+                u1(IINC);
+                u1(local);
+                u1(delta);
+            } else {
+                iload(local);
+                iconst(delta);
+                op(IADD);
+                istore(local);
+            }
+        }
+
+        // NEW, CHECKCAST
+        public void type(int opcode, String className) {
+            u1(opcode);
+            u2(classRef(className));
+            if (opcode == NEW) stack(1);
+        }
+
+        // GETSTATIC, PUTSTATIC, GETFIELD, PUTFIELD
+        public void field(int opcode, String owner, String fieldName, String descriptor) {
+            u1(opcode);
+            u2(memberRef(9, owner, fieldName, descriptor));
+            int s = size(descriptor);
+            stack(opcode == GETSTATIC ? s : opcode == PUTSTATIC ? -s : opcode == GETFIELD ? s - 1 : -s - 1);
+        }
+
+        // INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC
+        public void invoke(int opcode, String owner, String methodName, String descriptor) {
+            u1(opcode);
+            u2(memberRef(10, owner, methodName, descriptor));
+            int[] s = sizes(descriptor);
+            stack(-s[0] - (opcode == INVOKESTATIC ? 0 : 1) + s[1]);
+        }
+
+        public void invokestatic(String owner, String methodName, String descriptor) {
+            invoke(INVOKESTATIC, owner, methodName, descriptor);
+        }
+
+        // GOTO, IFxx e IF_xCMPxx verso "target"
+        public void jump(int opcode, Label target) {
+            int at = code.size();
+            u1(opcode);
+            fixups.add(new int[] {code.size(), at, 2});
+            fixupLabels.add(target);
+            u2(0);
+            if (opcode == IFEQ || opcode == IFNE || opcode == IFNULL) stack(-1);
+            else if (opcode != GOTO) stack(-2);
+            target.depth = depth;
+        }
+
+        public void lookupswitch(int[] keys, Label[] targets, Label otherwise) {
+            int at = code.size();
+            u1(LOOKUPSWITCH);
+            stack(-1);
+            while (code.size() % 4 != 0) u1(0);
+            fixups.add(new int[] {code.size(), at, 4});
+            fixupLabels.add(otherwise);
+            otherwise.depth = depth;
+            u4(0);
+            u4(keys.length);
+            for (int i = 0; i < keys.length; i++) { // chiavi in ordine crescente
+                u4(keys[i]);
+                fixups.add(new int[] {code.size(), at, 4});
+                fixupLabels.add(targets[i]);
+                targets[i].depth = depth;
+                u4(0);
+            }
+        }
+
+        public void place(Label label) {
+            label.position = code.size();
+            if (label.depth >= 0) depth = label.depth;
+            else label.depth = depth;
+        }
+
+        // qualunque eccezione sollevata fra start e end salta a handler, con l'eccezione sullo stack
+        public void handler(Label start, Label end, Label handler) {
+            handlers.add(new Label[] {start, end, handler});
+            handler.depth = 1;
+            maxStack = Math.max(maxStack, 1);
+        }
+
+        private void writeTo(DataOutputStream out, int codeName) throws IOException {
+            byte[] bytes = code.toByteArray();
+            if (bytes.length > 65535) throw new IllegalStateException("Method too large");
+            for (int i = 0; i < fixups.size(); i++) {
+                int[] f = fixups.get(i);
+                int offset = fixupLabels.get(i).position - f[1];
+                if (f[2] == 2) {
+                    if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) throw new IllegalStateException("Jump too far");
+                    bytes[f[0]] = (byte) (offset >> 8);
+                    bytes[f[0] + 1] = (byte) offset;
+                } else
+                    for (int k = 0; k < 4; k++) bytes[f[0] + k] = (byte) (offset >> (24 - 8 * k));
+            }
+            out.writeShort(access);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            out.writeShort(1);
+            out.writeShort(codeName);
+            out.writeInt(12 + bytes.length + 8 * handlers.size());
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeShort(handlers.size());
+            for (Label[] h : handlers) {
+                out.writeShort(h[0].position);
+                out.writeShort(h[1].position);
+                out.writeShort(h[2].position);
+                out.writeShort(0); // qualunque eccezione
+            }
+            out.writeShort(0); // attributi
+        }
+    }
+}
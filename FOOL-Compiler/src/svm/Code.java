@@ -0,0 +1,35 @@
+package svm;
+
+// formato del codice della SVM condiviso dalle macchine che lo traducono prima di eseguirlo
+// (DecodedExecuteVM, JitCompiler, RegisterCode): un nuovo opcode con operandi va aggiunto
+// solo qui, oltre che in ExecuteVM
+final class Code {
+
+    private Code() {}
+
+    // numero di parole che seguono l'opcode nel codice
+    static int operands(int opcode) {
+        switch (opcode) {
+            case SVMParser.PUSH: case SVMParser.BRANCH: case SVMParser.BRANCHEQ: case SVMParser.BRANCHLESSEQ:
+            case SVMParser.CALLM: case SVMParser.BRANCHMETHOD: case SVMParser.RET: case SVMParser.LOADLOCAL:
+            case SVMParser.LOADFIELD: case SVMParser.STORELOCAL: case SVMParser.ALLOC: case SVMParser.NEW:
+                return 1;
+            case SVMParser.CALL: case SVMParser.LOADOUTER: case SVMParser.MEMO: case SVMParser.MEMORET:
+                return 2;
+            default:
+                return 0;
+        }
+    }
+
+    // indirizzo dell'istruzione che segue quella in w
+    static int next(int[] code, int w) {
+        return w + 1 + operands(code[w]);
+    }
+
+    // code[] e' lungo CODESIZE: lunghezza fino all'ultima parola usata
+    static int length(int[] code) {
+        int n = code.length;
+        while (n > 0 && code[n - 1] == 0) n--;
+        return n;
+    }
+}
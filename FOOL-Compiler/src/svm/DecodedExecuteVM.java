@@ -0,0 +1,333 @@
+package svm;
+
+import java.util.*;
+
+// interprete alternativo a ExecuteVM, con lo stesso comportamento (stampe, istruzioni eseguite
+// e profondita' massima dello stack): code[] viene decodificato una sola volta in array paralleli
+// indicizzati per indirizzo di istruzione, con gli argomenti gia' estratti e l'indirizzo
+// dell'istruzione seguente gia' calcolato. Alcune sequenze frequenti del codice generato
+// vengono fuse in una sola istruzione decodificata:
+//   lfp / lw*d / push o / add / lw   -> OUTER d o   (lettura di una variabile)
+//   lfp / push o / add / sw          -> STLOCAL o   (scrittura nel frame corrente)
+//   lfp / lw*d                       -> FRAME d     (Access Link)
+//   push c / add                     -> ADDI c
+//   push c / lw                      -> ABS c       (lettura a indirizzo costante)
+//   push c / beq l                   -> BEQC c l
+//   stm / ltm / ltm                  -> DUP
+//   lhp / push c / add / shp         -> ADDHP c
+// La fusione riscrive solo l'istruzione iniziale della sequenza: le altre restano decodificate
+// singolarmente, quindi un salto nel mezzo di una sequenza (anche a un indirizzo calcolato a
+// runtime) esegue le istruzioni originali. Ogni istruzione decodificata occupa quattro interi
+// consecutivi di program[] (opcode e numero di istruzioni originali, due argomenti, indirizzo
+// dell'istruzione seguente). I registri sono campi, come in ExecuteVM: tenuti tutti in variabili
+// locali di cpu() rendevano il codice compilato dal JIT piu' lento di quello di ExecuteVM.
+public class DecodedExecuteVM implements Interpreter {
+
+    public static final int MEMSIZE = ExecuteVM.MEMSIZE;
+
+    // opcode delle istruzioni fuse, oltre quelli di SVMParser
+    private static final int OUTER = 100, STLOCAL = 101, FRAME = 102, ADDI = 103, ABS = 104,
+            BEQC = 105, DUP = 106, ADDHP = 107;
+
+    private static final Map<int[], int[]> cache = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int[] program;
+    private final int[] memory = new int[MEMSIZE];
+
+    private int hp = 0;
+    private int ip = 0, sp = MEMSIZE, fp = MEMSIZE, ra = 0, tm = 0;
+    private long executed = 0;
+    private int heapStart = 0; // primo indirizzo dello heap, dopo il segmento dati
+    private int minSp = MEMSIZE;
+    private final MemoTable memo = new MemoTable();
+
+    public DecodedExecuteVM(int[] code) {
+        this(code, new int[0], 0);
+    }
+
+    public DecodedExecuteVM(int[] code, int[] data, int dataSize) {
+        program = cache.computeIfAbsent(code, DecodedExecuteVM::decode);
+        System.arraycopy(data, 0, memory, 0, dataSize);
+        hp = heapStart = dataSize;
+    }
+
+    private static int[] decode(int[] code) {
+        int n = Code.length(code); // si decodifica solo fino all'ultima parola usata
+        int[] program = new int[4 * n];
+        for (int w = 0; w < n; w = Code.next(code, w)) {
+            int operands = Code.operands(code[w]);
+            set(program, w, code[w], w + 1 < n && operands > 0 ? code[w + 1] : 0, w + 2 < n && operands > 1 ? code[w + 2] : 0,
+                    Math.min(w + 1 + operands, n), 1);
+        }
+        for (int w = 0; w < n; w = Code.next(code, w)) fuse(program, code, n, w);
+        return program;
+    }
+
+    private static boolean is(int[] code, int n, int w, int opcode) {
+        return w < n && code[w] == opcode;
+    }
+
+    // sostituisce l'istruzione in w con la sequenza fusa che inizia in w, se ce n'e' una
+    private static void fuse(int[] program, int[] code, int n, int w) {
+        int w1 = Code.next(code, w);
+        if (is(code, n, w, SVMParser.LOADFP)) {
+            int d = 0, x = w1;
+            while (is(code, n, x, SVMParser.LOADW)) { d++; x = Code.next(code, x); }
+            int y = Code.next(code, x), z = y < n ? Code.next(code, y) : y;
+            if (is(code, n, x, SVMParser.PUSH) && is(code, n, y, SVMParser.ADD) && is(code, n, z, SVMParser.LOADW))
+                set(program, w, OUTER, d, code[x + 1], Code.next(code, z), d + 4);
+            else if (d == 0 && is(code, n, x, SVMParser.PUSH) && is(code, n, y, SVMParser.ADD) && is(code, n, z, SVMParser.STOREW))
+                set(program, w, STLOCAL, code[x + 1], 0, Code.next(code, z), 4);
+            else if (d > 0)
+                set(program, w, FRAME, d, 0, x, d + 1);
+        } else if (is(code, n, w, SVMParser.PUSH) && w1 < n) {
+            if (is(code, n, w1, SVMParser.ADD)) set(program, w, ADDI, code[w + 1], 0, Code.next(code, w1), 2);
+            else if (is(code, n, w1, SVMParser.LOADW)) set(program, w, ABS, code[w + 1], 0, Code.next(code, w1), 2);
+            else if (is(code, n, w1, SVMParser.BRANCHEQ)) set(program, w, BEQC, code[w + 1], code[w1 + 1], Code.next(code, w1), 2);
+        } else if (is(code, n, w, SVMParser.STORETM) && is(code, n, w1, SVMParser.LOADTM)
+                && is(code, n, Code.next(code, w1), SVMParser.LOADTM)) {
+            set(program, w, DUP, 0, 0, Code.next(code, Code.next(code, w1)), 3);
+        } else if (is(code, n, w, SVMParser.LOADHP) && is(code, n, w1, SVMParser.PUSH)) {
+            int y = Code.next(code, w1), z = y < n ? Code.next(code, y) : y;
+            if (is(code, n, y, SVMParser.ADD) && is(code, n, z, SVMParser.STOREHP))
+                set(program, w, ADDHP, code[w1 + 1], 0, Code.next(code, z), 4);
+        }
+    }
+
+    // opcode nei bit 0-7, numero di istruzioni originali dal bit 8
+    private static void set(int[] program, int w, int o, int a1, int a2, int n, int c) {
+        program[4 * w] = o | c << 8;
+        program[4 * w + 1] = a1;
+        program[4 * w + 2] = a2;
+        program[4 * w + 3] = n;
+    }
+
+    public void cpu() {
+        final int[] memory = this.memory, program = this.program;
+        while (true) {
+            int w = 4 * ip, head = program[w];
+            ip = program[w + 3];
+            executed += head >>> 8;
+            int v1, v2, address;
+            switch (head & 255) {
+                case SVMParser.PUSH:
+                    memory[--sp] = program[w + 1];
+                    if (sp < minSp) minSp = sp;
+                    break;
+                case SVMParser.POP:
+                    sp++;
+                    break;
+                case SVMParser.ADD:
+                    v1 = memory[sp++];
+                    memory[sp] = memory[sp] + v1;
+                    break;
+                case SVMParser.MULT:
+                    v1 = memory[sp++];
+                    memory[sp] = memory[sp] * v1;
+                    break;
+                case SVMParser.DIV:
+                    v1 = memory[sp++];
+                    memory[sp] = memory[sp] / v1;
+                    break;
+                case SVMParser.SUB:
+                    v1 = memory[sp++];
+                    memory[sp] = memory[sp] - v1;
+                    break;
+                case SVMParser.STOREW:
+                    address = memory[sp++];
+                    memory[address] = memory[sp++];
+                    break;
+                case SVMParser.LOADW:
+                    memory[sp] = memory[memory[sp]];
+                    break;
+                case SVMParser.BRANCH:
+                    ip = program[w + 1];
+                    break;
+                case SVMParser.BRANCHEQ:
+                    v1 = memory[sp++];
+                    v2 = memory[sp++];
+                    if (v2 == v1) ip = program[w + 1];
+                    break;
+                case SVMParser.BRANCHLESSEQ:
+                    v1 = memory[sp++];
+                    v2 = memory[sp++];
+                    if (v2 <= v1) ip = program[w + 1];
+                    break;
+                case SVMParser.JS:
+                    ra = ip;
+                    ip = memory[sp++];
+                    break;
+                case SVMParser.STORERA:
+                    ra = memory[sp++];
+                    break;
+                case SVMParser.LOADRA:
+                    memory[--sp] = ra;
+                    if (sp < minSp) minSp = sp;
+                    break;
+                case SVMParser.STORETM:
+                    tm = memory[sp++];
+                    break;
+                case SVMParser.LOADTM:
+                    memory[--sp] = tm;
+                    if (sp < minSp) minSp = sp;
+                    break;
+                case SVMParser.LOADFP:
+                    memory[--sp] = fp;
+                    if (sp < minSp) minSp = sp;
+                    break;
+                case SVMParser.STOREFP:
+                    fp = memory[sp++];
+                    break;
+                case SVMParser.COPYFP:
+                    fp = sp;
+                    break;
+                case SVMParser.STOREHP:
+                    hp = memory[sp++];
+                    break;
+                case SVMParser.LOADHP:
+                    memory[--sp] = hp;
+                    if (sp < minSp) minSp = sp;
+                    break;
+                case SVMParser.CALL:
+                    address = fp;
+                    for (int d = program[w + 1]; d > 0; d--) address = memory[address];
+                    memory[--sp] = address;
+                    if (sp < minSp) minSp = sp;
+                    ra = ip;
+                    ip = memory[address + program[w + 2]];
+                    break;
+                case SVMParser.CALLM:
+                    ra = ip;
+                    ip = memory[memory[memory[sp]] + program[w + 1]];
+                    break;
+                case SVMParser.BRANCHMETHOD:
+                    ip = memory[memory[memory[sp]] + program[w + 1]];
+                    break;
+                case SVMParser.ENTER:
+                    fp = sp;
+                    memory[--sp] = ra;
+                    if (sp < minSp) minSp = sp;
+                    break;
+                case SVMParser.RET:
+                    v1 = program[w + 1];
+                    v2 = memory[sp];
+                    ra = memory[fp - 1];
+                    sp = fp + v1 + 1;
+                    fp = memory[fp + v1 + 1];
+                    memory[sp] = v2;
+                    ip = ra;
+                    break;
+                case SVMParser.MEMO:
+                    v1 = program[w + 2];
+                    if (memo.find(program[w + 1], memory, fp + 1, v1)) {
+                        ra = memory[fp - 1];
+                        sp = fp + v1 + 1;
+                        fp = memory[fp + v1 + 1];
+                        memory[sp] = memo.value();
+                        ip = ra;
+                    }
+                    break;
+                case SVMParser.MEMORET:
+                    v1 = program[w + 2];
+                    v2 = memory[sp];
+                    memo.store(program[w + 1], memory, fp + 1, v1, v2);
+                    ra = memory[fp - 1];
+                    sp = fp + v1 + 1;
+                    fp = memory[fp + v1 + 1];
+                    memory[sp] = v2;
+                    ip = ra;
+                    break;
+                case SVMParser.LOADLOCAL:
+                    memory[--sp] = memory[fp + program[w + 1]];
+                    if (sp < minSp) minSp = sp;
+                    break;
+                case SVMParser.LOADOUTER:
+                    address = fp;
+                    for (int d = program[w + 1]; d > 0; d--) address = memory[address];
+                    memory[--sp] = memory[address + program[w + 2]];
+                    if (sp < minSp) minSp = sp;
+                    break;
+                case OUTER: // l'offset era sullo stack sopra l'indirizzo
+                    address = fp;
+                    for (int d = program[w + 1]; d > 0; d--) address = memory[address];
+                    memory[--sp] = memory[address + program[w + 2]];
+                    if (sp - 1 < minSp) minSp = sp - 1;
+                    break;
+                case SVMParser.LOADFIELD:
+                    memory[sp] = memory[memory[sp] + program[w + 1]];
+                    break;
+                case SVMParser.STORELOCAL:
+                    memory[fp + program[w + 1]] = memory[sp++];
+                    break;
+                case STLOCAL: // valore, $fp e offset sullo stack
+                    if (sp - 2 < minSp) minSp = sp - 2;
+                    memory[fp + program[w + 1]] = memory[sp++];
+                    break;
+                case SVMParser.ALLOC:
+                    v1 = program[w + 1];
+                    for (int k = 0; k < v1; k++) memory[hp + v1 - 1 - k] = memory[sp++];
+                    memory[--sp] = hp;
+                    if (sp < minSp) minSp = sp;
+                    hp += v1;
+                    break;
+                case SVMParser.NEW:
+                    v1 = program[w + 1];
+                    address = hp + v1;
+                    memory[address] = memory[sp++];
+                    for (int k = 0; k < v1; k++) memory[hp + k] = memory[sp++];
+                    hp = address + 1;
+                    memory[--sp] = address;
+                    if (sp < minSp) minSp = sp;
+                    break;
+                case FRAME:
+                    address = fp;
+                    for (int d = program[w + 1]; d > 0; d--) address = memory[address];
+                    memory[--sp] = address;
+                    if (sp < minSp) minSp = sp;
+                    break;
+                case ADDI:
+                    if (sp - 1 < minSp) minSp = sp - 1;
+                    memory[sp] += program[w + 1];
+                    break;
+                case ABS:
+                    memory[--sp] = memory[program[w + 1]];
+                    if (sp < minSp) minSp = sp;
+                    break;
+                case BEQC:
+                    if (sp - 1 < minSp) minSp = sp - 1;
+                    if (memory[sp++] == program[w + 1]) ip = program[w + 2];
+                    break;
+                case DUP:
+                    tm = memory[sp];
+                    memory[--sp] = tm;
+                    if (sp < minSp) minSp = sp;
+                    break;
+                case ADDHP:
+                    if (sp - 2 < minSp) minSp = sp - 2;
+                    hp += program[w + 1];
+                    break;
+                case SVMParser.PRINT:
+                    System.out.println((sp < MEMSIZE) ? memory[sp] : "Empty stack!");
+                    break;
+                case SVMParser.HALT:
+                    return;
+            }
+        }
+    }
+
+    public long executedInstructions() {
+        return executed;
+    }
+
+    public int maxStackDepth() {
+        return MEMSIZE - minSp;
+    }
+
+    public int heapSize() {
+        return hp - heapStart;
+    }
+
+    public MemoTable memoTable() {
+        return memo;
+    }
+}
@@ -1,5 +1,5 @@
 package svm;
-public class ExecuteVM {
+public class ExecuteVM implements Interpreter {
     
     public static final int CODESIZE = 10000;
     public static final int MEMSIZE = 10000;
@@ -14,14 +14,27 @@ public class ExecuteVM {
     private int fp = MEMSIZE; 
     private int ra;           
     private int tm;
+
+    private long executed = 0; // istruzioni eseguite (per misurare l'effetto delle ottimizzazioni)
+    private int heapStart = 0; // primo indirizzo dello heap, dopo il segmento dati
+    private int minSp = MEMSIZE; // cima dello stack piu' profonda raggiunta
+    private final MemoTable memo = new MemoTable();
     
     public ExecuteVM(int[] code) {
       this.code = code;
     }
+
+    // il segmento dati (dataSize parole) viene copiato all'inizio della memoria, lo heap parte dopo
+    public ExecuteVM(int[] code, int[] data, int dataSize) {
+      this.code = code;
+      System.arraycopy(data, 0, memory, 0, dataSize);
+      hp = heapStart = dataSize;
+    }
     
     public void cpu() {
       while ( true ) {
         int bytecode = code[ip++]; // fetch
+        executed++;
         int v1,v2;
         int address;
         switch ( bytecode ) {
@@ -106,6 +119,91 @@ public class ExecuteVM {
          case SVMParser.LOADHP : //
             push(hp);
             break;
+         case SVMParser.CALL : // Access Link: d passi della catena statica da $fp
+            v1 = code[ip++];
+            v2 = code[ip++];
+            address = fp;
+            for (int d = 0; d < v1; d++) address = memory[address];
+            push(address);
+            ra = ip;
+            ip = memory[address + v2];
+            break;
+         case SVMParser.CALLM : // metodo v1 della dispatch table dell'oggetto in cima allo stack
+            v1 = code[ip++];
+            address = memory[memory[sp]];
+            ra = ip;
+            ip = memory[address + v1];
+            break;
+         case SVMParser.BRANCHMETHOD : // come callm senza cambiare $ra (chiamata in coda)
+            v1 = code[ip++];
+            address = memory[memory[sp]];
+            ip = memory[address + v1];
+            break;
+         case SVMParser.ENTER :
+            fp = sp;
+            push(ra);
+            break;
+         case SVMParser.RET : // frame di una funzione con v1 parametri
+            v1 = code[ip++];
+            v2 = pop(); // risultato
+            ra = memory[fp - 1];
+            sp = fp + v1 + 2;
+            fp = memory[fp + v1 + 1]; // Control Link
+            push(v2);
+            ip = ra;
+            break;
+         case SVMParser.MEMO : // risultato gia' calcolato per i v2 parametri: ritorna come ret v2
+            v1 = code[ip++];
+            v2 = code[ip++];
+            if (memo.find(v1, memory, fp + 1, v2)) {
+              ra = memory[fp - 1];
+              sp = fp + v2 + 2;
+              fp = memory[fp + v2 + 1];
+              push(memo.value());
+              ip = ra;
+            }
+            break;
+         case SVMParser.MEMORET : // memorizza il risultato per i v2 parametri, poi ret v2
+            v1 = code[ip++];
+            v2 = code[ip++];
+            memo.store(v1, memory, fp + 1, v2, memory[sp]);
+            v1 = pop();
+            ra = memory[fp - 1];
+            sp = fp + v2 + 2;
+            fp = memory[fp + v2 + 1];
+            push(v1);
+            ip = ra;
+            break;
+         case SVMParser.LOADLOCAL :
+            push(memory[fp + code[ip++]]);
+            break;
+         case SVMParser.LOADOUTER : // v1 passi della catena statica da $fp
+            v1 = code[ip++];
+            address = fp;
+            for (int d = 0; d < v1; d++) address = memory[address];
+            push(memory[address + code[ip++]]);
+            break;
+         case SVMParser.LOADFIELD :
+            address = pop();
+            push(memory[address + code[ip++]]);
+            break;
+         case SVMParser.STORELOCAL :
+            memory[fp + code[ip++]] = pop();
+            break;
+         case SVMParser.ALLOC : // v1 valori dalla cima dello stack allo heap, il piu' profondo all'indirizzo hp
+            v1 = code[ip++];
+            for (int k = 0; k < v1; k++) memory[hp + v1 - 1 - k] = pop();
+            push(hp);
+            hp += v1;
+            break;
+         case SVMParser.NEW : // dispatch pointer in cima, sotto i v1 campi: il campo i va in oggetto-i
+            v1 = code[ip++];
+            address = hp + v1; // object pointer
+            memory[address] = pop();
+            for (int k = 0; k < v1; k++) memory[hp + k] = pop();
+            hp = address + 1;
+            push(address);
+            break;
          case SVMParser.PRINT :
             System.out.println((sp<MEMSIZE)?memory[sp]:"Empty stack!");
             break;
@@ -115,12 +213,29 @@ public class ExecuteVM {
       }
     } 
     
+    public long executedInstructions() {
+      return executed;
+    }
+
+    public int maxStackDepth() {
+      return MEMSIZE - minSp;
+    }
+
+    public int heapSize() {
+      return hp - heapStart;
+    }
+
+    public MemoTable memoTable() {
+      return memo;
+    }
+    
     private int pop() {
       return memory[sp++];
     }
     
     private void push(int v) {
       memory[--sp] = v;
+      if (sp < minSp) minSp = sp;
     }
     
 }
\ No newline at end of file
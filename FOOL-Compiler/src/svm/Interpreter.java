@@ -0,0 +1,31 @@
+package svm;
+
+// motore di esecuzione della SVM; quello usato da create() si sceglie all'avvio con la
+// proprieta' di sistema svm.interpreter:
+//   switch   (default) ExecuteVM, uno switch sugli opcode letti da code[]
+//   decoded  DecodedExecuteVM, codice pre-decodificato con argomenti e sequenze frequenti fusi
+//   jit      JitExecuteVM, interpreta e compila in bytecode JVM le funzioni chiamate spesso
+//   register RegisterExecuteVM, blocchi base tradotti in istruzioni a registri (celle dello stack)
+public interface Interpreter {
+
+    void cpu();
+
+    long executedInstructions();
+
+    int maxStackDepth();
+
+    int heapSize(); // parole allocate nello heap: hp non diminuisce mai, quindi e' anche il massimo raggiunto
+
+    MemoTable memoTable(); // risultati delle funzioni memorizzate (istruzioni memo e mret) e statistiche
+
+    static Interpreter create(int[] code, int[] data, int dataSize) {
+        String engine = System.getProperty("svm.interpreter", "switch");
+        return switch (engine) {
+            case "switch" -> new ExecuteVM(code, data, dataSize);
+            case "decoded" -> new DecodedExecuteVM(code, data, dataSize);
+            case "jit" -> new JitExecuteVM(code, data, dataSize);
+            case "register" -> new RegisterExecuteVM(code, data, dataSize);
+            default -> throw new IllegalArgumentException("Unknown SVM interpreter " + engine);
+        };
+    }
+}
@@ -0,0 +1,494 @@
+package svm;
+
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+import svm.ClassFile.Label;
+
+import static svm.ClassFile.*;
+
+// traduce in bytecode JVM la regione di codice SVM raggiungibile dall'ingresso di una funzione:
+// le istruzioni raggiunte con salti e fall-through, fermandosi a chiamate (js, call, callm, bm),
+// ritorni (lra js, ret) e istruzioni non supportate (halt). Ogni blocco base della regione
+// diventa un pezzo del metodo run() di una hidden class, che opera sulla stessa memoria
+// della JitExecuteVM; un trasferimento verso un indirizzo calcolato a runtime (chiamate e
+// ritorni) passa per un lookupswitch sugli inizi dei blocchi e, se l'indirizzo e' fuori
+// dalla regione, run() restituisce il controllo all'interprete con l'ip da cui proseguire.
+// Istruzioni eseguite e profondita' massima dello stack sono aggiornate blocco per blocco
+// con gli stessi valori dell'interprete.
+class JitCompiler {
+
+    static final int MAX_REGION = 3000; // parole di codice SVM, per restare nei limiti di un metodo JVM
+    static final int MAX_BLOCK_MOVE = 64; // alloc/new con piu' campi restano all'interprete
+
+    // variabili locali di run(int[] memory, int[] registers, long[] executed, int ip), dopo this
+    private static final int M = 1, R = 2, E = 3, IP = 4, SP = 5, FP = 6, HP = 7, RA = 8, TM = 9,
+            MINSP = 10, COUNT = 11, T1 = 13, LOCALS = 14;
+
+    private final int[] code;
+    private final int length;
+    private final TreeSet<Integer> leaders = new TreeSet<>();
+    private final Set<Integer> reached = new HashSet<>();
+    private final Map<Integer,Label> blocks = new HashMap<>(), exits = new HashMap<>();
+    private ClassFile.Method run;
+
+    private JitCompiler(int[] code) {
+        this.code = code;
+        length = Code.length(code);
+    }
+
+    // compila la funzione che inizia in "entry" e registra il codice compilato in compiled[]
+    // per ogni inizio di blocco della regione; false se la regione non e' compilabile
+    static boolean compile(int[] code, int entry, JitExecuteVM.Compiled[] compiled) {
+        JitCompiler jit = new JitCompiler(code);
+        if (!jit.region(entry)) return false;
+        try {
+            byte[] bytes = jit.translate();
+            Class<?> c = MethodHandles.lookup().defineHiddenClass(bytes, true).lookupClass();
+            JitExecuteVM.Compiled instance = (JitExecuteVM.Compiled) c.getDeclaredConstructor().newInstance();
+            for (int start : jit.blocks.keySet())
+                if (compiled[start] == null) compiled[start] = instance;
+            return true;
+        } catch (ReflectiveOperationException | LinkageError | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private boolean supported(int a) {
+        if (a >= length) return false;
+        switch (code[a]) {
+            case 0: case SVMParser.HALT: case SVMParser.MEMO: case SVMParser.MEMORET: // la tabella di memo e' della JitExecuteVM
+                return false;
+            case SVMParser.ALLOC: case SVMParser.NEW:
+                return code[a + 1] >= 0 && code[a + 1] <= MAX_BLOCK_MOVE;
+            default:
+                return true;
+        }
+    }
+
+    // js preceduto da lra e' il ritorno della sequenza classica: dopo non si prosegue
+    private boolean isReturn(int a) {
+        return code[a] == SVMParser.JS && a > 0 && code[a - 1] == SVMParser.LOADRA;
+    }
+
+    // istruzioni e inizi dei blocchi raggiungibili da "entry"
+    private boolean region(int entry) {
+        Deque<Integer> work = new ArrayDeque<>();
+        leaders.add(entry);
+        work.push(entry);
+        while (!work.isEmpty()) {
+            int a = work.pop();
+            if (reached.contains(a) || !supported(a)) continue;
+            reached.add(a);
+            if (reached.size() > MAX_REGION) return false;
+            int next = Code.next(code, a);
+            switch (code[a]) {
+                case SVMParser.BRANCH:
+                    leader(work, code[a + 1]);
+                    break;
+                case SVMParser.BRANCHEQ: case SVMParser.BRANCHLESSEQ:
+                    leader(work, code[a + 1]);
+                    leader(work, next);
+                    break;
+                case SVMParser.JS:
+                    if (!isReturn(a)) leader(work, next); // punto di ritorno della chiamata
+                    break;
+                case SVMParser.CALL: case SVMParser.CALLM:
+                    leader(work, next);
+                    break;
+                case SVMParser.BRANCHMETHOD: case SVMParser.RET:
+                    break;
+                default:
+                    work.push(next);
+            }
+        }
+        return true;
+    }
+
+    private void leader(Deque<Integer> work, int a) {
+        leaders.add(a);
+        work.push(a);
+    }
+
+    private static boolean endsBlock(int opcode) {
+        switch (opcode) {
+            case SVMParser.BRANCH: case SVMParser.BRANCHEQ: case SVMParser.BRANCHLESSEQ: case SVMParser.JS:
+            case SVMParser.CALL: case SVMParser.CALLM: case SVMParser.BRANCHMETHOD: case SVMParser.RET:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private byte[] translate() {
+        for (int a : leaders) if (reached.contains(a)) blocks.put(a, new Label());
+        ClassFile cf = new ClassFile("svm/JitCode", "java/lang/Object", "svm/JitExecuteVM$Compiled");
+        cf.defaultConstructor();
+        run = cf.method(PUBLIC, "run", "([I[I[JI)I", LOCALS);
+        for (int r = 0; r <= MINSP - SP; r++) { // registri nelle variabili locali
+            run.aload(R);
+            run.iconst(r);
+            run.op(IALOAD);
+            run.istore(SP + r);
+        }
+        run.op(LCONST_0);
+        run.lstore(COUNT);
+        run.iconst(0);
+        run.istore(T1);
+        Label dispatch = new Label(), exit = new Label();
+        run.place(dispatch);
+        int[] keys = blocks.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        Label[] targets = new Label[keys.length];
+        for (int i = 0; i < keys.length; i++) targets[i] = blocks.get(keys[i]);
+        run.iload(IP);
+        run.lookupswitch(keys, targets, exit);
+        for (int start : keys) block(start, dispatch);
+        for (Map.Entry<Integer,Label> e : exits.entrySet()) {
+            run.place(e.getValue());
+            run.iconst(e.getKey());
+            run.istore(IP);
+            run.jump(GOTO, exit);
+        }
+        run.place(exit);
+        for (int r = 0; r <= MINSP - SP; r++) {
+            run.aload(R);
+            run.iconst(r);
+            run.iload(SP + r);
+            run.op(IASTORE);
+        }
+        run.aload(E);
+        run.iconst(0);
+        run.op(DUP2);
+        run.op(LALOAD);
+        run.lload(COUNT);
+        run.op(LADD);
+        run.op(LASTORE);
+        run.iload(IP);
+        run.op(IRETURN);
+        return cf.toBytes();
+    }
+
+    // blocco che inizia in "target" se compilato, altrimenti uscita verso l'interprete
+    private Label target(int a) {
+        Label l = blocks.get(a);
+        if (l == null) l = exits.computeIfAbsent(a, k -> new Label());
+        return l;
+    }
+
+    private void block(int start, Label dispatch) {
+        run.place(blocks.get(start));
+        // istruzioni del blocco e cima dello stack piu' profonda raggiunta, relativa a sp iniziale
+        int count = 0, depth = 0, lowest = 0, end = start;
+        boolean fallthrough = true;
+        for (int a = start; ; a = Code.next(code, a)) {
+            if ((a != start && blocks.containsKey(a)) || !supported(a)) { end = a; break; }
+            count++;
+            depth += stackEffect(a);
+            lowest = Math.min(lowest, depth);
+            if (endsBlock(code[a])) { end = a; fallthrough = false; break; }
+        }
+        run.lload(COUNT);
+        run.iconst(count);
+        run.op(I2L);
+        run.op(LADD);
+        run.lstore(COUNT);
+        if (lowest < 0) { // if (sp + lowest < minSp) minSp = sp + lowest
+            Label skip = new Label();
+            run.iload(SP);
+            run.iconst(lowest);
+            run.op(IADD);
+            run.iload(MINSP);
+            run.jump(IF_ICMPGE, skip);
+            run.iload(SP);
+            run.iconst(lowest);
+            run.op(IADD);
+            run.istore(MINSP);
+            run.place(skip);
+        }
+        for (int a = start; a != end || !fallthrough; a = Code.next(code, a)) {
+            instruction(a, dispatch);
+            if (a == end) return;
+        }
+        run.jump(GOTO, target(end));
+    }
+
+    // variazione di sp; i pop precedono sempre il push, quindi basta il valore dopo ogni istruzione
+    private int stackEffect(int a) {
+        switch (code[a]) {
+            case SVMParser.PUSH: case SVMParser.LOADRA: case SVMParser.LOADTM: case SVMParser.LOADFP:
+            case SVMParser.LOADHP: case SVMParser.CALL: case SVMParser.ENTER: case SVMParser.LOADLOCAL:
+            case SVMParser.LOADOUTER:
+                return -1;
+            case SVMParser.POP: case SVMParser.ADD: case SVMParser.SUB: case SVMParser.MULT: case SVMParser.DIV:
+            case SVMParser.JS: case SVMParser.STORERA: case SVMParser.STORETM: case SVMParser.STOREFP:
+            case SVMParser.STOREHP: case SVMParser.STORELOCAL:
+                return 1;
+            case SVMParser.STOREW: case SVMParser.BRANCHEQ: case SVMParser.BRANCHLESSEQ:
+                return 2;
+            case SVMParser.ALLOC:
+                return code[a + 1] - 1;
+            case SVMParser.NEW:
+                return code[a + 1];
+            default: // RET chiude il blocco: lo stack dopo non conta
+                return 0;
+        }
+    }
+
+    // indice sp + k
+    private void at(int k) {
+        run.iload(SP);
+        if (k != 0) {
+            run.iconst(k);
+            run.op(IADD);
+        }
+    }
+
+    // memory[sp + k]
+    private void stack(int k) {
+        run.aload(M);
+        at(k);
+        run.op(IALOAD);
+    }
+
+    // memory[--sp] = valore prodotto da "value" (che non deve usare sp)
+    private void push(Runnable value) {
+        run.iinc(SP, -1);
+        run.aload(M);
+        run.iload(SP);
+        value.run();
+        run.op(IASTORE);
+    }
+
+    // registro = memory[sp++]
+    private void pop(int register) {
+        stack(0);
+        run.istore(register);
+        run.iinc(SP, 1);
+    }
+
+    // memory[local + k]
+    private void memory(int local, int k) {
+        run.aload(M);
+        run.iload(local);
+        if (k != 0) {
+            run.iconst(k);
+            run.op(IADD);
+        }
+        run.op(IALOAD);
+    }
+
+    // T1 = indirizzo del frame a d passi della catena statica da $fp
+    private void chain(int d) {
+        run.iload(FP);
+        run.istore(T1);
+        for (int i = 0; i < d; i++) {
+            memory(T1, 0);
+            run.istore(T1);
+        }
+    }
+
+    private void instruction(int a, Label dispatch) {
+        int next = Code.next(code, a), arg = a + 1 < code.length ? code[a + 1] : 0;
+        switch (code[a]) {
+            case SVMParser.PUSH:
+                push(() -> run.iconst(arg));
+                break;
+            case SVMParser.POP:
+                run.iinc(SP, 1);
+                break;
+            case SVMParser.ADD: case SVMParser.SUB: case SVMParser.MULT: case SVMParser.DIV:
+                run.aload(M);
+                at(1);
+                stack(1);
+                stack(0);
+                run.op(code[a] == SVMParser.ADD ? IADD : code[a] == SVMParser.SUB ? ISUB : code[a] == SVMParser.MULT ? IMUL : IDIV);
+                run.op(IASTORE);
+                run.iinc(SP, 1);
+                break;
+            case SVMParser.STOREW:
+                run.aload(M);
+                stack(0);
+                stack(1);
+                run.op(IASTORE);
+                run.iinc(SP, 2);
+                break;
+            case SVMParser.LOADW:
+                run.aload(M);
+                run.iload(SP);
+                run.aload(M);
+                stack(0);
+                run.op(IALOAD);
+                run.op(IASTORE);
+                break;
+            case SVMParser.BRANCH:
+                run.jump(GOTO, target(arg));
+                break;
+            case SVMParser.BRANCHEQ: case SVMParser.BRANCHLESSEQ:
+                stack(1);
+                stack(0);
+                run.iinc(SP, 2);
+                run.jump(code[a] == SVMParser.BRANCHEQ ? IF_ICMPEQ : IF_ICMPLE, target(arg));
+                run.jump(GOTO, target(next));
+                break;
+            case SVMParser.JS:
+                run.iconst(next);
+                run.istore(RA);
+                pop(IP);
+                run.jump(GOTO, dispatch);
+                break;
+            case SVMParser.STORERA:
+                pop(RA);
+                break;
+            case SVMParser.STORETM:
+                pop(TM);
+                break;
+            case SVMParser.STOREFP:
+                pop(FP);
+                break;
+            case SVMParser.STOREHP:
+                pop(HP);
+                break;
+            case SVMParser.LOADRA:
+                push(() -> run.iload(RA));
+                break;
+            case SVMParser.LOADTM:
+                push(() -> run.iload(TM));
+                break;
+            case SVMParser.LOADFP:
+                push(() -> run.iload(FP));
+                break;
+            case SVMParser.LOADHP:
+                push(() -> run.iload(HP));
+                break;
+            case SVMParser.COPYFP:
+                run.iload(SP);
+                run.istore(FP);
+                break;
+            case SVMParser.CALL:
+                chain(arg);
+                push(() -> run.iload(T1));
+                run.iconst(next);
+                run.istore(RA);
+                memory(T1, code[a + 2]);
+                run.istore(IP);
+                run.jump(GOTO, dispatch);
+                break;
+            case SVMParser.CALLM: // memory[memory[memory[sp]] + o]
+                run.iconst(next);
+                run.istore(RA);
+                run.aload(M);
+                run.aload(M);
+                stack(0);
+                run.op(IALOAD);
+                run.iconst(arg);
+                run.op(IADD);
+                run.op(IALOAD);
+                run.istore(IP);
+                run.jump(GOTO, dispatch);
+                break;
+            case SVMParser.BRANCHMETHOD: // come callm, con $ra invariato
+                run.aload(M);
+                run.aload(M);
+                stack(0);
+                run.op(IALOAD);
+                run.iconst(arg);
+                run.op(IADD);
+                run.op(IALOAD);
+                run.istore(IP);
+                run.jump(GOTO, dispatch);
+                break;
+            case SVMParser.ENTER:
+                run.iload(SP);
+                run.istore(FP);
+                push(() -> run.iload(RA));
+                break;
+            case SVMParser.RET:
+                stack(0);
+                run.istore(T1); // risultato
+                memory(FP, -1);
+                run.istore(RA);
+                run.iload(FP);
+                run.iconst(arg + 1);
+                run.op(IADD);
+                run.istore(SP);
+                memory(SP, 0); // Control Link
+                run.istore(FP);
+                run.aload(M);
+                run.iload(SP);
+                run.iload(T1);
+                run.op(IASTORE);
+                run.iload(RA);
+                run.istore(IP);
+                run.jump(GOTO, dispatch);
+                break;
+            case SVMParser.LOADLOCAL:
+                push(() -> memory(FP, arg));
+                break;
+            case SVMParser.LOADOUTER:
+                chain(arg);
+                push(() -> memory(T1, code[a + 2]));
+                break;
+            case SVMParser.LOADFIELD:
+                run.aload(M);
+                run.iload(SP);
+                run.aload(M);
+                stack(0);
+                run.iconst(arg);
+                run.op(IADD);
+                run.op(IALOAD);
+                run.op(IASTORE);
+                break;
+            case SVMParser.STORELOCAL:
+                run.aload(M);
+                run.iload(FP);
+                run.iconst(arg);
+                run.op(IADD);
+                stack(0);
+                run.op(IASTORE);
+                run.iinc(SP, 1);
+                break;
+            case SVMParser.ALLOC: // il valore piu' profondo all'indirizzo hp
+                for (int k = 0; k < arg; k++) {
+                    run.aload(M);
+                    run.iload(HP);
+                    run.iconst(arg - 1 - k);
+                    run.op(IADD);
+                    stack(0);
+                    run.op(IASTORE);
+                    run.iinc(SP, 1);
+                }
+                push(() -> run.iload(HP));
+                run.iinc(HP, arg);
+                break;
+            case SVMParser.NEW: // dispatch pointer in hp+n, campi da hp
+                run.iload(HP);
+                run.iconst(arg);
+                run.op(IADD);
+                run.istore(T1);
+                run.aload(M);
+                run.iload(T1);
+                stack(0);
+                run.op(IASTORE);
+                run.iinc(SP, 1);
+                for (int k = 0; k < arg; k++) {
+                    run.aload(M);
+                    run.iload(HP);
+                    run.iconst(k);
+                    run.op(IADD);
+                    stack(0);
+                    run.op(IASTORE);
+                    run.iinc(SP, 1);
+                }
+                run.iload(T1);
+                run.iconst(1);
+                run.op(IADD);
+                run.istore(HP);
+                push(() -> run.iload(T1));
+                break;
+            case SVMParser.PRINT:
+                run.aload(M);
+                run.iload(SP);
+                run.invokestatic("svm/JitExecuteVM", "print", "([II)V");
+                break;
+        }
+    }
+}
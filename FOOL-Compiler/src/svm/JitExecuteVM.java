@@ -0,0 +1,302 @@
+package svm;
+
+import java.util.*;
+
+// interprete a due livelli: esegue il codice come ExecuteVM e conta gli ingressi in ogni funzione
+// (il cfp o l'enter con cui inizia il codice di ogni etichetta functionN); quando una funzione
+// supera la soglia (proprieta' di sistema svm.jit.threshold, default 100) JitCompiler la traduce
+// in bytecode JVM. Da quel momento, quando ip arriva all'inizio di un blocco compilato, l'esecuzione
+// passa al codice compilato fino a un indirizzo fuori dalla sua regione (di solito il ritorno al
+// chiamante o la chiamata a una funzione non compilata). Se una funzione non si puo' compilare
+// resta interpretata. Il codice compilato non ha stato ed e' condiviso fra le JitExecuteVM create
+// sullo stesso vettore code (per esempio le esecuzioni ripetute di un benchmark). Stampe, istruzioni
+// eseguite e profondita' massima dello stack sono le stesse di ExecuteVM (il conteggio delle
+// istruzioni no, se il programma termina con un'eccezione dentro il codice compilato).
+public class JitExecuteVM implements Interpreter {
+
+    public static final int MEMSIZE = ExecuteVM.MEMSIZE;
+
+    // codice compilato da JitCompiler (una hidden class per funzione): esegue da ip e restituisce
+    // l'ip da cui l'interprete deve proseguire; registers contiene sp, fp, hp, ra, tm e il minimo
+    // di sp, letti all'ingresso e aggiornati all'uscita; executed[0] viene incrementato
+    interface Compiled {
+        int run(int[] memory, int[] registers, long[] executed, int ip);
+    }
+
+    // codice compilato per ogni vettore code, confrontati per identita'
+    private static final Map<int[], Compiled[]> cache = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int[] code;
+    private final int[] memory = new int[MEMSIZE];
+    private final Compiled[] compiled;
+    private final int[] entries; // ingressi nelle funzioni, per indirizzo del cfp/enter
+    private final int threshold = Integer.getInteger("svm.jit.threshold", 100);
+    private int compiledFunctions = 0;
+
+    private int ip = 0;
+    private int sp = MEMSIZE;
+
+    private int hp = 0;
+    private int fp = MEMSIZE;
+    private int ra;
+    private int tm;
+
+    private final long[] executed = new long[1];
+    private int heapStart = 0; // primo indirizzo dello heap, dopo il segmento dati
+    private int minSp = MEMSIZE;
+    private final MemoTable memo = new MemoTable();
+    private final int[] registers = new int[6];
+
+    public JitExecuteVM(int[] code) {
+        this(code, new int[0], 0);
+    }
+
+    public JitExecuteVM(int[] code, int[] data, int dataSize) {
+        this.code = code;
+        compiled = cache.computeIfAbsent(code, c -> new Compiled[c.length]);
+        entries = new int[code.length];
+        System.arraycopy(data, 0, memory, 0, dataSize);
+        hp = heapStart = dataSize;
+    }
+
+    public void cpu() {
+        while (true) {
+            if (compiled[ip] != null) {
+                run(compiled[ip]);
+                continue;
+            }
+            int bytecode = code[ip++];
+            executed[0]++;
+            int v1, v2;
+            int address;
+            switch (bytecode) {
+                case SVMParser.PUSH:
+                    push(code[ip++]);
+                    break;
+                case SVMParser.POP:
+                    pop();
+                    break;
+                case SVMParser.ADD:
+                    v1 = pop();
+                    v2 = pop();
+                    push(v2 + v1);
+                    break;
+                case SVMParser.MULT:
+                    v1 = pop();
+                    v2 = pop();
+                    push(v2 * v1);
+                    break;
+                case SVMParser.DIV:
+                    v1 = pop();
+                    v2 = pop();
+                    push(v2 / v1);
+                    break;
+                case SVMParser.SUB:
+                    v1 = pop();
+                    v2 = pop();
+                    push(v2 - v1);
+                    break;
+                case SVMParser.STOREW:
+                    address = pop();
+                    memory[address] = pop();
+                    break;
+                case SVMParser.LOADW:
+                    push(memory[pop()]);
+                    break;
+                case SVMParser.BRANCH:
+                    ip = code[ip];
+                    break;
+                case SVMParser.BRANCHEQ:
+                    address = code[ip++];
+                    v1 = pop();
+                    v2 = pop();
+                    if (v2 == v1) ip = address;
+                    break;
+                case SVMParser.BRANCHLESSEQ:
+                    address = code[ip++];
+                    v1 = pop();
+                    v2 = pop();
+                    if (v2 <= v1) ip = address;
+                    break;
+                case SVMParser.JS:
+                    address = pop();
+                    ra = ip;
+                    ip = address;
+                    break;
+                case SVMParser.STORERA:
+                    ra = pop();
+                    break;
+                case SVMParser.LOADRA:
+                    push(ra);
+                    break;
+                case SVMParser.STORETM:
+                    tm = pop();
+                    break;
+                case SVMParser.LOADTM:
+                    push(tm);
+                    break;
+                case SVMParser.LOADFP:
+                    push(fp);
+                    break;
+                case SVMParser.STOREFP:
+                    fp = pop();
+                    break;
+                case SVMParser.COPYFP: // inizio di una funzione
+                    fp = sp;
+                    entered(ip - 1);
+                    break;
+                case SVMParser.STOREHP:
+                    hp = pop();
+                    break;
+                case SVMParser.LOADHP:
+                    push(hp);
+                    break;
+                case SVMParser.CALL:
+                    v1 = code[ip++];
+                    v2 = code[ip++];
+                    address = fp;
+                    for (int d = 0; d < v1; d++) address = memory[address];
+                    push(address);
+                    ra = ip;
+                    ip = memory[address + v2];
+                    break;
+                case SVMParser.CALLM:
+                    v1 = code[ip++];
+                    address = memory[memory[sp]];
+                    ra = ip;
+                    ip = memory[address + v1];
+                    break;
+                case SVMParser.BRANCHMETHOD:
+                    v1 = code[ip++];
+                    address = memory[memory[sp]];
+                    ip = memory[address + v1];
+                    break;
+                case SVMParser.ENTER: // inizio di una funzione
+                    fp = sp;
+                    push(ra);
+                    entered(ip - 1);
+                    break;
+                case SVMParser.RET:
+                    v1 = code[ip++];
+                    v2 = pop();
+                    ra = memory[fp - 1];
+                    sp = fp + v1 + 2;
+                    fp = memory[fp + v1 + 1];
+                    push(v2);
+                    ip = ra;
+                    break;
+                case SVMParser.MEMO: // solo interpretata: JitCompiler non la compila
+                    v1 = code[ip++];
+                    v2 = code[ip++];
+                    if (memo.find(v1, memory, fp + 1, v2)) {
+                        ra = memory[fp - 1];
+                        sp = fp + v2 + 2;
+                        fp = memory[fp + v2 + 1];
+                        push(memo.value());
+                        ip = ra;
+                    }
+                    break;
+                case SVMParser.MEMORET:
+                    v1 = code[ip++];
+                    v2 = code[ip++];
+                    memo.store(v1, memory, fp + 1, v2, memory[sp]);
+                    v1 = pop();
+                    ra = memory[fp - 1];
+                    sp = fp + v2 + 2;
+                    fp = memory[fp + v2 + 1];
+                    push(v1);
+                    ip = ra;
+                    break;
+                case SVMParser.LOADLOCAL:
+                    push(memory[fp + code[ip++]]);
+                    break;
+                case SVMParser.LOADOUTER:
+                    v1 = code[ip++];
+                    address = fp;
+                    for (int d = 0; d < v1; d++) address = memory[address];
+                    push(memory[address + code[ip++]]);
+                    break;
+                case SVMParser.LOADFIELD:
+                    address = pop();
+                    push(memory[address + code[ip++]]);
+                    break;
+                case SVMParser.STORELOCAL:
+                    memory[fp + code[ip++]] = pop();
+                    break;
+                case SVMParser.ALLOC:
+                    v1 = code[ip++];
+                    for (int k = 0; k < v1; k++) memory[hp + v1 - 1 - k] = pop();
+                    push(hp);
+                    hp += v1;
+                    break;
+                case SVMParser.NEW:
+                    v1 = code[ip++];
+                    address = hp + v1;
+                    memory[address] = pop();
+                    for (int k = 0; k < v1; k++) memory[hp + k] = pop();
+                    hp = address + 1;
+                    push(address);
+                    break;
+                case SVMParser.PRINT:
+                    print(memory, sp);
+                    break;
+                case SVMParser.HALT:
+                    return;
+            }
+        }
+    }
+
+    // ingresso nella funzione che inizia in "entry": alla soglia viene compilata
+    private void entered(int entry) {
+        if (++entries[entry] == threshold && JitCompiler.compile(code, entry, compiled)) compiledFunctions++;
+    }
+
+    private void run(Compiled c) {
+        registers[0] = sp;
+        registers[1] = fp;
+        registers[2] = hp;
+        registers[3] = ra;
+        registers[4] = tm;
+        registers[5] = minSp;
+        ip = c.run(memory, registers, executed, ip);
+        sp = registers[0];
+        fp = registers[1];
+        hp = registers[2];
+        ra = registers[3];
+        tm = registers[4];
+        minSp = registers[5];
+    }
+
+    static void print(int[] memory, int sp) {
+        System.out.println((sp < MEMSIZE) ? memory[sp] : "Empty stack!");
+    }
+
+    public long executedInstructions() {
+        return executed[0];
+    }
+
+    public int maxStackDepth() {
+        return MEMSIZE - minSp;
+    }
+
+    public int heapSize() {
+        return hp - heapStart;
+    }
+
+    public MemoTable memoTable() {
+        return memo;
+    }
+
+    public int compiledFunctions() {
+        return compiledFunctions;
+    }
+
+    private int pop() {
+        return memory[sp++];
+    }
+
+    private void push(int v) {
+        memory[--sp] = v;
+        if (sp < minSp) minSp = sp;
+    }
+}
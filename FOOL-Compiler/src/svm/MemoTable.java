@@ -0,0 +1,109 @@
+package svm;
+
+import java.util.*;
+
+// risultati delle funzioni memorizzate dal compilatore (istruzioni memo e mret), per tabella
+// (una per funzione) e argomenti. Il numero di voci e' limitato (proprieta' di sistema
+// svm.memo.size, default 4096): quando la tabella e' piena la voce da sostituire e' scelta con
+// l'algoritmo dell'orologio, che scorre le voci in cerchio e sceglie la prima non letta dall'ultimo
+// passaggio (approssima la meno usata di recente senza riordinare le voci a ogni lettura).
+public class MemoTable {
+
+    // tabella e argomenti di una chiamata
+    private static final class Key {
+        final int table;
+        final int[] args;
+        final int hash;
+
+        Key(int table, int[] memory, int from, int n) {
+            this.table = table;
+            args = Arrays.copyOfRange(memory, from, from + n);
+            hash = 31 * table + Arrays.hashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && k.table == table && Arrays.equals(k.args, args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final int capacity = Math.max(1, Integer.getInteger("svm.memo.size", 4096));
+    private final Map<Key, Integer> index = new HashMap<>(); // voce di ogni chiave presente
+    private final Key[] keys = new Key[capacity];
+    private final int[] values = new int[capacity];
+    private final boolean[] referenced = new boolean[capacity]; // letta dall'ultimo passaggio dell'orologio
+    private int size = 0;
+    private int hand = 0; // prossima voce esaminata dall'orologio
+
+    private long lookups = 0, hits = 0, evictions = 0;
+    private int value;
+
+    // true se la tabella "table" contiene il risultato per gli n argomenti in memory[from..from+n),
+    // che diventa value()
+    public boolean find(int table, int[] memory, int from, int n) {
+        lookups++;
+        Integer entry = index.get(new Key(table, memory, from, n));
+        if (entry == null) return false;
+        hits++;
+        referenced[entry] = true;
+        value = values[entry];
+        return true;
+    }
+
+    public int value() {
+        return value;
+    }
+
+    // registra "result" come risultato della tabella "table" per gli n argomenti in memory[from..from+n)
+    public void store(int table, int[] memory, int from, int n, int result) {
+        Key key = new Key(table, memory, from, n);
+        Integer entry = index.get(key);
+        if (entry == null) {
+            entry = size < capacity ? size++ : victim();
+            index.put(key, entry);
+            keys[entry] = key;
+        }
+        values[entry] = result;
+        referenced[entry] = true;
+    }
+
+    // voce da sostituire: la prima non letta dall'ultimo passaggio, togliendo il segno alle altre
+    private int victim() {
+        while (referenced[hand]) {
+            referenced[hand] = false;
+            hand = (hand + 1) % capacity;
+        }
+        int entry = hand;
+        hand = (hand + 1) % capacity;
+        index.remove(keys[entry]);
+        evictions++;
+        return entry;
+    }
+
+    public long lookups() {
+        return lookups;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long evictions() {
+        return evictions;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("memo: %d lookups, %.1f%% hits, %d evictions (%d entries)", lookups,
+                lookups == 0 ? 0.0 : 100.0 * hits / lookups, evictions, capacity);
+    }
+}
@@ -0,0 +1,392 @@
+package svm;
+
+import java.util.Arrays;
+
+// traduzione del codice della SVM in istruzioni a registri, eseguite da RegisterExecuteVM.
+// Il codice e' tradotto un blocco base alla volta, la prima volta che l'esecuzione arriva al suo
+// indirizzo iniziale (i salti a indirizzi calcolati, come i ritorni e le chiamate ai metodi,
+// arrivano cosi' sempre all'inizio di un blocco). Dentro un blocco sp e' noto rispetto al suo
+// valore all'ingresso (base), quindi le celle dello stack diventano registri virtuali base+k e le
+// istruzioni lavorano direttamente su di essi, senza push e pop:
+//   push 5 / push 3 / add           -> nessuna istruzione (costante 8)
+//   lfp / push -2 / add / lw        -> LOADFP k -2
+//   lfp / push o / add / sw         -> STOREFP k o
+//   push c / beq l                  -> BEQC k c l
+//   lhp / push 1 / add / shp        -> ADDHP 1
+// Costanti e registri (fp+c, hp+c, ra, tm) messi sullo stack restano simbolici finche' servono
+// come operandi; vengono scritti nella loro cella prima di ogni istruzione che legge o scrive la
+// memoria o cambia un registro, e alla fine del blocco, quindi la memoria vista dal programma e'
+// quella della SVM. La prima istruzione del blocco (HEAD) conta le istruzioni originali e la
+// profondita' massima dello stack raggiunta nel blocco.
+// Ogni istruzione occupa W interi di program: opcode (e, per le uscite dal blocco, la distanza
+// fra sp all'uscita e base dal bit 8) e quattro argomenti.
+class RegisterCode {
+
+    static final int W = 5;
+
+    static final int HEAD = 0, MOVC = 1, MOVFP = 2, MOVHP = 3, MOVRA = 4, MOVTM = 5, ADD = 6, SUB = 7, MUL = 8,
+            DIV = 9, ADDC = 10, RSUBC = 11, MULC = 12, DIVC = 13, LOAD = 14, LOADC = 15, LOADFP = 16, LOADOUT = 17,
+            LOADFIELD = 18, STORE = 19, STOREC = 20, STOREFP = 21, SETRA = 22, SETTM = 23, SETHP = 24, SETFP = 25,
+            ADDHP = 26, COPYFP = 27, ENTER = 28, ALLOC = 29, NEW = 30, PRINT = 31,
+            // uscite dal blocco
+            JUMP = 32, BEQ = 33, BEQC = 34, BLEQ = 35, BLEQC = 36, BGEQC = 37, JS = 38, JSC = 39, JSRA = 40,
+            CALL = 41, CALLM = 42, RET = 43, HALT = 44, MEMO = 45, MEMORET = 46, BRANCHMETHOD = 47;
+
+    // contenuto simbolico di una cella dello stack del blocco
+    private static final int SLOT = 0, CONST = 1, FP = 2, HP = 3, RA = 4, TM = 5;
+
+    private final int[] code;
+    final int[] blockAt; // indice in program del blocco che inizia a ogni indirizzo (0 se non tradotto)
+    int[] program = new int[W * 256];
+    private int size = W; // program[0..W) non usato, cosi' 0 vuol dire "non tradotto"
+
+    // stato della traduzione del blocco corrente: la cella base+p (p < 0) e' in kinds[-p], values[-p]
+    private int[] kinds = new int[64], values = new int[64];
+    private int rel, lowest, instructions;
+
+    RegisterCode(int[] code) {
+        this.code = code;
+        blockAt = new int[code.length + 1];
+    }
+
+    // indice in program del blocco che inizia in ip, tradotto se serve
+    int block(int ip) {
+        return blockAt[ip] != 0 ? blockAt[ip] : translate(ip);
+    }
+
+    private int translate(int start) {
+        int head = size;
+        emit(HEAD, 0, 0, 0, 0);
+        rel = 0;
+        lowest = 0;
+        instructions = 0;
+        int count = 0;
+        int w = start;
+        boolean end = false;
+        while (!end) {
+            int op = code[w];
+            int next = w + 1 + Code.operands(op);
+            count++;
+            switch (op) {
+                case SVMParser.PUSH:
+                    push(CONST, code[w + 1]);
+                    break;
+                case SVMParser.POP:
+                    rel++;
+                    break;
+                case SVMParser.ADD:
+                    add(false);
+                    break;
+                case SVMParser.SUB:
+                    add(true);
+                    break;
+                case SVMParser.MULT:
+                case SVMParser.DIV:
+                    multiply(op == SVMParser.DIV);
+                    break;
+                case SVMParser.LOADW:
+                    flush(rel + 1);
+                    load(rel, 0);
+                    break;
+                case SVMParser.LOADFIELD:
+                    flush(rel + 1);
+                    load(rel, code[w + 1]);
+                    break;
+                case SVMParser.STOREW:
+                    flush(rel + 2);
+                    materialize(rel + 1);
+                    if (kind(rel) == CONST) emit(STOREC, rel + 1, value(rel), 0, 0);
+                    else if (kind(rel) == FP) emit(STOREFP, rel + 1, value(rel), 0, 0);
+                    else {
+                        materialize(rel);
+                        emit(STORE, rel + 1, rel, 0, 0);
+                    }
+                    rel += 2;
+                    break;
+                case SVMParser.STORELOCAL:
+                    flush(rel);
+                    emit(STOREFP, rel, code[w + 1], 0, 0);
+                    rel++;
+                    break;
+                case SVMParser.LOADLOCAL:
+                    flush(rel);
+                    push(SLOT, 0);
+                    emit(LOADFP, rel, code[w + 1], 0, 0);
+                    break;
+                case SVMParser.LOADOUTER:
+                    flush(rel);
+                    push(SLOT, 0);
+                    emit(LOADOUT, rel, code[w + 1], code[w + 2], 0);
+                    break;
+                case SVMParser.LOADFP:
+                    push(FP, 0);
+                    break;
+                case SVMParser.LOADHP:
+                    push(HP, 0);
+                    break;
+                case SVMParser.LOADRA:
+                    push(RA, 0);
+                    break;
+                case SVMParser.LOADTM:
+                    push(TM, 0);
+                    break;
+                case SVMParser.STOREHP:
+                    flush(rel + 1);
+                    if (kind(rel) == HP) emit(ADDHP, value(rel), 0, 0, 0);
+                    else setRegister(SETHP);
+                    rel++;
+                    break;
+                case SVMParser.STORERA:
+                    setRegister(SETRA);
+                    rel++;
+                    break;
+                case SVMParser.STORETM:
+                    setRegister(SETTM);
+                    rel++;
+                    break;
+                case SVMParser.STOREFP:
+                    setRegister(SETFP);
+                    rel++;
+                    break;
+                case SVMParser.COPYFP:
+                    flush(rel);
+                    emit(COPYFP, rel, 0, 0, 0);
+                    break;
+                case SVMParser.ENTER:
+                    flush(rel);
+                    emit(ENTER, rel, 0, 0, 0);
+                    push(SLOT, 0);
+                    break;
+                case SVMParser.ALLOC:
+                    flush(rel);
+                    emit(ALLOC, rel, code[w + 1], 0, 0);
+                    rel += code[w + 1] - 1;
+                    lowest = Math.min(lowest, rel);
+                    set(rel, SLOT, 0);
+                    break;
+                case SVMParser.NEW:
+                    flush(rel);
+                    emit(NEW, rel, code[w + 1], 0, 0);
+                    rel += code[w + 1];
+                    set(rel, SLOT, 0);
+                    break;
+                case SVMParser.PRINT:
+                    materialize(rel);
+                    emit(PRINT, rel, 0, 0, 0);
+                    break;
+                case SVMParser.BRANCH:
+                    flush(rel);
+                    exit(JUMP, 0, 0, code[w + 1], 0);
+                    end = true;
+                    break;
+                case SVMParser.BRANCHEQ:
+                case SVMParser.BRANCHLESSEQ:
+                    branch(op == SVMParser.BRANCHEQ, code[w + 1], next);
+                    end = true;
+                    break;
+                case SVMParser.JS:
+                    flush(rel + 1);
+                    rel++;
+                    if (kind(rel - 1) == CONST) exit(JSC, value(rel - 1), 0, 0, next);
+                    else if (kind(rel - 1) == RA) exit(JSRA, 0, 0, 0, next);
+                    else {
+                        materialize(rel - 1);
+                        exit(JS, rel - 1, 0, 0, next);
+                    }
+                    end = true;
+                    break;
+                case SVMParser.CALL:
+                    flush(rel);
+                    lowest = Math.min(lowest, rel - 1);
+                    exit(CALL, code[w + 1], code[w + 2], 0, next);
+                    end = true;
+                    break;
+                case SVMParser.CALLM:
+                    flush(rel);
+                    exit(CALLM, code[w + 1], 0, 0, next);
+                    end = true;
+                    break;
+                case SVMParser.BRANCHMETHOD:
+                    flush(rel);
+                    exit(BRANCHMETHOD, code[w + 1], 0, 0, 0);
+                    end = true;
+                    break;
+                case SVMParser.RET:
+                    flush(rel);
+                    exit(RET, rel, code[w + 1], 0, 0);
+                    end = true;
+                    break;
+                case SVMParser.MEMO: // uscita verso il chiamante o verso il blocco seguente
+                    flush(rel);
+                    exit(MEMO, code[w + 1], code[w + 2], 0, next);
+                    end = true;
+                    break;
+                case SVMParser.MEMORET:
+                    flush(rel);
+                    exit(MEMORET, rel, code[w + 1], code[w + 2], 0);
+                    end = true;
+                    break;
+                case SVMParser.HALT:
+                    flush(rel);
+                    exit(HALT, 0, 0, 0, 0);
+                    end = true;
+                    break;
+            }
+            w = next;
+        }
+        program[head + 1] = count;
+        program[head + 2] = lowest;
+        program[head + 3] = instructions - 1;
+        blockAt[start] = head;
+        return head;
+    }
+
+    // ADD k a b e simili: la cella base+k riceve il risultato
+    private void emit(int op, int a, int b, int c, int d) {
+        if (size + W > program.length) program = Arrays.copyOf(program, 2 * program.length);
+        program[size] = op;
+        program[size + 1] = a;
+        program[size + 2] = b;
+        program[size + 3] = c;
+        program[size + 4] = d;
+        size += W;
+        instructions++;
+    }
+
+    // uscita dal blocco con sp = base+rel
+    private void exit(int op, int a, int b, int c, int d) {
+        emit(op | rel << 8, a, b, c, d);
+    }
+
+    private int kind(int p) {
+        return p >= 0 ? SLOT : kinds[-p];
+    }
+
+    private int value(int p) {
+        return values[-p];
+    }
+
+    // le celle da base in giu' (p >= 0) non sono del blocco: i valori simbolici vi vengono scritti subito
+    private void set(int p, int kind, int value) {
+        if (p >= 0) {
+            move(p, kind, value);
+            return;
+        }
+        if (-p >= kinds.length) {
+            kinds = Arrays.copyOf(kinds, 2 * -p);
+            values = Arrays.copyOf(values, 2 * -p);
+        }
+        kinds[-p] = kind;
+        values[-p] = value;
+    }
+
+    private void push(int kind, int value) {
+        rel--;
+        lowest = Math.min(lowest, rel);
+        set(rel, kind, value);
+    }
+
+    // scrive nella sua cella il valore simbolico in base+p
+    private void materialize(int p) {
+        if (kind(p) == SLOT) return;
+        move(p, kind(p), value(p));
+        set(p, SLOT, 0);
+    }
+
+    private void move(int p, int kind, int value) {
+        switch (kind) {
+            case CONST: emit(MOVC, p, value, 0, 0); break;
+            case FP: emit(MOVFP, p, value, 0, 0); break;
+            case HP: emit(MOVHP, p, value, 0, 0); break;
+            case RA: emit(MOVRA, p, 0, 0, 0); break;
+            case TM: emit(MOVTM, p, 0, 0, 0); break;
+        }
+    }
+
+    // scrive le celle da base+from alla cella sotto base
+    private void flush(int from) {
+        for (int p = from; p < 0; p++) materialize(p);
+    }
+
+    // somma (o differenza) delle due celle in cima: base+rel+1 = base+rel+1 (+|-) base+rel
+    private void add(boolean subtract) {
+        int r = rel, l = rel + 1;
+        rel++;
+        if (kind(r) == CONST) {
+            int c = subtract ? -value(r) : value(r);
+            if (kind(l) == CONST || kind(l) == FP || kind(l) == HP) set(l, kind(l), value(l) + c);
+            else {
+                materialize(l);
+                emit(ADDC, l, l, c, 0);
+            }
+        } else if (kind(l) == CONST && !subtract && (kind(r) == FP || kind(r) == HP)) {
+            set(l, kind(r), value(r) + value(l));
+        } else if (kind(l) == CONST) {
+            materialize(r);
+            emit(subtract ? RSUBC : ADDC, l, r, value(l), 0);
+            set(l, SLOT, 0);
+        } else {
+            materialize(l);
+            materialize(r);
+            emit(subtract ? SUB : ADD, l, l, r, 0);
+        }
+    }
+
+    private void multiply(boolean divide) {
+        int r = rel, l = rel + 1;
+        rel++;
+        if (kind(l) == CONST && kind(r) == CONST && !(divide && value(r) == 0)) {
+            set(l, CONST, divide ? value(l) / value(r) : value(l) * value(r));
+        } else if (kind(r) == CONST) {
+            materialize(l);
+            emit(divide ? DIVC : MULC, l, l, value(r), 0);
+        } else if (kind(l) == CONST && !divide) {
+            materialize(r);
+            emit(MULC, l, r, value(l), 0);
+            set(l, SLOT, 0);
+        } else {
+            materialize(l);
+            materialize(r);
+            emit(divide ? DIV : MUL, l, l, r, 0);
+        }
+    }
+
+    // base+p = memory[indirizzo in base+p + offset]
+    private void load(int p, int offset) {
+        if (kind(p) == CONST) emit(LOADC, p, value(p) + offset, 0, 0);
+        else if (kind(p) == FP) emit(LOADFP, p, value(p) + offset, 0, 0);
+        else {
+            materialize(p);
+            emit(offset == 0 ? LOAD : LOADFIELD, p, p, offset, 0);
+        }
+        set(p, SLOT, 0);
+    }
+
+    // sra, stm, sfp, shp con il valore in cima
+    private void setRegister(int op) {
+        flush(rel + 1);
+        materialize(rel);
+        emit(op, rel, 0, 0, 0);
+    }
+
+    // beq o bleq fra le due celle in cima (base+rel+1 == o <= base+rel); con due costanti il salto e' deciso qui
+    private void branch(boolean equal, int target, int next) {
+        int r = rel, l = rel + 1;
+        flush(rel + 2);
+        rel += 2;
+        if (kind(l) == CONST && kind(r) == CONST) {
+            boolean taken = equal ? value(l) == value(r) : value(l) <= value(r);
+            exit(JUMP, 0, 0, taken ? target : next, 0);
+        } else if (kind(r) == CONST) {
+            materialize(l);
+            exit(equal ? BEQC : BLEQC, l, value(r), target, next);
+        } else if (kind(l) == CONST) {
+            materialize(r);
+            exit(equal ? BEQC : BGEQC, r, value(l), target, next);
+        } else {
+            materialize(l);
+            materialize(r);
+            exit(equal ? BEQ : BLEQ, l, r, target, next);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package svm;
+
+import java.util.*;
+
+import static svm.RegisterCode.*;
+
+// interprete del codice tradotto da RegisterCode: le istruzioni lavorano sulle celle dello stack
+// base+k del blocco corrente (base e' sp all'ingresso del blocco) e sp viene aggiornato solo
+// all'uscita dal blocco. I blocchi sono tradotti quando vengono eseguiti e la traduzione e'
+// condivisa fra le RegisterExecuteVM create dallo stesso thread sullo stesso vettore code (senza
+// sincronizzazione, perche' ogni thread ha la propria). Stampe, istruzioni eseguite (quelle della
+// SVM, contate per blocco) e profondita' massima dello stack sono le stesse di ExecuteVM, salvo che
+// il programma termini con un'eccezione a meta' di un blocco.
+public class RegisterExecuteVM implements Interpreter {
+
+    public static final int MEMSIZE = ExecuteVM.MEMSIZE;
+
+    // codice tradotto da ogni thread per ogni vettore code, confrontati per identita'
+    private static final ThreadLocal<Map<int[], RegisterCode>> cache = ThreadLocal.withInitial(WeakHashMap::new);
+
+    private final RegisterCode translated;
+    private final int[] memory = new int[MEMSIZE];
+
+    private int hp = 0;
+    private long executed = 0;
+    private long dispatched = 0;
+    private int heapStart = 0; // primo indirizzo dello heap, dopo il segmento dati
+    private int minSp = MEMSIZE;
+    private final MemoTable memo = new MemoTable();
+
+    public RegisterExecuteVM(int[] code) {
+        this(code, new int[0], 0);
+    }
+
+    public RegisterExecuteVM(int[] code, int[] data, int dataSize) {
+        translated = cache.get().computeIfAbsent(code, RegisterCode::new);
+        System.arraycopy(data, 0, memory, 0, dataSize);
+        hp = heapStart = dataSize;
+    }
+
+    public void cpu() {
+        final int[] memory = this.memory;
+        final RegisterCode translated = this.translated;
+        final int[] blockAt = translated.blockAt;
+        int[] program = translated.program;
+        int ip = 0, sp = MEMSIZE, fp = MEMSIZE, hp = this.hp, ra = 0, tm = 0;
+        int minSp = this.minSp;
+        long executed = this.executed, dispatched = this.dispatched;
+        try {
+            block:
+            while (true) {
+                int pc = blockAt[ip];
+                if (pc == 0) { // blocco da tradurre
+                    pc = translated.block(ip);
+                    program = translated.program;
+                }
+                executed += program[pc + 1];
+                dispatched += program[pc + 3];
+                final int base = sp;
+                if (base + program[pc + 2] < minSp) minSp = base + program[pc + 2];
+                while (true) {
+                    pc += W;
+                    int head = program[pc], a = program[pc + 1], b = program[pc + 2];
+                    int address;
+                    switch (head & 255) {
+                        case MOVC:
+                            memory[base + a] = b;
+                            break;
+                        case MOVFP:
+                            memory[base + a] = fp + b;
+                            break;
+                        case MOVHP:
+                            memory[base + a] = hp + b;
+                            break;
+                        case MOVRA:
+                            memory[base + a] = ra;
+                            break;
+                        case MOVTM:
+                            memory[base + a] = tm;
+                            break;
+                        case ADD:
+                            memory[base + a] = memory[base + b] + memory[base + program[pc + 3]];
+                            break;
+                        case SUB:
+                            memory[base + a] = memory[base + b] - memory[base + program[pc + 3]];
+                            break;
+                        case MUL:
+                            memory[base + a] = memory[base + b] * memory[base + program[pc + 3]];
+                            break;
+                        case DIV:
+                            memory[base + a] = memory[base + b] / memory[base + program[pc + 3]];
+                            break;
+                        case ADDC:
+                            memory[base + a] = memory[base + b] + program[pc + 3];
+                            break;
+                        case RSUBC:
+                            memory[base + a] = program[pc + 3] - memory[base + b];
+                            break;
+                        case MULC:
+                            memory[base + a] = memory[base + b] * program[pc + 3];
+                            break;
+                        case DIVC:
+                            memory[base + a] = memory[base + b] / program[pc + 3];
+                            break;
+                        case LOAD:
+                            memory[base + a] = memory[memory[base + b]];
+                            break;
+                        case LOADC:
+                            memory[base + a] = memory[b];
+                            break;
+                        case LOADFP:
+                            memory[base + a] = memory[fp + b];
+                            break;
+                        case LOADOUT:
+                            address = fp;
+                            for (int d = 0; d < b; d++) address = memory[address];
+                            memory[base + a] = memory[address + program[pc + 3]];
+                            break;
+                        case LOADFIELD:
+                            memory[base + a] = memory[memory[base + b] + program[pc + 3]];
+                            break;
+                        case STORE:
+                            memory[memory[base + b]] = memory[base + a];
+                            break;
+                        case STOREC:
+                            memory[b] = memory[base + a];
+                            break;
+                        case STOREFP:
+                            memory[fp + b] = memory[base + a];
+                            break;
+                        case SETRA:
+                            ra = memory[base + a];
+                            break;
+                        case SETTM:
+                            tm = memory[base + a];
+                            break;
+                        case SETHP:
+                            hp = memory[base + a];
+                            break;
+                        case SETFP:
+                            fp = memory[base + a];
+                            break;
+                        case ADDHP:
+                            hp += a;
+                            break;
+                        case COPYFP:
+                            fp = base + a;
+                            break;
+                        case ENTER:
+                            fp = base + a;
+                            memory[fp - 1] = ra;
+                            break;
+                        case ALLOC:
+                            for (int k = 0; k < b; k++) memory[hp + b - 1 - k] = memory[base + a + k];
+                            memory[base + a + b - 1] = hp;
+                            hp += b;
+                            break;
+                        case NEW:
+                            address = hp + b;
+                            memory[address] = memory[base + a];
+                            for (int k = 0; k < b; k++) memory[hp + k] = memory[base + a + 1 + k];
+                            hp = address + 1;
+                            memory[base + a + b] = address;
+                            break;
+                        case PRINT:
+                            System.out.println((base + a < MEMSIZE) ? memory[base + a] : "Empty stack!");
+                            break;
+                        case JUMP:
+                            sp = base + (head >> 8);
+                            ip = program[pc + 3];
+                            continue block;
+                        case BEQ:
+                            sp = base + (head >> 8);
+                            ip = memory[base + a] == memory[base + b] ? program[pc + 3] : program[pc + 4];
+                            continue block;
+                        case BEQC:
+                            sp = base + (head >> 8);
+                            ip = memory[base + a] == b ? program[pc + 3] : program[pc + 4];
+                            continue block;
+                        case BLEQ:
+                            sp = base + (head >> 8);
+                            ip = memory[base + a] <= memory[base + b] ? program[pc + 3] : program[pc + 4];
+                            continue block;
+                        case BLEQC:
+                            sp = base + (head >> 8);
+                            ip = memory[base + a] <= b ? program[pc + 3] : program[pc + 4];
+                            continue block;
+                        case BGEQC:
+                            sp = base + (head >> 8);
+                            ip = memory[base + a] >= b ? program[pc + 3] : program[pc + 4];
+                            continue block;
+                        case JS:
+                            sp = base + (head >> 8);
+                            ip = memory[base + a];
+                            ra = program[pc + 4];
+                            continue block;
+                        case JSC:
+                            sp = base + (head >> 8);
+                            ip = a;
+                            ra = program[pc + 4];
+                            continue block;
+                        case JSRA:
+                            sp = base + (head >> 8);
+                            ip = ra;
+                            ra = program[pc + 4];
+                            continue block;
+                        case CALL:
+                            sp = base + (head >> 8);
+                            address = fp;
+                            for (int d = 0; d < a; d++) address = memory[address];
+                            memory[--sp] = address;
+                            ra = program[pc + 4];
+                            ip = memory[address + b];
+                            continue block;
+                        case CALLM:
+                            sp = base + (head >> 8);
+                            address = memory[memory[sp]];
+                            ra = program[pc + 4];
+                            ip = memory[address + a];
+                            continue block;
+                        case BRANCHMETHOD:
+                            sp = base + (head >> 8);
+                            ip = memory[memory[memory[sp]] + a];
+                            continue block;
+                        case RET:
+                            address = memory[base + a];
+                            ra = memory[fp - 1];
+                            sp = fp + b + 2;
+                            fp = memory[fp + b + 1];
+                            memory[--sp] = address;
+                            ip = ra;
+                            continue block;
+                        case MEMO:
+                            sp = base + (head >> 8);
+                            if (memo.find(a, memory, fp + 1, b)) {
+                                ra = memory[fp - 1];
+                                sp = fp + b + 2;
+                                fp = memory[fp + b + 1];
+                                memory[--sp] = memo.value();
+                                ip = ra;
+                            } else ip = program[pc + 4];
+                            continue block;
+                        case MEMORET:
+                            address = memory[base + a];
+                            memo.store(b, memory, fp + 1, program[pc + 3], address);
+                            ra = memory[fp - 1];
+                            sp = fp + program[pc + 3] + 2;
+                            fp = memory[fp + program[pc + 3] + 1];
+                            memory[--sp] = address;
+                            ip = ra;
+                            continue block;
+                        case HALT:
+                            sp = base + (head >> 8);
+                            return;
+                    }
+                }
+            }
+        } finally {
+            this.hp = hp;
+            this.minSp = minSp;
+            this.executed = executed;
+            this.dispatched = dispatched;
+        }
+    }
+
+    public long executedInstructions() {
+        return executed;
+    }
+
+    // istruzioni a registri eseguite (esclusi gli ingressi nei blocchi)
+    public long dispatchedInstructions() {
+        return dispatched;
+    }
+
+    public int maxStackDepth() {
+        return MEMSIZE - minSp;
+    }
+
+    public int heapSize() {
+        return hp - heapStart;
+    }
+
+    public MemoTable memoTable() {
+        return memo;
+    }
+}
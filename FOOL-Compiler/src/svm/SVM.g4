@@ -13,6 +13,9 @@ public int[] code = new int[ExecuteVM.CODESIZE];
 private int i = 0;
 private Map<String,Integer> labelDef = new HashMap<>();
 private Map<Integer,String> labelRef = new HashMap<>();
+public int[] data = new int[ExecuteVM.MEMSIZE]; // segmento dati, caricato in memoria a partire dall'indirizzo 0
+public int dataSize = 0;
+private Map<Integer,String> dataRef = new HashMap<>();
 }
 
 /*------------------------------------------------------------------
@@ -21,6 +24,8 @@ private Map<Integer,String> labelRef = new HashMap<>();
    
 assembly: instruction* EOF 	{ for (Integer j: labelRef.keySet()) 
 								code[j]=labelDef.get(labelRef.get(j)); 
+							  for (Integer j: dataRef.keySet()) 
+								data[j]=labelDef.get(dataRef.get(j)); 
 							} ;
 
 instruction : 
@@ -52,6 +57,37 @@ instruction :
 	  | COPYFP          {code[i++] = COPYFP;}   //
 	  | LOADHP          {code[i++] = LOADHP;}   //
 	  | STOREHP         {code[i++] = STOREHP;}   //
+	  | CALL d=INTEGER o=INTEGER {code[i++] = CALL;
+                       code[i++] = Integer.parseInt($d.text);
+                       code[i++] = Integer.parseInt($o.text);}
+	  | CALLM o=INTEGER {code[i++] = CALLM;
+                       code[i++] = Integer.parseInt($o.text);}
+	  | BRANCHMETHOD o=INTEGER {code[i++] = BRANCHMETHOD;
+                       code[i++] = Integer.parseInt($o.text);}
+	  | ENTER           {code[i++] = ENTER;}
+	  | RET n=INTEGER   {code[i++] = RET;
+                       code[i++] = Integer.parseInt($n.text);}
+	  | MEMO k=INTEGER n=INTEGER {code[i++] = MEMO;
+                       code[i++] = Integer.parseInt($k.text);
+                       code[i++] = Integer.parseInt($n.text);}
+	  | MEMORET k=INTEGER n=INTEGER {code[i++] = MEMORET;
+                       code[i++] = Integer.parseInt($k.text);
+                       code[i++] = Integer.parseInt($n.text);}
+	  | LOADLOCAL o=INTEGER {code[i++] = LOADLOCAL;
+                       code[i++] = Integer.parseInt($o.text);}
+	  | LOADOUTER d=INTEGER o=INTEGER {code[i++] = LOADOUTER;
+                       code[i++] = Integer.parseInt($d.text);
+                       code[i++] = Integer.parseInt($o.text);}
+	  | LOADFIELD o=INTEGER {code[i++] = LOADFIELD;
+                       code[i++] = Integer.parseInt($o.text);}
+	  | STORELOCAL o=INTEGER {code[i++] = STORELOCAL;
+                       code[i++] = Integer.parseInt($o.text);}
+	  | ALLOC n=INTEGER {code[i++] = ALLOC;
+                       code[i++] = Integer.parseInt($n.text);}
+	  | NEW n=INTEGER   {code[i++] = NEW;
+                       code[i++] = Integer.parseInt($n.text);}
+	  | WORD n=INTEGER  {data[dataSize++] = Integer.parseInt($n.text);}
+	  | WORD l=LABEL    {dataRef.put(dataSize++,$l.text);}
 	  | PRINT           {code[i++] = PRINT;}
 	  | HALT            {code[i++] = HALT;}
 	  ;
@@ -81,6 +117,20 @@ STOREFP	 : 'sfp' ;
 COPYFP   : 'cfp' ;      
 LOADHP	 : 'lhp' ;	
 STOREHP	 : 'shp' ;	
+CALL	 : 'call' ;	
+CALLM	 : 'callm' ;	
+BRANCHMETHOD : 'bm' ;	
+ENTER	 : 'enter' ;	
+RET	 : 'ret' ;	
+MEMO	 : 'memo' ;	
+MEMORET	 : 'mret' ;	
+LOADLOCAL : 'lloc' ;	
+LOADOUTER : 'lout' ;	
+LOADFIELD : 'lfield' ;	
+STORELOCAL : 'sloc' ;	
+ALLOC	 : 'alloc' ;	
+NEW	 : 'new' ;	
+WORD	 : 'word' ;	
 PRINT	 : 'print' ;	
 HALT	 : 'halt' ;	
  
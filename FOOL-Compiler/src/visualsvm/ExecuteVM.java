@@ -1,5 +1,6 @@
 package visualsvm;
 
+import svm.MemoTable;
 import svm.SVMParser;
 
 import java.awt.*;
@@ -17,6 +18,8 @@ public class ExecuteVM {
     public static final int CODESIZE = 10000;
     private int[] code;
     private int[] memory;
+    private int[] data; // segmento dati, copiato all'inizio della memoria
+    private MemoTable memo; // svuotata dal reset, come la memoria
 
     private int ip = 0;
     private int sp = MEMSIZE; // punta al top dello stack
@@ -50,11 +53,19 @@ public class ExecuteVM {
     private int debugLineCode = 0;
 
     public ExecuteVM(int[] code, int[] sourceMap, List<String> source) {
+        this(code, new int[0], 0, sourceMap, source);
+    }
+
+    public ExecuteVM(int[] code, int[] data, int dataSize, int[] sourceMap, List<String> source) {
         boolean printArgumentLineNumber = false;
         this.code = code;
+        this.data = Arrays.copyOf(data, dataSize);
         this.sourceMap = sourceMap;
         this.source = source;
         this.memory = new int[MEMSIZE];
+        System.arraycopy(this.data, 0, this.memory, 0, dataSize);
+        this.hp = dataSize;
+        this.memo = new MemoTable();
 
         this.frame = new JFrame("FOOL Virtual Machine");
         this.mainPanel = new JPanel();
@@ -220,12 +231,14 @@ public class ExecuteVM {
 
     private void reset() {
         this.memory = new int[MEMSIZE];
+        System.arraycopy(this.data, 0, this.memory, 0, this.data.length);
+        this.memo = new MemoTable();
         this.tm = 0;
         this.ra = 0;
         this.fp = MEMSIZE;
         this.ip = 0;
         this.sp = MEMSIZE;
-        this.hp = 0;
+        this.hp = this.data.length;
         this.nextStep.setEnabled(true);
         this.play.setEnabled(true);
         this.outputText.setText("");
@@ -484,6 +497,91 @@ public class ExecuteVM {
             case SVMParser.STOREHP:
                 hp = pop();
                 break;
+            case SVMParser.CALL:
+                v1 = fetch();
+                v2 = fetch();
+                address = fp;
+                for (int d = 0; d < v1; d++) address = memory[address];
+                push(address);
+                ra = ip;
+                ip = memory[address + v2];
+                break;
+            case SVMParser.CALLM:
+                v1 = fetch();
+                address = memory[memory[sp]];
+                ra = ip;
+                ip = memory[address + v1];
+                break;
+            case SVMParser.BRANCHMETHOD:
+                v1 = fetch();
+                address = memory[memory[sp]];
+                ip = memory[address + v1];
+                break;
+            case SVMParser.ENTER:
+                fp = sp;
+                push(ra);
+                break;
+            case SVMParser.RET:
+                v1 = fetch();
+                v2 = pop();
+                ra = memory[fp - 1];
+                sp = fp + v1 + 2;
+                fp = memory[fp + v1 + 1];
+                push(v2);
+                ip = ra;
+                break;
+            case SVMParser.MEMO:
+                v1 = fetch();
+                v2 = fetch();
+                if (memo.find(v1, memory, fp + 1, v2)) {
+                    ra = memory[fp - 1];
+                    sp = fp + v2 + 2;
+                    fp = memory[fp + v2 + 1];
+                    push(memo.value());
+                    ip = ra;
+                }
+                break;
+            case SVMParser.MEMORET:
+                v1 = fetch();
+                v2 = fetch();
+                memo.store(v1, memory, fp + 1, v2, memory[sp]);
+                v1 = pop();
+                ra = memory[fp - 1];
+                sp = fp + v2 + 2;
+                fp = memory[fp + v2 + 1];
+                push(v1);
+                ip = ra;
+                break;
+            case SVMParser.LOADLOCAL:
+                push(memory[fp + fetch()]);
+                break;
+            case SVMParser.LOADOUTER:
+                v1 = fetch();
+                address = fp;
+                for (int d = 0; d < v1; d++) address = memory[address];
+                push(memory[address + fetch()]);
+                break;
+            case SVMParser.LOADFIELD:
+                address = pop();
+                push(memory[address + fetch()]);
+                break;
+            case SVMParser.STORELOCAL:
+                memory[fp + fetch()] = pop();
+                break;
+            case SVMParser.ALLOC:
+                v1 = fetch();
+                for (int k = 0; k < v1; k++) memory[hp + v1 - 1 - k] = pop();
+                push(hp);
+                hp += v1;
+                break;
+            case SVMParser.NEW:
+                v1 = fetch();
+                address = hp + v1;
+                memory[address] = pop();
+                for (int k = 0; k < v1; k++) memory[hp + k] = pop();
+                hp = address + 1;
+                push(address);
+                break;
             case SVMParser.PRINT:
                 final String output = sp == MEMSIZE ? "EMPTY STACK" : Integer.toString(memory[sp]);
                 System.out.println(output);
@@ -14,6 +14,9 @@ public int[] sourceMap = new int[ExecuteVM.CODESIZE];
 private int i = 0;
 private Map<String,Integer> labelDef = new HashMap<>();
 private Map<Integer,String> labelRef = new HashMap<>();
+public int[] data = new int[ExecuteVM.MEMSIZE];
+public int dataSize = 0;
+private Map<Integer,String> dataRef = new HashMap<>();
 private void codem(int line, int ... c) {
    	for (int x : c) {
    		this.code[i] = x;
@@ -28,6 +31,8 @@ private void codem(int line, int ... c) {
 
 assembly: instruction* EOF 	{ for (Integer j: labelRef.keySet())
 								code[j]=labelDef.get(labelRef.get(j));
+							  for (Integer j: dataRef.keySet())
+								data[j]=labelDef.get(dataRef.get(j));
 							} ;
 
 instruction:
@@ -54,6 +59,21 @@ instruction:
 	  | t=COPYFP               { codem($t.line, COPYFP); } //copy in the FP register the currest stack pointer
 	  | t=LOADHP               { codem($t.line, LOADHP); } //push in the stack the content of the HP register
 	  | t=STOREHP              { codem($t.line, STOREHP); } //pop the top of the stack and copy it in the HP register
+	  | t=CALL d=INTEGER o=INTEGER { codem($t.line, CALL, Integer.parseInt($d.text), Integer.parseInt($o.text)); } //push the Access Link found following the static chain d times from FP, copy the instruction pointer in the RA register and jump to the address stored at offset o of the Access Link
+	  | t=CALLM o=INTEGER      { codem($t.line, CALLM, Integer.parseInt($o.text)); } //the top of the stack is an object: copy the instruction pointer in the RA register and jump to the method at offset o of its dispatch table
+	  | t=BRANCHMETHOD o=INTEGER { codem($t.line, BRANCHMETHOD, Integer.parseInt($o.text)); } //the top of the stack is an object: jump to the method at offset o of its dispatch table, leaving the RA register unchanged (tail call)
+	  | t=ENTER                { codem($t.line, ENTER); } //copy in the FP register the current stack pointer and push the content of the RA register
+	  | t=RET n=INTEGER        { codem($t.line, RET, Integer.parseInt($n.text)); } //pop the result, remove the frame of a function with n parameters, restore FP from the Control Link, push the result and jump to the return address
+	  | t=MEMO k=INTEGER n=INTEGER { codem($t.line, MEMO, Integer.parseInt($k.text), Integer.parseInt($n.text)); } //if the memo table k holds a result for the n parameters of the current frame, return it as RET n would
+	  | t=MEMORET k=INTEGER n=INTEGER { codem($t.line, MEMORET, Integer.parseInt($k.text), Integer.parseInt($n.text)); } //record the result on top of the stack in the memo table k for the n parameters of the current frame, then RET n
+	  | t=LOADLOCAL o=INTEGER  { codem($t.line, LOADLOCAL, Integer.parseInt($o.text)); } //push the content of the memory cell at address FP+o
+	  | t=LOADOUTER d=INTEGER o=INTEGER { codem($t.line, LOADOUTER, Integer.parseInt($d.text), Integer.parseInt($o.text)); } //push the content of the memory cell at offset o of the frame found following the static chain d times from FP
+	  | t=LOADFIELD o=INTEGER  { codem($t.line, LOADFIELD, Integer.parseInt($o.text)); } //replace the address on top of the stack with the content of the memory cell at that address plus o
+	  | t=STORELOCAL o=INTEGER { codem($t.line, STORELOCAL, Integer.parseInt($o.text)); } //pop the top of the stack and write it at address FP+o
+	  | t=ALLOC n=INTEGER      { codem($t.line, ALLOC, Integer.parseInt($n.text)); } //move the n values on top of the stack to the heap starting at HP (the deepest one first), push their starting address and add n to HP
+	  | t=NEW n=INTEGER        { codem($t.line, NEW, Integer.parseInt($n.text)); } //pop a dispatch pointer and the n field values below it, write them to the heap as an object (field i at object-i), push the object address and add n+1 to HP
+	  | WORD n=INTEGER         { data[dataSize++] = Integer.parseInt($n.text); } //append NUMBER to the data segment, loaded in memory from address 0
+	  | WORD l=LABEL           { dataRef.put(dataSize++,$l.text); } //append the location address pointed by LABEL to the data segment
 	  | t=PRINT                { codem($t.line, PRINT); } //visualize the top of the stack without removing it
 	  | t=HALT                 { codem($t.line, HALT); } //terminate the execution
 	  ;
@@ -83,6 +103,20 @@ STOREFP	 	: 'sfp' ;
 COPYFP   	: 'cfp' ;
 LOADHP	 	: 'lhp' ;
 STOREHP	 	: 'shp' ;
+CALL	 	: 'call' ;
+CALLM	 	: 'callm' ;
+BRANCHMETHOD: 'bm' ;
+ENTER	 	: 'enter' ;
+RET	 	: 'ret' ;
+MEMO		: 'memo' ;
+MEMORET		: 'mret' ;
+LOADLOCAL	: 'lloc' ;
+LOADOUTER	: 'lout' ;
+LOADFIELD	: 'lfield' ;
+STORELOCAL	: 'sloc' ;
+ALLOC	 	: 'alloc' ;
+NEW	 		: 'new' ;
+WORD	 	: 'word' ;
 PRINT	 	: 'print' ;
 HALT	 	: 'halt' ;
 
@@ -0,0 +1,22 @@
+package compiler;
+
+import java.util.*;
+
+// esegue tutti i test (dalla cartella FOOL-Compiler, dove si trovano i programmi di esempio):
+//   java compiler.AllTests
+// termina con codice 1 se qualche test fallisce
+public class AllTests {
+
+	public static void main(String[] args) {
+		List<FoolTest> tests = List.of(new CodeGenerationTest(), new AssemblerTest(), new BatchCompilerTest(),
+				new PeepholeTest(), new ConstantFoldingTest(), new JumpingCodeTest(), new ReachabilityTest(),
+				new TailCallTest(), new InliningTest(), new DevirtualizationTest(), new GetterTest(),
+				new CallInstructionsTest(), new LoadInstructionsTest(), new DisplayTest(), new AllocationTest(),
+				new StaticDataTest(), new InterpretersTest(), new JvmBackendTest(), new IntermediateRepresentationTest(),
+				new CommonSubexpressionTest(), new MemoizationTest(), new EscapeTest());
+		int failed = 0;
+		for (FoolTest t : tests) failed += t.run();
+		System.out.println(failed == 0 ? "\nAll tests passed" : "\n" + failed + " tests failed");
+		System.exit(failed == 0 ? 0 : 1);
+	}
+}
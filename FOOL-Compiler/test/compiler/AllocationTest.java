@@ -0,0 +1,14 @@
+package compiler;
+
+// istruzioni new e alloc per la creazione degli oggetti e delle dispatch table
+class AllocationTest extends FoolTest {
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.ALLOC);
+	}
+
+	void testSameHeap() {
+		for (Programs.Program p : Programs.ALL)
+			checkEquals(execute(compile(p.source())).heap(), execute(compile(p.source(), Opt.ALLOC)).heap(), p + ": heap words");
+	}
+}
@@ -0,0 +1,29 @@
+package compiler;
+
+import java.util.*;
+import org.antlr.v4.runtime.*;
+import compiler.lib.*;
+import svm.*;
+
+// l'assemblaggio in memoria produce gli stessi code e data delle azioni di SVM.g4
+class AssemblerTest extends FoolTest {
+
+	private static void checkSameAsParser(String name, CodeBuffer code) {
+		Assembler assembler = new Assembler(code.lines());
+		SVMParser parser = new SVMParser(new CommonTokenStream(new SVMLexer(CharStreams.fromString(code.toString()))));
+		parser.assembly();
+		checkEquals(0, assembler.errors, name + ": assembling errors");
+		checkEquals(Arrays.toString(parser.code), Arrays.toString(assembler.code), name + ": code");
+		checkEquals(parser.dataSize, assembler.dataSize, name + ": data size");
+		checkEquals(Arrays.toString(Arrays.copyOf(parser.data, parser.dataSize)),
+				Arrays.toString(Arrays.copyOf(assembler.data, assembler.dataSize)), name + ": data");
+	}
+
+	void testClassicCode() {
+		for (Programs.Program p : Programs.ALL) checkSameAsParser(p.name(), compile(p.source()));
+	}
+
+	void testOptimizedCode() {
+		for (Programs.Program p : Programs.ALL) checkSameAsParser(p.name(), compile(p.source(), O));
+	}
+}
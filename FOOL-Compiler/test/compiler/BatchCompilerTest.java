@@ -0,0 +1,38 @@
+package compiler;
+
+import java.nio.file.*;
+import java.util.*;
+
+// compilazione di piu' file in parallelo, con e senza ottimizzazioni
+class BatchCompilerTest extends FoolTest {
+
+	private static void checkBatch(boolean optimize, boolean ir) throws Exception {
+		Path dir = Files.createTempDirectory("batch");
+		List<Programs.Program> programs = Programs.ALL;
+		List<Path> files = new ArrayList<>();
+		for (Programs.Program p : programs)
+			files.add(Files.writeString(dir.resolve(p.name().replace(".fool", "") + ".fool"), p.source()));
+		List<BatchCompiler.Result> results = BatchCompiler.compileAll(files, 2, optimize, false, false, false, ir);
+		for (int i = 0; i < programs.size(); i++) {
+			BatchCompiler.Result r = results.get(i);
+			checkEquals(0, r.errors(), programs.get(i) + ": errors");
+			checkEquals(programs.get(i).expected(), execute(r.code()).output(), programs.get(i) + " (optimize " + optimize + ", ir " + ir + ")");
+		}
+		try (var written = Files.list(dir)) { // sorgenti e file .ir
+			for (Path f : written.toList()) Files.delete(f);
+		}
+		Files.delete(dir);
+	}
+
+	void testClassic() throws Exception {
+		checkBatch(false, false);
+	}
+
+	void testOptimized() throws Exception {
+		checkBatch(true, false);
+	}
+
+	void testOptimizedIR() throws Exception {
+		checkBatch(true, true);
+	}
+}
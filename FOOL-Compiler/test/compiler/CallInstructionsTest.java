@@ -0,0 +1,18 @@
+package compiler;
+
+// istruzioni call, callm, enter e ret al posto delle sequenze di istruzioni classiche
+class CallInstructionsTest extends FoolTest {
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.CALLS);
+		checkPrograms(Programs.ALL, Opt.CALLS, Opt.TAILCALLS, Opt.DEVIRT);
+	}
+
+	void testFewerInstructions() {
+		for (Programs.Program p : Programs.ALL) {
+			Run before = execute(compile(p.source())), after = execute(compile(p.source(), Opt.CALLS));
+			check(after.executed() < before.executed(), p + ": " + before.executed() + " -> " + after.executed() + " executed instructions");
+			checkEquals(before.maxStack(), after.maxStack(), p + ": stack depth");
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package compiler;
+
+import compiler.lib.*;
+
+// generazione del codice senza ottimizzazioni (CodeBuffer, CompilationContext)
+class CodeGenerationTest extends FoolTest {
+
+	void testClassicCode() {
+		checkPrograms(Programs.ALL);
+	}
+
+	// ogni compilazione ha il proprio contesto: etichette e codice delle funzioni ripartono da capo
+	void testIndependentCompilations() {
+		CodeBuffer first = compile(Programs.QUICKSORT.source());
+		compile(Programs.TEST.source());
+		checkEquals(first.lines(), compile(Programs.QUICKSORT.source()).lines(), "code of a second compilation");
+	}
+}
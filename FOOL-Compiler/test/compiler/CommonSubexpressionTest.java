@@ -0,0 +1,80 @@
+package compiler;
+
+import java.util.*;
+
+// CSEOptimizer: sottoespressioni aritmetiche e chiamate pure ripetute calcolate una volta
+class CommonSubexpressionTest extends FoolTest {
+
+	// norm(x, y) e x * y + 1 ripetute nello stesso blocco, per n da "n" a 1; norm(x, y) si ripete
+	// solo se e' al piu' "limit" (con limit 100 e n 300 quasi mai)
+	static String arithmetic(int limit, int n) {
+		return """
+				let
+				  fun norm:int (x:int, y:int) x * x + y * y;
+				  fun f:int (x:int, y:int)
+				    if (norm(x, y) <= %d) then {(x * y + 1) * (x * y + 1) - norm(x, y)} else {x * y - (x * y + 1) / 2};
+				  fun loop:int (n:int, acc:int) if (n <= 0) then {acc} else {loop(n - 1, acc + f(n, n - 3) + f(n - 1, 2))};
+				in print(loop(%d, 0));
+				""".formatted(limit, n);
+	}
+
+	static final String ARITHMETIC = arithmetic(100000, 100);
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.IR, Opt.CSE);
+		checkPrograms(Programs.ALL, Opt.IR, Opt.CSE, Opt.JUMPING, Opt.CALLS, Opt.LOADS, Opt.ALLOC, Opt.PEEPHOLE);
+		checkEquals(output(ARITHMETIC, Opt.IR), output(ARITHMETIC, Opt.IR, Opt.CSE), "arithmetic");
+	}
+
+	// una chiamata con effetti collaterali non viene riusata
+	void testImpureCalls() {
+		checkPrints("1 1 2", """
+				let
+				  fun p:int (x:int) print(x);
+				in print(p(1) + p(1));
+				""", Opt.IR, Opt.CSE);
+	}
+
+	void testFewerInstructions() {
+		Run before = execute(compile(ARITHMETIC, Opt.IR)), after = execute(compile(ARITHMETIC, Opt.IR, Opt.CSE));
+		check(after.executed() < before.executed(), before.executed() + " -> " + after.executed() + " executed instructions");
+	}
+
+	// con CSE quicksort (getter ripetuti, anche solo in un ramo come in filter) non esegue piu' istruzioni
+	void testNoSlowerOnQuicksort() {
+		for (Programs.Program p : List.of(Programs.QUICKSORT, Programs.TEST)) {
+			Run before = execute(compile(p.source(), Opt.IR)), after = execute(compile(p.source(), Opt.IR, Opt.CSE));
+			check(after.executed() <= before.executed(), p + ": " + before.executed() + " -> " + after.executed() + " executed instructions");
+		}
+	}
+
+	// CSE non fa mai eseguire piu' istruzioni: una ripetizione che e' solo su alcuni cammini
+	// (norm(x, y) con limit 100) non viene riusata, perche' la cella si paga su tutti
+	void testNeverSlower() {
+		Map<String, String> programs = new LinkedHashMap<>();
+		for (Programs.Program p : Programs.ALL) programs.put(p.name(), p.source());
+		programs.put("arithmetic 100", arithmetic(100, 300));
+		programs.put("arithmetic 10^5", ARITHMETIC);
+		for (Opt[] opts : List.of(opts(Opt.IR), opts(Opt.IR, Opt.JUMPING, Opt.CALLS, Opt.LOADS, Opt.PEEPHOLE)))
+			for (Map.Entry<String, String> p : programs.entrySet()) {
+				Run before = execute(compile(p.getValue(), opts)), after = execute(compile(p.getValue(), with(opts, Opt.CSE)));
+				check(after.executed() <= before.executed(), p.getKey() + " with " + Arrays.toString(opts) + ": "
+						+ before.executed() + " -> " + after.executed() + " executed instructions");
+			}
+	}
+
+	// il metodo eseguito e' quello della classe dell'oggetto: B.m stampa, quindi a.m() non e' pura
+	void testDispatchedMethods() {
+		checkPrints("7 7 14", """
+				let
+				  class A (x:int) {
+				    fun m:int () x * 100 + x;
+				  }
+				  class B (y:int) {
+				    fun m:int () print(y);
+				  }
+				  var a:A = new B(7);
+				in print(a.m() + a.m());
+				""", Opt.IR, Opt.CSE);
+	}
+}
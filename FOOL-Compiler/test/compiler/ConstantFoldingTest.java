@@ -0,0 +1,22 @@
+package compiler;
+
+// ConstantFoldingASTVisitor: costanti, identita' algebriche e if con condizione costante
+class ConstantFoldingTest extends FoolTest {
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.FOLD);
+	}
+
+	void testFolds() {
+		ConstantFoldingASTVisitor folding = new ConstantFoldingASTVisitor();
+		folding.visit(frontEnd(Programs.CONSTANTS.source()));
+		check(folding.folded > 0, "nothing folded");
+		Run before = execute(compile(Programs.CONSTANTS.source())), after = execute(compile(Programs.CONSTANTS.source(), Opt.FOLD));
+		check(after.executed() < before.executed(), before.executed() + " -> " + after.executed() + " executed instructions");
+	}
+
+	// una divisione per zero non viene calcolata a tempo di compilazione
+	void testDivisionByZero() {
+		checkPrints("7", "let fun f:int (x:int) if (x <= 0) then {7} else {x / 0}; in print(f(0));", Opt.FOLD);
+	}
+}
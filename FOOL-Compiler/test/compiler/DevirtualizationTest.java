@@ -0,0 +1,62 @@
+package compiler;
+
+import java.util.*;
+
+// chiamate dirette dei metodi delle classi esatte (ClassFlowASTVisitor)
+class DevirtualizationTest extends FoolTest {
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.DEVIRT);
+		checkPrograms(Programs.ALL, Opt.DEVIRT, Opt.TAILCALLS, Opt.CALLS);
+	}
+
+	// oggetti di B con tipo statico A: le chiamate su A passano dalla dispatch table
+	void testSubtypes() {
+		checkPrograms(Programs.SUBTYPES);
+		checkPrograms(Programs.SUBTYPES, Opt.DEVIRT);
+		checkPrograms(Programs.SUBTYPES, Opt.DEVIRT, Opt.CALLS, Opt.LOADS);
+	}
+
+	// un oggetto di B che arriva in una variabile di tipo A tramite print
+	void testThroughPrint() {
+		checkLastPrint(Programs.SUBTYPE_PRINT);
+		checkLastPrint(Programs.SUBTYPE_PRINT, Opt.DEVIRT);
+		checkLastPrint(Programs.SUBTYPE_PRINT, Opt.DEVIRT, Opt.TAILCALLS, Opt.CALLS, Opt.LOADS);
+		ClassFlowASTVisitor flow = new ClassFlowASTVisitor();
+		flow.visit(frontEnd(Programs.SUBTYPE_PRINT.source()));
+		check(!flow.exact("A"), "A receives objects of B");
+	}
+
+	// con oggetto null la chiamata diretta fallisce come quella tramite dispatch table
+	void testNullReceiver() {
+		String source = """
+				let
+				  class A (x:int) {
+				    fun m:int () 5;
+				  }
+				  fun f:int (a:A) a.m();
+				  var a:A = null;
+				in print(a.m() + f(a));
+				""";
+		for (Opt[] opts : List.of(opts(), opts(Opt.DEVIRT), opts(Opt.DEVIRT, Opt.TAILCALLS), opts(Opt.DEVIRT, Opt.CALLS, Opt.LOADS), O))
+			try {
+				String output = output(source, opts);
+				check(false, "no error with " + Arrays.toString(opts) + ", output " + output);
+			} catch (ArrayIndexOutOfBoundsException e) {
+				// la lettura della dispatch table di null esce dalla memoria
+			}
+	}
+
+	// solo le classi in cui finiscono oggetti di altre classi perdono le chiamate dirette
+	void testExactClasses() {
+		ClassFlowASTVisitor flow = new ClassFlowASTVisitor();
+		flow.visit(frontEnd(Programs.SUBTYPE_FLOWS.source()));
+		check(!flow.exact("A"), "A receives objects of B");
+		check(flow.exact("B") && flow.exact("Holder"), "B and Holder are exact");
+		flow = new ClassFlowASTVisitor();
+		flow.visit(frontEnd(Programs.METHODS.source()));
+		check(flow.exact("Acc"), "Acc is exact");
+		check(execute(compile(Programs.METHODS.source(), Opt.DEVIRT)).executed() < execute(compile(Programs.METHODS.source())).executed(),
+				"calls on Acc are not direct");
+	}
+}
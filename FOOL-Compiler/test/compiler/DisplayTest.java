@@ -0,0 +1,21 @@
+package compiler;
+
+import compiler.lib.*;
+
+// display al posto della catena statica per le variabili dei frame esterni
+class DisplayTest extends FoolTest {
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.DISPLAY);
+		checkPrograms(Programs.ALL, Opt.DISPLAY, Opt.CALLS);
+		checkPrograms(Programs.ALL, Opt.DISPLAY, Opt.LOADS);
+		checkPrograms(Programs.ALL, Opt.DISPLAY, Opt.JUMPING, Opt.TAILCALLS, Opt.CALLS, Opt.LOADS, Opt.ALLOC, Opt.DATA, Opt.PEEPHOLE);
+	}
+
+	// con lloc/lout i frame esterni raggiunti tramite display non usano lout
+	void testWithLoadInstructions() {
+		CodeBuffer code = compile(Programs.NESTED.source(), Opt.DISPLAY, Opt.LOADS);
+		check(code.lines().stream().anyMatch(l -> l.startsWith("lfield ")), "no display access in the code");
+		check(code.lines().stream().noneMatch(l -> l.startsWith("lout 2 ") || l.startsWith("lout 3 ")), "lout through the static chain");
+	}
+}
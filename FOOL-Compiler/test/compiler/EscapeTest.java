@@ -0,0 +1,81 @@
+package compiler;
+
+// EscapeASTVisitor: oggetti che non sfuggono allocati nel frame di chi li crea
+class EscapeTest extends FoolTest {
+
+	// un punto temporaneo per ogni iterazione, usato solo per chiamarne i metodi
+	static final String TEMPORARIES = """
+			let
+			  class Point (x:int, y:int) {
+			    fun norm:int () x * x + y * y;
+			    fun dot:int (px:int, py:int) x * px + y * py;
+			  }
+			  fun loop:int (n:int, acc:int)
+			    let var p:Point = new Point(n, n + 1);
+			    in if (n <= 0) then {acc} else {loop(n - 1, acc + p.norm() - p.dot(2, 1))};
+			in print(loop(100, 0));
+			""";
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.ESCAPE);
+		checkPrograms(Programs.ALL, with(O, Opt.ESCAPE));
+		String expected = output(TEMPORARIES);
+		for (String engine : ENGINES)
+			checkEquals(expected, execute(compile(TEMPORARIES, with(O, Opt.ESCAPE)), engine).output(), "temporaries on " + engine);
+	}
+
+	void testNoHeap() {
+		EscapeASTVisitor escape = new EscapeASTVisitor();
+		escape.visit(frontEnd(TEMPORARIES));
+		checkEquals(java.util.List.of("loop.p"), escape.allocated, "objects allocated in the frame");
+		checkEquals(0, execute(compile(TEMPORARIES, with(O, Opt.ESCAPE))).heap(), "heap words");
+	}
+
+	// un oggetto restituito, passato o salvato in un campo resta nello heap
+	void testEscaping() {
+		EscapeASTVisitor escape = new EscapeASTVisitor();
+		escape.visit(frontEnd(Programs.METHODS.source()));
+		checkEquals(java.util.List.of(), escape.allocated, "objects allocated in the frame");
+	}
+
+	// un metodo chiamato in coda su un oggetto del frame: l'oggetto resta nel frame e la chiamata non e' in coda
+	void testTailReceiver() {
+		String source = """
+				let
+				  class Point (x:int, y:int) {
+				    fun norm:int () x * x + y * y;
+				  }
+				  fun f:int (n:int)
+				    let var p:Point = new Point(n, n + 1);
+				    in p.norm();
+				in print(f(3) + f(4));
+				""";
+		EscapeASTVisitor escape = new EscapeASTVisitor();
+		escape.visit(frontEnd(source));
+		checkEquals(java.util.List.of("f.p"), escape.allocated, "objects allocated in the frame");
+		for (String engine : ENGINES) {
+			Run run = execute(compile(source, with(O, Opt.ESCAPE)), engine);
+			checkEquals("66", run.output(), "output on " + engine);
+			checkEquals(0, run.heap(), "heap words on " + engine);
+		}
+	}
+
+	// mk() espansa in use: la copia di new P(1, 2) va nel frame di use, l'originale resta nello heap
+	void testInlinedNew() {
+		String source = """
+				let
+				  class P (x:int, y:int) {
+				    fun sum:int () x + y;
+				  }
+				  fun mk:P () new P(1, 2);
+				  fun use:int (n:int)
+				    let var p:P = mk();
+				    in p.sum() + n;
+				  var q:P = mk();
+				in print(use(10) + q.sum());
+				""";
+		checkPrints("16", source, Opt.INLINE, Opt.ESCAPE);
+		for (String engine : ENGINES)
+			checkEquals("16", execute(compile(source, with(O, Opt.ESCAPE)), engine).output(), "output on " + engine);
+	}
+}
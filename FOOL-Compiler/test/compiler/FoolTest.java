@@ -0,0 +1,170 @@
+package compiler;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.file.*;
+import java.util.*;
+import org.antlr.v4.runtime.*;
+import compiler.exc.*;
+import compiler.lib.*;
+import svm.*;
+
+// base dei test: ogni metodo senza argomenti il cui nome inizia con "test" e' un test,
+// eseguito da run() (AllTests li esegue tutti). I test compilano programmi FOOL con le
+// opzioni indicate (Opt) ed eseguono il codice sulla SVM, confrontando le stampe con
+// quelle attese.
+abstract class FoolTest {
+
+	// passi sull'AST e opzioni di CompilationContext, nell'ordine in cui li applica compile()
+	enum Opt { INLINE, FOLD, DCE, ESCAPE, JUMPING, TAILCALLS, DEVIRT, GETTERS, CALLS, LOADS, DISPLAY, ALLOC, DATA, MEMO, IR, CSE, PEEPHOLE }
+
+	// opzioni di BatchCompiler -O (generazione diretta)
+	static final Opt[] O = {Opt.INLINE, Opt.FOLD, Opt.DCE, Opt.JUMPING, Opt.TAILCALLS, Opt.DEVIRT, Opt.GETTERS,
+			Opt.CALLS, Opt.LOADS, Opt.ALLOC, Opt.DATA, Opt.MEMO, Opt.PEEPHOLE};
+
+	static final List<String> ENGINES = List.of("switch", "decoded", "jit", "register");
+
+	// esegue i test della classe; ritorna il numero di test falliti
+	int run() {
+		List<Method> tests = new ArrayList<>();
+		for (Method m : getClass().getDeclaredMethods())
+			if (m.getName().startsWith("test") && m.getParameterCount() == 0) tests.add(m);
+		tests.sort(Comparator.comparing(Method::getName));
+		int failed = 0;
+		for (Method m : tests) {
+			try {
+				m.setAccessible(true);
+				m.invoke(this);
+				System.out.println("ok   " + getClass().getSimpleName() + "." + m.getName());
+			} catch (InvocationTargetException e) {
+				failed++;
+				System.out.println("FAIL " + getClass().getSimpleName() + "." + m.getName() + ": " + e.getCause());
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return failed;
+	}
+
+	static void check(boolean condition, String message) {
+		if (!condition) throw new AssertionError(message);
+	}
+
+	static void checkEquals(Object expected, Object actual, String what) {
+		if (!Objects.equals(expected, actual)) throw new AssertionError(what + ": expected <" + expected + "> but was <" + actual + ">");
+	}
+
+	static Opt[] opts(Opt... opts) {
+		return opts;
+	}
+
+	// "opts" piu' "more"
+	static Opt[] with(Opt[] opts, Opt... more) {
+		Opt[] all = Arrays.copyOf(opts, opts.length + more.length);
+		System.arraycopy(more, 0, all, opts.length, more.length);
+		return all;
+	}
+
+	static String source(String file) {
+		try {
+			return Files.readString(Paths.get(file));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// lexer, parser, generazione dell'AST, symbol table e type checking: il programma deve essere corretto
+	static Node frontEnd(String source) {
+		FOOLLexer lexer = new FOOLLexer(CharStreams.fromString(source));
+		FOOLParser parser = new FOOLParser(new CommonTokenStream(lexer));
+		Node ast = new ASTGenerationSTVisitor().visit(parser.prog());
+		CompilationContext ctx = new CompilationContext();
+		new SymbolTableASTVisitor(ctx).visit(ast);
+		try {
+			new TypeCheckEASTVisitor(ctx).visit(ast);
+		} catch (IncomplException | TypeException e) {
+			ctx.typeErrors++;
+		}
+		check(lexer.lexicalErrors + parser.getNumberOfSyntaxErrors() + ctx.stErrors + ctx.typeErrors == 0,
+				"front-end errors in the test program");
+		return ast;
+	}
+
+	// codice della SVM di "source" con le opzioni "opts"
+	static CodeBuffer compile(String source, Opt... opts) {
+		Set<Opt> o = opts.length == 0 ? EnumSet.noneOf(Opt.class) : EnumSet.copyOf(Arrays.asList(opts));
+		Node ast = frontEnd(source);
+		if (o.contains(Opt.INLINE)) ast = new InliningASTVisitor().visit(ast);
+		if (o.contains(Opt.FOLD)) ast = new ConstantFoldingASTVisitor().visit(ast);
+		if (o.contains(Opt.DCE)) new ReachabilityASTVisitor().visit(ast);
+		if (o.contains(Opt.MEMO) || o.contains(Opt.CSE)) new PurityASTVisitor().visit(ast);
+		if (o.contains(Opt.ESCAPE)) new EscapeASTVisitor().visit(ast);
+		CompilationContext ctx = new CompilationContext();
+		ctx.jumpingCode = o.contains(Opt.JUMPING);
+		ctx.tailCalls = o.contains(Opt.TAILCALLS);
+		ctx.devirtualize = o.contains(Opt.DEVIRT);
+		ctx.inlineGetters = o.contains(Opt.GETTERS);
+		ctx.callInstructions = o.contains(Opt.CALLS);
+		ctx.loadInstructions = o.contains(Opt.LOADS);
+		ctx.display = o.contains(Opt.DISPLAY);
+		ctx.allocInstructions = o.contains(Opt.ALLOC);
+		ctx.staticData = o.contains(Opt.DATA);
+		ctx.memoize = o.contains(Opt.MEMO);
+		CodeBuffer code;
+		if (o.contains(Opt.IR)) {
+			IR.Program program = new IRGenerationASTVisitor(ctx).generate(ast);
+			if (o.contains(Opt.CSE)) program = new CSEOptimizer().optimize(program);
+			code = new IRCodeGenerator(ctx).generate(program);
+		} else code = new CodeGenerationASTVisitor(ctx).generate(ast);
+		return o.contains(Opt.PEEPHOLE) ? new PeepholeOptimizer().optimize(code) : code;
+	}
+
+	// esecuzione del codice su un interprete della SVM
+	record Run(String output, long executed, int maxStack, int heap) {}
+
+	static Run execute(CodeBuffer code, String engine) {
+		Assembler assembler = new Assembler(code.lines());
+		check(assembler.errors == 0, "generated code does not assemble");
+		Interpreter vm = switch (engine) {
+			case "switch" -> new ExecuteVM(assembler.code, assembler.data, assembler.dataSize);
+			case "decoded" -> new DecodedExecuteVM(assembler.code, assembler.data, assembler.dataSize);
+			case "jit" -> new JitExecuteVM(assembler.code, assembler.data, assembler.dataSize);
+			case "register" -> new RegisterExecuteVM(assembler.code, assembler.data, assembler.dataSize);
+			default -> throw new IllegalArgumentException(engine);
+		};
+		PrintStream stdout = System.out;
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(output));
+		try {
+			vm.cpu();
+		} finally { System.setOut(stdout); }
+		return new Run(output.toString().replace(System.lineSeparator(), " ").trim(), vm.executedInstructions(),
+				vm.maxStackDepth(), vm.heapSize());
+	}
+
+	static Run execute(CodeBuffer code) {
+		return execute(code, "switch");
+	}
+
+	// stampe del programma (separate da spazi) compilato con "opts"
+	static String output(String source, Opt... opts) {
+		return execute(compile(source, opts)).output();
+	}
+
+	// ogni programma compilato con "opts" stampa quanto atteso
+	static void checkPrograms(List<Programs.Program> programs, Opt... opts) {
+		for (Programs.Program p : programs)
+			checkEquals(p.expected(), output(p.source(), opts), p + " with " + Arrays.toString(opts));
+	}
+
+	// l'ultima stampa del programma compilato con "opts" e' quella attesa
+	static void checkLastPrint(Programs.Program p, Opt... opts) {
+		String output = output(p.source(), opts);
+		checkEquals(p.expected(), output.substring(output.lastIndexOf(' ') + 1), p + " with " + Arrays.toString(opts));
+	}
+
+	// il programma compilato con "opts" stampa "expected"
+	static void checkPrints(String expected, String source, Opt... opts) {
+		checkEquals(expected, output(source, opts), "output with " + Arrays.toString(opts));
+	}
+}
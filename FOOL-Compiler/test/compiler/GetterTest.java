@@ -0,0 +1,30 @@
+package compiler;
+
+// getter sostituiti dalla lettura del campo
+class GetterTest extends FoolTest {
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.DEVIRT, Opt.GETTERS);
+		checkPrograms(Programs.ALL, Opt.DEVIRT, Opt.GETTERS, Opt.LOADS);
+	}
+
+	void testFewerInstructions() {
+		Run before = execute(compile(Programs.LIST.source(), Opt.DEVIRT)),
+			after = execute(compile(Programs.LIST.source(), Opt.DEVIRT, Opt.GETTERS));
+		check(after.executed() < before.executed(), before.executed() + " -> " + after.executed() + " executed instructions");
+	}
+
+	// a.m() e a.k() con a di tipo A e oggetto di B: niente lettura del campo di A
+	void testSubtypes() {
+		checkPrograms(Programs.SUBTYPES, Opt.GETTERS);
+		checkPrograms(Programs.SUBTYPES, Opt.DEVIRT, Opt.GETTERS, Opt.LOADS);
+		checkPrograms(Programs.SUBTYPES, Opt.INLINE, Opt.FOLD, Opt.DCE, Opt.DEVIRT, Opt.GETTERS, Opt.CALLS, Opt.LOADS, Opt.ALLOC, Opt.DATA);
+	}
+
+	// a.m() con a:A e oggetto di B arrivato tramite print: niente lettura del campo di A
+	void testThroughPrint() {
+		checkLastPrint(Programs.SUBTYPE_PRINT, Opt.GETTERS);
+		checkLastPrint(Programs.SUBTYPE_PRINT, Opt.DEVIRT, Opt.GETTERS, Opt.LOADS);
+		checkLastPrint(Programs.SUBTYPE_PRINT, O);
+	}
+}
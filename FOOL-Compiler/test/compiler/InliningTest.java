@@ -0,0 +1,31 @@
+package compiler;
+
+// InliningASTVisitor: espansione delle chiamate di funzioni piccole
+class InliningTest extends FoolTest {
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.INLINE);
+		checkPrograms(Programs.ALL, Opt.INLINE, Opt.FOLD, Opt.DCE);
+	}
+
+	// argomenti con effetti collaterali valutati una volta sola, dall'ultimo come nelle chiamate
+	void testArgumentsEvaluatedOnce() {
+		checkPrints("2 1 6", """
+				let
+				  fun twice:int (x:int, y:int) x + x + y + y;
+				in print(twice(print(1), print(2)));
+				""", Opt.INLINE);
+	}
+
+	// apply(b, 3) con b di B e parametro di A: la copia chiamerebbe A.m su un oggetto di B
+	void testSubtypes() {
+		checkPrograms(Programs.SUBTYPES, Opt.INLINE);
+		checkPrograms(Programs.SUBTYPES, Opt.INLINE, Opt.DEVIRT);
+	}
+
+	void testInlines() {
+		InliningASTVisitor inliner = new InliningASTVisitor();
+		inliner.visit(frontEnd(Programs.QUICKSORT.source()));
+		check(inliner.inlined > 0, "nothing inlined");
+	}
+}
@@ -0,0 +1,11 @@
+package compiler;
+
+// codice generato passando per l'IR (IRGenerationASTVisitor, IRCodeGenerator)
+class IntermediateRepresentationTest extends FoolTest {
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.IR);
+		checkPrograms(Programs.ALL, Opt.IR, Opt.JUMPING, Opt.CALLS, Opt.LOADS, Opt.ALLOC);
+		checkPrograms(Programs.ALL, Opt.INLINE, Opt.FOLD, Opt.DCE, Opt.IR, Opt.JUMPING, Opt.CALLS, Opt.LOADS, Opt.ALLOC, Opt.PEEPHOLE);
+	}
+}
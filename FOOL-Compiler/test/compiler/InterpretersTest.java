@@ -0,0 +1,39 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+
+// interpreti della SVM (switch, decodifica anticipata, JIT, registri): stampe, istruzioni eseguite,
+// profondita' dello stack e heap coincidono su codice classico e ottimizzato
+class InterpretersTest extends FoolTest {
+
+	private static void checkEngines(String name, CodeBuffer code) {
+		Run expected = execute(code, "switch");
+		for (String engine : ENGINES) checkEquals(expected, execute(code, engine), name + " on " + engine);
+	}
+
+	void testClassicCode() {
+		for (Programs.Program p : Programs.ALL) checkEngines(p.name(), compile(p.source()));
+	}
+
+	void testOptimizedCode() {
+		for (Programs.Program p : Programs.ALL) checkEngines(p.name(), compile(p.source(), O));
+		checkEngines(Programs.TAILCALLS.name(), compile(Programs.TAILCALLS.source(), O));
+	}
+
+	// ogni funzione compilata dal JIT alla prima chiamata
+	void testJitCompiledFunctions() {
+		String threshold = System.getProperty("svm.jit.threshold");
+		System.setProperty("svm.jit.threshold", "1");
+		try {
+			for (Programs.Program p : Programs.ALL)
+				for (Opt[] opts : List.of(opts(), O)) {
+					CodeBuffer code = compile(p.source(), opts);
+					checkEquals(execute(code, "switch"), execute(code, "jit"), p + " with " + Arrays.toString(opts));
+				}
+		} finally {
+			if (threshold == null) System.clearProperty("svm.jit.threshold");
+			else System.setProperty("svm.jit.threshold", threshold);
+		}
+	}
+}
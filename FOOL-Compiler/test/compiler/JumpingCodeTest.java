@@ -0,0 +1,25 @@
+package compiler;
+
+// condizioni tradotte in salti (jumping code)
+class JumpingCodeTest extends FoolTest {
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.JUMPING);
+		checkPrograms(Programs.ALL, Opt.JUMPING, Opt.PEEPHOLE);
+	}
+
+	// i valori booleani restano 0/1 quando non sono condizioni
+	void testBooleanValues() {
+		checkPrints("1 0 1", """
+				let
+				  var t:bool = 1 <= 2 && !(3 == 4);
+				  var f:bool = t && false || 2 >= 3;
+				in print(if (print(t) == print(f)) then {0} else {1});
+				""", Opt.JUMPING);
+	}
+
+	void testFewerInstructions() {
+		Run before = execute(compile(Programs.CONDITIONS.source())), after = execute(compile(Programs.CONDITIONS.source(), Opt.JUMPING));
+		check(after.executed() < before.executed(), before.executed() + " -> " + after.executed() + " executed instructions");
+	}
+}
@@ -0,0 +1,75 @@
+package compiler;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.*;
+
+// JVMCodeGenerationASTVisitor: i programmi compilati per la JVM stampano come sulla SVM
+class JvmBackendTest extends FoolTest {
+
+	// carica le classi generate in un class loader dedicato ed esegue main, catturandone le stampe
+	private static String runJvm(Map<String, byte[]> classes, String name) throws ReflectiveOperationException {
+		ClassLoader loader = new ClassLoader(JvmBackendTest.class.getClassLoader()) {
+			@Override
+			protected Class<?> findClass(String className) throws ClassNotFoundException {
+				byte[] bytes = classes.get(className.replace('.', '/'));
+				if (bytes == null) throw new ClassNotFoundException(className);
+				return defineClass(className, bytes, 0, bytes.length);
+			}
+		};
+		Method main = loader.loadClass(name).getMethod("main", String[].class);
+		PrintStream stdout = System.out;
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(output));
+		try {
+			main.invoke(null, (Object) new String[0]);
+		} finally { System.setOut(stdout); }
+		return output.toString().replace(System.lineSeparator(), " ").trim();
+	}
+
+	void testSameOutput() throws ReflectiveOperationException {
+		for (Programs.Program p : Programs.ALL)
+			checkEquals(p.expected(), runJvm(new JVMCodeGenerationASTVisitor().generate(frontEnd(p.source()), "Test"), "Test"), p.name());
+	}
+
+	// la ricorsione in coda profonda non esaurisce lo stack della JVM
+	void testTailCalls() throws ReflectiveOperationException {
+		checkEquals(Programs.TAILCALLS.expected(),
+				runJvm(new JVMCodeGenerationASTVisitor().generate(frontEnd(Programs.TAILCALLS.source()), "Test"), "Test"), "tailcalls.fool");
+	}
+
+	private static String runJvm(String source) throws ReflectiveOperationException {
+		return runJvm(new JVMCodeGenerationASTVisitor().generate(frontEnd(source), "Test"), "Test");
+	}
+
+	// oggetti di B con tipo statico A: si chiama il metodo di B allo stesso offset
+	void testSubtypes() throws ReflectiveOperationException {
+		for (Programs.Program p : Programs.SUBTYPES) checkEquals(p.expected(), runJvm(p.source()), p.name());
+		String output = runJvm(Programs.SUBTYPE_PRINT.source());
+		checkEquals(Programs.SUBTYPE_PRINT.expected(), output.substring(output.lastIndexOf(' ') + 1), Programs.SUBTYPE_PRINT.name());
+	}
+
+	// parametri, Access Link e this mai letti occupano comunque le loro variabili locali
+	void testUnusedArguments() throws ReflectiveOperationException {
+		checkEquals("12", runJvm("""
+				let
+				  class C (v:int) {
+				    fun k:int (x:int) 7;
+				  }
+				  fun f:int (x:int, y:bool) 5;
+				  fun g:int (x:int) let fun h:int (y:int) 0; in h(x);
+				  var c:C = new C(1);
+				in print(f(1, true) + c.k(2) + g(3));
+				"""), "unused arguments");
+	}
+
+	// un'eccezione del programma esce da main (exit code diverso da 0)
+	void testFailure() throws ReflectiveOperationException {
+		try {
+			runJvm("print(1 / 0);");
+			check(false, "no exception from main");
+		} catch (InvocationTargetException e) {
+			check(e.getCause() instanceof ArithmeticException, "exception from main: " + e.getCause());
+		}
+	}
+}
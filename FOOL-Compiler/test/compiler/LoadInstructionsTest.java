@@ -0,0 +1,15 @@
+package compiler;
+
+// istruzioni lloc e lout per le variabili locali e dei frame esterni
+class LoadInstructionsTest extends FoolTest {
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.LOADS);
+		checkPrograms(Programs.ALL, Opt.LOADS, Opt.CALLS, Opt.TAILCALLS);
+	}
+
+	void testFewerInstructions() {
+		Run before = execute(compile(Programs.NESTED.source())), after = execute(compile(Programs.NESTED.source(), Opt.LOADS));
+		check(after.executed() < before.executed(), before.executed() + " -> " + after.executed() + " executed instructions");
+	}
+}
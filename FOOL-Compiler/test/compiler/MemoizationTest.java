@@ -0,0 +1,36 @@
+package compiler;
+
+// memorizzazione delle funzioni pure ricorsive (istruzioni memo e mret)
+class MemoizationTest extends FoolTest {
+
+	static final String FIB = """
+			let
+			  fun fib:int (n:int) if (n <= 1) then {n} else {fib(n - 1) + fib(n - 2)};
+			  fun binomial:int (n:int, k:int)
+			    if ((k == 0) || (k == n)) then {1} else {binomial(n - 1, k - 1) + binomial(n - 1, k)};
+			in print(fib(20) + binomial(16, 8));
+			""";
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.MEMO);
+		checkPrograms(Programs.ALL, O);
+		for (String engine : ENGINES)
+			checkEquals("19635", execute(compile(FIB, O), engine).output(), "fib and binomial on " + engine);
+	}
+
+	// una funzione che stampa non viene memorizzata
+	void testImpureFunctions() {
+		checkPrints("1 0 1 2", """
+				let
+				  fun f:int (n:int) if (n <= 1) then {print(n)} else {f(n - 1) + f(n - 2)};
+				in print(f(3));
+				""", O);
+	}
+
+	void testFewerInstructions() {
+		Run after = execute(compile(FIB, O));
+		Run before = execute(compile(FIB, Opt.INLINE, Opt.FOLD, Opt.DCE, Opt.JUMPING, Opt.TAILCALLS, Opt.DEVIRT, Opt.GETTERS,
+				Opt.CALLS, Opt.LOADS, Opt.ALLOC, Opt.DATA, Opt.PEEPHOLE));
+		check(after.executed() * 10 < before.executed(), before.executed() + " -> " + after.executed() + " executed instructions");
+	}
+}
@@ -0,0 +1,17 @@
+package compiler;
+
+// ottimizzatore peephole sul codice della SVM
+class PeepholeTest extends FoolTest {
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.PEEPHOLE);
+		checkPrograms(Programs.ALL, Opt.JUMPING, Opt.CALLS, Opt.LOADS, Opt.PEEPHOLE);
+	}
+
+	void testFewerInstructions() {
+		for (Programs.Program p : Programs.ALL) {
+			Run before = execute(compile(p.source())), after = execute(compile(p.source(), Opt.PEEPHOLE));
+			check(after.executed() < before.executed(), p + ": " + before.executed() + " -> " + after.executed() + " executed instructions");
+		}
+	}
+}
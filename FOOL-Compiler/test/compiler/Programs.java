@@ -0,0 +1,141 @@
+package compiler;
+
+import java.util.*;
+
+// programmi FOOL usati dai test, con le stampe attese (separate da spazi)
+final class Programs {
+
+	record Program(String name, String source, String expected) {
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	private Programs() {}
+
+	static final Program TEST = new Program("test.fool", FoolTest.source("test.fool"), "1 1 2 2 2 2 3 3 4 4 5 5");
+
+	static final Program QUICKSORT = new Program("quicksort.fool", FoolTest.source("quicksort.fool"), "1 2 2 3 4 5");
+
+	// senza chiamate in coda esaurisce lo stack
+	static final Program TAILCALLS = new Program("tailcalls.fool", FoolTest.source("tailcalls.fool"), "5001000");
+
+	// costruisce una lista e ne somma gli elementi tramite i getter
+	static final Program LIST = new Program("list", """
+			let
+			  class List (f:int, r:List) {
+			    fun first:int () f;
+			    fun rest:List () r;
+			  }
+			  fun build:List (n:int, l:List) if (n <= 0) then {l} else {build(n - 1, new List(n, l))};
+			  fun sum:int (l:List) if (l == null) then {0} else {l.first() + sum(l.rest())};
+			in print(sum(build(50, null)));
+			""", "1275");
+
+	// oggetto accumulatore usato solo tramite metodi
+	static final Program METHODS = new Program("methods", """
+			let
+			  class Acc (v:int, step:int) {
+			    fun get:int () v;
+			    fun next:Acc () new Acc(v + step, step);
+			    fun scaled:int (k:int) v * k;
+			  }
+			  fun loop:int (a:Acc, n:int, sum:int)
+			    if (n <= 0) then {sum} else {loop(a.next(), n - 1, sum + a.scaled(2) - a.get())};
+			  var start:Acc = new Acc(0, 1);
+			in print(loop(start, 500, 0));
+			""", "124750");
+
+	// funzioni annidate che leggono parametri e variabili di tutti i livelli esterni
+	static final Program NESTED = new Program("nested", """
+			let
+			  var g:int = 1;
+			  fun f1:int (x1:int)
+			    let fun f2:int (x2:int)
+			      let fun f3:int (x3:int)
+			        let fun loop:int (n:int, acc:int) if (n <= 0) then {acc} else {loop(n - 1, acc + g + x1 + x2 + x3)};
+			        in loop(10, 0);
+			      in f3(3) + x1;
+			    in f2(2) * 2;
+			in print(f1(1));
+			""", "142");
+
+	// condizioni composte da confronti, not, && e ||, anche come valori
+	static final Program CONDITIONS = new Program("conditions", """
+			let
+			  fun count:int (x:int, n:int)
+			    if (x <= 0) then {n}
+			    else {if ((x == 7 || x >= 50) && !(x <= 3)) then {count(x - 1, n + 1)} else {count(x - 1, n)}};
+			  var b:bool = (3 >= 2) && !(1 == 2) || false;
+			in print(if (b) then {count(60, 0)} else {0 - 1});
+			""", "12");
+
+	// espressioni costanti, identita' algebriche e if con condizione costante
+	static final Program CONSTANTS = new Program("constants", """
+			let
+			  fun f:int (x:int)
+			    if (!!(x <= 0) || false) then {x * (2 + 3) - 0 + (10 / 2) * 1}
+			    else {if (1 <= 2 && true) then {f(x - 1 + 0) + 0 * 7 + 1} else {x / 0}};
+			in print(f(4) + 2 * 3 - 6 / 2);
+			""", "12");
+
+	// oggetti di una classe assegnati a variabili, parametri e campi dichiarati di un'altra
+	// classe (TypeRels accetta qualunque classe al posto di un'altra): i metodi chiamati
+	// devono essere quelli della classe dell'oggetto
+	static final Program SUBTYPE = new Program("subtype", """
+			let
+			  class A (x:int) {
+			    fun m:int () x;
+			    fun k:int () x + 1;
+			  }
+			  class B (y:int) {
+			    fun m:int () y + 100;
+			    fun k:int () y + 200;
+			  }
+			  var a:A = new B(5);
+			in print(a.m() + a.k());
+			""", "310");
+
+	static final Program SUBTYPE_FLOWS = new Program("subtype flows", """
+			let
+			  class A (x:int) {
+			    fun m:int (n:int) x + n;
+			    fun k:int () x + 1;
+			  }
+			  class B (y:int) {
+			    fun m:int (n:int) y * n;
+			    fun k:int () y + 200;
+			  }
+			  class Holder (a:A) {
+			    fun get:int () a.k();
+			    fun first:A () a;
+			  }
+			  fun apply:int (a:A, n:int) a.m(n);
+			  fun total:int (a:A) a.m(1) + a.k();
+			  var b:B = new B(5);
+			  var h:Holder = new Holder(b);
+			  var a:A = h.first();
+			in print(apply(b, 3) + h.get() + a.k() + total(new A(1)) + total(new B(5)));
+			""", "639");
+
+	// l'oggetto di B arriva nella variabile di tipo A attraverso print, che ha il tipo del suo
+	// argomento; la prima stampa e' l'indirizzo dell'oggetto (dipende dalle opzioni), quindi
+	// "expected" e' solo l'ultima stampa (checkLastPrint)
+	static final Program SUBTYPE_PRINT = new Program("subtype print", """
+			let
+			  class A (x:int) {
+			    fun m:int () x;
+			  }
+			  class B (y:int) {
+			    fun m:int () y + 100;
+			  }
+			  var a:A = print(new B(5));
+			in print(a.m());
+			""", "105");
+
+	// i programmi senza chiamate in coda profonde
+	static final List<Program> ALL = List.of(TEST, QUICKSORT, LIST, METHODS, NESTED, CONDITIONS, CONSTANTS);
+
+	static final List<Program> SUBTYPES = List.of(SUBTYPE, SUBTYPE_FLOWS);
+}
@@ -0,0 +1,53 @@
+package compiler;
+
+import java.util.*;
+
+// ReachabilityASTVisitor: eliminazione di classi, metodi e funzioni non raggiungibili
+class ReachabilityTest extends FoolTest {
+
+	private static final String PRELUDE = """
+			let
+			  class Used (v:int) {
+			    fun get:int () v;
+			    fun unused:int () v + 1;
+			  }
+			  class Unused (v:int) {
+			    fun get:int () v;
+			  }
+			  fun lib:int (x:int) let fun helper:int (y:int) y * 2; in helper(x);
+			  fun dead:int (x:int) lib(x);
+			  var o:Used = new Used(5);
+			in print(lib(3) + o.get());
+			""";
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.DCE);
+		checkPrints("11", PRELUDE, Opt.DCE);
+	}
+
+	void testRemoved() {
+		ReachabilityASTVisitor reachability = new ReachabilityASTVisitor();
+		reachability.visit(frontEnd(PRELUDE));
+		checkEquals(Set.of("class Unused", "method Used.unused", "function dead"), new HashSet<>(reachability.removed), "removed declarations");
+		check(compile(PRELUDE, Opt.DCE).size() < compile(PRELUDE).size(), "no code removed");
+	}
+
+	// a.m() con a di tipo A e oggetto di B: la dispatch table di B deve avere m e k
+	void testSubtypes() {
+		checkPrograms(Programs.SUBTYPES, Opt.DCE);
+		checkPrograms(Programs.SUBTYPES, Opt.DCE, Opt.DEVIRT, Opt.CALLS, Opt.LOADS, Opt.DATA);
+		ReachabilityASTVisitor reachability = new ReachabilityASTVisitor();
+		reachability.visit(frontEnd(Programs.SUBTYPE.source()));
+		checkEquals(List.of("class A"), reachability.removed, "removed declarations");
+	}
+
+	// l'oggetto di B arriva in a:A tramite print: B.m resta nella dispatch table
+	void testThroughPrint() {
+		checkLastPrint(Programs.SUBTYPE_PRINT, Opt.DCE);
+		checkLastPrint(Programs.SUBTYPE_PRINT, O);
+		checkLastPrint(Programs.SUBTYPE_PRINT, with(O, Opt.IR, Opt.CSE));
+		ReachabilityASTVisitor reachability = new ReachabilityASTVisitor();
+		reachability.visit(frontEnd(Programs.SUBTYPE_PRINT.source()));
+		checkEquals(List.of("class A"), reachability.removed, "removed declarations"); // nessun oggetto di A
+	}
+}
@@ -0,0 +1,15 @@
+package compiler;
+
+// dispatch table nel segmento dati invece che costruite a tempo di esecuzione
+class StaticDataTest extends FoolTest {
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.DATA);
+		checkPrograms(Programs.ALL, Opt.ALLOC, Opt.DATA);
+	}
+
+	void testFewerInstructions() {
+		Run before = execute(compile(Programs.METHODS.source())), after = execute(compile(Programs.METHODS.source(), Opt.DATA));
+		check(after.executed() < before.executed(), before.executed() + " -> " + after.executed() + " executed instructions");
+	}
+}
@@ -0,0 +1,65 @@
+package compiler;
+
+import java.util.*;
+import compiler.lib.*;
+
+// chiamate in coda: riusano il frame del chiamante
+class TailCallTest extends FoolTest {
+
+	void testSameOutput() {
+		checkPrograms(Programs.ALL, Opt.TAILCALLS);
+		checkPrograms(Programs.ALL, Opt.TAILCALLS, Opt.CALLS, Opt.LOADS);
+	}
+
+	// la ricorsione profonda di tailcalls.fool esaurisce lo stack senza chiamate in coda
+	void testConstantStack() {
+		for (Opt[] opts : List.of(opts(Opt.TAILCALLS), opts(Opt.TAILCALLS, Opt.CALLS, Opt.LOADS), O)) {
+			Run run = execute(compile(Programs.TAILCALLS.source(), opts));
+			checkEquals(Programs.TAILCALLS.expected(), run.output(), "output with " + Arrays.toString(opts));
+			check(run.maxStack() < 100, "stack depth " + run.maxStack() + " with " + Arrays.toString(opts));
+		}
+	}
+
+	// costo delle chiamate in coda: senza istruzioni di chiamata la copia degli argomenti (senza
+	// quelli gia' al loro posto) costa meno dell'uscita dalla funzione corrente; con call e ret
+	// la chiamata normale costa tre istruzioni e quella in coda puo' costarne qualcuna in piu'
+	// (al piu' il 5% sui programmi di prova), in cambio dello stack costante
+	void testCost() {
+		for (Programs.Program p : Programs.ALL) {
+			Run calls = execute(compile(p.source())), tail = execute(compile(p.source(), Opt.TAILCALLS));
+			check(tail.executed() <= calls.executed(), p + ": " + calls.executed() + " -> " + tail.executed() + " executed instructions");
+			check(tail.maxStack() <= calls.maxStack(), p + ": stack " + calls.maxStack() + " -> " + tail.maxStack());
+			calls = execute(compile(p.source(), Opt.CALLS, Opt.LOADS));
+			tail = execute(compile(p.source(), Opt.TAILCALLS, Opt.CALLS, Opt.LOADS));
+			check(tail.executed() <= calls.executed() * 1.05, p + " with calls: " + calls.executed() + " -> " + tail.executed() + " executed instructions");
+			check(tail.maxStack() <= calls.maxStack(), p + " with calls: stack " + calls.maxStack() + " -> " + tail.maxStack());
+		}
+	}
+
+	// chiamata in coda di un metodo e di una funzione annidata
+	void testMethodsAndNested() {
+		checkPrints("20300", """
+				let
+				  class Counter (step:int) {
+				    fun scale:int (n:int) n * step;
+				  }
+				  fun total:int (c:Counter, n:int) c.scale(n);
+				  fun sum:int (n:int)
+				    let fun loop:int (i:int, acc:int) if (i >= n + 1) then {acc} else {loop(i + 1, acc + i)};
+				    in loop(0, 0) + total(new Counter(1), n);
+				in print(sum(200));
+				""", Opt.TAILCALLS);
+	}
+
+	// il metodo chiamato in coda e' quello della classe dell'oggetto (TypeRels accetta oggetti
+	// di altre classi): il salto passa dalla dispatch table con bm, su tutti gli interpreti
+	void testSubtypes() {
+		for (Opt[] opts : List.of(opts(Opt.TAILCALLS), opts(Opt.TAILCALLS, Opt.CALLS, Opt.LOADS),
+				opts(Opt.TAILCALLS, Opt.DEVIRT), O))
+			checkPrograms(Programs.SUBTYPES, opts);
+		CodeBuffer code = compile(Programs.SUBTYPE_FLOWS.source(), Opt.TAILCALLS);
+		check(code.lines().stream().anyMatch(l -> l.startsWith("bm ")), "no bm in the code");
+		for (String engine : ENGINES)
+			checkEquals(Programs.SUBTYPE_FLOWS.expected(), execute(code, engine).output(), "output on " + engine);
+	}
+}